@@ -0,0 +1,63 @@
+package benchmark;
+
+import common.DBUtils;
+import org.apache.derby.jdbc.EmbeddedDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Embedded Derby database used by benchmarks.
+ * Rows are generated by DatasetGenerator and inserted by JDBC batches, so that datasets with millions
+ * of rows can be loaded in reasonable time.
+ *
+ * @author agent agent@local
+ */
+class BenchmarkDatabase {
+
+    private static final long SEED = 42L;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Creates empty database with all tables
+     *
+     * @param name name of the database, e.g. memory:PropertyEvidenceBenchmark
+     * @return data source of the database
+     * @throws SQLException when tables cannot be created
+     */
+    static DataSource create(String name) throws SQLException {
+        EmbeddedDataSource source = new EmbeddedDataSource();
+        source.setDatabaseName(name);
+        source.setCreateDatabase("create");
+        DBUtils.executeSqlScript(source, BenchmarkDatabase.class.getClassLoader().getResource("createClientTable.sql"));
+        DBUtils.executeSqlScript(source, BenchmarkDatabase.class.getClassLoader().getResource("createPropertyTable.sql"));
+        DBUtils.executeSqlScript(source, BenchmarkDatabase.class.getClassLoader().getResource("createContractTable.sql"));
+        return source;
+    }
+
+    /**
+     * Drops all tables of the database
+     *
+     * @param source data source of the database
+     * @throws SQLException when tables cannot be dropped
+     */
+    static void drop(DataSource source) throws SQLException {
+        DBUtils.executeSqlScript(source, BenchmarkDatabase.class.getClassLoader().getResource("dropContractTable.sql"));
+        DBUtils.executeSqlScript(source, BenchmarkDatabase.class.getClassLoader().getResource("dropPropertyTable.sql"));
+        DBUtils.executeSqlScript(source, BenchmarkDatabase.class.getClassLoader().getResource("dropClientTable.sql"));
+    }
+
+    /**
+     * Inserts given number of generated clients, properties and contracts.
+     * Ids of all entities are therefore 1 to size.
+     *
+     * @param source data source of the database
+     * @param size   number of rows in each table
+     * @throws SQLException when rows cannot be inserted
+     */
+    static void fill(DataSource source, int size) throws SQLException {
+        new DatasetGenerator(SEED, Runtime.getRuntime().availableProcessors()).writeToDatabase(source, size, size, size);
+    }
+}
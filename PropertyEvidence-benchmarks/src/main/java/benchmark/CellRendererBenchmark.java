@@ -0,0 +1,87 @@
+package benchmark;
+
+import backend.Client;
+import backend.Contract;
+import backend.Property;
+import frontend.CellFormats;
+import frontend.ContractGUI.ContractTableModel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.swing.*;
+import javax.swing.table.TableCellRenderer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rendering the visible rows of the contract table, as a repaint during scrolling does. The legacy
+ * variant uses default renderers of JTable, which call toString of the values for every cell, the cached variant
+ * uses the renderers of CellFormats. Cells are rendered the way JTable paints them, each looking its renderer up.
+ * Run with -prof gc to compare allocations per repaint.
+ *
+ * @author agent agent@local
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class CellRendererBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final int VISIBLE_ROWS = 40;
+
+    private JTable legacyTable;
+    private JTable cachedTable;
+    private int firstRow;
+
+    @Setup
+    public void setUp() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            legacyTable = table();
+            cachedTable = table();
+            CellFormats.install(cachedTable);
+        });
+    }
+
+    private static JTable table() {
+        DatasetGenerator generator = new DatasetGenerator(5L, 1);
+        List<Client> clients = generator.clients(1, ROWS);
+        List<Property> properties = generator.properties(1, ROWS);
+        List<Contract> contracts = generator.contracts(1, ROWS, ROWS, ROWS);
+        for (Contract contract : contracts) {
+            /* generated contracts reference their parties by id only */
+            contract.setClient(clients.get((int) (contract.getClient().getId() - 1)));
+            contract.setProperty(properties.get((int) (contract.getProperty().getId() - 1)));
+        }
+        ContractTableModel model = new ContractTableModel();
+        model.replaceAll(contracts);
+        return new JTable(model);
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        repaint(legacyTable, blackhole);
+    }
+
+    @Benchmark
+    public void cached(Blackhole blackhole) {
+        repaint(cachedTable, blackhole);
+    }
+
+    /**
+     * Renders visible rows moving by one row, as the table does while scrolling. Benchmark thread stands in
+     * for the event dispatch thread, the tables are not touched by any other thread.
+     */
+    private void repaint(JTable table, Blackhole blackhole) {
+        firstRow = (firstRow + 1) % (ROWS - VISIBLE_ROWS);
+        for (int row = firstRow; row < firstRow + VISIBLE_ROWS; row++) {
+            for (int column = 0; column < table.getColumnCount(); column++) {
+                TableCellRenderer cellRenderer = table.getCellRenderer(row, column);
+                blackhole.consume(cellRenderer.getTableCellRendererComponent(table, table.getValueAt(row, column),
+                        false, false, row, column));
+            }
+        }
+    }
+}
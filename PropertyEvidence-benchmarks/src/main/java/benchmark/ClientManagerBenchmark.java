@@ -0,0 +1,44 @@
+package benchmark;
+
+import backend.Client;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of ClientManagerImpl.
+ *
+ * @author agent agent@local
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ClientManagerBenchmark {
+
+    @Benchmark
+    public Client createClient(Dataset dataset, Cursor cursor) {
+        Client client = new Client();
+        client.setFullName(cursor.nextName());
+        client.setPhoneNumber("+421944000000");
+        dataset.clientManager.createClient(client);
+        return client;
+    }
+
+    @Benchmark
+    public Client getClientById(Dataset dataset, Cursor cursor) {
+        return dataset.clientManager.getClientById(cursor.nextId(dataset));
+    }
+
+    @Benchmark
+    public List<Client> getClients(Dataset dataset) {
+        return dataset.clientManager.getClients();
+    }
+
+    @Benchmark
+    public List<Client> findClientsByName(Dataset dataset, Cursor cursor) {
+        return dataset.clientManager.findClientsByName(cursor.nextSurname());
+    }
+}
@@ -0,0 +1,57 @@
+package benchmark;
+
+import backend.Client;
+import backend.Contract;
+import backend.Property;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of ContractManagerImpl, including hydration of contracts with their clients and properties.
+ *
+ * @author agent agent@local
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ContractManagerBenchmark {
+
+    @Benchmark
+    public Contract getContractById(Dataset dataset, Cursor cursor) {
+        return dataset.contractManager.getContractById(cursor.nextId(dataset));
+    }
+
+    @Benchmark
+    public List<Contract> findContractsByClient(Dataset dataset, Cursor cursor) {
+        Client client = new Client();
+        client.setId(cursor.nextId(dataset));
+        return dataset.contractManager.findContractsByClient(client);
+    }
+
+    @Benchmark
+    public List<Contract> findContractByProperty(Dataset dataset, Cursor cursor) {
+        Property property = new Property();
+        property.setId(cursor.nextId(dataset));
+        return dataset.contractManager.findContractByProperty(property);
+    }
+
+    @Benchmark
+    public List<Contract> findContractsByClientName(Dataset dataset, Cursor cursor) {
+        return dataset.contractManager.findContractsByClientName(cursor.nextSurname());
+    }
+
+    @Benchmark
+    public List<Contract> findContractsByPropertyAddress(Dataset dataset, Cursor cursor) {
+        return dataset.contractManager.findContractsByPropertyAddress(cursor.nextStreet());
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Contract> getAllContracts(Dataset dataset) {
+        return dataset.contractManager.getAllContracts();
+    }
+}
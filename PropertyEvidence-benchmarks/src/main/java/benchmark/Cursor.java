@@ -0,0 +1,48 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+
+/**
+ * Per-thread source of ids and search terms, seeded so that every run queries the same values.
+ *
+ * @author agent agent@local
+ */
+@State(Scope.Thread)
+public class Cursor {
+
+    private SplittableRandom random;
+
+    @Setup
+    public void setUp() {
+        random = new SplittableRandom(7L);
+    }
+
+    long nextId(Dataset dataset) {
+        return 1 + random.nextInt(dataset.size);
+    }
+
+    String nextSurname() {
+        return DatasetGenerator.SURNAMES[random.nextInt(DatasetGenerator.SURNAMES.length)];
+    }
+
+    String nextStreet() {
+        return DatasetGenerator.STREETS[random.nextInt(DatasetGenerator.STREETS.length)] + " " + (1 + random.nextInt(150));
+    }
+
+    String nextName() {
+        return DatasetGenerator.FIRST_NAMES[random.nextInt(DatasetGenerator.FIRST_NAMES.length)]
+                + " " + nextSurname();
+    }
+
+    String nextAddress() {
+        return nextStreet() + ", " + DatasetGenerator.CITIES[random.nextInt(DatasetGenerator.CITIES.length)];
+    }
+
+    long nextPrice() {
+        return 50_000 + random.nextInt(500_000);
+    }
+}
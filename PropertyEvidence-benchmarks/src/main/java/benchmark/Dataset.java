@@ -0,0 +1,38 @@
+package benchmark;
+
+import backend.*;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Benchmark state holding database filled with given number of clients, properties and contracts.
+ *
+ * @author agent agent@local
+ */
+@State(Scope.Benchmark)
+public class Dataset {
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    DataSource dataSource;
+    ClientManager clientManager;
+    PropertyManager propertyManager;
+    ContractManager contractManager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        dataSource = BenchmarkDatabase.create("memory:PropertyEvidenceBenchmark");
+        BenchmarkDatabase.fill(dataSource, size);
+        clientManager = new ClientManagerImpl(dataSource);
+        propertyManager = new PropertyManagerImpl(dataSource);
+        contractManager = new ContractManagerImpl(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        BenchmarkDatabase.drop(dataSource);
+    }
+}
@@ -0,0 +1,486 @@
+package benchmark;
+
+import backend.Client;
+import backend.Contract;
+import backend.Property;
+import backend.PropertyType;
+import common.DBUtils;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Seeded generator of clients, properties and contracts accepted by ValidateInput.
+ *
+ * Rows are generated in chunks, each chunk with its own random generator derived from the seed
+ * and the chunk index, so the output does not depend on the number of threads. Chunks are generated
+ * in parallel and written in order, either by JDBC batches into empty tables, or into CSV files.
+ * Generated ids are 1 to n in each table, contracts refer to existing clients and properties.
+ *
+ * @author agent agent@local
+ */
+public class DatasetGenerator {
+
+    static final String[] FIRST_NAMES = {"John", "Jane", "Peter", "Maria", "Martin", "Eva", "Michal", "Anna",
+            "Tomas", "Lucia", "Jakub", "Zuzana", "Lukas", "Katarina", "Marek", "Petra", "Jan", "Veronika",
+            "Ondrej", "Barbora", "David", "Tereza", "Filip", "Simona"};
+    static final String[] SURNAMES = {"Doe", "Novak", "Horvath", "Kovac", "Svoboda", "Balaz", "Varga", "Toth",
+            "Dvorak", "Cerny", "Prochazka", "Kucera", "Vesely", "Krejci", "Nemec", "Pokorny", "Marek", "Pospisil",
+            "Hajek", "Jelinek", "Kral", "Ruzicka", "Benes", "Fiala", "Sedlak", "Dolezal", "Zeman", "Kolar"};
+    static final String[] STREETS = {"Hlavna", "Botanicka", "Krizna", "Masarykova", "Stefanikova", "Kosicka",
+            "Palackeho", "Husova", "Komenskeho", "Skolska", "Zahradna", "Nadrazni", "Lipova", "Polna", "Dlouha"};
+    static final String[] CITIES = {"Praha", "Brno", "Bratislava", "Ostrava", "Kosice", "Plzen", "Olomouc",
+            "Zilina", "Liberec", "Nitra"};
+
+    /* relative number of properties in the city, and mean price per square meter in CZK */
+    private static final int[] CITY_WEIGHTS = {30, 14, 16, 8, 7, 5, 5, 5, 5, 5};
+    private static final int[] CITY_PRICE_PER_METER = {110_000, 85_000, 95_000, 45_000, 50_000, 60_000, 60_000,
+            55_000, 55_000, 50_000};
+
+    private static final PropertyType[] TYPES = {PropertyType.ONE_ROOM_FLAT, PropertyType.TWO_ROOM_FLAT,
+            PropertyType.THREE_ROOM_FLAT, PropertyType.FAMILY_HOUSE, PropertyType.HUT};
+    private static final int[] TYPE_WEIGHTS = {15, 35, 30, 17, 3};
+    private static final int[] TYPE_AREA_MEAN = {35, 55, 75, 140, 40};
+    private static final int[] TYPE_AREA_DEVIATION = {8, 10, 12, 40, 15};
+
+    private static final int CHUNK_SIZE = 10_000;
+    private static final long CLIENT_STREAM = 1L;
+    private static final long PROPERTY_STREAM = 2L;
+    private static final long CONTRACT_STREAM = 3L;
+
+    private final long seed;
+    private final int threads;
+    private final LocalDate lastSigningDate;
+
+    /**
+     * Creates a new instance of DatasetGenerator, with contracts signed until the end of 2017.
+     *
+     * @param seed    seed of the generated data
+     * @param threads number of generating threads
+     */
+    public DatasetGenerator(long seed, int threads) {
+        this(seed, threads, LocalDate.of(2017, 12, 31));
+    }
+
+    /**
+     * Creates a new instance of DatasetGenerator.
+     *
+     * @param seed            seed of the generated data
+     * @param threads         number of generating threads
+     * @param lastSigningDate latest generated date of signing, must not be in the future
+     */
+    public DatasetGenerator(long seed, int threads, LocalDate lastSigningDate) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        if (lastSigningDate == null) {
+            throw new IllegalArgumentException("Last date of signing is null");
+        }
+        this.seed = seed;
+        this.threads = threads;
+        this.lastSigningDate = lastSigningDate;
+    }
+
+    /**
+     * Generates clients with ids from first to first + count - 1
+     *
+     * @param first id of the first client
+     * @param count number of clients
+     * @return generated clients
+     */
+    public List<Client> clients(long first, int count) {
+        List<Client> result = new ArrayList<>(count);
+        forEachInRange(CLIENT_STREAM, first, count, (id, random) -> result.add(client(id, random)));
+        return result;
+    }
+
+    /**
+     * Generates properties with ids from first to first + count - 1
+     *
+     * @param first id of the first property
+     * @param count number of properties
+     * @return generated properties
+     */
+    public List<Property> properties(long first, int count) {
+        List<Property> result = new ArrayList<>(count);
+        forEachInRange(PROPERTY_STREAM, first, count, (id, random) -> result.add(property(id, random)));
+        return result;
+    }
+
+    /**
+     * Generates contracts with ids from first to first + count - 1. Client and property of the contract
+     * have only id set.
+     *
+     * @param first      id of the first contract
+     * @param count      number of contracts
+     * @param clients    number of existing clients
+     * @param properties number of existing properties
+     * @return generated contracts
+     */
+    public List<Contract> contracts(long first, int count, long clients, long properties) {
+        List<Contract> result = new ArrayList<>(count);
+        forEachInRange(CONTRACT_STREAM, first, count, (id, random) -> result.add(contract(id, random, clients, properties)));
+        return result;
+    }
+
+    /**
+     * Inserts generated rows into empty CLIENT, PROPERTY and CONTRACT tables by JDBC batches
+     *
+     * @param dataSource data source of the database
+     * @param clients    number of clients
+     * @param properties number of properties
+     * @param contracts  number of contracts
+     * @throws SQLException when rows cannot be inserted
+     */
+    public void writeToDatabase(DataSource dataSource, long clients, long properties, long contracts) throws SQLException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement st = conn.prepareStatement("INSERT INTO CLIENT (fullname, phone) VALUES (?,?)")) {
+                for (List<Client> chunk : inOrder(executor, clients, (first, count) -> clients(first, count))) {
+                    for (Client client : chunk) {
+                        st.setString(1, client.getFullName());
+                        st.setString(2, client.getPhoneNumber());
+                        st.addBatch();
+                    }
+                    st.executeBatch();
+                    conn.commit();
+                }
+            }
+            try (PreparedStatement st = conn.prepareStatement(
+                    "INSERT INTO Property (area, price, type, address) VALUES (?,?,?,?)")) {
+                for (List<Property> chunk : inOrder(executor, properties, (first, count) -> properties(first, count))) {
+                    for (Property property : chunk) {
+                        st.setBigDecimal(1, property.getArea());
+                        st.setBigDecimal(2, property.getPrice());
+                        st.setString(3, property.getType().toString());
+                        st.setString(4, property.getAddress());
+                        st.addBatch();
+                    }
+                    st.executeBatch();
+                    conn.commit();
+                }
+            }
+            try (PreparedStatement st = conn.prepareStatement(
+                    "INSERT INTO CONTRACT (clientid, propertyid, dateofsigning) VALUES (?,?,?)")) {
+                for (List<Contract> chunk : inOrder(executor, contracts,
+                        (first, count) -> contracts(first, count, clients, properties))) {
+                    for (Contract contract : chunk) {
+                        st.setLong(1, contract.getClient().getId());
+                        st.setLong(2, contract.getProperty().getId());
+                        st.setDate(3, DBUtils.toSqlDate(contract.getDateOfSigning()));
+                        st.addBatch();
+                    }
+                    st.executeBatch();
+                    conn.commit();
+                }
+            }
+            conn.setAutoCommit(true);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Writes generated rows into clients.csv, properties.csv and contracts.csv in given directory.
+     * Files have header row and ids in the first column, so they can be loaded by SYSCS_UTIL.SYSCS_IMPORT_DATA.
+     *
+     * @param directory  output directory
+     * @param clients    number of clients
+     * @param properties number of properties
+     * @param contracts  number of contracts
+     * @throws IOException when files cannot be written
+     */
+    public void writeCsv(Path directory, long clients, long properties, long contracts) throws IOException {
+        Files.createDirectories(directory);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            writeCsvFile(directory.resolve("clients.csv"), "id,fullname,phone",
+                    inOrder(executor, clients, (first, count) -> {
+                        StringBuilder csv = new StringBuilder(count * 40);
+                        for (Client client : clients(first, count)) {
+                            csv.append(client.getId()).append(',');
+                            appendQuoted(csv, client.getFullName()).append(',');
+                            appendQuoted(csv, client.getPhoneNumber()).append('\n');
+                        }
+                        return csv;
+                    }));
+            writeCsvFile(directory.resolve("properties.csv"), "id,area,price,type,address",
+                    inOrder(executor, properties, (first, count) -> {
+                        StringBuilder csv = new StringBuilder(count * 60);
+                        for (Property property : properties(first, count)) {
+                            csv.append(property.getId()).append(',')
+                                    .append(property.getArea().toPlainString()).append(',')
+                                    .append(property.getPrice().toPlainString()).append(',');
+                            appendQuoted(csv, property.getType().toString()).append(',');
+                            appendQuoted(csv, property.getAddress()).append('\n');
+                        }
+                        return csv;
+                    }));
+            writeCsvFile(directory.resolve("contracts.csv"), "id,clientid,propertyid,dateofsigning",
+                    inOrder(executor, contracts, (first, count) -> {
+                        StringBuilder csv = new StringBuilder(count * 32);
+                        for (Contract contract : contracts(first, count, clients, properties)) {
+                            csv.append(contract.getId()).append(',')
+                                    .append(contract.getClient().getId()).append(',')
+                                    .append(contract.getProperty().getId()).append(',')
+                                    .append(contract.getDateOfSigning()).append('\n');
+                        }
+                        return csv;
+                    }));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void writeCsvFile(Path file, String header, Iterable<StringBuilder> chunks) throws IOException {
+        try (Writer writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write(header);
+            writer.write('\n');
+            for (StringBuilder chunk : chunks) {
+                writer.append(chunk);
+            }
+        }
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder csv, String value) {
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    /* ---------------------------------------------------------------------
+     * Generation of single entities
+     * ---------------------------------------------------------------------
+     */
+
+    private Client client(long id, SplittableRandom random) {
+        Client client = new Client();
+        client.setId(id);
+        client.setFullName(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + SURNAMES[random.nextInt(SURNAMES.length)]);
+        StringBuilder phone = new StringBuilder(13);
+        if (random.nextInt(3) == 0) {
+            phone.append("09");
+            appendDigits(phone, random, 8);
+        } else {
+            phone.append(random.nextBoolean() ? "+4219" : "+4207");
+            appendDigits(phone, random, 8);
+        }
+        client.setPhoneNumber(phone.toString());
+        return client;
+    }
+
+    private Property property(long id, SplittableRandom random) {
+        int type = weighted(random, TYPE_WEIGHTS);
+        int city = weighted(random, CITY_WEIGHTS);
+
+        double area = TYPE_AREA_MEAN[type] + gaussian(random) * TYPE_AREA_DEVIATION[type];
+        area = Math.max(12, area);
+        double pricePerMeter = CITY_PRICE_PER_METER[city] * Math.exp(0.25 * gaussian(random));
+        long price = Math.max(1, Math.round(area * pricePerMeter / 1000)) * 1000;
+
+        Property property = new Property();
+        property.setId(id);
+        property.setType(TYPES[type]);
+        property.setArea(BigDecimal.valueOf(Math.round(area * 100), 2));
+        property.setPrice(BigDecimal.valueOf(price * 100, 2));
+        property.setAddress(STREETS[random.nextInt(STREETS.length)] + " " + (1 + random.nextInt(150))
+                + ", " + CITIES[city]);
+        return property;
+    }
+
+    private Contract contract(long id, SplittableRandom random, long clients, long properties) {
+        if (clients < 1 || properties < 1) {
+            throw new IllegalArgumentException("Contracts need at least one client and one property");
+        }
+        Client client = new Client();
+        /* squared uniform value makes some clients sign many contracts and most of them only a few */
+        double skew = random.nextDouble();
+        client.setId(1 + Math.min(clients - 1, (long) (skew * skew * clients)));
+        Property property = new Property();
+        property.setId(1 + (id - 1) % properties);
+
+        Contract contract = new Contract();
+        contract.setId(id);
+        contract.setClient(client);
+        contract.setProperty(property);
+        contract.setDateOfSigning(signingDate(random));
+        return contract;
+    }
+
+    /**
+     * Generates date of signing within the last 20 years, more recent dates are more likely
+     * and contracts signed on weekend are mostly moved to the nearest working day
+     */
+    private LocalDate signingDate(SplittableRandom random) {
+        long daysBack = Math.min(20 * 365, (long) (-Math.log(1 - random.nextDouble()) * 4 * 365));
+        LocalDate date = lastSigningDate.minusDays(daysBack);
+        if (random.nextInt(5) != 0) {
+            if (date.getDayOfWeek() == DayOfWeek.SATURDAY) {
+                date = date.minusDays(1);
+            } else if (date.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                date = date.minusDays(2);
+            }
+        }
+        return date;
+    }
+
+    private static void appendDigits(StringBuilder target, SplittableRandom random, int count) {
+        for (int i = 0; i < count; i++) {
+            target.append((char) ('0' + random.nextInt(10)));
+        }
+    }
+
+    private static int weighted(SplittableRandom random, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int value = random.nextInt(total);
+        for (int i = 0; i < weights.length; i++) {
+            value -= weights[i];
+            if (value < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        /* Box-Muller transform, SplittableRandom has no nextGaussian */
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    /* ---------------------------------------------------------------------
+     * Chunking
+     * ---------------------------------------------------------------------
+     */
+
+    private interface RowConsumer {
+        void accept(long id, SplittableRandom random);
+    }
+
+    private interface ChunkGenerator<T> {
+        T generate(long first, int count);
+    }
+
+    /**
+     * Calls consumer for every id in range, with random generator of the chunk containing the id.
+     * Random generator of a chunk depends only on seed, stream and chunk index, so the rows
+     * do not depend on how the range is split.
+     */
+    private void forEachInRange(long stream, long first, int count, RowConsumer consumer) {
+        long id = first;
+        long end = first + count;
+        while (id < end) {
+            long chunk = (id - 1) / CHUNK_SIZE;
+            SplittableRandom random = new SplittableRandom(seed * 31 + stream * 0x9E3779B97F4A7C15L + chunk);
+            long chunkStart = chunk * CHUNK_SIZE + 1;
+            for (long skipped = chunkStart; skipped < id; skipped++) {
+                /* rows use variable amount of random values, so skipped rows have to be generated */
+                skipRow(stream, skipped, random);
+            }
+            long chunkEnd = Math.min(end, chunkStart + CHUNK_SIZE);
+            for (; id < chunkEnd; id++) {
+                consumer.accept(id, random);
+            }
+        }
+    }
+
+    private void skipRow(long stream, long id, SplittableRandom random) {
+        if (stream == CLIENT_STREAM) {
+            client(id, random);
+        } else if (stream == PROPERTY_STREAM) {
+            property(id, random);
+        } else {
+            contract(id, random, 1, 1);
+        }
+    }
+
+    /**
+     * Generates chunks of rows 1 to total in parallel and returns them in order.
+     * At most two chunks per thread are held in memory at once.
+     */
+    private <T> Iterable<T> inOrder(ExecutorService executor, long total, ChunkGenerator<T> generator) {
+        return () -> new Iterator<T>() {
+            private final Deque<Future<T>> pending = new ArrayDeque<>();
+            private long nextFirst = 1;
+
+            {
+                fill();
+            }
+
+            private void fill() {
+                while (pending.size() < threads * 2 && nextFirst <= total) {
+                    long first = nextFirst;
+                    int count = (int) Math.min(CHUNK_SIZE, total - first + 1);
+                    pending.addLast(executor.submit(() -> generator.generate(first, count)));
+                    nextFirst += count;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !pending.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                try {
+                    T chunk = pending.removeFirst().get();
+                    fill();
+                    return chunk;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Generating interrupted", ex);
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException("Generating failed", ex.getCause());
+                }
+            }
+        };
+    }
+
+    /**
+     * Writes generated dataset into CSV files.
+     * Arguments: output directory, number of clients, properties and contracts, optionally seed and number of threads.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println("Usage: DatasetGenerator <directory> <clients> <properties> <contracts> [seed] [threads]");
+            return;
+        }
+        long clients = Long.parseLong(args[1]);
+        long properties = Long.parseLong(args[2]);
+        long contracts = Long.parseLong(args[3]);
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        new DatasetGenerator(seed, threads).writeCsv(Paths.get(args[0]), clients, properties, contracts);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long rows = clients + properties + contracts;
+        System.out.printf("%d rows written in %.1f s (%.0f rows/s)%n", rows, seconds, rows / seconds);
+    }
+}
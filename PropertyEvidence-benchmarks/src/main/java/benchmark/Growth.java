@@ -0,0 +1,30 @@
+package benchmark;
+
+/**
+ * Expected growth of operation latency with the number of rows.
+ * Growth is checked by exponent k of the fitted curve latency = c * size^k. Between 10k and 10M rows,
+ * O(log n) lookup has k well below 0.1 and full table scan has k close to 1, the limits leave
+ * room for noise of the measurement.
+ *
+ * @author agent agent@local
+ */
+enum Growth {
+    LOGARITHMIC("O(log n)", 0.35),
+    LINEAR("O(n)", 1.3);
+
+    private final String notation;
+    private final double maxExponent;
+
+    Growth(String notation, double maxExponent) {
+        this.notation = notation;
+        this.maxExponent = maxExponent;
+    }
+
+    String getNotation() {
+        return notation;
+    }
+
+    double getMaxExponent() {
+        return maxExponent;
+    }
+}
@@ -0,0 +1,443 @@
+package benchmark;
+
+import backend.*;
+import frontend.CellFormats;
+import frontend.ClientGUI.ClientTableModel;
+import frontend.ContractGUI.ContractTableModel;
+import frontend.EdtWatchdog;
+import frontend.LocalFilter;
+import frontend.PagedRows;
+import frontend.PropertyGUI.PropertyTableModel;
+import frontend.RowSink;
+import frontend.SearchCoordinator;
+
+import javax.sql.DataSource;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.TableModel;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Scripted GUI benchmark measuring responsiveness of the event dispatch thread. The client, property and contract
+ * tables are wired to the managers the way ClientForm, PropertyForm and ContractForm wire them, the script then
+ * creates, searches, scrolls and edits rows of each table, and EdtWatchdog times dispatch of every AWT event
+ * meanwhile. Percentiles of the dispatch times are reported per scenario, together with the number of stalls.
+ *
+ * The last scenario lists all contracts on the event dispatch thread, as the contract form did before it loaded
+ * them by pages, so that the report shows how such a freeze looks in numbers.
+ *
+ * Tables are painted into an offscreen image, so that the benchmark runs with -Djava.awt.headless=true as well.
+ * Configured by system properties:
+ * gui.size (default 10000), gui.rounds (default 20), gui.threshold of a stall in milliseconds (default 50)
+ * and gui.database (default memory:PropertyEvidenceGui).
+ *
+ * @author agent agent@local
+ */
+public class GuiResponsivenessBenchmark {
+
+    private static final int AWAIT_SECONDS = 60;
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 600;
+    private static final int SCROLLED_SCREENS = 20;
+
+    private final ClientManager clientManager;
+    private final PropertyManager propertyManager;
+    private final ContractManager contractManager;
+    private final Recorder recorder;
+    private Screen<Client> clients;
+    private Screen<Property> properties;
+    private Screen<Contract> contracts;
+    private ClientTableModel clientModel;
+    private PropertyTableModel propertyModel;
+    private ContractTableModel contractModel;
+
+    private GuiResponsivenessBenchmark(DataSource dataSource, Recorder recorder) {
+        ChangeBus changeBus = new ChangeBus();
+        clientManager = new ClientManagerImpl(dataSource, changeBus);
+        propertyManager = new PropertyManagerImpl(dataSource, changeBus);
+        contractManager = new ContractManagerImpl(dataSource, changeBus);
+        this.recorder = recorder;
+        changeBus.subscribe(Client.class, change -> SwingUtilities.invokeLater(() -> {
+            clientModel.applyChange(change);
+            contractModel.applyClientChange(change);
+        }));
+        changeBus.subscribe(Property.class, change -> SwingUtilities.invokeLater(() -> {
+            propertyModel.applyChange(change);
+            contractModel.applyPropertyChange(change);
+        }));
+        changeBus.subscribe(Contract.class, change -> SwingUtilities.invokeLater(() -> contractModel.applyChange(change)));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = Integer.getInteger("gui.size", 10_000);
+        int rounds = Integer.getInteger("gui.rounds", 20);
+        long threshold = Long.getLong("gui.threshold", 50L);
+        String database = System.getProperty("gui.database", "memory:PropertyEvidenceGui");
+
+        DataSource source = BenchmarkDatabase.create(database);
+        EdtWatchdog watchdog = new EdtWatchdog(threshold);
+        Recorder recorder = new Recorder(TimeUnit.MILLISECONDS.toNanos(threshold));
+        try {
+            BenchmarkDatabase.fill(source, size);
+            watchdog.addListener(recorder);
+            watchdog.install();
+            GuiResponsivenessBenchmark benchmark = new GuiResponsivenessBenchmark(source, recorder);
+            benchmark.run(size, rounds);
+        } finally {
+            watchdog.uninstall();
+            BenchmarkDatabase.drop(source);
+        }
+
+        System.out.println(Scenario.HEADER);
+        for (Scenario scenario : recorder.scenarios) {
+            System.out.println(scenario);
+        }
+        System.exit(0);
+    }
+
+    private void run(int size, int rounds) throws Exception {
+        recorder.begin("load");
+        onEdt(() -> {
+            clientModel = new ClientTableModel();
+            propertyModel = new PropertyTableModel();
+            contractModel = new ContractTableModel();
+            clients = new Screen<>(clientModel, 1);
+            properties = new Screen<>(propertyModel, 1);
+            contracts = new Screen<>(contractModel, -1);
+            Runnable allClients = () -> clientModel.displayPagedClients(
+                    new PagedRows<>(clientManager::countClients, clientManager::getClients));
+            Runnable allProperties = () -> propertyModel.displayPagedProperties(
+                    new PagedRows<>(propertyManager::countProperties, propertyManager::getProperties));
+            Runnable allContracts = () -> contractModel.displayPagedContracts(
+                    new PagedRows<>(contractManager::countContracts, contractManager::getContracts));
+            clients.searchBy(clientManager::findClientsByName, allClients);
+            properties.searchBy(propertyManager::findPropertyByAddress, allProperties);
+            contracts.searchBy(contractManager::findContractsByClientName, allContracts);
+            clients.load(clientManager::countClients, clientManager::getClients, allClients);
+            properties.load(propertyManager::countProperties, propertyManager::getAllProperties, allProperties);
+            allContracts.run();
+            return null;
+        });
+        await("tables loaded", () -> clients.table.getRowCount() == size && properties.table.getRowCount() == size
+                && contracts.table.getRowCount() == size);
+
+        SplittableRandom random = new SplittableRandom(7L);
+        DatasetGenerator generator = new DatasetGenerator(11L, 1);
+        List<Client> clientTemplates = generator.clients(1, rounds);
+        List<Property> propertyTemplates = generator.properties(1, rounds);
+        List<Client> created = new ArrayList<>();
+        List<Property> createdProperties = new ArrayList<>();
+
+        recorder.begin("create");
+        for (int i = 0; i < rounds; i++) {
+            /* managers are called off the event dispatch thread, as the forms call them from SwingWorkers */
+            Client client = clientTemplates.get(i);
+            client.setId(null);
+            clientManager.createClient(client);
+            Property property = propertyTemplates.get(i);
+            property.setId(null);
+            propertyManager.createProperty(property);
+            Contract contract = new Contract();
+            contract.setClient(client);
+            contract.setProperty(property);
+            contract.setDateOfSigning(LocalDate.now());
+            contractManager.createContract(contract);
+            created.add(client);
+            createdProperties.add(property);
+            int rows = size + i + 1;
+            await("created rows", () -> clientModel.getRowCount() == rows && propertyModel.getRowCount() == rows
+                    && contractModel.getRowCount() == rows);
+        }
+
+        recorder.begin("search");
+        for (int i = 0; i < rounds; i++) {
+            String surname = DatasetGenerator.SURNAMES[random.nextInt(DatasetGenerator.SURNAMES.length)];
+            String street = DatasetGenerator.STREETS[random.nextInt(DatasetGenerator.STREETS.length)];
+            clients.type(surname);
+            properties.type(street);
+            contracts.type(surname);
+            await("search results", () -> clients.shows(surname) && properties.shows(street)
+                    && contractModel.getRowCount() > 0);
+            clients.type("");
+            properties.type("");
+            contracts.type("");
+        }
+        await("tables loaded", () -> contracts.table.getRowCount() >= size);
+
+        recorder.begin("scroll");
+        for (int i = 0; i < rounds; i++) {
+            for (Screen<?> screen : Arrays.asList(clients, properties, contracts)) {
+                screen.scroll(random.nextInt(Math.max(1, size - SCROLLED_SCREENS * 30)));
+            }
+        }
+
+        recorder.begin("edit");
+        for (int i = 0; i < rounds; i++) {
+            Client client = created.get(i);
+            String name = "Edited " + client.getFullName();
+            client.setFullName(name);
+            clientManager.updateClient(client);
+            Property property = createdProperties.get(i);
+            BigDecimal price = property.getPrice().add(BigDecimal.ONE);
+            property.setPrice(price);
+            propertyManager.updateProperty(property);
+            int row = size + i;
+            await("edited rows", () -> name.equals(clientModel.getValueAt(row, 1))
+                    && price.equals(propertyModel.getValueAt(row, 3)));
+        }
+
+        recorder.begin("legacy contract listing on EDT");
+        for (int i = 0; i < Math.min(rounds, 3); i++) {
+            onEdt(() -> {
+                contractModel.replaceAll(contractManager.getAllContracts());
+                return null;
+            });
+        }
+        recorder.end();
+    }
+
+    /**
+     * Runs the call on the event dispatch thread and waits for its result
+     */
+    private static <T> T onEdt(Callable<T> call) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                result.set(call.call());
+            } catch (Exception ex) {
+                failure.set(ex);
+            }
+        });
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return result.get();
+    }
+
+    /**
+     * Polls the condition on the event dispatch thread, until it holds
+     */
+    private static void await(String what, BooleanSupplier condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(AWAIT_SECONDS);
+        while (!onEdt(condition::getAsBoolean)) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Timed out waiting for " + what);
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * Table in a scroll pane with a search field, as laid out by the forms
+     */
+    private static class Screen<T> {
+        private final JTable table;
+        private final JScrollPane scrollPane;
+        private final JTextField searchField = new JTextField();
+        private final SearchCoordinator<T> searchCoordinator;
+        private final LocalFilter localFilter;
+        private final int keyColumn;
+        private final BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        private Consumer<String> search;
+
+        @SuppressWarnings("unchecked")
+        Screen(TableModel model, int keyColumn) {
+            table = new JTable(model);
+            CellFormats.install(table);
+            scrollPane = new JScrollPane(table);
+            scrollPane.setSize(WIDTH, HEIGHT);
+            searchCoordinator = new SearchCoordinator<>((RowSink<T>) model);
+            this.keyColumn = keyColumn;
+            localFilter = keyColumn < 0 ? null : new LocalFilter(table, keyColumn);
+            searchField.getDocument().addDocumentListener(new DocumentListener() {
+                @Override
+                public void insertUpdate(DocumentEvent documentEvent) {
+                    search.accept(searchField.getText());
+                }
+
+                @Override
+                public void removeUpdate(DocumentEvent documentEvent) {
+                    search.accept(searchField.getText());
+                }
+
+                @Override
+                public void changedUpdate(DocumentEvent documentEvent) {
+                    search.accept(searchField.getText());
+                }
+            });
+        }
+
+        /**
+         * Searches locally when all rows are loaded, otherwise in the database, as the forms
+         */
+        void searchBy(Function<String, List<T>> query, Runnable showAll) {
+            search = text -> {
+                if (localFilter.isInstalled()) {
+                    localFilter.filterText(text);
+                } else if (text.trim().isEmpty()) {
+                    searchCoordinator.cancel();
+                    showAll.run();
+                } else {
+                    searchCoordinator.search(() -> query.apply(text));
+                }
+            };
+        }
+
+        void load(IntSupplier counter, Supplier<List<T>> all, Runnable paged) {
+            LocalFilter.chooseMode(counter, LocalFilter.DEFAULT_MAX_ROWS, () -> {
+                localFilter.install();
+                searchCoordinator.searchNow(all);
+            }, () -> {
+                localFilter.uninstall();
+                paged.run();
+            });
+        }
+
+        /**
+         * Types the text into the search field character by character
+         */
+        void type(String text) throws Exception {
+            onEdt(() -> {
+                searchField.setText("");
+                return null;
+            });
+            for (int i = 0; i < text.length(); i++) {
+                String typed = text.substring(i, i + 1);
+                onEdt(() -> {
+                    searchField.replaceSelection(typed);
+                    return null;
+                });
+            }
+        }
+
+        boolean shows(String text) {
+            String wanted = text.toLowerCase();
+            if (table.getRowCount() == 0) {
+                return false;
+            }
+            for (int row = 0; row < table.getRowCount(); row++) {
+                Object value = table.getValueAt(row, keyColumn);
+                if (value == null || !value.toString().toLowerCase().contains(wanted)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Scrolls screen by screen from the row down and paints the visible rows after every step
+         */
+        void scroll(int firstRow) throws Exception {
+            for (int i = 0; i < SCROLLED_SCREENS; i++) {
+                int screen = i;
+                onEdt(() -> {
+                    JViewport viewport = scrollPane.getViewport();
+                    scrollPane.doLayout();
+                    viewport.doLayout();
+                    int y = (firstRow * table.getRowHeight()) + screen * viewport.getHeight();
+                    viewport.setViewPosition(new Point(0, Math.max(0, Math.min(y, table.getHeight() - viewport.getHeight()))));
+                    Graphics graphics = image.getGraphics();
+                    try {
+                        scrollPane.paint(graphics);
+                    } finally {
+                        graphics.dispose();
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Collects dispatch times of the current scenario, called on the event dispatch thread only
+     */
+    private static class Recorder implements EdtWatchdog.Listener {
+        private final long stallNanos;
+        private final List<Scenario> scenarios = new ArrayList<>();
+        private Scenario current;
+
+        Recorder(long stallNanos) {
+            this.stallNanos = stallNanos;
+        }
+
+        void begin(String name) throws Exception {
+            onEdt(() -> {
+                current = new Scenario(name, stallNanos);
+                scenarios.add(current);
+                return null;
+            });
+        }
+
+        void end() throws Exception {
+            onEdt(() -> {
+                current = null;
+                return null;
+            });
+        }
+
+        @Override
+        public void dispatched(AWTEvent event, long nanos) {
+            if (current != null) {
+                current.add(nanos);
+            }
+        }
+    }
+
+    /**
+     * Dispatch times of the events of one scenario
+     */
+    private static class Scenario {
+        static final String HEADER = String.format("%-32s %8s %9s %9s %9s %9s %7s",
+                "scenario", "events", "p50 ms", "p90 ms", "p99 ms", "max ms", "stalls");
+
+        private final String name;
+        private final long stallNanos;
+        private long[] nanos = new long[1024];
+        private int count;
+
+        Scenario(String name, long stallNanos) {
+            this.name = name;
+            this.stallNanos = stallNanos;
+        }
+
+        void add(long dispatchNanos) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = dispatchNanos;
+        }
+
+        private double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            long stalls = Arrays.stream(sorted).filter(value -> value >= stallNanos).count();
+            return String.format(Locale.ROOT, "%-32s %8d %9.3f %9.3f %9.3f %9.3f %7d", name, count,
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                    percentile(sorted, 100), stalls);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package benchmark;
+
+import backend.Property;
+import backend.PropertyType;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of PropertyManagerImpl.
+ *
+ * @author agent agent@local
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PropertyManagerBenchmark {
+
+    @Benchmark
+    public Property createProperty(Dataset dataset, Cursor cursor) {
+        Property property = new Property();
+        property.setAddress(cursor.nextAddress());
+        property.setArea(new BigDecimal("75.00"));
+        property.setPrice(BigDecimal.valueOf(cursor.nextPrice()));
+        property.setType(PropertyType.TWO_ROOM_FLAT);
+        dataset.propertyManager.createProperty(property);
+        return property;
+    }
+
+    @Benchmark
+    public Property getPropertyById(Dataset dataset, Cursor cursor) {
+        return dataset.propertyManager.getPropertyById(cursor.nextId(dataset));
+    }
+
+    @Benchmark
+    public List<Property> getAllProperties(Dataset dataset) {
+        return dataset.propertyManager.getAllProperties();
+    }
+
+    @Benchmark
+    public List<Property> findPropertyByAddress(Dataset dataset, Cursor cursor) {
+        return dataset.propertyManager.findPropertyByAddress(cursor.nextStreet());
+    }
+
+    @Benchmark
+    public List<Property> findPropertyByPrice(Dataset dataset, Cursor cursor) {
+        return dataset.propertyManager.findPropertyByPrice(BigDecimal.valueOf(cursor.nextPrice()));
+    }
+}
@@ -0,0 +1,191 @@
+package benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Latency percentiles of manager operations measured at several database sizes.
+ * For every operation, exponent of the growth curve is fitted and checked against the expected growth,
+ * and latencies are compared with the baseline of an earlier run.
+ *
+ * Baseline is a properties file with keys "operation.size.p50" and "operation.size.p99" in nanoseconds.
+ *
+ * @author agent agent@local
+ */
+class ScalabilityReport {
+
+    private final Map<String, Growth> expectedGrowth = new LinkedHashMap<>();
+    private final Map<String, SortedMap<Integer, Percentiles>> results = new LinkedHashMap<>();
+
+    /**
+     * Adds latencies of one operation measured at given size
+     *
+     * @param operation name of the operation, e.g. ContractManager.findContractsByClient
+     * @param expected  expected growth of the operation
+     * @param size      number of rows in each table
+     * @param nanos     latencies of single calls
+     */
+    void add(String operation, Growth expected, int size, long[] nanos) {
+        if (nanos.length == 0) {
+            throw new IllegalArgumentException("No latencies of " + operation + " measured");
+        }
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        expectedGrowth.put(operation, expected);
+        results.computeIfAbsent(operation, key -> new TreeMap<>())
+                .put(size, new Percentiles(percentile(sorted, 0.5), percentile(sorted, 0.99), sorted.length));
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values
+     */
+    static long percentile(long[] sorted, double fraction) {
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(rank - 1, 0)];
+    }
+
+    /**
+     * Fits curve latency = c * size^k through medians of the operation by least squares in log-log scale
+     *
+     * @param operation name of the operation
+     * @return exponent k, or NaN when the operation was measured at fewer than two sizes
+     */
+    double growthExponent(String operation) {
+        SortedMap<Integer, Percentiles> bySize = results.get(operation);
+        if (bySize == null || bySize.size() < 2) {
+            return Double.NaN;
+        }
+        int n = bySize.size();
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+        for (Map.Entry<Integer, Percentiles> entry : bySize.entrySet()) {
+            double x = Math.log(entry.getKey());
+            double y = Math.log(Math.max(entry.getValue().p50, 1));
+            sumX += x;
+            sumY += y;
+            sumXY += x * y;
+            sumXX += x * x;
+        }
+        return (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+    }
+
+    /**
+     * Finds operations growing faster than expected and latencies slower than in the baseline
+     *
+     * @param baseline         baseline of an earlier run, may be empty
+     * @param regressionFactor allowed ratio of current to baseline latency
+     * @return descriptions of all failures, empty when the run passed
+     */
+    List<String> failures(Properties baseline, double regressionFactor) {
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, SortedMap<Integer, Percentiles>> operation : results.entrySet()) {
+            String name = operation.getKey();
+            Growth expected = expectedGrowth.get(name);
+            double exponent = growthExponent(name);
+            if (exponent > expected.getMaxExponent()) {
+                failures.add(String.format(Locale.ROOT, "%s is expected to be %s, but latency grows as size^%.2f",
+                        name, expected.getNotation(), exponent));
+            }
+            for (Map.Entry<Integer, Percentiles> entry : operation.getValue().entrySet()) {
+                checkBaseline(failures, baseline, regressionFactor, name, entry.getKey(), "p50", entry.getValue().p50);
+                checkBaseline(failures, baseline, regressionFactor, name, entry.getKey(), "p99", entry.getValue().p99);
+            }
+        }
+        return failures;
+    }
+
+    private static void checkBaseline(List<String> failures, Properties baseline, double regressionFactor,
+                                      String operation, int size, String percentile, long nanos) {
+        String value = baseline.getProperty(operation + "." + size + "." + percentile);
+        if (value == null) {
+            return;
+        }
+        long previous = Long.parseLong(value.trim());
+        if (nanos > previous * regressionFactor) {
+            failures.add(String.format(Locale.ROOT, "%s %s at %d rows regressed from %s to %s",
+                    operation, percentile, size, formatNanos(previous), formatNanos(nanos)));
+        }
+    }
+
+    /**
+     * @return percentiles of this run in the baseline format
+     */
+    Properties toBaseline() {
+        Properties baseline = new Properties();
+        for (Map.Entry<String, SortedMap<Integer, Percentiles>> operation : results.entrySet()) {
+            for (Map.Entry<Integer, Percentiles> entry : operation.getValue().entrySet()) {
+                String prefix = operation.getKey() + "." + entry.getKey();
+                baseline.setProperty(prefix + ".p50", Long.toString(entry.getValue().p50));
+                baseline.setProperty(prefix + ".p99", Long.toString(entry.getValue().p99));
+            }
+        }
+        return baseline;
+    }
+
+    /**
+     * Writes table of percentiles, fitted exponents and failures
+     *
+     * @param out      target of the report
+     * @param failures failures found by {@link #failures(Properties, double)}
+     */
+    void print(PrintWriter out, List<String> failures) {
+        out.printf(Locale.ROOT, "%-45s %10s %8s %12s %12s %12s %10s%n",
+                "operation", "rows", "samples", "p50", "p99", "expected", "exponent");
+        for (Map.Entry<String, SortedMap<Integer, Percentiles>> operation : results.entrySet()) {
+            String name = operation.getKey();
+            String exponent = Double.isNaN(growthExponent(name)) ? "-"
+                    : String.format(Locale.ROOT, "%.2f", growthExponent(name));
+            for (Map.Entry<Integer, Percentiles> entry : operation.getValue().entrySet()) {
+                Percentiles percentiles = entry.getValue();
+                out.printf(Locale.ROOT, "%-45s %10d %8d %12s %12s %12s %10s%n", name, entry.getKey(),
+                        percentiles.samples, formatNanos(percentiles.p50), formatNanos(percentiles.p99),
+                        expectedGrowth.get(name).getNotation(), exponent);
+            }
+        }
+        out.println();
+        if (failures.isEmpty()) {
+            out.println("PASSED");
+        } else {
+            out.println("FAILED");
+            for (String failure : failures) {
+                out.println("  " + failure);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the report to file
+     */
+    void write(Path file, List<String> failures) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            print(new PrintWriter(writer), failures);
+        }
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos >= 1_000_000_000L) {
+            return String.format(Locale.ROOT, "%.2f s", nanos / 1e9);
+        }
+        if (nanos >= 1_000_000L) {
+            return String.format(Locale.ROOT, "%.2f ms", nanos / 1e6);
+        }
+        return String.format(Locale.ROOT, "%.1f us", nanos / 1e3);
+    }
+
+    private static class Percentiles {
+        private final long p50;
+        private final long p99;
+        private final int samples;
+
+        Percentiles(long p50, long p99, int samples) {
+            this.p50 = p50;
+            this.p99 = p99;
+            this.samples = samples;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package benchmark;
+
+import backend.*;
+import frontend.PagedRows;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Scalability regression suite. Loads datasets of growing size, measures p50 and p99 latency of every
+ * manager method and fails, when latency of an operation grows faster than expected, e.g. when lookup
+ * expected to use an index degrades to a table scan, or when it is slower than in the stored baseline.
+ *
+ * Configured by system properties:
+ * scalability.sizes (default 10000,100000,1000000,10000000), scalability.samples (default 200),
+ * scalability.database (default memory:PropertyEvidenceScalability), scalability.report
+ * (default scalability-report.txt), scalability.baseline (default scalability-baseline.properties),
+ * scalability.saveBaseline (default false) and scalability.regressionFactor (default 1.5).
+ *
+ * Exits with status 1 when the run failed.
+ *
+ * @author agent agent@local
+ */
+public class ScalabilitySuite {
+
+    /**
+     * Operations returning whole table are measured only up to this size, getAllContracts loads
+     * client and property of every contract and is limited even more.
+     */
+    private static final int MAX_LISTING_SIZE = 1_000_000;
+    private static final int MAX_HYDRATED_LISTING_SIZE = 100_000;
+    private static final int SCAN_SAMPLES = 5;
+
+    /**
+     * Page size of the lazily loaded tables. Derby skips the offset rows one by one, so that a page
+     * at random offset grows linearly as well, but with much smaller constant than the full listing.
+     */
+    private static final int PAGE_SIZE = PagedRows.DEFAULT_PAGE_SIZE;
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    private ScalabilitySuite(int samples) {
+        operations.add(new Operation("ClientManager.getClientById", Growth.LOGARITHMIC, Integer.MAX_VALUE, samples,
+                f -> time(() -> f.clientManager.getClientById(f.nextId()))));
+        operations.add(new Operation("ClientManager.findClientsByName", Growth.LINEAR, Integer.MAX_VALUE, SCAN_SAMPLES,
+                f -> time(() -> f.clientManager.findClientsByName(f.nextSurname()))));
+        operations.add(new Operation("ClientManager.getClients", Growth.LINEAR, MAX_LISTING_SIZE, SCAN_SAMPLES,
+                f -> time(() -> f.clientManager.getClients())));
+        operations.add(new Operation("ClientManager.countClients", Growth.LINEAR, Integer.MAX_VALUE, SCAN_SAMPLES,
+                f -> time(() -> f.clientManager.countClients())));
+        operations.add(new Operation("ClientManager.getClientsPage", Growth.LINEAR, Integer.MAX_VALUE, samples,
+                f -> time(() -> f.clientManager.getClients(f.nextOffset(), PAGE_SIZE))));
+        operations.add(new Operation("ClientManager.createClient", Growth.LOGARITHMIC, Integer.MAX_VALUE, samples,
+                f -> {
+                    Client client = f.generator.clients(f.nextId(), 1).get(0);
+                    client.setId(null);
+                    long nanos = time(() -> f.clientManager.createClient(client));
+                    f.createdClients.add(client);
+                    return nanos;
+                }));
+        operations.add(new Operation("ClientManager.updateClient", Growth.LOGARITHMIC, Integer.MAX_VALUE, samples,
+                f -> {
+                    Client client = f.clientManager.getClientById(f.nextId());
+                    client.setFullName(f.nextName());
+                    return time(() -> f.clientManager.updateClient(client));
+                }));
+        operations.add(new Operation("ClientManager.deleteClient", Growth.LOGARITHMIC, Integer.MAX_VALUE, samples,
+                f -> {
+                    Client client = f.createdClients.remove(f.createdClients.size() - 1);
+                    return time(() -> f.clientManager.deleteClient(client));
+                }));
+
+        operations.add(new Operation("PropertyManager.getPropertyById", Growth.LOGARITHMIC, Integer.MAX_VALUE, samples,
+                f -> time(() -> f.propertyManager.getPropertyById(f.nextId()))));
+        operations.add(new Operation("PropertyManager.findPropertyByAddress", Growth.LINEAR, Integer.MAX_VALUE,
+                SCAN_SAMPLES, f -> time(() -> f.propertyManager.findPropertyByAddress(f.nextStreet()))));
+        operations.add(new Operation("PropertyManager.findPropertyByPrice", Growth.LINEAR, Integer.MAX_VALUE,
+                SCAN_SAMPLES, f -> time(() -> f.propertyManager.findPropertyByPrice(f.nextPrice()))));
+        operations.add(new Operation("PropertyManager.getAllProperties", Growth.LINEAR, MAX_LISTING_SIZE, SCAN_SAMPLES,
+                f -> time(() -> f.propertyManager.getAllProperties())));
+        operations.add(new Operation("PropertyManager.countProperties", Growth.LINEAR, Integer.MAX_VALUE,
+                SCAN_SAMPLES, f -> time(() -> f.propertyManager.countProperties())));
+        operations.add(new Operation("PropertyManager.getPropertiesPage", Growth.LINEAR, Integer.MAX_VALUE, samples,
+                f -> time(() -> f.propertyManager.getProperties(f.nextOffset(), PAGE_SIZE))));
+        operations.add(new Operation("PropertyManager.createProperty", Growth.LOGARITHMIC, Integer.MAX_VALUE, samples,
+                f -> {
+                    Property property = f.generator.properties(f.nextId(), 1).get(0);
+                    property.setId(null);
+                    long nanos = time(() -> f.propertyManager.createProperty(property));
+                    f.createdProperties.add(property);
+                    return nanos;
+                }));
+        operations.add(new Operation("PropertyManager.updateProperty", Growth.LOGARITHMIC, Integer.MAX_VALUE, samples,
+                f -> {
+                    Property property = f.propertyManager.getPropertyById(f.nextId());
+                    property.setPrice(f.nextPrice());
+                    return time(() -> f.propertyManager.updateProperty(property));
+                }));
+        operations.add(new Operation("PropertyManager.deleteProperty", Growth.LOGARITHMIC, Integer.MAX_VALUE, samples,
+                f -> {
+                    Property property = f.createdProperties.remove(f.createdProperties.size() - 1);
+                    return time(() -> f.propertyManager.deleteProperty(property));
+                }));
+
+        operations.add(new Operation("ContractManager.getContractById", Growth.LOGARITHMIC, Integer.MAX_VALUE, samples,
+                f -> time(() -> f.contractManager.getContractById(f.nextId()))));
+        operations.add(new Operation("ContractManager.findContractsByClient", Growth.LOGARITHMIC, Integer.MAX_VALUE,
+                samples, f -> {
+                    Client client = new Client();
+                    client.setId(f.nextId());
+                    return time(() -> f.contractManager.findContractsByClient(client));
+                }));
+        operations.add(new Operation("ContractManager.findContractByProperty", Growth.LOGARITHMIC, Integer.MAX_VALUE,
+                samples, f -> {
+                    Property property = new Property();
+                    property.setId(f.nextId());
+                    return time(() -> f.contractManager.findContractByProperty(property));
+                }));
+        operations.add(new Operation("ContractManager.getAllContracts", Growth.LINEAR, MAX_HYDRATED_LISTING_SIZE,
+                SCAN_SAMPLES, f -> time(() -> f.contractManager.getAllContracts())));
+        operations.add(new Operation("ContractManager.countContracts", Growth.LINEAR, Integer.MAX_VALUE,
+                SCAN_SAMPLES, f -> time(() -> f.contractManager.countContracts())));
+        operations.add(new Operation("ContractManager.getContractsPage", Growth.LINEAR, Integer.MAX_VALUE, samples,
+                f -> time(() -> f.contractManager.getContracts(f.nextOffset(), PAGE_SIZE))));
+        operations.add(new Operation("ContractManager.createContract", Growth.LOGARITHMIC, Integer.MAX_VALUE, samples,
+                f -> {
+                    Contract contract = f.generator.contracts(f.nextId(), 1, f.size, f.size).get(0);
+                    contract.setId(null);
+                    long nanos = time(() -> f.contractManager.createContract(contract));
+                    f.createdContracts.add(contract);
+                    return nanos;
+                }));
+        operations.add(new Operation("ContractManager.updateContract", Growth.LOGARITHMIC, Integer.MAX_VALUE, samples,
+                f -> {
+                    Contract contract = f.contractManager.getContractById(f.nextId());
+                    contract.setDateOfSigning(contract.getDateOfSigning().plusDays(1));
+                    return time(() -> f.contractManager.updateContract(contract));
+                }));
+        operations.add(new Operation("ContractManager.deleteContract", Growth.LOGARITHMIC, Integer.MAX_VALUE, samples,
+                f -> {
+                    Contract contract = f.createdContracts.remove(f.createdContracts.size() - 1);
+                    return time(() -> f.contractManager.deleteContract(contract));
+                }));
+    }
+
+    public static void main(String[] args) throws SQLException, IOException {
+        int[] sizes = Arrays.stream(System.getProperty("scalability.sizes", "10000,100000,1000000,10000000").split(","))
+                .mapToInt(size -> Integer.parseInt(size.trim()))
+                .sorted()
+                .toArray();
+        int samples = Integer.getInteger("scalability.samples", 200);
+        String database = System.getProperty("scalability.database", "memory:PropertyEvidenceScalability");
+        Path reportFile = Paths.get(System.getProperty("scalability.report", "scalability-report.txt"));
+        Path baselineFile = Paths.get(System.getProperty("scalability.baseline", "scalability-baseline.properties"));
+        double regressionFactor = Double.parseDouble(System.getProperty("scalability.regressionFactor", "1.5"));
+
+        ScalabilitySuite suite = new ScalabilitySuite(samples);
+        ScalabilityReport report = new ScalabilityReport();
+        for (int size : sizes) {
+            suite.run(database, size, report);
+        }
+
+        Properties baseline = new Properties();
+        if (Files.exists(baselineFile)) {
+            try (InputStream in = Files.newInputStream(baselineFile)) {
+                baseline.load(in);
+            }
+        }
+        List<String> failures = report.failures(baseline, regressionFactor);
+        report.print(new PrintWriter(System.out), failures);
+        report.write(reportFile, failures);
+        if (Boolean.getBoolean("scalability.saveBaseline")) {
+            try (OutputStream out = Files.newOutputStream(baselineFile)) {
+                report.toBaseline().store(out, "ScalabilitySuite baseline, latencies in nanoseconds");
+            }
+        }
+        if (!failures.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Loads dataset of given size and measures all operations on it
+     */
+    private void run(String database, int size, ScalabilityReport report) throws SQLException {
+        System.out.println("Loading " + size + " rows into each table");
+        DataSource dataSource = BenchmarkDatabase.create(database);
+        try {
+            BenchmarkDatabase.fill(dataSource, size);
+            Fixture fixture = new Fixture(dataSource, size);
+            for (Operation operation : operations) {
+                if (size > operation.maxSize) {
+                    continue;
+                }
+                System.out.println("  " + operation.name);
+                int warmup = Math.max(operation.samples / 5, 1);
+                for (int i = 0; i < warmup; i++) {
+                    operation.sample.measure(fixture);
+                }
+                long[] nanos = new long[operation.samples];
+                for (int i = 0; i < nanos.length; i++) {
+                    nanos[i] = operation.sample.measure(fixture);
+                }
+                report.add(operation.name, operation.expected, size, nanos);
+            }
+        } finally {
+            BenchmarkDatabase.drop(dataSource);
+        }
+    }
+
+    private static long time(Runnable call) {
+        long start = System.nanoTime();
+        call.run();
+        return System.nanoTime() - start;
+    }
+
+    @FunctionalInterface
+    private interface Sample {
+        /**
+         * Calls the operation once
+         *
+         * @return duration of the call in nanoseconds, without preparation of its arguments
+         */
+        long measure(Fixture fixture);
+    }
+
+    private static class Operation {
+        private final String name;
+        private final Growth expected;
+        private final int maxSize;
+        private final int samples;
+        private final Sample sample;
+
+        Operation(String name, Growth expected, int maxSize, int samples, Sample sample) {
+            this.name = name;
+            this.expected = expected;
+            this.maxSize = maxSize;
+            this.samples = samples;
+            this.sample = sample;
+        }
+    }
+
+    /**
+     * Managers over loaded dataset and source of ids and search terms. Entities created by create operations
+     * are deleted by the following delete operations, so that deletes never miss.
+     */
+    private static class Fixture {
+        private final int size;
+        private final ClientManager clientManager;
+        private final PropertyManager propertyManager;
+        private final ContractManager contractManager;
+        private final DatasetGenerator generator = new DatasetGenerator(11L, 1);
+        private final SplittableRandom random = new SplittableRandom(7L);
+        private final List<Client> createdClients = new ArrayList<>();
+        private final List<Property> createdProperties = new ArrayList<>();
+        private final List<Contract> createdContracts = new ArrayList<>();
+
+        Fixture(DataSource dataSource, int size) {
+            this.size = size;
+            this.clientManager = new ClientManagerImpl(dataSource);
+            this.propertyManager = new PropertyManagerImpl(dataSource);
+            this.contractManager = new ContractManagerImpl(dataSource);
+        }
+
+        long nextId() {
+            return 1 + random.nextInt(size);
+        }
+
+        int nextOffset() {
+            return random.nextInt(Math.max(1, size - PAGE_SIZE));
+        }
+
+        String nextSurname() {
+            return DatasetGenerator.SURNAMES[random.nextInt(DatasetGenerator.SURNAMES.length)];
+        }
+
+        String nextName() {
+            return DatasetGenerator.FIRST_NAMES[random.nextInt(DatasetGenerator.FIRST_NAMES.length)]
+                    + " " + nextSurname();
+        }
+
+        String nextStreet() {
+            return DatasetGenerator.STREETS[random.nextInt(DatasetGenerator.STREETS.length)];
+        }
+
+        BigDecimal nextPrice() {
+            return new BigDecimal(50_000 + random.nextInt(500_000) + ".00");
+        }
+    }
+}
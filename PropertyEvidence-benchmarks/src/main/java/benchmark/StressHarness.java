@@ -0,0 +1,419 @@
+package benchmark;
+
+import backend.*;
+import common.DatabaseFaultException;
+import common.IllegalEntityException;
+import common.InstrumentedDataSource;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency stress harness of the managers. Runs mixes of reads, creates, updates and deletes
+ * on several threads sharing one DataSource, the same way servlet threads and SwingWorkers share it,
+ * and afterwards verifies invariants of the database:
+ * <ul>
+ * <li>no contract references deleted client or property,</li>
+ * <li>no id was returned by two creates,</li>
+ * <li>no increment of a hot property price was lost.</li>
+ * </ul>
+ * Deletes of clients and properties follow ClientForm and PropertyForm, which delete the entity only
+ * when it has no contracts, and price increments read the property and update it by separate calls,
+ * as the property form does.
+ *
+ * Configured by system properties:
+ * stress.mixes (default read-heavy,balanced,write-heavy, or weights of read/create/update/delete, e.g. 70/10/15/5),
+ * stress.threads (default 1,4,16), stress.seconds per configuration (default 10), stress.size (default 10000)
+ * and stress.database (default memory:PropertyEvidenceStress). Derby lock timeouts are shortened
+ * to derby.locks.waitTimeout=2 and derby.locks.deadlockTimeout=1 seconds, unless set.
+ *
+ * Exits with status 1 when an invariant was violated.
+ *
+ * @author agent agent@local
+ */
+public class StressHarness {
+
+    /**
+     * Properties with ids 1 to HOT_PROPERTIES are never deleted, their prices are incremented concurrently
+     */
+    private static final int HOT_PROPERTIES = 100;
+    private static final int TEMPLATES = 1000;
+    private static final String LOCK_TIMEOUT = "40XL1";
+    private static final String DEADLOCK = "40001";
+
+    private static final Map<String, int[]> MIXES = new LinkedHashMap<>();
+
+    static {
+        MIXES.put("read-heavy", new int[]{90, 5, 4, 1});
+        MIXES.put("balanced", new int[]{50, 20, 20, 10});
+        MIXES.put("write-heavy", new int[]{10, 35, 35, 20});
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("derby.locks.waitTimeout") == null) {
+            System.setProperty("derby.locks.waitTimeout", "2");
+        }
+        if (System.getProperty("derby.locks.deadlockTimeout") == null) {
+            System.setProperty("derby.locks.deadlockTimeout", "1");
+        }
+        String[] mixes = System.getProperty("stress.mixes", String.join(",", MIXES.keySet())).split(",");
+        String[] threads = System.getProperty("stress.threads", "1,4,16").split(",");
+        int seconds = Integer.getInteger("stress.seconds", 10);
+        int size = Integer.getInteger("stress.size", 10_000);
+        String database = System.getProperty("stress.database", "memory:PropertyEvidenceStress");
+
+        List<Result> results = new ArrayList<>();
+        System.out.println(Result.HEADER);
+        for (String mix : mixes) {
+            for (String threadCount : threads) {
+                Result result = run(database, size, mix.trim(), parseMix(mix.trim()),
+                        Integer.parseInt(threadCount.trim()), seconds);
+                results.add(result);
+                System.out.println(result);
+            }
+        }
+
+        System.out.println();
+        System.out.println(Result.HEADER);
+        boolean violated = false;
+        for (Result result : results) {
+            System.out.println(result);
+            violated |= result.violated();
+        }
+        System.exit(violated ? 1 : 0);
+    }
+
+    /**
+     * Parses name of predefined mix or weights of read/create/update/delete operations
+     */
+    static int[] parseMix(String mix) {
+        if (MIXES.containsKey(mix)) {
+            return MIXES.get(mix);
+        }
+        String[] parts = mix.split("/");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Unknown mix " + mix + ", expected one of " + MIXES.keySet()
+                    + " or weights read/create/update/delete");
+        }
+        int[] weights = new int[4];
+        for (int i = 0; i < 4; i++) {
+            weights[i] = Integer.parseInt(parts[i].trim());
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("Weight must not be negative: " + mix);
+            }
+        }
+        if (weights[0] + weights[1] + weights[2] + weights[3] == 0) {
+            throw new IllegalArgumentException("At least one weight must be positive: " + mix);
+        }
+        return weights;
+    }
+
+    /**
+     * Loads dataset, runs the mix on given number of threads and verifies invariants
+     */
+    private static Result run(String database, int size, String mixName, int[] mix, int threads, int seconds)
+            throws SQLException, InterruptedException {
+        DataSource source = BenchmarkDatabase.create(database);
+        try {
+            BenchmarkDatabase.fill(source, size);
+            InstrumentedDataSource dataSource = new InstrumentedDataSource(source, Integer.MAX_VALUE);
+            Workload workload = new Workload(dataSource, size);
+            BigDecimal[] initialPrices = hotPrices(source);
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            long duration = TimeUnit.SECONDS.toNanos(seconds);
+            long deadline = System.nanoTime() + duration;
+            for (int i = 0; i < threads; i++) {
+                SplittableRandom random = new SplittableRandom(1000L + i);
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    while (System.nanoTime() < deadline) {
+                        workload.execute(random, mix);
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            if (!executor.awaitTermination(seconds + 120L, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+                throw new IllegalStateException("Workers did not finish in time");
+            }
+            double elapsed = (System.nanoTime() - deadline + duration) / 1e9;
+
+            BigDecimal[] finalPrices = hotPrices(source);
+            long lostUpdates = 0;
+            for (int id = 1; id <= HOT_PROPERTIES; id++) {
+                BigDecimal expected = initialPrices[id].add(BigDecimal.valueOf(workload.increments.get(id)));
+                lostUpdates += expected.subtract(finalPrices[id]).longValue();
+            }
+            Map<String, Long> failures = dataSource.getStatistics().getFailures();
+            return new Result(mixName, threads, workload.operations.sum(), elapsed,
+                    workload.databaseFaults.sum(), workload.conflicts.sum(),
+                    failures.getOrDefault(LOCK_TIMEOUT, 0L), failures.getOrDefault(DEADLOCK, 0L),
+                    orphanContracts(source), workload.duplicateIds.sum(), lostUpdates);
+        } finally {
+            BenchmarkDatabase.drop(source);
+        }
+    }
+
+    private static BigDecimal[] hotPrices(DataSource source) throws SQLException {
+        BigDecimal[] prices = new BigDecimal[HOT_PROPERTIES + 1];
+        try (Connection conn = source.getConnection();
+             PreparedStatement st = conn.prepareStatement("SELECT id, price FROM PROPERTY WHERE id <= ?")) {
+            st.setLong(1, HOT_PROPERTIES);
+            try (ResultSet rs = st.executeQuery()) {
+                while (rs.next()) {
+                    prices[(int) rs.getLong(1)] = rs.getBigDecimal(2);
+                }
+            }
+        }
+        return prices;
+    }
+
+    private static long orphanContracts(DataSource source) throws SQLException {
+        try (Connection conn = source.getConnection();
+             PreparedStatement st = conn.prepareStatement("SELECT COUNT(*) FROM CONTRACT c "
+                     + "WHERE NOT EXISTS (SELECT 1 FROM CLIENT cl WHERE cl.id = c.clientid) "
+                     + "OR NOT EXISTS (SELECT 1 FROM PROPERTY p WHERE p.id = c.propertyid)");
+             ResultSet rs = st.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Operations executed by worker threads and counters shared by them.
+     */
+    private static class Workload {
+        private final ClientManager clientManager;
+        private final PropertyManager propertyManager;
+        private final ContractManager contractManager;
+        private final List<Client> clientTemplates;
+        private final List<Property> propertyTemplates;
+        private final AtomicLong maxClientId;
+        private final AtomicLong maxPropertyId;
+        private final AtomicLong maxContractId;
+        private final Set<Long> clientIds = ConcurrentHashMap.newKeySet();
+        private final Set<Long> propertyIds = ConcurrentHashMap.newKeySet();
+        private final Set<Long> contractIds = ConcurrentHashMap.newKeySet();
+        private final AtomicLongArray increments = new AtomicLongArray(HOT_PROPERTIES + 1);
+        private final LongAdder operations = new LongAdder();
+        private final LongAdder databaseFaults = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder duplicateIds = new LongAdder();
+
+        Workload(DataSource dataSource, int size) {
+            clientManager = new ClientManagerImpl(dataSource);
+            propertyManager = new PropertyManagerImpl(dataSource);
+            contractManager = new ContractManagerImpl(dataSource);
+            DatasetGenerator generator = new DatasetGenerator(13L, 1);
+            clientTemplates = generator.clients(1, TEMPLATES);
+            propertyTemplates = generator.properties(1, TEMPLATES);
+            maxClientId = new AtomicLong(size);
+            maxPropertyId = new AtomicLong(size);
+            maxContractId = new AtomicLong(size);
+        }
+
+        /**
+         * Executes one operation chosen by weights of the mix
+         */
+        void execute(SplittableRandom random, int[] mix) {
+            int choice = random.nextInt(mix[0] + mix[1] + mix[2] + mix[3]);
+            try {
+                if (choice < mix[0]) {
+                    read(random);
+                } else if (choice < mix[0] + mix[1]) {
+                    create(random);
+                } else if (choice < mix[0] + mix[1] + mix[2]) {
+                    update(random);
+                } else {
+                    delete(random);
+                }
+            } catch (DatabaseFaultException ex) {
+                databaseFaults.increment();
+            } catch (IllegalEntityException ex) {
+                /* entity was deleted by another thread between read and write */
+                conflicts.increment();
+            }
+            operations.increment();
+        }
+
+        private void read(SplittableRandom random) {
+            switch (random.nextInt(4)) {
+                case 0:
+                    clientManager.getClientById(nextId(random, maxClientId));
+                    break;
+                case 1:
+                    propertyManager.getPropertyById(nextId(random, maxPropertyId));
+                    break;
+                case 2:
+                    contractManager.getContractById(nextId(random, maxContractId));
+                    break;
+                default:
+                    Client client = new Client();
+                    client.setId(nextId(random, maxClientId));
+                    contractManager.findContractsByClient(client);
+            }
+        }
+
+        private void create(SplittableRandom random) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    Client template = clientTemplates.get(random.nextInt(TEMPLATES));
+                    Client client = new Client();
+                    client.setFullName(template.getFullName());
+                    client.setPhoneNumber(template.getPhoneNumber());
+                    clientManager.createClient(client);
+                    created(clientIds, client.getId(), maxClientId);
+                    break;
+                case 1:
+                    Property propertyTemplate = propertyTemplates.get(random.nextInt(TEMPLATES));
+                    Property property = new Property();
+                    property.setArea(propertyTemplate.getArea());
+                    property.setPrice(propertyTemplate.getPrice());
+                    property.setType(propertyTemplate.getType());
+                    property.setAddress(propertyTemplate.getAddress());
+                    propertyManager.createProperty(property);
+                    created(propertyIds, property.getId(), maxPropertyId);
+                    break;
+                default:
+                    /* client and property are picked first, as in ContractManipulationForm */
+                    Client contractClient = clientManager.getClientById(nextId(random, maxClientId));
+                    Property contractProperty = propertyManager.getPropertyById(nextId(random, maxPropertyId));
+                    if (contractClient == null || contractProperty == null) {
+                        return;
+                    }
+                    Contract contract = new Contract();
+                    contract.setClient(contractClient);
+                    contract.setProperty(contractProperty);
+                    contract.setDateOfSigning(LocalDate.now().minusDays(random.nextInt(3650)));
+                    contractManager.createContract(contract);
+                    created(contractIds, contract.getId(), maxContractId);
+            }
+        }
+
+        private void created(Set<Long> ids, Long id, AtomicLong maxId) {
+            if (id == null) {
+                /* PropertyManagerImpl does not report failed inserts */
+                databaseFaults.increment();
+                return;
+            }
+            if (!ids.add(id)) {
+                duplicateIds.increment();
+            }
+            maxId.accumulateAndGet(id, Math::max);
+        }
+
+        private void update(SplittableRandom random) {
+            if (random.nextBoolean()) {
+                long id = 1 + random.nextInt(HOT_PROPERTIES);
+                Property property = propertyManager.getPropertyById(id);
+                property.setPrice(property.getPrice().add(BigDecimal.ONE));
+                /* failed update is not reported by PropertyManagerImpl, so it shows up as lost update */
+                propertyManager.updateProperty(property);
+                increments.incrementAndGet((int) id);
+            } else {
+                Client client = clientManager.getClientById(nextId(random, maxClientId));
+                if (client == null) {
+                    return;
+                }
+                Client template = clientTemplates.get(random.nextInt(TEMPLATES));
+                client.setFullName(template.getFullName());
+                clientManager.updateClient(client);
+            }
+        }
+
+        private void delete(SplittableRandom random) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    Contract contract = contractManager.getContractById(nextId(random, maxContractId));
+                    if (contract != null) {
+                        contractManager.deleteContract(contract);
+                    }
+                    break;
+                case 1:
+                    Client client = clientManager.getClientById(nextId(random, maxClientId));
+                    if (client != null && contractManager.findContractsByClient(client).isEmpty()) {
+                        clientManager.deleteClient(client);
+                    }
+                    break;
+                default:
+                    long id = nextId(random, maxPropertyId);
+                    if (id <= HOT_PROPERTIES) {
+                        return;
+                    }
+                    Property property = propertyManager.getPropertyById(id);
+                    if (property != null && contractManager.findContractByProperty(property).isEmpty()) {
+                        propertyManager.deleteProperty(property);
+                    }
+            }
+        }
+
+        private static long nextId(SplittableRandom random, AtomicLong maxId) {
+            return 1 + random.nextInt((int) Math.min(Integer.MAX_VALUE, maxId.get()));
+        }
+    }
+
+    /**
+     * Throughput, failures and invariant violations of one configuration.
+     */
+    private static class Result {
+        static final String HEADER = String.format(Locale.ROOT, "%-14s %7s %10s %10s %8s %9s %8s %9s %8s %10s %8s",
+                "mix", "threads", "ops", "ops/s", "faults", "conflicts", "timeouts", "deadlocks",
+                "orphans", "duplicates", "lost");
+
+        private final String mix;
+        private final int threads;
+        private final long operations;
+        private final double seconds;
+        private final long databaseFaults;
+        private final long conflicts;
+        private final long lockTimeouts;
+        private final long deadlocks;
+        private final long orphans;
+        private final long duplicateIds;
+        private final long lostUpdates;
+
+        Result(String mix, int threads, long operations, double seconds, long databaseFaults, long conflicts,
+               long lockTimeouts, long deadlocks, long orphans, long duplicateIds, long lostUpdates) {
+            this.mix = mix;
+            this.threads = threads;
+            this.operations = operations;
+            this.seconds = seconds;
+            this.databaseFaults = databaseFaults;
+            this.conflicts = conflicts;
+            this.lockTimeouts = lockTimeouts;
+            this.deadlocks = deadlocks;
+            this.orphans = orphans;
+            this.duplicateIds = duplicateIds;
+            this.lostUpdates = lostUpdates;
+        }
+
+        boolean violated() {
+            return orphans > 0 || duplicateIds > 0 || lostUpdates != 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-14s %7d %10d %10.0f %8d %9d %8d %9d %8d %10d %8d",
+                    mix, threads, operations, operations / seconds, databaseFaults, conflicts,
+                    lockTimeouts, deadlocks, orphans, duplicateIds, lostUpdates);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package benchmark;
+
+import backend.Contract;
+import frontend.ContractGUI.ContractTableModel;
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableModel;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time spent on the event dispatch thread by filling a JTable with search result. The legacy variant fires
+ * fireTableDataChanged for every added row and once more at the end, as the forms did before, the bulk variant
+ * delivers the rows by chunks of SwingWorker.publish, each applied by a single event.
+ *
+ * With table sorted by id every event of the legacy variant sorts all rows again.
+ *
+ * @author agent agent@local
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class TableModelBenchmark {
+
+    private static final int CHUNK = 100;
+
+    @Param({"1000", "2000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean sorted;
+
+    private List<Contract> contracts;
+
+    @Setup
+    public void setUp() {
+        contracts = new DatasetGenerator(5L, 1).contracts(1, rows, rows, rows);
+    }
+
+    @Benchmark
+    public int legacy() throws InterruptedException, InvocationTargetException {
+        LegacyContractTableModel model = new LegacyContractTableModel();
+        JTable table = table(model);
+        onEventDispatchThread(() -> {
+            for (Contract contract : contracts) {
+                model.addContractToTable(contract);
+            }
+            model.fireTableDataChanged();
+        });
+        return table.getRowCount();
+    }
+
+    @Benchmark
+    public int bulk() throws InterruptedException, InvocationTargetException {
+        ContractTableModel model = new ContractTableModel();
+        JTable table = table(model);
+        onEventDispatchThread(() -> {
+            model.replaceAll(contracts.subList(0, Math.min(CHUNK, rows)));
+            for (int i = CHUNK; i < rows; i += CHUNK) {
+                model.appendAll(contracts.subList(i, Math.min(i + CHUNK, rows)));
+            }
+        });
+        return table.getRowCount();
+    }
+
+    private JTable table(TableModel model) {
+        JTable table = new JTable(model);
+        if (sorted) {
+            table.setAutoCreateRowSorter(true);
+            table.getRowSorter().setSortKeys(Collections.singletonList(new RowSorter.SortKey(0, SortOrder.ASCENDING)));
+        }
+        return table;
+    }
+
+    private static void onEventDispatchThread(Runnable task) throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(task);
+    }
+
+    /**
+     * ContractTableModel as it was before bulk operations, firing full change for every added row
+     */
+    private static class LegacyContractTableModel extends AbstractTableModel {
+        private final List<Contract> contracts = new ArrayList<>();
+
+        void addContractToTable(Contract contract) {
+            contracts.add(contract);
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return contracts.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 4;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Contract contract = contracts.get(row);
+            switch (column) {
+                case 0:
+                    return contract.getId();
+                case 1:
+                    return contract.getProperty();
+                case 2:
+                    return contract.getClient();
+                case 3:
+                    return contract.getDateOfSigning();
+                default:
+                    throw new IllegalArgumentException("Column index is out of range");
+            }
+        }
+    }
+}
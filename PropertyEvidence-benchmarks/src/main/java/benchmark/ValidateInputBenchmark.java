@@ -0,0 +1,135 @@
+package benchmark;
+
+import backend.Client;
+import backend.Contract;
+import backend.Property;
+import common.IllegalEntityException;
+import common.ValidateInput;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comparison of ValidateInput with its previous implementation (LegacyValidateInput) on a batch of generated
+ * records, of which every 20th is invalid. Run with GC profiler to compare allocation per batch.
+ *
+ * @author agent agent@local
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidateInputBenchmark {
+
+    private static final int BATCH = 10_000;
+    private static final int INVALID_EVERY = 20;
+
+    private List<Client> clients;
+    private List<Property> properties;
+    private List<Contract> contracts;
+    private List<Object> records;
+
+    @Setup
+    public void setUp() {
+        DatasetGenerator generator = new DatasetGenerator(3L, 1);
+        clients = generator.clients(1, BATCH);
+        properties = generator.properties(1, BATCH);
+        contracts = generator.contracts(1, BATCH, BATCH, BATCH);
+        for (int i = 0; i < BATCH; i += INVALID_EVERY) {
+            clients.get(i).setFullName("Jöhn Doe");
+            properties.get(i).setAddress("");
+            contracts.get(i).setDateOfSigning(null);
+        }
+        records = new ArrayList<>(3 * BATCH);
+        records.addAll(clients);
+        records.addAll(properties);
+        records.addAll(contracts);
+    }
+
+    @Benchmark
+    public int legacyClients() {
+        int invalid = 0;
+        for (Client client : clients) {
+            try {
+                LegacyValidateInput.validateClient(client);
+            } catch (IllegalEntityException ex) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    @Benchmark
+    public int clients() {
+        int invalid = 0;
+        for (Client client : clients) {
+            try {
+                ValidateInput.validateClient(client);
+            } catch (IllegalEntityException ex) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    @Benchmark
+    public int legacyProperties() {
+        int invalid = 0;
+        for (Property property : properties) {
+            try {
+                LegacyValidateInput.validateProperty(property);
+            } catch (IllegalEntityException ex) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    @Benchmark
+    public int properties() {
+        int invalid = 0;
+        for (Property property : properties) {
+            try {
+                ValidateInput.validateProperty(property);
+            } catch (IllegalEntityException ex) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    @Benchmark
+    public int legacyContracts() {
+        int invalid = 0;
+        for (Contract contract : contracts) {
+            try {
+                LegacyValidateInput.validateContract(contract);
+            } catch (IllegalEntityException ex) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    @Benchmark
+    public int contracts() {
+        int invalid = 0;
+        for (Contract contract : contracts) {
+            try {
+                ValidateInput.validateContract(contract);
+            } catch (IllegalEntityException ex) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    @Benchmark
+    public int validateAll() {
+        return ValidateInput.validateAll(records).size();
+    }
+}
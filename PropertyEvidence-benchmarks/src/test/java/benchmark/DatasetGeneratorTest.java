@@ -0,0 +1,54 @@
+package benchmark;
+
+import backend.Client;
+import backend.Contract;
+import backend.Property;
+import common.ValidateInput;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class DatasetGenerator
+ *
+ * @author agent agent@local
+ */
+public class DatasetGeneratorTest {
+
+    @Test
+    public void generatedEntitiesAreValid() {
+        DatasetGenerator generator = new DatasetGenerator(1L, 1);
+        for (Client client : generator.clients(1, 5000)) {
+            ValidateInput.validateClient(client);
+        }
+        for (Property property : generator.properties(1, 5000)) {
+            ValidateInput.validateProperty(property);
+        }
+        for (Contract contract : generator.contracts(1, 5000, 100, 200)) {
+            ValidateInput.validateContract(contract);
+            assertThat(contract.getClient().getId()).isBetween(1L, 100L);
+            assertThat(contract.getProperty().getId()).isBetween(1L, 200L);
+        }
+    }
+
+    @Test
+    public void sameSeedGivesSameRowsForAnyRange() {
+        List<Client> all = new DatasetGenerator(7L, 1).clients(1, 25_000);
+        List<Client> part = new DatasetGenerator(7L, 4).clients(12_345, 100);
+        for (int i = 0; i < part.size(); i++) {
+            Client expected = all.get(12_344 + i);
+            assertThat(part.get(i).getId()).isEqualTo(expected.getId());
+            assertThat(part.get(i).getFullName()).isEqualTo(expected.getFullName());
+            assertThat(part.get(i).getPhoneNumber()).isEqualTo(expected.getPhoneNumber());
+        }
+    }
+
+    @Test
+    public void differentSeedGivesDifferentRows() {
+        List<Property> first = new DatasetGenerator(1L, 1).properties(1, 100);
+        List<Property> second = new DatasetGenerator(2L, 1).properties(1, 100);
+        assertThat(first).isNotEqualTo(second);
+    }
+}
@@ -0,0 +1,63 @@
+package benchmark;
+
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class ScalabilityReport
+ *
+ * @author agent agent@local
+ */
+public class ScalabilityReportTest {
+
+    private static long[] latencies(long median) {
+        long[] nanos = new long[100];
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = median - 50 + i;
+        }
+        return nanos;
+    }
+
+    @Test
+    public void percentileUsesNearestRank() {
+        long[] sorted = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        assertThat(ScalabilityReport.percentile(sorted, 0.5)).isEqualTo(5L);
+        assertThat(ScalabilityReport.percentile(sorted, 0.99)).isEqualTo(10L);
+    }
+
+    @Test
+    public void logarithmicOperationPasses() {
+        ScalabilityReport report = new ScalabilityReport();
+        report.add("getById", Growth.LOGARITHMIC, 10_000, latencies(40_000));
+        report.add("getById", Growth.LOGARITHMIC, 100_000, latencies(50_000));
+        report.add("getById", Growth.LOGARITHMIC, 1_000_000, latencies(60_000));
+
+        assertThat(report.growthExponent("getById")).isBetween(0.0, 0.1);
+        assertThat(report.failures(new Properties(), 1.5)).isEmpty();
+    }
+
+    @Test
+    public void tableScanOfLogarithmicOperationFails() {
+        ScalabilityReport report = new ScalabilityReport();
+        report.add("findByClient", Growth.LOGARITHMIC, 10_000, latencies(1_000_000));
+        report.add("findByClient", Growth.LOGARITHMIC, 100_000, latencies(10_000_000));
+        report.add("findByClient", Growth.LOGARITHMIC, 1_000_000, latencies(100_000_000));
+
+        assertThat(report.growthExponent("findByClient")).isBetween(0.99, 1.01);
+        assertThat(report.failures(new Properties(), 1.5)).hasSize(1);
+    }
+
+    @Test
+    public void slowerThanBaselineFails() {
+        ScalabilityReport report = new ScalabilityReport();
+        report.add("getAll", Growth.LINEAR, 10_000, latencies(1_000_000));
+        Properties baseline = report.toBaseline();
+        assertThat(report.failures(baseline, 1.5)).isEmpty();
+
+        baseline.setProperty("getAll.10000.p50", "500000");
+        assertThat(report.failures(baseline, 1.5)).hasSize(1);
+    }
+}
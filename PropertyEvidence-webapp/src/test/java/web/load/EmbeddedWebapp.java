@@ -0,0 +1,58 @@
+package web.load;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.webresources.DirResourceSet;
+import org.apache.catalina.webresources.StandardRoot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Webapp running in embedded Tomcat inside the current JVM. Servlets and the listener are found by annotation
+ * scanning of target/classes, JSP pages are served from src/main/webapp.
+ *
+ * @author agent agent@local
+ */
+class EmbeddedWebapp implements AutoCloseable {
+
+    static final String CONTEXT_PATH = "/PropertyEvidence";
+
+    private final Tomcat tomcat = new Tomcat();
+
+    /**
+     * Starts the webapp on a free port
+     *
+     * @param maxThreads maximal number of request processing threads of the connector
+     * @throws LifecycleException when Tomcat cannot be started
+     * @throws IOException        when work directory cannot be created
+     */
+    EmbeddedWebapp(int maxThreads) throws LifecycleException, IOException {
+        tomcat.setBaseDir(Files.createTempDirectory("propertyevidence-tomcat").toString());
+        tomcat.setPort(0);
+        tomcat.getConnector().setProperty("maxThreads", Integer.toString(maxThreads));
+
+        Context context = tomcat.addWebapp(CONTEXT_PATH, new File("src/main/webapp").getAbsolutePath());
+        WebResourceRoot resources = new StandardRoot(context);
+        resources.addPreResources(new DirResourceSet(resources, "/WEB-INF/classes",
+                new File("target/classes").getAbsolutePath(), "/"));
+        context.setResources(resources);
+        tomcat.start();
+    }
+
+    /**
+     * @return URL of the webapp root, without trailing slash
+     */
+    String baseUrl() {
+        return "http://localhost:" + tomcat.getConnector().getLocalPort() + CONTEXT_PATH;
+    }
+
+    @Override
+    public void close() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+}
@@ -0,0 +1,343 @@
+package web.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HTTP load test of the webapp. Boots the webapp in embedded Tomcat and drives open-model traffic against it:
+ * requests are sent at constant arrival rate regardless of how fast the server responds, stepping the rate up
+ * until the server saturates.
+ *
+ * Latency is measured from the time the request was scheduled to be sent, not from the time it was actually
+ * sent, so that requests delayed behind a slow response are not left out (coordinated omission).
+ * Service time, measured from the actual send, is reported alongside for comparison.
+ *
+ * Rate is sustainable when at least 95 % of it is achieved, less than 1 % of requests fail and p99 latency
+ * is within the SLO. Saturation point is the first step which is not sustainable.
+ *
+ * Configured by system properties:
+ * load.rates in requests per second (default 25,50,100,200,400,800), load.seconds per step (default 30),
+ * load.warmupSeconds (default 10), load.threads of Tomcat connector (default 200), load.connections of the
+ * load generator (default 500), load.sloMillis for p99 (default 500), load.preload number of clients and
+ * properties created before the test (default 1000) and load.report directory (default target/load-test).
+ *
+ * Run by: mvn test-compile exec:java -Dload.rates=50,100,200
+ *
+ * @author agent agent@local
+ */
+public class LoadTest {
+
+    private static final double SUSTAINED_THROUGHPUT = 0.95;
+    private static final double MAX_ERROR_RATE = 0.01;
+
+    private final String baseUrl;
+    private final int preloaded;
+    private final ExecutorService senders;
+
+    private LoadTest(String baseUrl, int preloaded, int connections) {
+        this.baseUrl = baseUrl;
+        this.preloaded = preloaded;
+        this.senders = Executors.newFixedThreadPool(connections, runnable -> {
+            Thread thread = new Thread(runnable, "load-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] rates = parseInts(System.getProperty("load.rates", "25,50,100,200,400,800"));
+        int seconds = Integer.getInteger("load.seconds", 30);
+        int warmupSeconds = Integer.getInteger("load.warmupSeconds", 10);
+        int threads = Integer.getInteger("load.threads", 200);
+        int connections = Integer.getInteger("load.connections", 500);
+        long sloNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("load.sloMillis", 500L));
+        int preload = Integer.getInteger("load.preload", 1000);
+        Path reportDirectory = Paths.get(System.getProperty("load.report", "target/load-test"));
+        Files.createDirectories(reportDirectory);
+
+        /* keep-alive connections are reused only up to this limit, the rest would be reconnected for every request */
+        System.setProperty("http.maxConnections", Integer.toString(connections));
+
+        try (EmbeddedWebapp webapp = new EmbeddedWebapp(threads)) {
+            LoadTest test = new LoadTest(webapp.baseUrl(), preload, connections);
+            test.createInitialData();
+            test.runStep(rates[0], warmupSeconds);
+
+            List<StepResult> results = new ArrayList<>();
+            StepResult saturation = null;
+            for (int rate : rates) {
+                StepResult result = test.runStep(rate, seconds);
+                results.add(result);
+                System.out.println(result.summary(sloNanos));
+                try (PrintStream out = new PrintStream(
+                        Files.newOutputStream(reportDirectory.resolve("latency-" + rate + ".hgrm")))) {
+                    result.latency.outputPercentileDistribution(out, 1e6);
+                }
+                if (!result.sustainable(sloNanos)) {
+                    saturation = result;
+                    break;
+                }
+            }
+
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(reportDirectory.resolve("report.txt")))) {
+                report(out, results, saturation, sloNanos, threads);
+            }
+            report(new PrintWriter(System.out), results, saturation, sloNanos, threads);
+        }
+    }
+
+    private static void report(PrintWriter out, List<StepResult> results, StepResult saturation, long sloNanos,
+                               int threads) {
+        out.println("Tomcat threads: " + threads + ", p99 SLO: " + TimeUnit.NANOSECONDS.toMillis(sloNanos) + " ms");
+        out.println(StepResult.HEADER);
+        for (StepResult result : results) {
+            out.println(result.summary(sloNanos));
+        }
+        if (saturation == null) {
+            out.println("Not saturated up to " + results.get(results.size() - 1).rate + " requests/s");
+        } else {
+            int index = results.indexOf(saturation);
+            out.println("Saturated at " + saturation.rate + " requests/s, last sustainable rate: "
+                    + (index == 0 ? "none" : results.get(index - 1).rate + " requests/s"));
+        }
+        out.flush();
+    }
+
+    private static int[] parseInts(String values) {
+        String[] parts = values.split(",");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i].trim());
+        }
+        return result;
+    }
+
+    /**
+     * Creates clients and properties, so that listings have realistic size and updates have existing ids
+     */
+    private void createInitialData() throws IOException {
+        SplittableRandom random = new SplittableRandom(1L);
+        for (int i = 0; i < preloaded; i++) {
+            send(Request.CREATE_CLIENT, random);
+            send(Request.CREATE_PROPERTY, random);
+        }
+    }
+
+    /**
+     * Sends requests at constant rate for given time and waits for all responses
+     *
+     * @param rate    requests per second
+     * @param seconds duration of the step
+     * @return latencies and throughput of the step
+     */
+    private StepResult runStep(int rate, int seconds) throws InterruptedException {
+        StepResult result = new StepResult(rate);
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        int count = rate * seconds;
+        CountDownLatch finished = new CountDownLatch(count);
+        SplittableRandom random = new SplittableRandom(rate);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            long intended = start + i * interval;
+            long wait;
+            while ((wait = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Request request = Request.pick(random);
+            SplittableRandom requestRandom = random.split();
+            senders.execute(() -> {
+                long sent = System.nanoTime();
+                boolean ok;
+                try {
+                    ok = send(request, requestRandom);
+                } catch (IOException ex) {
+                    ok = false;
+                }
+                long end = System.nanoTime();
+                result.record(intended, sent, end, ok);
+                finished.countDown();
+            });
+        }
+        finished.await();
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Sends single request and reads whole response
+     *
+     * @return true when the server responded by success or redirect
+     */
+    private boolean send(Request request, SplittableRandom random) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + request.path(random, preloaded))
+                .openConnection();
+        connection.setInstanceFollowRedirects(false);
+        connection.setConnectTimeout(10_000);
+        connection.setReadTimeout(60_000);
+        String form = request.form(random);
+        if (form != null) {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=utf-8");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(form.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream body = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (body != null) {
+            /* response has to be read completely, so that the connection can be reused */
+            try (InputStream in = body) {
+                byte[] buffer = new byte[8192];
+                while (in.read(buffer) != -1) {
+                    /* discard */
+                }
+            }
+        }
+        return status < 400;
+    }
+
+    /**
+     * Requests sent by the load test, with their share of the traffic in percent.
+     */
+    private enum Request {
+        LIST_CLIENTS(30),
+        LIST_PROPERTIES(30),
+        CREATE_CLIENT(10),
+        CREATE_PROPERTY(10),
+        UPDATE_CLIENT(10),
+        EDIT_PROPERTY(10);
+
+        private static final String[] NAMES = {"John Doe", "Jane Novak", "Peter Horvath", "Eva Svoboda"};
+        private static final String[] STREETS = {"Hlavna", "Botanicka", "Krizna", "Masarykova"};
+        private static final String[] TYPES = {"one_room_flat", "two_room_flat", "three_room_flat", "family_house"};
+
+        private final int weight;
+
+        Request(int weight) {
+            this.weight = weight;
+        }
+
+        static Request pick(SplittableRandom random) {
+            int choice = random.nextInt(100);
+            for (Request request : values()) {
+                choice -= request.weight;
+                if (choice < 0) {
+                    return request;
+                }
+            }
+            return LIST_CLIENTS;
+        }
+
+        String path(SplittableRandom random, int preloaded) {
+            switch (this) {
+                case LIST_CLIENTS:
+                    return "/client";
+                case LIST_PROPERTIES:
+                    return "/property";
+                case CREATE_CLIENT:
+                    return "/client/create";
+                case CREATE_PROPERTY:
+                    return "/property/create";
+                case UPDATE_CLIENT:
+                    return "/client/updateConfirm?id=" + (1 + random.nextInt(Math.max(preloaded, 1)));
+                default:
+                    return "/property/update?id=" + (1 + random.nextInt(Math.max(preloaded, 1)));
+            }
+        }
+
+        /**
+         * @return url encoded form of POST request, or null for GET request
+         */
+        String form(SplittableRandom random) throws UnsupportedEncodingException {
+            switch (this) {
+                case CREATE_CLIENT:
+                case UPDATE_CLIENT:
+                    return "name=" + URLEncoder.encode(NAMES[random.nextInt(NAMES.length)], "UTF-8")
+                            + "&phone=" + URLEncoder.encode("+4219" + (10_000_000 + random.nextInt(90_000_000)), "UTF-8");
+                case CREATE_PROPERTY:
+                    return "address=" + URLEncoder.encode(STREETS[random.nextInt(STREETS.length)] + " "
+                            + (1 + random.nextInt(150)), "UTF-8")
+                            + "&area=" + (20 + random.nextInt(200)) + ".00"
+                            + "&price=" + (50_000 + random.nextInt(500_000)) + ".00"
+                            + "&type=" + TYPES[random.nextInt(TYPES.length)];
+                case EDIT_PROPERTY:
+                    return "";
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Latencies and counts of one step of the load test.
+     */
+    private static class StepResult {
+        static final String HEADER = String.format(Locale.ROOT, "%8s %9s %7s %9s %9s %9s %9s %9s %11s %11s",
+                "rate", "achieved", "errors", "p50", "p90", "p99", "p99.9", "max", "service p50", "service p99");
+
+        private final int rate;
+        /* latency from intended send time, corrected for coordinated omission */
+        private final Histogram latency = new ConcurrentHistogram(3);
+        /* latency from actual send time */
+        private final Histogram service = new ConcurrentHistogram(3);
+        private final LongAdder errors = new LongAdder();
+        private volatile long elapsedNanos;
+
+        StepResult(int rate) {
+            this.rate = rate;
+        }
+
+        void record(long intended, long sent, long end, boolean ok) {
+            latency.recordValue(end - intended);
+            service.recordValue(end - sent);
+            if (!ok) {
+                errors.increment();
+            }
+        }
+
+        double achievedRate() {
+            return latency.getTotalCount() / (elapsedNanos / 1e9);
+        }
+
+        double errorRate() {
+            return (double) errors.sum() / Math.max(latency.getTotalCount(), 1);
+        }
+
+        boolean sustainable(long sloNanos) {
+            return achievedRate() >= SUSTAINED_THROUGHPUT * rate
+                    && errorRate() < MAX_ERROR_RATE
+                    && latency.getValueAtPercentile(99) <= sloNanos;
+        }
+
+        String summary(long sloNanos) {
+            return String.format(Locale.ROOT, "%8d %9.1f %7d %9s %9s %9s %9s %9s %11s %11s%s",
+                    rate, achievedRate(), errors.sum(),
+                    millis(latency.getValueAtPercentile(50)), millis(latency.getValueAtPercentile(90)),
+                    millis(latency.getValueAtPercentile(99)), millis(latency.getValueAtPercentile(99.9)),
+                    millis(latency.getMaxValue()),
+                    millis(service.getValueAtPercentile(50)), millis(service.getValueAtPercentile(99)),
+                    sustainable(sloNanos) ? "" : "  SATURATED");
+        }
+
+        private static String millis(long nanos) {
+            return String.format(Locale.ROOT, "%.1f ms", nanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package backend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Delivers changes of entities from managers to the parts of application, which display them.
+ * Managers sharing one bus publish every committed create, update and delete, so that subscribers
+ * can patch their copies of the data instead of loading them again.
+ *
+ * Events are delivered synchronously on the thread of the manager call, subscribers should only hand
+ * the event over, e.g. to the event dispatch thread. An exception of a subscriber is logged and does not
+ * affect the manager call or the other subscribers.
+ *
+ * @author agent agent@local
+ */
+public class ChangeBus {
+
+    private final static Logger log = LoggerFactory.getLogger(ChangeBus.class);
+
+    private final Map<Class<?>, List<Consumer<?>>> subscribers = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribes to changes of one entity type
+     *
+     * @param entityType type of the entity, e.g. Client.class
+     * @param subscriber receiver of the changes
+     * @param <T>        type of the entity
+     * @return subscription, which unsubscribes when closed
+     */
+    public <T> Subscription subscribe(Class<T> entityType, Consumer<ChangeEvent<T>> subscriber) {
+        if (entityType == null || subscriber == null) {
+            throw new IllegalArgumentException("Entity type or subscriber is null");
+        }
+        List<Consumer<?>> list = subscribers.computeIfAbsent(entityType, type -> new CopyOnWriteArrayList<>());
+        list.add(subscriber);
+        return () -> list.remove(subscriber);
+    }
+
+    /**
+     * Delivers the change to all subscribers of its entity type
+     *
+     * @param event published change
+     * @param <T>   type of the entity
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void publish(ChangeEvent<T> event) {
+        List<Consumer<?>> list = subscribers.get(event.getEntityType());
+        if (list == null) {
+            return;
+        }
+        for (Consumer<?> subscriber : list) {
+            try {
+                ((Consumer<ChangeEvent<T>>) subscriber).accept(event);
+            } catch (RuntimeException ex) {
+                log.error("subscriber failed to process " + event, ex);
+            }
+        }
+    }
+
+    /**
+     * Registration of a subscriber
+     */
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,62 @@
+package backend;
+
+/**
+ * Change of a single entity, published by managers to ChangeBus after the change has been committed.
+ *
+ * @param <T> type of the changed entity
+ * @author agent agent@local
+ */
+public class ChangeEvent<T> {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+    private final Class<T> entityType;
+    private final T entity;
+
+    public ChangeEvent(Type type, Class<T> entityType, T entity) {
+        this.type = type;
+        this.entityType = entityType;
+        this.entity = entity;
+    }
+
+    public static <T> ChangeEvent<T> created(Class<T> entityType, T entity) {
+        return new ChangeEvent<>(Type.CREATED, entityType, entity);
+    }
+
+    public static <T> ChangeEvent<T> updated(Class<T> entityType, T entity) {
+        return new ChangeEvent<>(Type.UPDATED, entityType, entity);
+    }
+
+    public static <T> ChangeEvent<T> deleted(Class<T> entityType, T entity) {
+        return new ChangeEvent<>(Type.DELETED, entityType, entity);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Class<T> getEntityType() {
+        return entityType;
+    }
+
+    /**
+     * Returns the entity as it has been passed to the manager, deleted entity has at least its id set
+     *
+     * @return changed entity
+     */
+    public T getEntity() {
+        return entity;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+                "type=" + type +
+                ", entityType=" + entityType.getSimpleName() +
+                ", entity=" + entity +
+                '}';
+    }
+}
@@ -30,6 +30,17 @@ public interface ClientManager {
      */
     void updateClient(Client client) throws IllegalArgumentException, IllegalEntityException;
 
+    /**
+     * Updates edited clients in a single transaction. A client is updated only when its row still holds
+     * the original values, otherwise its edit is returned as a conflict and the other edits are committed.
+     *
+     * @param edits edits of clients loaded from database.
+     * @return conflicting edits, empty when all clients have been updated.
+     * @throws IllegalArgumentException when the edits argument is null
+     * @throws IllegalEntityException when an edited client has invalid attribute values or other id than the original
+     */
+    List<UpdateConflict<Client>> updateClients(List<RowEdit<Client>> edits) throws IllegalArgumentException, IllegalEntityException;
+
     /**
      * Deletes client from database.
      *
@@ -46,6 +57,23 @@ public interface ClientManager {
      */
     List<Client> getClients();
 
+    /**
+     * Returns number of all clients in database.
+     *
+     * @return number of clients in database.
+     */
+    int countClients();
+
+    /**
+     * Returns one page of all clients in database, ordered by id.
+     *
+     * @param offset number of clients to skip
+     * @param limit  maximal number of returned clients
+     * @return list of at most limit clients.
+     * @throws IllegalArgumentException when the offset is negative or the limit is not positive
+     */
+    List<Client> getClients(int offset, int limit) throws IllegalArgumentException;
+
     /**
      * Returns list of all clients with matching name.
      *
@@ -55,6 +83,26 @@ public interface ClientManager {
      */
     List<Client> findClientsByName(String subName) throws IllegalArgumentException;
 
+    /**
+     * Returns number of clients with matching name.
+     *
+     * @param subName string to match with client name.
+     * @return number of clients whose names contain substring subName.
+     * @throws IllegalArgumentException when the subName is null
+     */
+    int countClientsByName(String subName) throws IllegalArgumentException;
+
+    /**
+     * Returns one page of clients with matching name, ordered by id.
+     *
+     * @param subName string to match with client name.
+     * @param offset  number of matching clients to skip
+     * @param limit   maximal number of returned clients
+     * @return list of at most limit clients whose names contain substring subName.
+     * @throws IllegalArgumentException when the subName is null, the offset is negative or the limit is not positive
+     */
+    List<Client> findClientsByName(String subName, int offset, int limit) throws IllegalArgumentException;
+
     /**
      * Retrieves client from database by its id
      *
@@ -4,6 +4,8 @@ import common.DBUtils;
 import common.DatabaseFaultException;
 import common.IllegalEntityException;
 import common.ValidateInput;
+import common.events.ManagerOperationEvent;
+import common.events.RowMappingEvent;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,135 +22,357 @@ import java.util.List;
 public class ClientManagerImpl implements ClientManager {
 
     private DataSource dataSource;
+    private ChangeBus changeBus;
     private final static Logger log = LoggerFactory.getLogger(ClientManagerImpl.class);
 
     public ClientManagerImpl(DataSource dataSource) {
+        this(dataSource, new ChangeBus());
+    }
+
+    /**
+     * Creates manager publishing committed changes to the bus
+     *
+     * @param dataSource data source of the database
+     * @param changeBus  bus shared with the other managers and the views of the data
+     */
+    public ClientManagerImpl(DataSource dataSource, ChangeBus changeBus) {
         this.dataSource = dataSource;
+        this.changeBus = changeBus;
     }
 
     @Override
     public void createClient(Client client) {
-        ValidateInput.validateClient(client);
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Client", "createClient");
+        try {
+            ValidateInput.validateClient(client);
 
-        if (client.getId() != null) {
-            throw new IllegalEntityException("Clients id is already set");
-        }
+            if (client.getId() != null) {
+                throw new IllegalEntityException("Clients id is already set");
+            }
 
-        try (Connection conn = dataSource.getConnection()) {
-            PreparedStatement st;
-            conn.setAutoCommit(false);
-            st = conn.prepareStatement(
-                    "INSERT INTO CLIENT (fullname, phone) VALUES (?,?)",
-                    Statement.RETURN_GENERATED_KEYS);
-            st.setString(1, client.getFullName());
-            st.setString(2, client.getPhoneNumber());
-
-            st.executeUpdate();
-
-            Long id = DBUtils.getId(st.getGeneratedKeys());
-            client.setId(id);
-
-            conn.commit();
-            conn.setAutoCommit(true);
-            log.debug("client created with id " + id);
-        } catch (SQLException ex) {
-            log.error("can not create client, database fault");
-            throw new DatabaseFaultException("Error occurred while adding client to database");
+            try (Connection conn = dataSource.getConnection()) {
+                PreparedStatement st;
+                conn.setAutoCommit(false);
+                st = conn.prepareStatement(
+                        "INSERT INTO CLIENT (fullname, phone) VALUES (?,?)",
+                        Statement.RETURN_GENERATED_KEYS);
+                st.setString(1, client.getFullName());
+                st.setString(2, client.getPhoneNumber());
+
+                st.executeUpdate();
+
+                Long id = DBUtils.getId(st.getGeneratedKeys());
+                client.setId(id);
+
+                conn.commit();
+                conn.setAutoCommit(true);
+                log.debug("client created with id " + id);
+                event.setRowCount(1);
+                changeBus.publish(ChangeEvent.created(Client.class, client));
+            } catch (SQLException ex) {
+                log.error("can not create client, database fault");
+                throw new DatabaseFaultException("Error occurred while adding client to database");
+            }
+        } finally {
+            event.finish();
         }
     }
 
     @Override
     public void updateClient(Client client) {
-        ValidateInput.validateClient(client);
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Client", "updateClient");
+        try {
+            ValidateInput.validateClient(client);
 
-        if (client.getId() == null) {
-            throw new IllegalEntityException("Clients id is null");
-        }
+            if (client.getId() == null) {
+                throw new IllegalEntityException("Clients id is null");
+            }
+
+            PreparedStatement st;
+            try (Connection conn = dataSource.getConnection()) {
+                conn.setAutoCommit(false);
+                st = conn.prepareStatement(
+                        "UPDATE CLIENT SET fullname = ?, phone = ? WHERE id = ?");
+                st.setString(1, client.getFullName());
+                st.setString(2, client.getPhoneNumber());
+                st.setLong(3, client.getId());
 
-        PreparedStatement st;
-        try (Connection conn = dataSource.getConnection()) {
-            conn.setAutoCommit(false);
-            st = conn.prepareStatement(
-                    "UPDATE CLIENT SET fullname = ?, phone = ? WHERE id = ?");
-            st.setString(1, client.getFullName());
-            st.setString(2, client.getPhoneNumber());
-            st.setLong(3, client.getId());
+                if (st.executeUpdate() != 1) {
+                    conn.setAutoCommit(true);
+                    throw new IllegalEntityException("Client is not in the database");
+                }
 
-            if (st.executeUpdate() != 1) {
+                conn.commit();
                 conn.setAutoCommit(true);
-                throw new IllegalEntityException("Client is not in the database");
+                log.debug("client with id " + client.getId() + " updated");
+                event.setRowCount(1);
+                changeBus.publish(ChangeEvent.updated(Client.class, client));
+            } catch (SQLException ex) {
+                log.error("can not update client, database fault");
+                throw new DatabaseFaultException("Error occurred while updating client in database");
             }
+        } finally {
+            event.finish();
+        }
+    }
 
-            conn.commit();
-            conn.setAutoCommit(true);
-            log.debug("client with id " + client.getId() + " updated");
-        } catch (SQLException ex) {
-            log.error("can not update client, database fault");
-            throw new DatabaseFaultException("Error occurred while updating client in database");
+    @Override
+    public List<UpdateConflict<Client>> updateClients(List<RowEdit<Client>> edits) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Client", "updateClients");
+        try {
+            if (edits == null) {
+                throw new IllegalArgumentException("Edits are null");
+            }
+            List<Client> edited = new ArrayList<>(edits.size());
+            for (RowEdit<Client> edit : edits) {
+                Long id = edit.getEdited().getId();
+                if (id == null || !id.equals(edit.getOriginal().getId())) {
+                    throw new IllegalEntityException("Edited client has other id than the original");
+                }
+                edited.add(edit.getEdited());
+            }
+            List<ValidateInput.InvalidRecord<Client>> invalid = ValidateInput.validateAll(edited);
+            if (!invalid.isEmpty()) {
+                throw new IllegalEntityException("Invalid clients: " + invalid);
+            }
+            if (edits.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            List<UpdateConflict<Client>> conflicts = new ArrayList<>();
+            List<Client> updated = new ArrayList<>();
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement st = conn.prepareStatement(
+                         "UPDATE CLIENT SET fullname = ?, phone = ? WHERE id = ? AND fullname = ? AND phone = ?");
+                 PreparedStatement current = conn.prepareStatement("SELECT * FROM CLIENT WHERE id = ?")) {
+                conn.setAutoCommit(false);
+                try {
+                    for (RowEdit<Client> edit : edits) {
+                        st.setString(1, edit.getEdited().getFullName());
+                        st.setString(2, edit.getEdited().getPhoneNumber());
+                        st.setLong(3, edit.getOriginal().getId());
+                        st.setString(4, edit.getOriginal().getFullName());
+                        st.setString(5, edit.getOriginal().getPhoneNumber());
+                        st.addBatch();
+                    }
+                    int[] counts = st.executeBatch();
+                    for (int i = 0; i < edits.size(); i++) {
+                        RowEdit<Client> edit = edits.get(i);
+                        if (counts[i] == 0) {
+                            /* row has been changed or deleted since the original was loaded */
+                            current.setLong(1, edit.getOriginal().getId());
+                            conflicts.add(new UpdateConflict<>(edit, retrieveClient(current)));
+                        } else {
+                            updated.add(edit.getEdited());
+                        }
+                    }
+                    conn.commit();
+                } catch (SQLException ex) {
+                    conn.rollback();
+                    throw ex;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException ex) {
+                log.error("can not update clients, database fault");
+                throw new DatabaseFaultException("Error occurred while updating clients in database", ex);
+            }
+            log.debug(updated.size() + " clients updated, " + conflicts.size() + " conflicts");
+            event.setRowCount(updated.size());
+            for (Client client : updated) {
+                changeBus.publish(ChangeEvent.updated(Client.class, client));
+            }
+            return conflicts;
+        } finally {
+            event.finish();
         }
     }
 
     @Override
     public void deleteClient(Client client) {
-        ValidateInput.validateClient(client);
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Client", "deleteClient");
+        try {
+            ValidateInput.validateClient(client);
 
-        if (client.getId() == null) {
-            throw new IllegalEntityException("Clients id is null");
-        }
+            if (client.getId() == null) {
+                throw new IllegalEntityException("Clients id is null");
+            }
+
+            PreparedStatement st;
+            try (Connection conn = dataSource.getConnection()) {
+                conn.setAutoCommit(false);
+                st = conn.prepareStatement(
+                        "DELETE FROM CLIENT WHERE id = ?");
+                st.setLong(1, client.getId());
 
-        PreparedStatement st;
-        try (Connection conn = dataSource.getConnection()) {
-            conn.setAutoCommit(false);
-            st = conn.prepareStatement(
-                    "DELETE FROM CLIENT WHERE id = ?");
-            st.setLong(1, client.getId());
+                if (st.executeUpdate() != 1) {
+                    conn.setAutoCommit(true);
+                    throw new IllegalEntityException("Client is not in the database");
+                }
 
-            if (st.executeUpdate() != 1) {
+                conn.commit();
                 conn.setAutoCommit(true);
-                throw new IllegalEntityException("Client is not in the database");
+                log.debug("client with id " + client.getId() + " deleted");
+                event.setRowCount(1);
+                changeBus.publish(ChangeEvent.deleted(Client.class, client));
+            } catch (SQLException ex) {
+                log.error("can not delete client, database fault");
+                throw new DatabaseFaultException("Error occurred while deleting client from database");
             }
-
-            conn.commit();
-            conn.setAutoCommit(true);
-            log.debug("client with id " + client.getId() + " deleted");
-        } catch (SQLException ex) {
-            log.error("can not delete client, database fault");
-            throw new DatabaseFaultException("Error occurred while deleting client from database");
+        } finally {
+            event.finish();
         }
     }
 
     @Override
     public List<Client> getClients() {
-        PreparedStatement st;
-        try (Connection conn = dataSource.getConnection()) {
-            st = conn.prepareStatement(
-                    "SELECT * FROM CLIENT");
-            log.debug("retrieving clients");
-            return retrieveClientsByQuery(st);
-        } catch (SQLException ex) {
-            log.error("can not retrieve client, database fault");
-            throw new DatabaseFaultException("Error occurred while retrieving clients from database");
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Client", "getClients");
+        try {
+            PreparedStatement st;
+            try (Connection conn = dataSource.getConnection()) {
+                st = conn.prepareStatement(
+                        "SELECT * FROM CLIENT");
+                log.debug("retrieving clients");
+                List<Client> result = retrieveClientsByQuery(st);
+                event.setRowCount(result.size());
+                return result;
+            } catch (SQLException ex) {
+                log.error("can not retrieve client, database fault");
+                throw new DatabaseFaultException("Error occurred while retrieving clients from database");
+            }
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public int countClients() {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Client", "countClients");
+        try {
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement st = conn.prepareStatement("SELECT COUNT(*) FROM CLIENT");
+                 ResultSet rs = st.executeQuery()) {
+                log.debug("counting clients");
+                rs.next();
+                event.setRowCount(1);
+                return rs.getInt(1);
+            } catch (SQLException ex) {
+                log.error("can not count clients, database fault");
+                throw new DatabaseFaultException("Error occurred while counting clients in database", ex);
+            }
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public List<Client> getClients(int offset, int limit) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Client", "getClientsPage");
+        try {
+            if (offset < 0 || limit <= 0) {
+                throw new IllegalArgumentException("Page offset is negative or limit is not positive");
+            }
+
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement st = conn.prepareStatement(
+                         "SELECT * FROM CLIENT ORDER BY id OFFSET ? ROWS FETCH NEXT ? ROWS ONLY")) {
+                st.setInt(1, offset);
+                st.setInt(2, limit);
+                log.debug("retrieving clients from " + offset);
+                List<Client> result = retrieveClientsByQuery(st);
+                event.setRowCount(result.size());
+                return result;
+            } catch (SQLException ex) {
+                log.error("can not retrieve page of clients, database fault");
+                throw new DatabaseFaultException("Error occurred while retrieving clients from database", ex);
+            }
+        } finally {
+            event.finish();
         }
     }
 
     @Override
     public List<Client> findClientsByName(String name) {
-        if (name == null) {
-            throw new IllegalArgumentException("Provided name is null");
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Client", "findClientsByName");
+        try {
+            if (name == null) {
+                throw new IllegalArgumentException("Provided name is null");
+            }
+
+            String patternToFind = "%" + name.toLowerCase() + "%";
+
+            PreparedStatement st;
+            try (Connection conn = dataSource.getConnection()) {
+                st = conn.prepareStatement(
+                        "SELECT * FROM CLIENT WHERE LOWER(fullname) LIKE ?");
+                st.setString(1, patternToFind);
+                log.debug("retrieving clients by name " + name);
+                List<Client> result = retrieveClientsByQuery(st);
+                event.setRowCount(result.size());
+                return result;
+            } catch (SQLException ex) {
+                log.error("can not retrieve by name, database fault");
+                throw new DatabaseFaultException("Error occurred while retrieving clients from database");
+            }
+        } finally {
+            event.finish();
         }
+    }
 
-        String patternToFind = "%" + name.toLowerCase() + "%";
-
-        PreparedStatement st;
-        try (Connection conn = dataSource.getConnection()) {
-            st = conn.prepareStatement(
-                    "SELECT * FROM CLIENT WHERE LOWER(fullname) LIKE ?");
-            st.setString(1, patternToFind);
-            log.debug("retrieving clients by name " + name);
-            return retrieveClientsByQuery(st);
-        } catch (SQLException ex) {
-            log.error("can not retrieve by name, database fault");
-            throw new DatabaseFaultException("Error occurred while retrieving clients from database");
+    @Override
+    public int countClientsByName(String name) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Client", "countClientsByName");
+        try {
+            if (name == null) {
+                throw new IllegalArgumentException("Provided name is null");
+            }
+
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement st = conn.prepareStatement(
+                         "SELECT COUNT(*) FROM CLIENT WHERE LOWER(fullname) LIKE ?")) {
+                st.setString(1, "%" + name.toLowerCase() + "%");
+                log.debug("counting clients by name " + name);
+                try (ResultSet rs = st.executeQuery()) {
+                    rs.next();
+                    event.setRowCount(1);
+                    return rs.getInt(1);
+                }
+            } catch (SQLException ex) {
+                log.error("can not count clients by name, database fault");
+                throw new DatabaseFaultException("Error occurred while counting clients in database", ex);
+            }
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public List<Client> findClientsByName(String name, int offset, int limit) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Client", "findClientsByNamePage");
+        try {
+            if (name == null) {
+                throw new IllegalArgumentException("Provided name is null");
+            }
+            if (offset < 0 || limit <= 0) {
+                throw new IllegalArgumentException("Page offset is negative or limit is not positive");
+            }
+
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement st = conn.prepareStatement(
+                         "SELECT * FROM CLIENT WHERE LOWER(fullname) LIKE ? ORDER BY id OFFSET ? ROWS FETCH NEXT ? ROWS ONLY")) {
+                st.setString(1, "%" + name.toLowerCase() + "%");
+                st.setInt(2, offset);
+                st.setInt(3, limit);
+                log.debug("retrieving clients by name " + name + " from " + offset);
+                List<Client> result = retrieveClientsByQuery(st);
+                event.setRowCount(result.size());
+                return result;
+            } catch (SQLException ex) {
+                log.error("can not retrieve page of clients by name, database fault");
+                throw new DatabaseFaultException("Error occurred while retrieving clients from database", ex);
+            }
+        } finally {
+            event.finish();
         }
     }
 
@@ -176,11 +400,16 @@ public class ClientManagerImpl implements ClientManager {
      * @throws SQLException when error occurs while converting
      */
     public static Client rowToClient(ResultSet rs) throws SQLException {
-        Client result = new Client();
-        result.setId(rs.getLong("id"));
-        result.setFullName(rs.getString("fullname"));
-        result.setPhoneNumber(rs.getString("phone"));
-        return result;
+        RowMappingEvent mappingEvent = RowMappingEvent.begin("Client", "rowToClient");
+        try {
+            Client result = new Client();
+            result.setId(rs.getLong("id"));
+            result.setFullName(rs.getString("fullname"));
+            result.setPhoneNumber(rs.getString("phone"));
+            return result;
+        } finally {
+            mappingEvent.finish();
+        }
     }
 
     /**
@@ -190,14 +419,21 @@ public class ClientManagerImpl implements ClientManager {
      * @return retrieved client
      */
     public Client getClientById(Long id) {
-        PreparedStatement st;
-        try (Connection conn = dataSource.getConnection()) {
-            st = conn.prepareStatement(
-                    "SELECT * FROM CLIENT WHERE id = ?");
-            st.setLong(1, id);
-            return retrieveClient(st);
-        } catch (SQLException ex) {
-            throw new DatabaseFaultException("Error occurred while retrieving client from database");
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Client", "getClientById");
+        try {
+            PreparedStatement st;
+            try (Connection conn = dataSource.getConnection()) {
+                st = conn.prepareStatement(
+                        "SELECT * FROM CLIENT WHERE id = ?");
+                st.setLong(1, id);
+                Client result = retrieveClient(st);
+                event.setRowCount(result == null ? 0 : 1);
+                return result;
+            } catch (SQLException ex) {
+                throw new DatabaseFaultException("Error occurred while retrieving client from database");
+            }
+        } finally {
+            event.finish();
         }
     }
 
@@ -34,6 +34,23 @@ public interface ContractManager {
     List<Contract> getAllContracts();
 
 
+    /**
+     * Returns number of all contracts in the database
+     * @return  number of contracts
+     */
+    int countContracts();
+
+
+    /**
+     * Returns one page of all contracts in the database, ordered by id
+     * @param offset    number of contracts to skip
+     * @param limit     maximal number of returned contracts
+     * @return  a list of at most limit contracts
+     * @throws IllegalArgumentException if the offset is negative or the limit is not positive
+     */
+    List<Contract> getContracts(int offset, int limit);
+
+
     /**
      * Updates information on the already existing contract
      * @param contract  a contract which is updated
@@ -58,6 +75,26 @@ public interface ContractManager {
     List<Contract> findContractByProperty(Property property);
 
 
+    /**
+     * Returns contracts of all clients, whose name contains the given string, ignoring case.
+     * Contracts are found together with their clients and properties by a single query.
+     * @param name      part of the client's name
+     * @return          a list of contracts ordered by id
+     * @throws IllegalArgumentException when the name is null
+     */
+    List<Contract> findContractsByClientName(String name);
+
+
+    /**
+     * Returns contracts of all properties, whose address contains the given string, ignoring case.
+     * Contracts are found together with their clients and properties by a single query.
+     * @param address   part of the property's address
+     * @return          a list of contracts ordered by id
+     * @throws IllegalArgumentException when the address is null
+     */
+    List<Contract> findContractsByPropertyAddress(String address);
+
+
     /**
      * Returns a contract with a specific Id
      * @param id id of the wanted contract
@@ -4,6 +4,8 @@ import common.DBUtils;
 import common.DatabaseFaultException;
 import common.IllegalEntityException;
 import common.ValidateInput;
+import common.events.ManagerOperationEvent;
+import common.events.RowMappingEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,177 +22,344 @@ import java.util.List;
 public class ContractManagerImpl implements ContractManager {
 
     private DataSource dataSource;
+    private ChangeBus changeBus;
     private final static Logger log = LoggerFactory.getLogger(ContractManagerImpl.class);
 
+    /* contracts joined with their clients and properties, the indexes on clientid and propertyid serve the joins.
+       The joins are outer, so that a contract of a missing client or property is listed like by countContracts */
+    private static final String JOINED_CONTRACTS =
+            "SELECT CONTRACT.id, CONTRACT.dateofsigning, "
+                    + "CLIENT.id AS clientid, CLIENT.fullname, CLIENT.phone, "
+                    + "PROPERTY.id AS propertyid, PROPERTY.area, PROPERTY.price, PROPERTY.type, PROPERTY.address "
+                    + "FROM CONTRACT "
+                    + "LEFT JOIN CLIENT ON CLIENT.id = CONTRACT.clientid "
+                    + "LEFT JOIN PROPERTY ON PROPERTY.id = CONTRACT.propertyid ";
+
     public ContractManagerImpl(DataSource dataSource) {
+        this(dataSource, new ChangeBus());
+    }
+
+    /**
+     * Creates manager publishing committed changes to the bus
+     *
+     * @param dataSource data source of the database
+     * @param changeBus  bus shared with the other managers and the views of the data
+     */
+    public ContractManagerImpl(DataSource dataSource, ChangeBus changeBus) {
         this.dataSource = dataSource;
+        this.changeBus = changeBus;
     }
 
     @Override
     public void createContract(Contract contract) {
-        if (contract == null) {
-            throw new IllegalArgumentException("Contract is null");
-        }
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Contract", "createContract");
+        try {
+            if (contract == null) {
+                throw new IllegalArgumentException("Contract is null");
+            }
 
-        if (contract.getId() != null) {
-            throw new IllegalEntityException("Contract id is already set");
-        }
+            if (contract.getId() != null) {
+                throw new IllegalEntityException("Contract id is already set");
+            }
 
-        ValidateInput.validateContract(contract);
+            ValidateInput.validateContract(contract);
 
-        PreparedStatement st;
-        try (Connection conn = dataSource.getConnection()) {
-            conn.setAutoCommit(false);
-            st = conn.prepareStatement(
-                    "INSERT INTO CONTRACT (clientid, propertyid, dateofsigning) VALUES (?,?,?)",
-                    Statement.RETURN_GENERATED_KEYS);
-            st.setLong(1, contract.getClient().getId());
-            st.setLong(2, contract.getProperty().getId());
-            st.setDate(3, DBUtils.toSqlDate(contract.getDateOfSigning()));
+            PreparedStatement st;
+            try (Connection conn = dataSource.getConnection()) {
+                conn.setAutoCommit(false);
+                st = conn.prepareStatement(
+                        "INSERT INTO CONTRACT (clientid, propertyid, dateofsigning) VALUES (?,?,?)",
+                        Statement.RETURN_GENERATED_KEYS);
+                st.setLong(1, contract.getClient().getId());
+                st.setLong(2, contract.getProperty().getId());
+                st.setDate(3, DBUtils.toSqlDate(contract.getDateOfSigning()));
 
-            st.executeUpdate();
+                st.executeUpdate();
 
-            Long id = DBUtils.getId(st.getGeneratedKeys());
-            contract.setId(id);
+                Long id = DBUtils.getId(st.getGeneratedKeys());
+                contract.setId(id);
 
-            conn.commit();
-            conn.setAutoCommit(true);
-            log.debug("created contract with id " + id);
-        } catch (SQLException ex) {
-            log.error("can not create contract, database fault");
-            throw new DatabaseFaultException("Error occurred while creating contract in database");
+                conn.commit();
+                conn.setAutoCommit(true);
+                log.debug("created contract with id " + id);
+                event.setRowCount(1);
+                changeBus.publish(ChangeEvent.created(Contract.class, contract));
+            } catch (SQLException ex) {
+                log.error("can not create contract, database fault");
+                throw new DatabaseFaultException("Error occurred while creating contract in database");
+            }
+        } finally {
+            event.finish();
         }
     }
 
     @Override
     public void deleteContract(Contract contract) {
-        if (contract == null) {
-            throw new IllegalArgumentException("Contract is null");
-        }
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Contract", "deleteContract");
+        try {
+            if (contract == null) {
+                throw new IllegalArgumentException("Contract is null");
+            }
 
-        if (contract.getId() == null) {
-            throw new IllegalEntityException("Contract id is null");
-        }
+            if (contract.getId() == null) {
+                throw new IllegalEntityException("Contract id is null");
+            }
+
+            ValidateInput.validateContract(contract);
 
-        ValidateInput.validateContract(contract);
+            PreparedStatement st;
+            try (Connection conn = dataSource.getConnection()) {
+                conn.setAutoCommit(false);
+                st = conn.prepareStatement(
+                        "DELETE FROM CONTRACT WHERE id=?");
+                st.setLong(1, contract.getId());
 
-        PreparedStatement st;
-        try (Connection conn = dataSource.getConnection()) {
-            conn.setAutoCommit(false);
-            st = conn.prepareStatement(
-                    "DELETE FROM CONTRACT WHERE id=?");
-            st.setLong(1, contract.getId());
+                if (st.executeUpdate() != 1) {
+                    conn.setAutoCommit(true);
+                    throw new IllegalEntityException("Contract is not in the database");
+                }
 
-            if (st.executeUpdate() != 1) {
+                conn.commit();
                 conn.setAutoCommit(true);
-                throw new IllegalEntityException("Contract is not in the database");
+                log.debug("deleted contract with id " + contract.getId());
+                event.setRowCount(1);
+                changeBus.publish(ChangeEvent.deleted(Contract.class, contract));
+            } catch (SQLException ex) {
+                log.error("can not delete contract, database fault");
+                throw new DatabaseFaultException("Error occurred while deleting contract from database");
             }
-
-            conn.commit();
-            conn.setAutoCommit(true);
-            log.debug("deleted contract with id " + contract.getId());
-        } catch (SQLException ex) {
-            log.error("can not delete contract, database fault");
-            throw new DatabaseFaultException("Error occurred while deleting contract from database");
+        } finally {
+            event.finish();
         }
     }
 
     @Override
     public List<Contract> getAllContracts() {
-        PreparedStatement st;
-        try (Connection conn = dataSource.getConnection()) {
-            st = conn.prepareStatement(
-                    "SELECT * FROM CONTRACT");
-            log.debug("retrieving contracts");
-            return retrieveContractsByQuery(st);
-        } catch (SQLException ex) {
-            log.error("can not retrieve contracts, database fault");
-            throw new DatabaseFaultException("Error occurred while retrieving contracts from database");
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Contract", "getAllContracts");
+        try {
+            PreparedStatement st;
+            try (Connection conn = dataSource.getConnection()) {
+                st = conn.prepareStatement(
+                        "SELECT * FROM CONTRACT");
+                log.debug("retrieving contracts");
+                List<Contract> result = retrieveContractsByQuery(st);
+                event.setRowCount(result.size());
+                return result;
+            } catch (SQLException ex) {
+                log.error("can not retrieve contracts, database fault");
+                throw new DatabaseFaultException("Error occurred while retrieving contracts from database");
+            }
+        } finally {
+            event.finish();
         }
     }
 
     @Override
-    public void updateContract(Contract contract) {
-        if (contract == null) {
-            throw new IllegalArgumentException("Contract is null");
+    public int countContracts() {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Contract", "countContracts");
+        try {
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement st = conn.prepareStatement("SELECT COUNT(*) FROM CONTRACT");
+                 ResultSet rs = st.executeQuery()) {
+                log.debug("counting contracts");
+                rs.next();
+                event.setRowCount(1);
+                return rs.getInt(1);
+            } catch (SQLException ex) {
+                log.error("can not count contracts, database fault");
+                throw new DatabaseFaultException("Error occurred while counting contracts in database", ex);
+            }
+        } finally {
+            event.finish();
         }
+    }
+
+    @Override
+    public List<Contract> getContracts(int offset, int limit) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Contract", "getContractsPage");
+        try {
+            if (offset < 0 || limit <= 0) {
+                throw new IllegalArgumentException("Page offset is negative or limit is not positive");
+            }
 
-        if (contract.getId() == null) {
-            throw new IllegalEntityException("Contract id is null");
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement st = conn.prepareStatement(
+                         JOINED_CONTRACTS + "ORDER BY CONTRACT.id OFFSET ? ROWS FETCH NEXT ? ROWS ONLY")) {
+                st.setInt(1, offset);
+                st.setInt(2, limit);
+                log.debug("retrieving contracts from " + offset);
+                List<Contract> result = retrieveJoinedContracts(st);
+                event.setRowCount(result.size());
+                return result;
+            } catch (SQLException ex) {
+                log.error("can not retrieve page of contracts, database fault");
+                throw new DatabaseFaultException("Error occurred while retrieving contracts from database", ex);
+            }
+        } finally {
+            event.finish();
         }
+    }
+
+    @Override
+    public void updateContract(Contract contract) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Contract", "updateContract");
+        try {
+            if (contract == null) {
+                throw new IllegalArgumentException("Contract is null");
+            }
+
+            if (contract.getId() == null) {
+                throw new IllegalEntityException("Contract id is null");
+            }
 
-        ValidateInput.validateContract(contract);
+            ValidateInput.validateContract(contract);
 
 
-        PreparedStatement st;
-        try (Connection conn = dataSource.getConnection()) {
-            conn.setAutoCommit(false);
-            st = conn.prepareStatement(
-                    "UPDATE CONTRACT SET dateofsigning = ? WHERE id=?");
-            st.setDate(1, DBUtils.toSqlDate(contract.getDateOfSigning()));
-            st.setLong(2, contract.getId());
+            PreparedStatement st;
+            try (Connection conn = dataSource.getConnection()) {
+                conn.setAutoCommit(false);
+                st = conn.prepareStatement(
+                        "UPDATE CONTRACT SET dateofsigning = ? WHERE id=?");
+                st.setDate(1, DBUtils.toSqlDate(contract.getDateOfSigning()));
+                st.setLong(2, contract.getId());
 
-            if (st.executeUpdate() != 1) {
+                if (st.executeUpdate() != 1) {
+                    conn.setAutoCommit(true);
+                    throw new IllegalEntityException("Contract is not in the database");
+                }
+
+                conn.commit();
                 conn.setAutoCommit(true);
-                throw new IllegalEntityException("Contract is not in the database");
+                log.debug("updated contract with id " + contract.getId());
+                event.setRowCount(1);
+                changeBus.publish(ChangeEvent.updated(Contract.class, contract));
+            } catch (SQLException ex) {
+                log.error("can not update contract, database fault");
+                throw new DatabaseFaultException("Error occurred while updating contracts in database");
             }
-
-            conn.commit();
-            conn.setAutoCommit(true);
-            log.debug("updated contract with id " + contract.getId());
-        } catch (SQLException ex) {
-            log.error("can not update contract, database fault");
-            throw new DatabaseFaultException("Error occurred while updating contracts in database");
+        } finally {
+            event.finish();
         }
     }
 
     @Override
     public List<Contract> findContractsByClient(Client client) {
-        if (client == null) {
-            throw new IllegalArgumentException("Client is null");
-        }
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Contract", "findContractsByClient");
+        try {
+            if (client == null) {
+                throw new IllegalArgumentException("Client is null");
+            }
 
-        PreparedStatement st;
-        try (Connection conn = dataSource.getConnection()) {
-            st = conn.prepareStatement(
-                    "SELECT * FROM CONTRACT WHERE clientid = ?");
-            st.setLong(1, client.getId());
-            log.debug("retrieving contracts with by client with id " + client.getId());
-            return retrieveContractsByQuery(st);
-        } catch (SQLException ex) {
-            log.error("cannot retrieve contracts by client, database fault");
-            throw new DatabaseFaultException("Error occurred while retrieving contracts from database");
+            PreparedStatement st;
+            try (Connection conn = dataSource.getConnection()) {
+                st = conn.prepareStatement(
+                        "SELECT * FROM CONTRACT WHERE clientid = ?");
+                st.setLong(1, client.getId());
+                log.debug("retrieving contracts with by client with id " + client.getId());
+                List<Contract> result = retrieveContractsByQuery(st);
+                event.setRowCount(result.size());
+                return result;
+            } catch (SQLException ex) {
+                log.error("cannot retrieve contracts by client, database fault");
+                throw new DatabaseFaultException("Error occurred while retrieving contracts from database");
+            }
+        } finally {
+            event.finish();
         }
     }
 
     @Override
     public List<Contract> findContractByProperty(Property property) {
-        if (property == null) {
-            throw new IllegalArgumentException("Property is null");
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Contract", "findContractByProperty");
+        try {
+            if (property == null) {
+                throw new IllegalArgumentException("Property is null");
+            }
+
+            PreparedStatement st;
+            try (Connection conn = dataSource.getConnection()) {
+                st = conn.prepareStatement(
+                        "SELECT * FROM CONTRACT WHERE propertyid = ?");
+                st.setLong(1, property.getId());
+                log.debug("retrieving contracts with by property with id " + property.getId());
+                List<Contract> result = retrieveContractsByQuery(st);
+                event.setRowCount(result.size());
+                return result;
+            } catch (SQLException ex) {
+                log.error("can not retrieve contracts by property, database fault");
+                throw new DatabaseFaultException("Error occurred while retrieving contracts from database");
+            }
+        } finally {
+            event.finish();
+        }
+    }
+
+    @Override
+    public List<Contract> findContractsByClientName(String name) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Contract", "findContractsByClientName");
+        try {
+            if (name == null) {
+                throw new IllegalArgumentException("Provided name is null");
+            }
+
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement st = conn.prepareStatement(
+                         JOINED_CONTRACTS + "WHERE LOWER(CLIENT.fullname) LIKE ? ORDER BY CONTRACT.id")) {
+                st.setString(1, "%" + name.toLowerCase() + "%");
+                log.debug("retrieving contracts by client name " + name);
+                List<Contract> result = retrieveJoinedContracts(st);
+                event.setRowCount(result.size());
+                return result;
+            } catch (SQLException ex) {
+                log.error("can not retrieve contracts by client name, database fault");
+                throw new DatabaseFaultException("Error occurred while retrieving contracts from database", ex);
+            }
+        } finally {
+            event.finish();
         }
+    }
+
+    @Override
+    public List<Contract> findContractsByPropertyAddress(String address) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Contract", "findContractsByPropertyAddress");
+        try {
+            if (address == null) {
+                throw new IllegalArgumentException("Provided address is null");
+            }
 
-        PreparedStatement st;
-        try (Connection conn = dataSource.getConnection()) {
-            st = conn.prepareStatement(
-                    "SELECT * FROM CONTRACT WHERE propertyid = ?");
-            st.setLong(1, property.getId());
-            log.debug("retrieving contracts with by property with id " + property.getId());
-            return retrieveContractsByQuery(st);
-        } catch (SQLException ex) {
-            log.error("can not retrieve contracts by property, database fault");
-            throw new DatabaseFaultException("Error occurred while retrieving contracts from database");
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement st = conn.prepareStatement(
+                         JOINED_CONTRACTS + "WHERE LOWER(PROPERTY.address) LIKE ? ORDER BY CONTRACT.id")) {
+                st.setString(1, "%" + address.toLowerCase() + "%");
+                log.debug("retrieving contracts by property address " + address);
+                List<Contract> result = retrieveJoinedContracts(st);
+                event.setRowCount(result.size());
+                return result;
+            } catch (SQLException ex) {
+                log.error("can not retrieve contracts by property address, database fault");
+                throw new DatabaseFaultException("Error occurred while retrieving contracts from database", ex);
+            }
+        } finally {
+            event.finish();
         }
     }
 
     @Override
     public Contract getContractById(Long id) {
-        try (Connection conn = dataSource.getConnection()) {
-            PreparedStatement st = conn.prepareStatement(
-                    "SELECT * FROM CONTRACT WHERE id = ?");
-            st.setLong(1, id);
-            return retrieveContract(st);
-        } catch (SQLException ex) {
-            throw new DatabaseFaultException("Error occurred while retrieving contract from database");
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Contract", "getContractById");
+        try {
+            try (Connection conn = dataSource.getConnection()) {
+                PreparedStatement st = conn.prepareStatement(
+                        "SELECT * FROM CONTRACT WHERE id = ?");
+                st.setLong(1, id);
+                Contract result = retrieveContract(st);
+                event.setRowCount(result == null ? 0 : 1);
+                return result;
+            } catch (SQLException ex) {
+                throw new DatabaseFaultException("Error occurred while retrieving contract from database");
+            }
+        } finally {
+            event.finish();
         }
     }
 
@@ -223,6 +392,65 @@ public class ContractManagerImpl implements ContractManager {
         return result;
     }
 
+    /**
+     * Retrieves contracts selected together with their clients and properties by JOINED_CONTRACTS
+     *
+     * @param st prepared SQL statement, to retrieve contracts by
+     * @return list of contracts, retrieved by statement
+     * @throws SQLException when error occurs while retrieving from database
+     */
+    private List<Contract> retrieveJoinedContracts(PreparedStatement st) throws SQLException {
+        try (ResultSet rs = st.executeQuery()) {
+            List<Contract> result = new ArrayList<>();
+            while (rs.next()) {
+                result.add(joinedRowToContract(rs));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Converts database row of JOINED_CONTRACTS to Contract object, without querying its client and property.
+     * Missing client or property is null, like when it is retrieved by its id.
+     *
+     * @param rs result set containing a row from database
+     * @return converted Contract object
+     * @throws SQLException when error occurs while converting
+     */
+    private Contract joinedRowToContract(ResultSet rs) throws SQLException {
+        RowMappingEvent mappingEvent = RowMappingEvent.begin("Contract", "joinedRowToContract");
+        try {
+            Client client = null;
+            long clientId = rs.getLong("clientid");
+            if (!rs.wasNull()) {
+                client = new Client();
+                client.setId(clientId);
+                client.setFullName(rs.getString("fullname"));
+                client.setPhoneNumber(rs.getString("phone"));
+            }
+
+            Property property = null;
+            long propertyId = rs.getLong("propertyid");
+            if (!rs.wasNull()) {
+                property = new Property();
+                property.setId(propertyId);
+                property.setAddress(rs.getString("address"));
+                property.setType(PropertyType.valueOf(rs.getString("type").toUpperCase()));
+                property.setArea(rs.getBigDecimal("area"));
+                property.setPrice(rs.getBigDecimal("price"));
+            }
+
+            Contract result = new Contract();
+            result.setId(rs.getLong("id"));
+            result.setClient(client);
+            result.setProperty(property);
+            result.setDateOfSigning(DBUtils.toLocalDate(rs.getDate("dateofsigning")));
+            return result;
+        } finally {
+            mappingEvent.finish();
+        }
+    }
+
     /**
      * Converts database row to Contract object
      *
@@ -231,17 +459,22 @@ public class ContractManagerImpl implements ContractManager {
      * @throws SQLException when error occurs while converting
      */
     private Contract rowToContract(ResultSet rs) throws SQLException {
-        ClientManager clientManager = new ClientManagerImpl(dataSource);
-        PropertyManager propertyManager = new PropertyManagerImpl(dataSource);
-
-        Contract result = new Contract();
-        Long id = rs.getLong("id");
-        result.setId(id);
-        Long clientId = (rs.getLong("clientid"));
-        result.setClient(clientManager.getClientById(clientId));
-        Long propertyId = (rs.getLong("propertyid"));
-        result.setProperty(propertyManager.getPropertyById(propertyId));
-        result.setDateOfSigning(DBUtils.toLocalDate(rs.getDate("dateofsigning")));
-        return result;
+        RowMappingEvent mappingEvent = RowMappingEvent.begin("Contract", "rowToContract");
+        try {
+            ClientManager clientManager = new ClientManagerImpl(dataSource, changeBus);
+            PropertyManager propertyManager = new PropertyManagerImpl(dataSource, changeBus);
+
+            Contract result = new Contract();
+            Long id = rs.getLong("id");
+            result.setId(id);
+            Long clientId = (rs.getLong("clientid"));
+            result.setClient(clientManager.getClientById(clientId));
+            Long propertyId = (rs.getLong("propertyid"));
+            result.setProperty(propertyManager.getPropertyById(propertyId));
+            result.setDateOfSigning(DBUtils.toLocalDate(rs.getDate("dateofsigning")));
+            return result;
+        } finally {
+            mappingEvent.finish();
+        }
     }
 }
\ No newline at end of file
@@ -1,20 +1,29 @@
 package backend;
 
 import common.DBUtils;
+import common.InstrumentedDataSource;
+import common.MetricsRegistry;
+import common.SlowQueryLog;
+import frontend.EdtWatchdog;
 import frontend.MainForm;
+import frontend.StartupLog;
 import org.apache.commons.dbcp2.BasicDataSource;
 import org.apache.derby.jdbc.EmbeddedDataSource;
 
 import javax.sql.DataSource;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Locale;
 import java.util.Properties;
 import java.util.ResourceBundle;
@@ -38,6 +47,11 @@ public class Main {
         } catch (SQLException ex) {
             System.out.println("Error occurred during database initialization");
         }
+        try {
+            return instrumentIfEnabled(source, DBproperties());
+        } catch (IOException ex) {
+            System.out.println("Error occurred during loading configuration properties");
+        }
         return source;
     }
 
@@ -54,6 +68,7 @@ public class Main {
             source.setUrl(properties.getProperty("jdbc.url"));
             source.setUsername(properties.getProperty("jdbc.user"));
             source.setPassword(properties.getProperty("jdbc.password"));
+            MetricsRegistry.global().setConnectionPool(source::getNumActive, source::getMaxTotal);
 
             DatabaseMetaData meta = source.getConnection().getMetaData();
 
@@ -71,7 +86,10 @@ public class Main {
             if (!result.next()) {
                 DBUtils.executeSqlScript(source, ContractManager.class.getClassLoader().getResource("createContractTable.sql"));
             }
-            return source;
+            /* databases created before the indexes were added to createContractTable.sql lack them */
+            createIndexIfMissing(source, meta, "CONTRACT", "CLIENTID", "contract_clientid");
+            createIndexIfMissing(source, meta, "CONTRACT", "PROPERTYID", "contract_propertyid");
+            return instrumentIfEnabled(source, properties);
         } catch (SQLException ex) {
             System.out.println("Error occurred during database initialization: " + ex.getMessage());
         } catch (IOException ex) {
@@ -80,6 +98,68 @@ public class Main {
         return null;
     }
 
+    /**
+     * Creates index on the column, unless the table already has an index starting with the column
+     *
+     * @param source data source to create the index in
+     * @param meta   metadata of the database
+     * @param table  name of the table
+     * @param column name of the indexed column
+     * @param index  name of the created index
+     * @throws SQLException when error occurs during reading metadata or creating the index
+     */
+    private static void createIndexIfMissing(DataSource source, DatabaseMetaData meta, String table, String column,
+                                             String index) throws SQLException {
+        try (ResultSet indexes = meta.getIndexInfo(null, null, table, false, true)) {
+            while (indexes.next()) {
+                if (indexes.getShort("ORDINAL_POSITION") == 1 && column.equalsIgnoreCase(indexes.getString("COLUMN_NAME"))) {
+                    return;
+                }
+            }
+        }
+        try (Connection connection = source.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE INDEX " + index + " ON " + table + " (" + column + ")");
+        }
+    }
+
+    /**
+     * Wraps data source into InstrumentedDataSource, when jdbc.instrumentation.enabled
+     * or jdbc.slowQuery.enabled is set to true.
+     * Values from dbconfig.properties can be overridden by system properties of the same name.
+     *
+     * @param source     data source to wrap
+     * @param properties database configuration properties
+     * @return instrumented data source, or the original one when instrumentation is disabled
+     */
+    private static DataSource instrumentIfEnabled(DataSource source, Properties properties) {
+        boolean instrumentationEnabled = Boolean.parseBoolean(configValue(properties, "jdbc.instrumentation.enabled", "false"));
+        boolean slowQueryLogEnabled = Boolean.parseBoolean(configValue(properties, "jdbc.slowQuery.enabled", "false"));
+        if (!instrumentationEnabled && !slowQueryLogEnabled) {
+            return source;
+        }
+        int repeatThreshold = Integer.parseInt(configValue(properties, "jdbc.instrumentation.repeatThreshold", "5"));
+        InstrumentedDataSource instrumented = new InstrumentedDataSource(source, repeatThreshold);
+        if (slowQueryLogEnabled) {
+            long thresholdMillis = Long.parseLong(configValue(properties, "jdbc.slowQuery.thresholdMillis", "200"));
+            int maxPerSecond = Integer.parseInt(configValue(properties, "jdbc.slowQuery.maxPerSecond", "10"));
+            instrumented.setSlowQueryLog(new SlowQueryLog(thresholdMillis, maxPerSecond));
+            SlowQueryLog.attachFileAppender();
+        }
+        return instrumented;
+    }
+
+    /**
+     * Returns configuration value, system property takes precedence over dbconfig.properties
+     *
+     * @param properties   database configuration properties
+     * @param key          name of the property
+     * @param defaultValue value used when the property is not set
+     * @return value of the property
+     */
+    private static String configValue(Properties properties, String key, String defaultValue) {
+        return System.getProperty(key, properties.getProperty(key, defaultValue));
+    }
+
     /**
      * Reads properties from dbconfig.properties
      *
@@ -99,12 +179,20 @@ public class Main {
 
     public static void main(String[] args) {
         ResourceBundle messages = ResourceBundle.getBundle("Localization" + File.separator + "MessagesBundle", Locale.getDefault());
+        /* logs events blocking the event dispatch thread, so that freezes of the GUI can be found */
+        new EdtWatchdog(EdtWatchdog.defaultThresholdMillis()).install();
 
         EventQueue.invokeLater(() -> {
             JFrame frame = new JFrame(messages.getString("appTitle"));
             frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
             frame.setContentPane(new MainForm().getPanel());
             frame.setPreferredSize(new Dimension(1000, 600));
+            frame.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowOpened(WindowEvent windowEvent) {
+                    StartupLog.mark("first frame");
+                }
+            });
             frame.pack();
             frame.setVisible(true);
         });
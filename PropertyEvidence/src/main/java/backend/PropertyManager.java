@@ -37,6 +37,17 @@ public interface PropertyManager {
     void updateProperty(Property property);
 
 
+    /**
+     * Updates edited properties in a single transaction. A property is updated only when its row still holds
+     * the original values, otherwise its edit is returned as a conflict and the other edits are committed.
+     * @param edits edits of properties loaded from the evidence
+     * @return  conflicting edits, empty when all properties have been updated
+     * @throws IllegalArgumentException if the edits parameter is null
+     * @throws common.IllegalEntityException if an edited property is invalid or has other id than the original
+     */
+    List<UpdateConflict<Property>> updateProperties(List<RowEdit<Property>> edits);
+
+
     /**
      * Gets a list of all properties in the evidence
      * @return  a list of all properties
@@ -45,6 +56,23 @@ public interface PropertyManager {
     List<Property> getAllProperties();
 
 
+    /**
+     * Gets number of all properties in the evidence
+     * @return  number of properties
+     */
+    int countProperties();
+
+
+    /**
+     * Gets one page of all properties in the evidence, ordered by id
+     * @param offset    number of properties to skip
+     * @param limit     maximal number of returned properties
+     * @return  a list of at most limit properties
+     * @throws IllegalArgumentException if the offset is negative or the limit is not positive
+     */
+    List<Property> getProperties(int offset, int limit);
+
+
     /**
      * Finds all properties with given address or city
      * @param address    an address of the wanted properties
@@ -54,6 +82,26 @@ public interface PropertyManager {
     List<Property> findPropertyByAddress(String address);
 
 
+    /**
+     * Gets number of properties with given address or city
+     * @param address   an address of the wanted properties
+     * @return          number of properties on the wanted address
+     * @throws IllegalArgumentException if the address is null
+     */
+    int countPropertiesByAddress(String address);
+
+
+    /**
+     * Finds one page of properties with given address or city, ordered by id
+     * @param address   an address of the wanted properties
+     * @param offset    number of matching properties to skip
+     * @param limit     maximal number of returned properties
+     * @return          a list of at most limit properties on the wanted address
+     * @throws IllegalArgumentException if the address is null, the offset is negative or the limit is not positive
+     */
+    List<Property> findPropertyByAddress(String address, int offset, int limit);
+
+
     /**
      * Finds all properties with the same or similar price
      * @param price a desired price of the property
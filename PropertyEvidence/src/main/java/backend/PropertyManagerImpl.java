@@ -4,6 +4,8 @@ import common.DBUtils;
 import common.DatabaseFaultException;
 import common.IllegalEntityException;
 import common.ValidateInput;
+import common.events.ManagerOperationEvent;
+import common.events.RowMappingEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,156 +23,405 @@ import java.util.List;
 public class PropertyManagerImpl implements PropertyManager {
 
     private DataSource dataSource;
+    private ChangeBus changeBus;
     private final static Logger log = LoggerFactory.getLogger(PropertyManagerImpl.class);
 
+    /**
+     * Largest difference of price of a found property from the wanted price
+     */
+    public final static BigDecimal PRICE_SEARCH_RADIUS = new BigDecimal("2000");
+
     public PropertyManagerImpl(DataSource dataSource) {
+        this(dataSource, new ChangeBus());
+    }
+
+    /**
+     * Creates manager publishing committed changes to the bus
+     *
+     * @param dataSource data source of the database
+     * @param changeBus  bus shared with the other managers and the views of the data
+     */
+    public PropertyManagerImpl(DataSource dataSource, ChangeBus changeBus) {
         this.dataSource = dataSource;
+        this.changeBus = changeBus;
     }
 
 
     @Override
     public void createProperty(Property property) {
-        ValidateInput.validateProperty(property);
-        if (property.getId() != null) {
-            throw new IllegalEntityException("ID is already set");
-        }
-        try(Connection connection = dataSource.getConnection();
-            PreparedStatement statement = connection.prepareStatement
-                    ("INSERT INTO Property (area, price, type, address) VALUES (?,?,?,?)",
-                            Statement.RETURN_GENERATED_KEYS)) {
-
-            connection.setAutoCommit(false);
-            statement.setBigDecimal(1, property.getArea());
-            statement.setBigDecimal(2, property.getPrice());
-            statement.setString(3, property.getType().toString());
-            statement.setString(4, property.getAddress());
-
-            statement.executeUpdate();
-            Long id = DBUtils.getId(statement.getGeneratedKeys());
-            property.setId(id);
-
-            connection.commit();
-            connection.setAutoCommit(true);
-            log.debug("created property with id " + id);
-        } catch(SQLException ex) {
-            log.error("can not create property, database fault");
-            System.out.println("Error occurred during the inserting new property");
-        }
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Property", "createProperty");
+        try {
+            ValidateInput.validateProperty(property);
+            if (property.getId() != null) {
+                throw new IllegalEntityException("ID is already set");
+            }
+            try(Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement
+                        ("INSERT INTO Property (area, price, type, address) VALUES (?,?,?,?)",
+                                Statement.RETURN_GENERATED_KEYS)) {
+
+                connection.setAutoCommit(false);
+                statement.setBigDecimal(1, property.getArea());
+                statement.setBigDecimal(2, property.getPrice());
+                statement.setString(3, property.getType().toString());
+                statement.setString(4, property.getAddress());
+
+                statement.executeUpdate();
+                Long id = DBUtils.getId(statement.getGeneratedKeys());
+                property.setId(id);
+
+                connection.commit();
+                connection.setAutoCommit(true);
+                log.debug("created property with id " + id);
+                event.setRowCount(1);
+                changeBus.publish(ChangeEvent.created(Property.class, property));
+            } catch(SQLException ex) {
+                log.error("can not create property, database fault");
+                System.out.println("Error occurred during the inserting new property");
+            }
 
+        } finally {
+            event.finish();
+        }
     }
 
 
     @Override
     public void deleteProperty(Property property) {
-        ValidateInput.validateProperty(property);
-        if(property.getId() == null) {
-            throw new IllegalEntityException("Property is not in the database");
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Property", "deleteProperty");
+        try {
+            ValidateInput.validateProperty(property);
+            if(property.getId() == null) {
+                throw new IllegalEntityException("Property is not in the database");
+            }
+            try(Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("DELETE FROM Property WHERE id = ?")) {
+
+                statement.setLong(1, property.getId());
+                statement.executeUpdate();
+
+                connection.commit();
+                log.debug("deleted property with id " + property.getId());
+                event.setRowCount(1);
+                changeBus.publish(ChangeEvent.deleted(Property.class, property));
+            } catch(SQLException ex) {
+                log.error("can not delete property, database fault");
+                System.out.println("Error occurred during deleting");
+            }
+        } finally {
+            event.finish();
         }
-        try(Connection connection = dataSource.getConnection();
-            PreparedStatement statement = connection.prepareStatement("DELETE FROM Property WHERE id = ?")) {
+    }
 
-            statement.setLong(1, property.getId());
-            statement.executeUpdate();
 
-            connection.commit();
-            log.debug("deleted property with id " + property.getId());
-        } catch(SQLException ex) {
-            log.error("can not delete property, database fault");
-            System.out.println("Error occurred during deleting");
+    @Override
+    public void updateProperty(Property property) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Property", "updateProperty");
+        try {
+            ValidateInput.validateProperty(property);
+            if(property.getId() == null) {
+                throw new IllegalEntityException("ID cannot be null");
+            }
+            try(Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement
+                        ("UPDATE Property SET area = ?, price = ?, type = ?, address = ? WHERE id = ?")) {
+
+                connection.setAutoCommit(false);
+                statement.setBigDecimal(1, property.getArea());
+                statement.setBigDecimal(2, property.getPrice());
+                statement.setString(3, property.getType().toString());
+                statement.setString(4, property.getAddress());
+                statement.setLong(5, property.getId());
+                if (statement.executeUpdate() != 1) {
+                    connection.setAutoCommit(true);
+                    throw new IllegalEntityException("Client is not in the database");
+                }
+                connection.commit();
+                connection.setAutoCommit(true);
+                log.debug("updated property with id " + property.getId());
+                event.setRowCount(1);
+                changeBus.publish(ChangeEvent.updated(Property.class, property));
+            } catch(SQLException ex) {
+                log.error("can not update property, database fault");
+                System.out.println("Error occurred during update");
+            }
+        } finally {
+            event.finish();
         }
     }
 
 
     @Override
-    public void updateProperty(Property property) {
-        ValidateInput.validateProperty(property);
-        if(property.getId() == null) {
-            throw new IllegalEntityException("ID cannot be null");
-        }
-        try(Connection connection = dataSource.getConnection();
-            PreparedStatement statement = connection.prepareStatement
-                    ("UPDATE Property SET area = ?, price = ?, type = ?, address = ? WHERE id = ?")) {
-
-            connection.setAutoCommit(false);
-            statement.setBigDecimal(1, property.getArea());
-            statement.setBigDecimal(2, property.getPrice());
-            statement.setString(3, property.getType().toString());
-            statement.setString(4, property.getAddress());
-            statement.setLong(5, property.getId());
-            if (statement.executeUpdate() != 1) {
-                connection.setAutoCommit(true);
-                throw new IllegalEntityException("Client is not in the database");
-            }
-            connection.commit();
-            connection.setAutoCommit(true);
-            log.debug("updated property with id " + property.getId());
-        } catch(SQLException ex) {
-            log.error("can not update property, database fault");
-            System.out.println("Error occurred during update");
+    public List<UpdateConflict<Property>> updateProperties(List<RowEdit<Property>> edits) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Property", "updateProperties");
+        try {
+            if (edits == null) {
+                throw new IllegalArgumentException("Edits are null");
+            }
+            List<Property> edited = new ArrayList<>(edits.size());
+            for (RowEdit<Property> edit : edits) {
+                Long id = edit.getEdited().getId();
+                if (id == null || !id.equals(edit.getOriginal().getId())) {
+                    throw new IllegalEntityException("Edited property has other id than the original");
+                }
+                edited.add(edit.getEdited());
+            }
+            List<ValidateInput.InvalidRecord<Property>> invalid = ValidateInput.validateAll(edited);
+            if (!invalid.isEmpty()) {
+                throw new IllegalEntityException("Invalid properties: " + invalid);
+            }
+            if (edits.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            List<UpdateConflict<Property>> conflicts = new ArrayList<>();
+            List<Property> updated = new ArrayList<>();
+            try(Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement
+                        ("UPDATE Property SET area = ?, price = ?, type = ?, address = ? "
+                                + "WHERE id = ? AND area = ? AND price = ? AND type = ? AND address = ?");
+                PreparedStatement current = connection.prepareStatement("SELECT * FROM PROPERTY WHERE id = ?")) {
+
+                connection.setAutoCommit(false);
+                try {
+                    for (RowEdit<Property> edit : edits) {
+                        Property property = edit.getEdited();
+                        Property original = edit.getOriginal();
+                        statement.setBigDecimal(1, property.getArea());
+                        statement.setBigDecimal(2, property.getPrice());
+                        statement.setString(3, property.getType().toString());
+                        statement.setString(4, property.getAddress());
+                        statement.setLong(5, original.getId());
+                        statement.setBigDecimal(6, original.getArea());
+                        statement.setBigDecimal(7, original.getPrice());
+                        statement.setString(8, original.getType().toString());
+                        statement.setString(9, original.getAddress());
+                        statement.addBatch();
+                    }
+                    int[] counts = statement.executeBatch();
+                    for (int i = 0; i < edits.size(); i++) {
+                        RowEdit<Property> edit = edits.get(i);
+                        if (counts[i] == 0) {
+                            /* row has been changed or deleted since the original was loaded */
+                            current.setLong(1, edit.getOriginal().getId());
+                            conflicts.add(new UpdateConflict<>(edit, retrieveProperty(current)));
+                        } else {
+                            updated.add(edit.getEdited());
+                        }
+                    }
+                    connection.commit();
+                } catch (SQLException ex) {
+                    connection.rollback();
+                    throw ex;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            } catch(SQLException ex) {
+                log.error("can not update properties, database fault");
+                /* unlike single updates, a failed batch must not look like a batch without conflicts */
+                throw new DatabaseFaultException("Error occurred while updating properties in database", ex);
+            }
+            log.debug(updated.size() + " properties updated, " + conflicts.size() + " conflicts");
+            event.setRowCount(updated.size());
+            for (Property property : updated) {
+                changeBus.publish(ChangeEvent.updated(Property.class, property));
+            }
+            return conflicts;
+        } finally {
+            event.finish();
         }
     }
 
 
     @Override
     public List<Property> getAllProperties() {
-        try(Connection connection = dataSource.getConnection();
-            PreparedStatement statement = connection.prepareStatement("Select * FROM property")) {
-                log.debug("retrieving properties");
-                return executeQueryForMoreProperties(statement);
-        } catch(SQLException ex) {
-            log.error("can not retrieve property, database fault");
-            System.out.println("Error occurred during retrieving all properties");
-            return null;
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Property", "getAllProperties");
+        try {
+            try(Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("Select * FROM property")) {
+                    log.debug("retrieving properties");
+                    List<Property> result = executeQueryForMoreProperties(statement);
+                    event.setRowCount(result.size());
+                    return result;
+            } catch(SQLException ex) {
+                log.error("can not retrieve property, database fault");
+                System.out.println("Error occurred during retrieving all properties");
+                return null;
+            }
+        } finally {
+            event.finish();
         }
     }
 
 
     @Override
-    public List<Property> findPropertyByAddress(String address) {
-        if(address == null) {
-            throw new IllegalArgumentException("Address is null");
+    public int countProperties() {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Property", "countProperties");
+        try {
+            try(Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM property");
+                ResultSet resultSet = statement.executeQuery()) {
+                    log.debug("counting properties");
+                    resultSet.next();
+                    event.setRowCount(1);
+                    return resultSet.getInt(1);
+            } catch(SQLException ex) {
+                log.error("can not count properties, database fault");
+                throw new DatabaseFaultException("Error occurred while counting properties in database", ex);
+            }
+        } finally {
+            event.finish();
         }
-        String addressPattern = "%" + address.toLowerCase() + "%";
-        try(Connection connection = dataSource.getConnection();
-            PreparedStatement statement = connection.prepareStatement
-                    ("SELECT * FROM Property WHERE LOWER (address) LIKE ?");) {
-
-            statement.setString(1, addressPattern);
-            log.debug("retrieving properties by address " + address);
-            return executeQueryForMoreProperties(statement);
-
-        } catch(SQLException ex) {
-            log.error("can not retrieve property by address, database fault");
-            System.out.println("Error occurred during finding");
-            return null;
+    }
+
+
+    @Override
+    public List<Property> getProperties(int offset, int limit) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Property", "getPropertiesPage");
+        try {
+            if(offset < 0 || limit <= 0) {
+                throw new IllegalArgumentException("Page offset is negative or limit is not positive");
+            }
+
+            try(Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT * FROM property ORDER BY id OFFSET ? ROWS FETCH NEXT ? ROWS ONLY")) {
+                    statement.setInt(1, offset);
+                    statement.setInt(2, limit);
+                    log.debug("retrieving properties from " + offset);
+                    List<Property> result = executeQueryForMoreProperties(statement);
+                    event.setRowCount(result.size());
+                    return result;
+            } catch(SQLException ex) {
+                log.error("can not retrieve page of properties, database fault");
+                throw new DatabaseFaultException("Error occurred while retrieving properties from database", ex);
+            }
+        } finally {
+            event.finish();
         }
     }
 
 
     @Override
-    public List<Property> findPropertyByPrice(BigDecimal price) {
-        if(price == null || price.compareTo(new BigDecimal("0")) <= 0) {
-            throw new IllegalArgumentException("Invalid price parameter");
+    public List<Property> findPropertyByAddress(String address) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Property", "findPropertyByAddress");
+        try {
+            if(address == null) {
+                throw new IllegalArgumentException("Address is null");
+            }
+            String addressPattern = "%" + address.toLowerCase() + "%";
+            try(Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement
+                        ("SELECT * FROM Property WHERE LOWER (address) LIKE ?");) {
+
+                statement.setString(1, addressPattern);
+                log.debug("retrieving properties by address " + address);
+                List<Property> result = executeQueryForMoreProperties(statement);
+                event.setRowCount(result.size());
+                return result;
+
+            } catch(SQLException ex) {
+                log.error("can not retrieve property by address, database fault");
+                System.out.println("Error occurred during finding");
+                return null;
+            }
+        } finally {
+            event.finish();
         }
-        final BigDecimal radius = new BigDecimal("2000");
-        BigDecimal lowerBound = price.subtract(radius);
-        BigDecimal upperBound = price.add(radius);
-        try(Connection connection = dataSource.getConnection();
-            PreparedStatement statement = connection.prepareStatement
-                    ("SELECT * FROM Property WHERE price >= ? AND price <= ?")) {
-
-                statement.setBigDecimal(1, lowerBound);
-                statement.setBigDecimal(2, upperBound);
-                log.debug("retrieving properties by price " + price);
-                return executeQueryForMoreProperties(statement);
-
-        } catch(SQLException ex) {
-            log.error("can not retrieve property by price, database fault");
-            System.out.println("Error occurred during finding");
-            return null;
+    }
+
+
+    @Override
+    public int countPropertiesByAddress(String address) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Property", "countPropertiesByAddress");
+        try {
+            if(address == null) {
+                throw new IllegalArgumentException("Address is null");
+            }
+            try(Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement
+                        ("SELECT COUNT(*) FROM Property WHERE LOWER (address) LIKE ?")) {
+
+                statement.setString(1, "%" + address.toLowerCase() + "%");
+                log.debug("counting properties by address " + address);
+                try(ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    event.setRowCount(1);
+                    return resultSet.getInt(1);
+                }
+
+            } catch(SQLException ex) {
+                log.error("can not count properties by address, database fault");
+                throw new DatabaseFaultException("Error occurred while counting properties in database", ex);
+            }
+        } finally {
+            event.finish();
         }
+    }
+
+
+    @Override
+    public List<Property> findPropertyByAddress(String address, int offset, int limit) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Property", "findPropertyByAddressPage");
+        try {
+            if(address == null) {
+                throw new IllegalArgumentException("Address is null");
+            }
+            if(offset < 0 || limit <= 0) {
+                throw new IllegalArgumentException("Page offset is negative or limit is not positive");
+            }
+            try(Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement
+                        ("SELECT * FROM Property WHERE LOWER (address) LIKE ? ORDER BY id OFFSET ? ROWS FETCH NEXT ? ROWS ONLY")) {
+
+                statement.setString(1, "%" + address.toLowerCase() + "%");
+                statement.setInt(2, offset);
+                statement.setInt(3, limit);
+                log.debug("retrieving properties by address " + address + " from " + offset);
+                List<Property> result = executeQueryForMoreProperties(statement);
+                event.setRowCount(result.size());
+                return result;
+
+            } catch(SQLException ex) {
+                log.error("can not retrieve page of properties by address, database fault");
+                throw new DatabaseFaultException("Error occurred while retrieving properties from database", ex);
+            }
+        } finally {
+            event.finish();
+        }
+    }
 
 
+    @Override
+    public List<Property> findPropertyByPrice(BigDecimal price) {
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Property", "findPropertyByPrice");
+        try {
+            if(price == null || price.compareTo(new BigDecimal("0")) <= 0) {
+                throw new IllegalArgumentException("Invalid price parameter");
+            }
+            BigDecimal lowerBound = price.subtract(PRICE_SEARCH_RADIUS);
+            BigDecimal upperBound = price.add(PRICE_SEARCH_RADIUS);
+            try(Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement
+                        ("SELECT * FROM Property WHERE price >= ? AND price <= ?")) {
+
+                    statement.setBigDecimal(1, lowerBound);
+                    statement.setBigDecimal(2, upperBound);
+                    log.debug("retrieving properties by price " + price);
+                    List<Property> result = executeQueryForMoreProperties(statement);
+                    event.setRowCount(result.size());
+                    return result;
+
+            } catch(SQLException ex) {
+                log.error("can not retrieve property by price, database fault");
+                System.out.println("Error occurred during finding");
+                return null;
+            }
+
+
+        } finally {
+            event.finish();
+        }
     }
 
 
@@ -193,25 +444,37 @@ public class PropertyManagerImpl implements PropertyManager {
      * @throws SQLException when getting the value of the attribute from the row fails
      */
     public static Property convertDBRowToProperty(ResultSet resultSet) throws SQLException {
-        Property property = new Property();
-        property.setAddress(resultSet.getString("address"));
-        property.setId(resultSet.getLong("id"));
-        property.setType(PropertyType.valueOf(resultSet.getString("type").toUpperCase()));
-        property.setArea(resultSet.getBigDecimal("area"));
-        property.setPrice(resultSet.getBigDecimal("price"));
-        return property;
+        RowMappingEvent mappingEvent = RowMappingEvent.begin("Property", "convertDBRowToProperty");
+        try {
+            Property property = new Property();
+            property.setAddress(resultSet.getString("address"));
+            property.setId(resultSet.getLong("id"));
+            property.setType(PropertyType.valueOf(resultSet.getString("type").toUpperCase()));
+            property.setArea(resultSet.getBigDecimal("area"));
+            property.setPrice(resultSet.getBigDecimal("price"));
+            return property;
+        } finally {
+            mappingEvent.finish();
+        }
     }
 
     @Override
     public Property getPropertyById(Long id) {
-        PreparedStatement st;
-        try (Connection conn = dataSource.getConnection()) {
-            st = conn.prepareStatement(
-                    "SELECT * FROM PROPERTY WHERE id = ?");
-            st.setLong(1, id);
-            return retrieveProperty(st);
-        } catch (SQLException ex) {
-            throw new DatabaseFaultException("Error occurred while retrieving property from database");
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Property", "getPropertyById");
+        try {
+            PreparedStatement st;
+            try (Connection conn = dataSource.getConnection()) {
+                st = conn.prepareStatement(
+                        "SELECT * FROM PROPERTY WHERE id = ?");
+                st.setLong(1, id);
+                Property result = retrieveProperty(st);
+                event.setRowCount(result == null ? 0 : 1);
+                return result;
+            } catch (SQLException ex) {
+                throw new DatabaseFaultException("Error occurred while retrieving property from database");
+            }
+        } finally {
+            event.finish();
         }
     }
 
@@ -0,0 +1,38 @@
+package backend;
+
+/**
+ * Edit of a single entity, the entity as it was loaded and its edited copy. Batch updates of the managers
+ * change the row only when it still holds the original values, so that a concurrent change is not overwritten.
+ *
+ * @param <T> type of the edited entity
+ * @author agent agent@local
+ */
+public class RowEdit<T> {
+
+    private final T original;
+    private final T edited;
+
+    public RowEdit(T original, T edited) {
+        if (original == null || edited == null) {
+            throw new IllegalArgumentException("Original or edited entity is null");
+        }
+        this.original = original;
+        this.edited = edited;
+    }
+
+    public T getOriginal() {
+        return original;
+    }
+
+    public T getEdited() {
+        return edited;
+    }
+
+    @Override
+    public String toString() {
+        return "RowEdit{" +
+                "original=" + original +
+                ", edited=" + edited +
+                '}';
+    }
+}
@@ -0,0 +1,44 @@
+package backend;
+
+/**
+ * Edit of a batch update, which was not applied, because the row has been changed or deleted
+ * since the original entity was loaded.
+ *
+ * @param <T> type of the edited entity
+ * @author agent agent@local
+ */
+public class UpdateConflict<T> {
+
+    private final RowEdit<T> edit;
+    private final T current;
+
+    public UpdateConflict(RowEdit<T> edit, T current) {
+        this.edit = edit;
+        this.current = current;
+    }
+
+    public RowEdit<T> getEdit() {
+        return edit;
+    }
+
+    /**
+     * Returns the entity as it is stored in the database now
+     *
+     * @return current entity, or null when it has been deleted
+     */
+    public T getCurrent() {
+        return current;
+    }
+
+    public boolean isDeleted() {
+        return current == null;
+    }
+
+    @Override
+    public String toString() {
+        return "UpdateConflict{" +
+                "edit=" + edit +
+                ", current=" + current +
+                '}';
+    }
+}
@@ -0,0 +1,193 @@
+package common;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * DataSource wrapper, which allows cancelling statements of a running call from another thread.
+ *
+ * Call run inside {@link Token#run(Supplier)} registers all statements it creates in the token.
+ * Cancelling the token cancels these statements and makes any further connection request of the call fail,
+ * so that the call ends with DatabaseFaultException as soon as possible. Connections requested outside
+ * of a token are returned unwrapped.
+ *
+ * @author agent agent@local
+ */
+public class CancellableDataSource implements DataSource {
+
+    /**
+     * SQLState of a statement cancelled on user request
+     */
+    public static final String CANCELLED_STATE = "57014";
+
+    private static final ThreadLocal<Token> currentToken = new ThreadLocal<>();
+
+    private final DataSource dataSource;
+
+    public CancellableDataSource(DataSource dataSource) {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Data source is null");
+        }
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(dataSource.getConnection(username, password));
+    }
+
+    private static Connection track(Connection connection) throws SQLException {
+        Token token = currentToken.get();
+        if (token == null) {
+            return connection;
+        }
+        if (token.cancelled) {
+            connection.close();
+            throw new SQLException("Query cancelled", CANCELLED_STATE);
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection, token));
+    }
+
+    /**
+     * Cancellation handle of one call. Created on the thread, which will cancel it, and passed to the worker.
+     */
+    public static class Token {
+        private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+        private volatile boolean cancelled;
+
+        /**
+         * Runs the call on the current thread, registering its statements in this token
+         *
+         * @param call call to run
+         * @param <T>  type of the result
+         * @return result of the call
+         */
+        public <T> T run(Supplier<T> call) {
+            Token previous = currentToken.get();
+            currentToken.set(this);
+            try {
+                return call.get();
+            } finally {
+                if (previous == null) {
+                    currentToken.remove();
+                } else {
+                    currentToken.set(previous);
+                }
+            }
+        }
+
+        /**
+         * Cancels all statements of the call, which are currently executing. Statements of drivers,
+         * which do not support cancelling, run to completion, but the call will not open another connection.
+         */
+        public void cancel() {
+            cancelled = true;
+            for (Statement statement : statements) {
+                try {
+                    statement.cancel();
+                } catch (SQLFeatureNotSupportedException ex) {
+                    return;
+                } catch (SQLException ex) {
+                    /* statement has been closed meanwhile */
+                }
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Proxies connection, registering created statements in the token until the connection is closed.
+     */
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+        private final Token token;
+        private final List<Statement> statements = new ArrayList<>();
+
+        ConnectionHandler(Connection connection, Token token) {
+            this.connection = connection;
+            this.token = token;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(connection, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+            if (result instanceof Statement) {
+                statements.add((Statement) result);
+                token.statements.add((Statement) result);
+                if (token.cancelled) {
+                    ((Statement) result).close();
+                    throw new SQLException("Query cancelled", CANCELLED_STATE);
+                }
+            } else if ("close".equals(method.getName())) {
+                token.statements.removeAll(statements);
+                statements.clear();
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+}
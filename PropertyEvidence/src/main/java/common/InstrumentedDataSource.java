@@ -0,0 +1,401 @@
+package common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DataSource wrapper, which proxies connections, statements and result sets
+ * and records per-SQL-shape execution counts, latencies and fetched rows into QueryStatistics.
+ * Failed statements and commits are counted by their SQLState.
+ *
+ * All statements executed on one thread while it holds at least one open connection
+ * form a logical operation. When a single operation executes the same shape more often
+ * than the repeat threshold (typically a lookup issued once per fetched row), it is logged
+ * as a possible N+1 query.
+ *
+ * When SlowQueryLog is set, statements exceeding its threshold are written to it together with
+ * their bind values, row count and calling method.
+ *
+ * @author agent agent@local
+ */
+public class InstrumentedDataSource implements DataSource {
+
+    private final static Logger log = LoggerFactory.getLogger(InstrumentedDataSource.class);
+
+    private final DataSource dataSource;
+    private final QueryStatistics statistics = new QueryStatistics();
+    private final int repeatThreshold;
+    private final ThreadLocal<Operation> currentOperation = new ThreadLocal<>();
+    private volatile SlowQueryLog slowQueryLog;
+
+    /**
+     * Creates a new instance of InstrumentedDataSource.
+     *
+     * @param dataSource      data source to be instrumented
+     * @param repeatThreshold number of executions of one shape within one operation, above which it is flagged
+     */
+    public InstrumentedDataSource(DataSource dataSource, int repeatThreshold) {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("Data source is null");
+        }
+        if (repeatThreshold < 1) {
+            throw new IllegalArgumentException("Repeat threshold must be positive");
+        }
+        this.dataSource = dataSource;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    public QueryStatistics getStatistics() {
+        return statistics;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return instrument(dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return instrument(dataSource.getConnection(username, password));
+    }
+
+    /**
+     * Wraps connection into proxy and registers it in the operation of current thread
+     *
+     * @param connection connection to wrap
+     * @return proxied connection
+     */
+    private Connection instrument(Connection connection) {
+        Operation operation = currentOperation.get();
+        if (operation == null) {
+            operation = new Operation();
+            currentOperation.set(operation);
+        }
+        operation.openConnections++;
+        statistics.connectionOpened();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection, operation));
+    }
+
+    /**
+     * Called when connection is closed, finishes the operation when it was the last open connection
+     *
+     * @param operation operation the connection belongs to
+     */
+    private void connectionClosed(Operation operation) {
+        operation.openConnections--;
+        if (operation.openConnections > 0) {
+            return;
+        }
+        if (currentOperation.get() == operation) {
+            currentOperation.remove();
+        }
+        for (Map.Entry<String, Integer> entry : operation.executions.entrySet()) {
+            if (entry.getValue() > repeatThreshold) {
+                statistics.forShape(entry.getKey()).recordRepeatedInOperation();
+                log.warn("possible N+1 query, executed " + entry.getValue() + " times in one operation: " + entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Records single statement execution
+     *
+     * @param operation operation the statement belongs to
+     * @param shape     shape of the executed SQL
+     * @param nanos     duration of the execution
+     */
+    private void statementExecuted(Operation operation, QueryStatistics.ShapeStatistics shape, long nanos) {
+        shape.recordExecution(nanos);
+        statistics.statementExecuted();
+        operation.executions.merge(shape.getShape(), 1, Integer::sum);
+    }
+
+    /**
+     * Calls method on the proxied object, unwrapping exception thrown by the call
+     */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * State of the logical operation of a single thread.
+     */
+    private static class Operation {
+        private int openConnections;
+        private final Map<String, Integer> executions = new HashMap<>();
+    }
+
+    /**
+     * Proxies connection, instrumenting all statements created by it.
+     */
+    private class ConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+        private final Operation operation;
+        private final List<SlowQueryLog.Entry> pendingSlowQueries = new ArrayList<>();
+        private boolean closed;
+
+        ConnectionHandler(Connection connection, Operation operation) {
+            this.connection = connection;
+            this.operation = operation;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    try {
+                        return InstrumentedDataSource.invoke(connection, method, args);
+                    } finally {
+                        if (!closed) {
+                            closed = true;
+                            for (SlowQueryLog.Entry entry : pendingSlowQueries) {
+                                entry.finish();
+                            }
+                            pendingSlowQueries.clear();
+                            connectionClosed(operation);
+                        }
+                    }
+                case "commit":
+                    try {
+                        return InstrumentedDataSource.invoke(connection, method, args);
+                    } catch (SQLException ex) {
+                        statistics.statementFailed(ex.getSQLState());
+                        throw ex;
+                    }
+                case "unwrap":
+                case "isWrapperFor":
+                case "equals":
+                case "hashCode":
+                    return InstrumentedDataSource.invoke(connection, method, args);
+                default:
+                    break;
+            }
+            Object result = InstrumentedDataSource.invoke(connection, method, args);
+            if (result instanceof Statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                return instrumentStatement((Statement) result, sql);
+            }
+            return result;
+        }
+
+        private Statement instrumentStatement(Statement statement, String sql) {
+            Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class
+                    : Statement.class;
+            return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler(statement, sql, this));
+        }
+    }
+
+    /**
+     * Proxies statement, measuring its executions and counting rows of its result sets, including result sets
+     * returned later by getResultSet or getGeneratedKeys. Bind values are captured only while slow query log is set.
+     */
+    private class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final String sql;
+        private final ConnectionHandler connection;
+        private final List<Object> parameters = new ArrayList<>();
+        private QueryStatistics.ShapeStatistics executedShape;
+        /* slow execute, which returned a result set, finished once getResultSet is read */
+        private SlowQueryLog.Entry resultSetSlowQuery;
+
+        StatementHandler(Statement statement, String sql, ConnectionHandler connection) {
+            this.statement = statement;
+            this.sql = sql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                        && slowQueryLog != null) {
+                    bindParameter((Integer) args[0], args[1]);
+                } else if ("clearParameters".equals(name)) {
+                    parameters.clear();
+                } else if (("getResultSet".equals(name) || "getGeneratedKeys".equals(name)) && executedShape != null) {
+                    Object result = InstrumentedDataSource.invoke(statement, method, args);
+                    SlowQueryLog.Entry slowQuery = null;
+                    if ("getResultSet".equals(name)) {
+                        slowQuery = resultSetSlowQuery;
+                        resultSetSlowQuery = null;
+                    }
+                    return result instanceof ResultSet ? instrumentResultSet((ResultSet) result, executedShape, slowQuery)
+                            : result;
+                }
+                return InstrumentedDataSource.invoke(statement, method, args);
+            }
+            String executedSql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : sql;
+            QueryStatistics.ShapeStatistics shape = statistics.forShape(QueryStatistics.shapeOf(executedSql));
+            long start = System.nanoTime();
+            Object result;
+            long nanos;
+            try {
+                result = InstrumentedDataSource.invoke(statement, method, args);
+            } catch (SQLException ex) {
+                statistics.statementFailed(ex.getSQLState());
+                throw ex;
+            } finally {
+                nanos = System.nanoTime() - start;
+                statementExecuted(connection.operation, shape, nanos);
+            }
+            executedShape = shape;
+            resultSetSlowQuery = null;
+
+            SlowQueryLog.Entry slowQuery = null;
+            SlowQueryLog slowLog = slowQueryLog;
+            if (slowLog != null && slowLog.isSlow(nanos)) {
+                slowQuery = slowLog.newEntry(shape.getShape(), parameters, nanos);
+                if (result instanceof Number) {
+                    slowQuery.finish(((Number) result).longValue());
+                } else if (result instanceof int[] || result instanceof long[]) {
+                    slowQuery.finish(batchRowCount(result));
+                } else if (result instanceof ResultSet) {
+                    connection.pendingSlowQueries.add(slowQuery);
+                } else if (Boolean.TRUE.equals(result)) {
+                    connection.pendingSlowQueries.add(slowQuery);
+                    resultSetSlowQuery = slowQuery;
+                } else {
+                    slowQuery.finish(Math.max(statement.getUpdateCount(), 0));
+                }
+            }
+            if (result instanceof ResultSet) {
+                return instrumentResultSet((ResultSet) result, shape, slowQuery);
+            }
+            return result;
+        }
+
+        private ResultSet instrumentResultSet(ResultSet resultSet, QueryStatistics.ShapeStatistics shape,
+                                              SlowQueryLog.Entry slowQuery) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    new ResultSetHandler(resultSet, shape, slowQuery));
+        }
+
+        /**
+         * Sums update counts of a batch, statements with unknown count, e.g. SUCCESS_NO_INFO, are not counted
+         */
+        private long batchRowCount(Object counts) {
+            long rows = 0;
+            if (counts instanceof int[]) {
+                for (int count : (int[]) counts) {
+                    rows += Math.max(count, 0);
+                }
+            } else {
+                for (long count : (long[]) counts) {
+                    rows += Math.max(count, 0);
+                }
+            }
+            return rows;
+        }
+
+        private void bindParameter(int index, Object value) {
+            while (parameters.size() < index) {
+                parameters.add(null);
+            }
+            parameters.set(index - 1, value);
+        }
+    }
+
+    /**
+     * Proxies result set, counting fetched rows.
+     * Pending slow query entry is finished, when the result set is exhausted or closed.
+     */
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final QueryStatistics.ShapeStatistics shape;
+        private final SlowQueryLog.Entry slowQuery;
+
+        ResultSetHandler(ResultSet resultSet, QueryStatistics.ShapeStatistics shape, SlowQueryLog.Entry slowQuery) {
+            this.resultSet = resultSet;
+            this.shape = shape;
+            this.slowQuery = slowQuery;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(resultSet, method, args);
+            if ("next".equals(method.getName())) {
+                if (Boolean.TRUE.equals(result)) {
+                    shape.recordRowFetched();
+                    if (slowQuery != null) {
+                        slowQuery.rowFetched();
+                    }
+                } else if (slowQuery != null) {
+                    slowQuery.finish();
+                }
+            } else if ("close".equals(method.getName()) && slowQuery != null) {
+                slowQuery.finish();
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+}
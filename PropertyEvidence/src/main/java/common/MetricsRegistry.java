@@ -0,0 +1,201 @@
+package common;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Lock-free registry of performance metrics shown by the performance HUD of the GUI: the last manager call
+ * with its latency and row count, usage of the connection pool and hit rates of caches.
+ *
+ * Managers, caches and the pool update the registry from any thread without locking. Metrics are recorded
+ * only while the registry is enabled, i.e. while the HUD is shown, a disabled registry costs one volatile
+ * read per update.
+ *
+ * @author agent agent@local
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final AtomicReference<Call> lastCall = new AtomicReference<>();
+    private final ConcurrentMap<String, CacheCounter> caches = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+    private volatile IntSupplier activeConnections;
+    private volatile IntSupplier maxConnections;
+
+    /**
+     * Returns registry shared by the whole application
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts or stops recording. Enabling the registry resets the metrics, so that they cover only
+     * the time the HUD is shown.
+     *
+     * @param enabled true to record metrics
+     */
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            lastCall.set(null);
+            caches.values().forEach(CacheCounter::reset);
+        }
+        this.enabled = enabled;
+    }
+
+    /**
+     * Records finished call of a manager
+     *
+     * @param entityType name of the managed entity, e.g. Client
+     * @param operation  name of the manager method
+     * @param nanos      duration of the call
+     * @param rowCount   number of rows returned or modified by the call
+     */
+    public void recordCall(String entityType, String operation, long nanos, int rowCount) {
+        if (enabled) {
+            lastCall.set(new Call(entityType, operation, nanos, rowCount));
+        }
+    }
+
+    /**
+     * Returns the last recorded call, or null if no call has been recorded since the registry was enabled
+     */
+    public Call getLastCall() {
+        return lastCall.get();
+    }
+
+    /**
+     * Returns counter of hits of the named cache, which is created on first use
+     *
+     * @param name name of the cache shown in the HUD
+     * @return counter of the cache
+     */
+    public CacheCounter cache(String name) {
+        return caches.computeIfAbsent(name, CacheCounter::new);
+    }
+
+    public Map<String, CacheCounter> getCaches() {
+        return Collections.unmodifiableMap(caches);
+    }
+
+    /**
+     * Sets gauges of the connection pool, e.g. active and maximal number of connections of BasicDataSource
+     *
+     * @param active returns number of borrowed connections
+     * @param max    returns maximal number of connections
+     */
+    public void setConnectionPool(IntSupplier active, IntSupplier max) {
+        this.activeConnections = active;
+        this.maxConnections = max;
+    }
+
+    /**
+     * Returns number of borrowed connections, or -1 when the data source is not pooled
+     */
+    public int getActiveConnections() {
+        IntSupplier gauge = activeConnections;
+        return gauge == null ? -1 : gauge.getAsInt();
+    }
+
+    /**
+     * Returns maximal number of connections, or -1 when the data source is not pooled
+     */
+    public int getMaxConnections() {
+        IntSupplier gauge = maxConnections;
+        return gauge == null ? -1 : gauge.getAsInt();
+    }
+
+    /**
+     * Finished call of a manager
+     */
+    public static final class Call {
+        private final String entityType;
+        private final String operation;
+        private final long nanos;
+        private final int rowCount;
+
+        private Call(String entityType, String operation, long nanos, int rowCount) {
+            this.entityType = entityType;
+            this.operation = operation;
+            this.nanos = nanos;
+            this.rowCount = rowCount;
+        }
+
+        public String getEntityType() {
+            return entityType;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+    }
+
+    /**
+     * Counter of hits and misses of a cache
+     */
+    public final class CacheCounter {
+        private final String name;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        private CacheCounter(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void hit() {
+            if (enabled) {
+                hits.increment();
+            }
+        }
+
+        public void miss() {
+            if (enabled) {
+                misses.increment();
+            }
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        /**
+         * Returns ratio of hits to all lookups, or NaN when there was no lookup
+         */
+        public double getHitRate() {
+            long hitCount = hits.sum();
+            long total = hitCount + misses.sum();
+            return total == 0 ? Double.NaN : (double) hitCount / total;
+        }
+
+        private void reset() {
+            hits.reset();
+            misses.reset();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package common;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects per-SQL-shape statistics recorded by InstrumentedDataSource.
+ * A shape is the SQL text with literals replaced by '?' and whitespace collapsed,
+ * so that all executions of one query are counted together.
+ *
+ * @author agent agent@local
+ */
+public class QueryStatistics {
+
+    private final ConcurrentMap<String, ShapeStatistics> shapes = new ConcurrentHashMap<>();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder statementsExecuted = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    /**
+     * Converts SQL statement to its shape
+     *
+     * @param sql SQL statement
+     * @return statement with literals replaced by '?' and whitespace collapsed
+     */
+    public static String shapeOf(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        StringBuilder shape = new StringBuilder(sql.length());
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                i++;
+                while (i < sql.length()) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                shape.append('?');
+                i++;
+            } else if (Character.isDigit(c) && (shape.length() == 0 || !Character.isLetterOrDigit(shape.charAt(shape.length() - 1)))) {
+                while (i < sql.length() && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                shape.append('?');
+            } else if (Character.isWhitespace(c)) {
+                if (shape.length() > 0 && shape.charAt(shape.length() - 1) != ' ') {
+                    shape.append(' ');
+                }
+                i++;
+            } else {
+                shape.append(Character.toUpperCase(c));
+                i++;
+            }
+        }
+        int end = shape.length();
+        while (end > 0 && shape.charAt(end - 1) == ' ') {
+            end--;
+        }
+        shape.setLength(end);
+        return shape.toString();
+    }
+
+    /**
+     * Returns statistics of the given shape, creating them if needed
+     *
+     * @param shape SQL shape
+     * @return statistics of the shape
+     */
+    ShapeStatistics forShape(String shape) {
+        return shapes.computeIfAbsent(shape, ShapeStatistics::new);
+    }
+
+    void connectionOpened() {
+        connectionsOpened.increment();
+    }
+
+    void statementExecuted() {
+        statementsExecuted.increment();
+    }
+
+    void statementFailed(String sqlState) {
+        failures.computeIfAbsent(sqlState == null ? "unknown" : sqlState, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns number of connections opened since creation or last reset
+     *
+     * @return number of opened connections
+     */
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    /**
+     * Returns number of executed statements since creation or last reset
+     *
+     * @return number of executed statements
+     */
+    public long getStatementsExecuted() {
+        return statementsExecuted.sum();
+    }
+
+    /**
+     * Returns number of failed statements and commits by SQLState, e.g. 40XL1 for lock timeout
+     * and 40001 for deadlock in Derby
+     *
+     * @return unmodifiable map of SQLState to number of failures, sorted by SQLState
+     */
+    public Map<String, Long> getFailures() {
+        Map<String, Long> result = new TreeMap<>();
+        failures.forEach((sqlState, count) -> result.put(sqlState, count.sum()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Returns statistics of all recorded shapes, sorted by shape
+     *
+     * @return unmodifiable map of shape to its statistics
+     */
+    public Map<String, ShapeStatistics> getShapes() {
+        return Collections.unmodifiableMap(new TreeMap<>(shapes));
+    }
+
+    /**
+     * Clears all recorded statistics
+     */
+    public void reset() {
+        shapes.clear();
+        connectionsOpened.reset();
+        statementsExecuted.reset();
+        failures.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append("connections: ").append(getConnectionsOpened())
+                .append(", statements: ").append(getStatementsExecuted());
+        if (!failures.isEmpty()) {
+            result.append(", failures: ").append(getFailures());
+        }
+        for (ShapeStatistics statistics : getShapes().values()) {
+            result.append(System.lineSeparator()).append("  ").append(statistics);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Statistics of a single SQL shape.
+     */
+    public static class ShapeStatistics {
+        private final String shape;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rowsFetched = new LongAdder();
+        private final LongAdder repeatedInOperation = new LongAdder();
+
+        ShapeStatistics(String shape) {
+            this.shape = shape;
+        }
+
+        void recordExecution(long nanos) {
+            executions.increment();
+            totalNanos.add(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        void recordRowFetched() {
+            rowsFetched.increment();
+        }
+
+        void recordRepeatedInOperation() {
+            repeatedInOperation.increment();
+        }
+
+        public String getShape() {
+            return shape;
+        }
+
+        public long getExecutions() {
+            return executions.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        public long getRowsFetched() {
+            return rowsFetched.sum();
+        }
+
+        /**
+         * Returns how many logical operations executed this shape more often than the repeat threshold
+         *
+         * @return number of flagged operations
+         */
+        public long getRepeatedInOperation() {
+            return repeatedInOperation.sum();
+        }
+
+        @Override
+        public String toString() {
+            long count = getExecutions();
+            long averageMicros = count == 0 ? 0 : getTotalNanos() / count / 1000;
+            return shape + " [executions: " + count
+                    + ", avg: " + averageMicros + " us"
+                    + ", max: " + getMaxNanos() / 1000 + " us"
+                    + ", rows: " + getRowsFetched()
+                    + ", repeated: " + getRepeatedInOperation() + "]";
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package common;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.rolling.FixedWindowRollingPolicy;
+import ch.qos.logback.core.rolling.RollingFileAppender;
+import ch.qos.logback.core.rolling.SizeBasedTriggeringPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log of JDBC statements running longer than configured threshold, fed by InstrumentedDataSource.
+ * Entries are written asynchronously to logger named "slowQueries", at most maxPerSecond entries
+ * per second. Entries over the limit are dropped and their count is reported with the next written entry.
+ *
+ * @author agent agent@local
+ */
+public class SlowQueryLog {
+
+    private final static String LOGGER_NAME = "slowQueries";
+    private final static Logger log = LoggerFactory.getLogger(LOGGER_NAME);
+    private final static int QUEUE_CAPACITY = 1000;
+
+    private final long thresholdNanos;
+    private final int maxPerSecond;
+    private final ThreadPoolExecutor writer;
+    private final AtomicLong currentSecond = new AtomicLong();
+    private final AtomicLong writtenInSecond = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    /**
+     * Creates a new instance of SlowQueryLog.
+     *
+     * @param thresholdMillis statements running longer than this are logged
+     * @param maxPerSecond    maximal number of entries written per second
+     */
+    public SlowQueryLog(long thresholdMillis, int maxPerSecond) {
+        if (thresholdMillis < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative");
+        }
+        if (maxPerSecond < 1) {
+            throw new IllegalArgumentException("Maximal number of entries per second must be positive");
+        }
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.maxPerSecond = maxPerSecond;
+        this.writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "slow-query-log");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Attaches rolling file slow-queries.log to logger "slowQueries", unless logback.xml already configures
+     * an appender for it. The file is attached only once the log is enabled, so that it is not created
+     * on every start. Size of the files is capped so that a burst of slow queries cannot fill the disk.
+     */
+    public static synchronized void attachFileAppender() {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext)) {
+            return;
+        }
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        ch.qos.logback.classic.Logger logger = context.getLogger(LOGGER_NAME);
+        if (logger.iteratorForAppenders().hasNext()) {
+            return;
+        }
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %msg%n");
+        encoder.start();
+
+        RollingFileAppender<ILoggingEvent> appender = new RollingFileAppender<>();
+        appender.setContext(context);
+        appender.setName("SLOW_QUERIES");
+        appender.setFile("slow-queries.log");
+        appender.setEncoder(encoder);
+
+        FixedWindowRollingPolicy rollingPolicy = new FixedWindowRollingPolicy();
+        rollingPolicy.setContext(context);
+        rollingPolicy.setParent(appender);
+        rollingPolicy.setFileNamePattern("slow-queries.%i.log");
+        rollingPolicy.setMinIndex(1);
+        rollingPolicy.setMaxIndex(3);
+        rollingPolicy.start();
+
+        SizeBasedTriggeringPolicy<ILoggingEvent> triggeringPolicy = new SizeBasedTriggeringPolicy<>();
+        triggeringPolicy.setContext(context);
+        triggeringPolicy.setMaxFileSize("10MB");
+        triggeringPolicy.start();
+
+        appender.setRollingPolicy(rollingPolicy);
+        appender.setTriggeringPolicy(triggeringPolicy);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    /**
+     * Checks whether statement with given duration is logged
+     *
+     * @param nanos duration of the statement
+     * @return true when the duration exceeds the threshold
+     */
+    public boolean isSlow(long nanos) {
+        return nanos > thresholdNanos;
+    }
+
+    /**
+     * Creates entry of a slow statement, which is written once its row count is known
+     *
+     * @param shape      shape of the executed SQL
+     * @param parameters bind values of the statement
+     * @param nanos      duration of the statement
+     * @return new entry
+     */
+    Entry newEntry(String shape, List<Object> parameters, long nanos) {
+        return new Entry(shape, maskParameters(parameters), callerOf(new Throwable().getStackTrace()), nanos);
+    }
+
+    /**
+     * Hands the entry over to the writer thread, unless the rate limit has been reached
+     *
+     * @param entry entry to write
+     */
+    private void submit(Entry entry) {
+        long second = System.currentTimeMillis() / 1000;
+        long previous = currentSecond.get();
+        if (second != previous && currentSecond.compareAndSet(previous, second)) {
+            writtenInSecond.set(0);
+        }
+        if (writtenInSecond.incrementAndGet() > maxPerSecond) {
+            suppressed.incrementAndGet();
+            return;
+        }
+        long dropped = suppressed.getAndSet(0);
+        try {
+            writer.execute(() -> write(entry, dropped));
+        } catch (RejectedExecutionException ex) {
+            suppressed.addAndGet(dropped + 1);
+        }
+    }
+
+    private static void write(Entry entry, long dropped) {
+        log.warn(entry.nanos / 1_000_000 + " ms, rows: " + entry.rows
+                + ", caller: " + entry.caller
+                + ", sql: " + entry.shape
+                + ", parameters: " + entry.parameters
+                + (dropped > 0 ? ", suppressed since last entry: " + dropped : ""));
+    }
+
+    /**
+     * Finds first method on the stack, which is not part of JDBC instrumentation or the driver
+     *
+     * @param stack stack trace of the executing thread
+     * @return class and method name of the caller, or "unknown"
+     */
+    private static String callerOf(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (className.startsWith("common.") || className.startsWith("java.") || className.startsWith("javax.")
+                    || className.startsWith("sun.") || className.startsWith("jdk.")
+                    || className.startsWith("com.sun.proxy.") || className.startsWith("org.apache.")) {
+                continue;
+            }
+            return className + "." + frame.getMethodName();
+        }
+        return "unknown";
+    }
+
+    /**
+     * Replaces bind values, which look like phone numbers, by masked value
+     *
+     * @param parameters bind values of the statement
+     * @return list of bind values safe to be logged
+     */
+    public static List<String> maskParameters(List<Object> parameters) {
+        List<String> result = new ArrayList<>(parameters.size());
+        for (Object parameter : parameters) {
+            if (parameter instanceof String && looksLikePhoneNumber((String) parameter)) {
+                result.add(maskPhoneNumber((String) parameter));
+            } else if (parameter instanceof String) {
+                result.add("'" + parameter + "'");
+            } else {
+                result.add(String.valueOf(parameter));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tells whether the value consists of at least 7 digits and characters allowed in phone numbers
+     * by ValidateInput, or '-' and '%' of search patterns
+     */
+    private static boolean looksLikePhoneNumber(String value) {
+        int digits = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c != '+' && c != ' ' && c != '|' && c != '-' && c != '%') {
+                return false;
+            }
+        }
+        return digits >= 7;
+    }
+
+    /**
+     * Replaces all digits of the phone number except the last three by '*'
+     */
+    private static String maskPhoneNumber(String value) {
+        char[] masked = value.toCharArray();
+        int keep = 3;
+        for (int i = masked.length - 1; i >= 0; i--) {
+            if (masked[i] >= '0' && masked[i] <= '9') {
+                if (keep > 0) {
+                    keep--;
+                } else {
+                    masked[i] = '*';
+                }
+            }
+        }
+        return "'" + new String(masked) + "'";
+    }
+
+    /**
+     * Single slow statement. It is written once, when finish is called for the first time.
+     */
+    class Entry {
+        private final String shape;
+        private final List<String> parameters;
+        private final String caller;
+        private final long nanos;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private long rows;
+
+        private Entry(String shape, List<String> parameters, String caller, long nanos) {
+            this.shape = shape;
+            this.parameters = parameters;
+            this.caller = caller;
+            this.nanos = nanos;
+        }
+
+        void rowFetched() {
+            rows++;
+        }
+
+        /**
+         * Sets final row count and submits the entry to be written
+         *
+         * @param rows number of rows fetched or updated by the statement
+         */
+        void finish(long rows) {
+            this.rows = rows;
+            finish();
+        }
+
+        void finish() {
+            if (finished.compareAndSet(false, true)) {
+                submit(this);
+            }
+        }
+    }
+}
@@ -4,17 +4,19 @@ package common;
 import backend.Client;
 import backend.Contract;
 import backend.Property;
-import backend.PropertyType;
 
 import java.io.File;
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 
 
 /**
- * A static class providing methods for checking input
+ * A static class providing methods for checking input.
+ * Checks scan the values directly and do not allocate, message of a violation is looked up
+ * in the bundle only when it is needed.
  * @author Martin Balucha
  */
 public class ValidateInput {
@@ -24,61 +26,205 @@ public class ValidateInput {
         if (property == null) {
             throw new IllegalArgumentException("Property is null");
         }
-        if (property.getArea() == null || property.getArea().compareTo(new BigDecimal("0")) <= 0) {
-            throw new IllegalEntityException(messages.getString("propertyAreaError"));
+        throwIfViolated(checkProperty(property));
+    }
+
+
+    public static void validateContract(Contract contract) {
+        if (contract == null) {
+            throw new IllegalArgumentException("Contract is null");
+        }
+        throwIfViolated(checkContract(contract, LocalDate.now()));
+    }
+
+    public static void validateClient(Client client) {
+        if (client == null) {
+            throw new IllegalArgumentException("Client is null");
+        }
+        throwIfViolated(checkClient(client));
+    }
+
+    /**
+     * Validates all records and reports every invalid one, instead of stopping at the first.
+     * Records may be clients, properties or contracts, also mixed in one list.
+     *
+     * @param records records to validate
+     * @param <T>     type of the records
+     * @return invalid records in order of the input, empty when all records are valid
+     * @throws IllegalArgumentException when a record is of other type
+     */
+    public static <T> List<InvalidRecord<T>> validateAll(List<T> records) {
+        List<InvalidRecord<T>> invalid = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < records.size(); i++) {
+            T record = records.get(i);
+            Violation violation;
+            if (record == null) {
+                violation = Violation.RECORD_NULL;
+            } else if (record instanceof Client) {
+                violation = checkClient((Client) record);
+            } else if (record instanceof Property) {
+                violation = checkProperty((Property) record);
+            } else if (record instanceof Contract) {
+                violation = checkContract((Contract) record, today);
+            } else {
+                throw new IllegalArgumentException("Can not validate " + record.getClass().getName());
+            }
+            if (violation != null) {
+                invalid.add(new InvalidRecord<>(i, record, violation));
+            }
         }
-        if (property.getPrice() == null || property.getPrice().compareTo(new BigDecimal("0")) <= 0) {
-            throw new IllegalEntityException(messages.getString("propertyPriceError"));
+        return invalid;
+    }
+
+    private static void throwIfViolated(Violation violation) {
+        if (violation != null) {
+            throw new IllegalEntityException(violation.getMessage());
+        }
+    }
+
+    private static Violation checkProperty(Property property) {
+        if (property.getArea() == null || property.getArea().signum() <= 0) {
+            return Violation.PROPERTY_AREA;
+        }
+        if (property.getPrice() == null || property.getPrice().signum() <= 0) {
+            return Violation.PROPERTY_PRICE;
         }
         if (property.getType() == null) {
-            throw new IllegalEntityException(messages.getString("propertyTypeError"));
+            return Violation.PROPERTY_TYPE;
         }
         if (property.getAddress() == null || property.getAddress().isEmpty()) {
-            throw new IllegalEntityException(messages.getString("propertyAddressError"));
+            return Violation.PROPERTY_ADDRESS;
         }
+        return null;
     }
 
-
-    public static void validateContract(Contract contract) {
-        if (contract == null) {
-            throw new IllegalArgumentException("Contract is null");
-        }
+    private static Violation checkContract(Contract contract, LocalDate today) {
         if (contract.getClient() == null) {
-            throw new IllegalEntityException(messages.getString("clientNotSelected"));
+            return Violation.CONTRACT_CLIENT;
         }
         if (contract.getProperty() == null) {
-            throw new IllegalEntityException(messages.getString("propertyNotSelected"));
+            return Violation.CONTRACT_PROPERTY;
         }
         if (contract.getDateOfSigning() == null) {
-            throw new IllegalEntityException("Date of signing in contract is null");
+            return Violation.CONTRACT_DATE_NULL;
         }
-        if (LocalDate.now().isBefore(contract.getDateOfSigning())) {
-            throw new IllegalEntityException("Date of signing is in the future");        }
+        if (today.isBefore(contract.getDateOfSigning())) {
+            return Violation.CONTRACT_DATE_FUTURE;
+        }
+        return null;
     }
 
-    public static void validateClient(Client client) {
-        if (client == null) {
-            throw new IllegalArgumentException("Client is null");
+    private static Violation checkClient(Client client) {
+        Violation violation = checkClientsName(client.getFullName());
+        return violation != null ? violation : checkClientsPhoneNumber(client.getPhoneNumber());
+    }
+
+    /**
+     * Name must be first name and surname separated by single space, trailing spaces are ignored,
+     * and consist of letters without accents
+     */
+    private static Violation checkClientsName(String name) {
+        if (name == null) {
+            return Violation.CLIENT_NUMBER_OF_NAMES;
+        }
+        int end = name.length();
+        while (end > 0 && name.charAt(end - 1) == ' ') {
+            end--;
         }
-        validateClientsName(client);
-        validateClientsPhoneNumber(client);
+        int spaces = 0;
+        for (int i = 0; i < end; i++) {
+            if (name.charAt(i) == ' ') {
+                spaces++;
+            }
+        }
+        if (end == 0 || spaces != 1) {
+            return Violation.CLIENT_NUMBER_OF_NAMES;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z') && c != ' ') {
+                return Violation.CLIENT_ACCENTS;
+            }
+        }
+        return null;
     }
 
-    private static void validateClientsName(Client client) {
-        if (client.getFullName().split(" ").length != 2) {
-            throw new IllegalEntityException(messages.getString("clientNumberOfNamesError"));
+    private static Violation checkClientsPhoneNumber(String phone) {
+        if (phone == null || phone.length() < 10 || phone.length() > 13) {
+            return Violation.CLIENT_PHONE_LENGTH;
         }
-        if (client.getFullName().matches("^.*[^a-zA-Z ].*$")) {
-            throw new IllegalEntityException(messages.getString("clientAccentsError"));
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (!(c >= '0' && c <= '9') && c != '+' && c != ' ' && c != '|') {
+                return Violation.CLIENT_PHONE_INVALID_CHARACTER;
+            }
         }
+        return null;
     }
 
-    private static void validateClientsPhoneNumber(Client client) {
-        if (client.getPhoneNumber().length() < 10 || client.getPhoneNumber().length() > 13) {
-            throw new IllegalEntityException(messages.getString("clientPhoneLengthError"));
+    /**
+     * Reason why a record is invalid. Message is taken from the bundle when requested.
+     */
+    public enum Violation {
+        RECORD_NULL(null, "Record is null"),
+        CLIENT_NUMBER_OF_NAMES("clientNumberOfNamesError", null),
+        CLIENT_ACCENTS("clientAccentsError", null),
+        CLIENT_PHONE_LENGTH("clientPhoneLengthError", null),
+        CLIENT_PHONE_INVALID_CHARACTER("clientPhoneInvalidCharacterError", null),
+        PROPERTY_AREA("propertyAreaError", null),
+        PROPERTY_PRICE("propertyPriceError", null),
+        PROPERTY_TYPE("propertyTypeError", null),
+        PROPERTY_ADDRESS("propertyAddressError", null),
+        CONTRACT_CLIENT("clientNotSelected", null),
+        CONTRACT_PROPERTY("propertyNotSelected", null),
+        CONTRACT_DATE_NULL(null, "Date of signing in contract is null"),
+        CONTRACT_DATE_FUTURE(null, "Date of signing is in the future");
+
+        private final String key;
+        private final String text;
+
+        Violation(String key, String text) {
+            this.key = key;
+            this.text = text;
         }
-        if (client.getPhoneNumber().matches("^.*[^0-9|+ ].*$")) {
-            throw new IllegalEntityException(messages.getString("clientPhoneInvalidCharacterError"));
+
+        public String getMessage() {
+            return key == null ? text : messages.getString(key);
+        }
+    }
+
+    /**
+     * Record which failed validation, with its position in the validated list.
+     *
+     * @param <T> type of the record
+     */
+    public static class InvalidRecord<T> {
+        private final int index;
+        private final T record;
+        private final Violation violation;
+
+        InvalidRecord(int index, T record, Violation violation) {
+            this.index = index;
+            this.record = record;
+            this.violation = violation;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public T getRecord() {
+            return record;
+        }
+
+        public Violation getViolation() {
+            return violation;
+        }
+
+        @Override
+        public String toString() {
+            return "record " + index + ": " + violation.getMessage();
         }
     }
 }
@@ -0,0 +1,44 @@
+package common.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event of an AWT event, whose dispatch blocked the event dispatch thread longer
+ * than the threshold of EdtWatchdog.
+ *
+ * @author agent agent@local
+ */
+@Name("propertyevidence.EdtStall")
+@Label("EDT Stall")
+@Category({"Property Evidence", "GUI"})
+@Description("Dispatch of an AWT event blocking the event dispatch thread")
+public class EdtStallEvent extends Event {
+
+    @Label("Event")
+    @Description("Class of the dispatched AWT event")
+    private String eventType;
+
+    @Label("Stall")
+    @Timespan(Timespan.NANOSECONDS)
+    private long stallNanos;
+
+    /**
+     * Commits the event of finished dispatch, when it is enabled
+     *
+     * @param eventType  class of the dispatched AWT event
+     * @param stallNanos duration of the dispatch
+     */
+    public static void commit(String eventType, long stallNanos) {
+        EdtStallEvent event = new EdtStallEvent();
+        if (event.shouldCommit()) {
+            event.eventType = eventType;
+            event.stallNanos = stallNanos;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package common.events;
+
+import common.MetricsRegistry;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event covering a single call of ClientManager, PropertyManager or ContractManager.
+ * Duration of the event is the duration of the call. The call is also recorded to MetricsRegistry,
+ * when it is enabled.
+ *
+ * @author agent agent@local
+ */
+@Name("propertyevidence.ManagerOperation")
+@Label("Manager Operation")
+@Category({"Property Evidence", "Managers"})
+@Description("Call of a manager method")
+public class ManagerOperationEvent extends Event {
+
+    @Label("Entity Type")
+    private String entityType;
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Row Count")
+    @Description("Number of rows returned or modified by the operation")
+    private int rowCount;
+
+    /* not recorded by Java Flight Recorder, zero while MetricsRegistry is disabled */
+    private transient long startNanos;
+
+    /**
+     * Creates and begins the event
+     *
+     * @param entityType name of the managed entity, e.g. Client
+     * @param operation  name of the manager method
+     * @return begun event, which has to be finished by finish method
+     */
+    public static ManagerOperationEvent begin(String entityType, String operation) {
+        ManagerOperationEvent event = new ManagerOperationEvent();
+        event.entityType = entityType;
+        event.operation = operation;
+        if (MetricsRegistry.global().isEnabled()) {
+            event.startNanos = System.nanoTime();
+        }
+        event.begin();
+        return event;
+    }
+
+    public void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Ends the event and commits it, when it is enabled and exceeds the configured threshold
+     */
+    public void finish() {
+        end();
+        if (startNanos != 0) {
+            MetricsRegistry.global().recordCall(entityType, operation, System.nanoTime() - startNanos, rowCount);
+        }
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
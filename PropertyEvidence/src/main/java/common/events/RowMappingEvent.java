@@ -0,0 +1,55 @@
+package common.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder event covering conversion of a single database row to an entity.
+ * It is emitted once per row, so it is disabled unless enabled explicitly in recording settings.
+ *
+ * @author agent agent@local
+ */
+@Name("propertyevidence.RowMapping")
+@Label("Row Mapping")
+@Category({"Property Evidence", "Managers"})
+@Description("Conversion of a database row to an entity")
+@Enabled(false)
+@StackTrace(false)
+public class RowMappingEvent extends Event {
+
+    @Label("Entity Type")
+    private String entityType;
+
+    @Label("Mapping Method")
+    private String method;
+
+    /**
+     * Creates and begins the event
+     *
+     * @param entityType name of the mapped entity, e.g. Client
+     * @param method     name of the mapping method
+     * @return begun event, which has to be finished by finish method
+     */
+    public static RowMappingEvent begin(String entityType, String method) {
+        RowMappingEvent event = new RowMappingEvent();
+        event.entityType = entityType;
+        event.method = method;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it, when it is enabled
+     */
+    public void finish() {
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
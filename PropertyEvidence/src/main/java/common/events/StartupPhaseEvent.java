@@ -0,0 +1,53 @@
+package common.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event covering one phase of startup of the GUI, e.g. bootstrap of the database
+ * or construction of a tab. Duration of the event is the duration of the phase.
+ *
+ * @author agent agent@local
+ */
+@Name("propertyevidence.StartupPhase")
+@Label("Startup Phase")
+@Category({"Property Evidence", "Startup"})
+@Description("Phase of startup of the GUI")
+public class StartupPhaseEvent extends Event {
+
+    @Label("Phase")
+    private String phase;
+
+    @Label("Since Launch")
+    @Description("Milliseconds from start of the JVM to the end of the phase")
+    private long sinceLaunchMillis;
+
+    /**
+     * Creates and begins the event
+     *
+     * @param phase name of the phase
+     * @return begun event, which has to be finished by finish method
+     */
+    public static StartupPhaseEvent begin(String phase) {
+        StartupPhaseEvent event = new StartupPhaseEvent();
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event and commits it, when it is enabled
+     *
+     * @param sinceLaunchMillis milliseconds from start of the JVM
+     */
+    public void finish(long sinceLaunchMillis) {
+        this.sinceLaunchMillis = sinceLaunchMillis;
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package frontend;
+
+import common.MetricsRegistry;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.util.function.Function;
+
+/**
+ * Renders values of table cells as text formatted once per value. Formatted texts are kept in a small cache
+ * indexed by identity of the value. Repainting a cell, e.g. while scrolling, therefore formats and allocates
+ * nothing until the value of the row is replaced, e.g. by a changed entity. Cells whose values collide
+ * in the cache are formatted again, so that the cache stays bounded for tables of any size.
+ *
+ * Must be used on the event dispatch thread only.
+ *
+ * @author agent agent@local
+ */
+public class CachingCellRenderer extends DefaultTableCellRenderer {
+
+    /**
+     * Number of cached texts, a power of two greater than number of cells visible at once
+     */
+    private static final int CACHE_SIZE = 1024;
+
+    private static final MetricsRegistry.CacheCounter textCache = MetricsRegistry.global().cache("cell texts");
+
+    private final Function<Object, String> formatter;
+    private final Object[] values = new Object[CACHE_SIZE];
+    private final String[] texts = new String[CACHE_SIZE];
+
+    /**
+     * Creates a new instance of CachingCellRenderer.
+     *
+     * @param formatter           formats a non-null value of the cell
+     * @param horizontalAlignment alignment of the text, e.g. SwingConstants.RIGHT for numbers
+     */
+    public CachingCellRenderer(Function<Object, String> formatter, int horizontalAlignment) {
+        this.formatter = formatter;
+        setHorizontalAlignment(horizontalAlignment);
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus,
+                                                   int row, int column) {
+        return super.getTableCellRendererComponent(table, text(value), isSelected, hasFocus, row, column);
+    }
+
+    private String text(Object value) {
+        if (value == null) {
+            return "";
+        }
+        int slot = System.identityHashCode(value) & (CACHE_SIZE - 1);
+        if (values[slot] != value) {
+            textCache.miss();
+            values[slot] = value;
+            texts[slot] = formatter.apply(value);
+        } else {
+            textCache.hit();
+        }
+        return texts[slot];
+    }
+}
@@ -0,0 +1,70 @@
+package frontend;
+
+import backend.Client;
+import backend.Property;
+
+import javax.swing.*;
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Locale;
+
+/**
+ * Formats of values displayed in tables, shared by all tables of the application. Formats follow the default
+ * locale, as the translations of the GUI do.
+ *
+ * The formats are used by the renderers on the event dispatch thread and by describers of FederatedSearch
+ * in the background, NumberFormat is not thread-safe, so that every thread has its own instance.
+ *
+ * @author agent agent@local
+ */
+public final class CellFormats {
+
+    private static final ThreadLocal<NumberFormat> DECIMAL = ThreadLocal.withInitial(() -> {
+        NumberFormat format = NumberFormat.getNumberInstance(Locale.getDefault());
+        format.setMinimumFractionDigits(2);
+        format.setMaximumFractionDigits(2);
+        return format;
+    });
+    private static final DateTimeFormatter DATE =
+            DateTimeFormatter.ofLocalizedDate(FormatStyle.MEDIUM).withLocale(Locale.getDefault());
+
+    private CellFormats() {
+    }
+
+    public static String formatDecimal(BigDecimal value) {
+        return DECIMAL.get().format(value);
+    }
+
+    public static String formatDate(LocalDate date) {
+        return DATE.format(date);
+    }
+
+    public static String formatProperty(Property property) {
+        return property.getAddress() + ", " + formatDecimal(property.getArea()) + " m^2, " + property.getType();
+    }
+
+    public static String formatClient(Client client) {
+        return client.getFullName() + ", " + client.getPhoneNumber();
+    }
+
+    /**
+     * Sets caching renderers of ids, decimals, dates, properties and clients to the table. Columns of the table model
+     * are rendered by them, if the model returns the matching column class.
+     *
+     * @param table table displaying the values
+     */
+    public static void install(JTable table) {
+        table.setDefaultRenderer(Long.class, new CachingCellRenderer(Object::toString, SwingConstants.LEFT));
+        table.setDefaultRenderer(BigDecimal.class,
+                new CachingCellRenderer(value -> formatDecimal((BigDecimal) value), SwingConstants.RIGHT));
+        table.setDefaultRenderer(LocalDate.class,
+                new CachingCellRenderer(value -> formatDate((LocalDate) value), SwingConstants.LEFT));
+        table.setDefaultRenderer(Property.class,
+                new CachingCellRenderer(value -> formatProperty((Property) value), SwingConstants.LEFT));
+        table.setDefaultRenderer(Client.class,
+                new CachingCellRenderer(value -> formatClient((Client) value), SwingConstants.LEFT));
+    }
+}
@@ -1,7 +1,13 @@
 package frontend.ClientGUI;
 
 import backend.*;
+import frontend.LocalFilter;
 import frontend.MainForm;
+import frontend.PagedRows;
+import frontend.SearchCoordinator;
+import frontend.SnapshotCodecs;
+import frontend.TableSnapshot;
+import common.ValidateInput;
 
 import javax.sql.DataSource;
 import javax.swing.*;
@@ -9,10 +15,12 @@ import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.io.File;
-import java.util.ArrayList;
+import java.nio.file.Path;
+import java.text.MessageFormat;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
 
 /**
  * GUI form containing table of clients, an buttons to manage them.
@@ -28,11 +36,17 @@ public class ClientForm {
     private JButton removeButton;
     private JTextField searchBar;
     private JLabel searchByNameLabel;
+    private JButton saveChangesButton;
+    private JButton discardChangesButton;
 
+    private ChangeBus changeBus;
     private ClientManager manager;
     private ContractManager contractManager;
     private ClientTableModel tableModel;
     private ResourceBundle messages;
+    private SearchCoordinator<Client> searchCoordinator;
+    private LocalFilter localFilter;
+    private TableSnapshot<Client> snapshot;
 
     public ClientManager getManager() {
         return manager;
@@ -40,16 +54,47 @@ public class ClientForm {
     public ClientTableModel getTableModel() { return tableModel; }
     public JPanel getPanel() { return clientPanel; }
 
-    public ClientForm(DataSource dataSource) {
-        manager = new ClientManagerImpl(dataSource);
-        contractManager = new ContractManagerImpl(dataSource);
+    public ClientForm(DataSource dataSource, ChangeBus changeBus) {
+        this(dataSource, changeBus, null);
+    }
+
+    /**
+     * Creates form, which displays clients stored in the snapshot directory until they are loaded
+     *
+     * @param dataSource        database of the clients
+     * @param changeBus         bus of changes shared with the other forms
+     * @param snapshotDirectory directory of table snapshots, or null to not use them
+     */
+    public ClientForm(DataSource dataSource, ChangeBus changeBus, Path snapshotDirectory) {
+        this(changeBus, snapshotDirectory);
+        connect(dataSource);
+    }
+
+    /**
+     * Creates form, which displays clients stored in the snapshot directory, before the database is ready.
+     * Clients are managed and loaded, once the form is connected to the database.
+     *
+     * @param changeBus         bus of changes shared with the other forms
+     * @param snapshotDirectory directory of table snapshots, or null to not use them
+     */
+    public ClientForm(ChangeBus changeBus, Path snapshotDirectory) {
+        this.changeBus = changeBus;
+        changeBus.subscribe(Client.class, change -> SwingUtilities.invokeLater(() -> tableModel.applyChange(change)));
 
         Locale language = Locale.getDefault();
         messages = ResourceBundle.getBundle("Localization" + File.separator + "MessagesBundle", language);
+        searchCoordinator = new SearchCoordinator<>(tableModel);
+        localFilter = new LocalFilter(clientTable, 1);
+        if (snapshotDirectory != null) {
+            snapshot = new TableSnapshot<>(snapshotDirectory.resolve("clients.bin"), SnapshotCodecs.CLIENT);
+        }
 
         createButton.addActionListener(e -> new ClientManagementForm(this, null).openWindow());
         editButton.addActionListener(e -> updateClient(clientTable.getSelectedRow()));
         removeButton.addActionListener(e -> removeClient(clientTable.getSelectedRow()));
+        saveChangesButton.addActionListener(e -> saveChanges());
+        discardChangesButton.addActionListener(e -> tableModel.discardEdits());
+        tableModel.addTableModelListener(e -> updateChangeButtons());
         searchBar.getDocument().addDocumentListener(new DocumentListener() {
             public void changedUpdate(DocumentEvent e) {
                 searchClients();
@@ -62,7 +107,27 @@ public class ClientForm {
             }
         });
         setGUILanguage();
-        searchClients();
+        setConnected(false);
+        displaySnapshot();
+    }
+
+    /**
+     * Connects the form to the database, enables managing of the clients and loads them
+     *
+     * @param dataSource database of the clients
+     */
+    public void connect(DataSource dataSource) {
+        manager = new ClientManagerImpl(dataSource, changeBus);
+        contractManager = new ContractManagerImpl(dataSource, changeBus);
+        setConnected(true);
+        loadClients();
+    }
+
+    private void setConnected(boolean connected) {
+        createButton.setEnabled(connected);
+        editButton.setEnabled(connected);
+        removeButton.setEnabled(connected);
+        updateChangeButtons();
     }
 
     /**
@@ -74,6 +139,8 @@ public class ClientForm {
         createButton.setText(messages.getString("clientCreate"));
         editButton.setText(messages.getString("clientUpdate"));
         removeButton.setText(messages.getString("clientDelete"));
+        saveChangesButton.setText(messages.getString("saveChanges"));
+        discardChangesButton.setText(messages.getString("discardChanges"));
     }
 
     /**
@@ -90,26 +157,65 @@ public class ClientForm {
      */
     private void searchClients() {
         String subName = searchBar.getText();
+        if (localFilter.isInstalled()) {
+            localFilter.filterText(subName);
+            return;
+        }
+        if (manager == null) {
+            /* the form searches once it is connected */
+            return;
+        }
+        if (subName.trim().isEmpty()) {
+            displayAllClients();
+            return;
+        }
+        searchCoordinator.search(() -> manager.findClientsByName(subName));
+    }
 
-        tableModel.resetTable();
-
-        new SwingWorker<Void, Void>() {
-            private List<Client> clients = new ArrayList<>();
-
-            @Override
-            protected Void doInBackground() {
-                clients = manager.findClientsByName(subName);
-                return null;
-            }
+    /**
+     * Displays clients of the last snapshot, until they are loaded from the database
+     */
+    private void displaySnapshot() {
+        if (snapshot == null) {
+            return;
+        }
+        List<Client> clients = snapshot.load();
+        if (!clients.isEmpty()) {
+            localFilter.install();
+            tableModel.replaceAll(clients);
+        }
+    }
 
-            @Override
-            protected void done() {
-                for (Client client: clients) {
-                    tableModel.addClientToTable(client, false);
+    /**
+     * Loads all clients into the table, when there are few enough of them, so that they are searched locally.
+     * Otherwise displays them by pages and searches them in the database. Loaded clients replace the snapshot.
+     */
+    private void loadClients() {
+        LocalFilter.chooseMode(manager::countClients, LocalFilter.DEFAULT_MAX_ROWS, () -> {
+            localFilter.install();
+            localFilter.filterText(searchBar.getText());
+            searchCoordinator.searchNow(() -> {
+                List<Client> clients = manager.getClients();
+                if (snapshot != null) {
+                    snapshot.save(clients);
                 }
-                tableModel.fireTableDataChanged();
+                return clients;
+            });
+        }, () -> {
+            if (snapshot != null) {
+                snapshot.delete();
             }
-        }.execute();
+            localFilter.uninstall();
+            searchClients();
+        });
+    }
+
+    /**
+     * Displays all clients, loading them by pages as the table is scrolled
+     */
+    private void displayAllClients() {
+        searchCoordinator.cancel();
+        tableModel.displayPagedClients(new PagedRows<>(manager::countClients, manager::getClients));
     }
 
     /**
@@ -118,7 +224,7 @@ public class ClientForm {
      * @param selectedRow selected row
      */
     private void updateClient(int selectedRow) {
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || clientTable.getValueAt(selectedRow, 0) == null) {
             MainForm.ErrorMessage(null, messages.getString("clientNotSelected"));
             return;
         }
@@ -144,13 +250,77 @@ public class ClientForm {
 
     }
 
+    /**
+     * Enables saving and discarding of the edits, while there are any
+     */
+    private void updateChangeButtons() {
+        boolean edited = manager != null && tableModel.hasEdits();
+        saveChangesButton.setEnabled(edited);
+        discardChangesButton.setEnabled(edited);
+    }
+
+    /**
+     * Validates all clients edited in the table and saves them in one transaction.
+     * Invalid clients and clients changed meanwhile by someone else are reported row by row.
+     */
+    private void saveChanges() {
+        if (clientTable.isEditing()) {
+            clientTable.getCellEditor().stopCellEditing();
+        }
+        List<RowEdit<Client>> edits = tableModel.getEdits();
+        if (edits.isEmpty()) {
+            return;
+        }
+        List<ValidateInput.InvalidRecord<Client>> invalid = ValidateInput.validateAll(tableModel.getEditedClients());
+        if (!invalid.isEmpty()) {
+            StringBuilder message = new StringBuilder(messages.getString("editsInvalid"));
+            for (ValidateInput.InvalidRecord<Client> record : invalid) {
+                message.append('\n').append(MessageFormat.format(messages.getString("editRow"),
+                        String.valueOf(record.getRecord().getId()), record.getViolation().getMessage()));
+            }
+            MainForm.ErrorMessage(null, message.toString());
+            return;
+        }
+        saveChangesButton.setEnabled(false);
+
+        new SwingWorker<List<UpdateConflict<Client>>, Void>() {
+            @Override
+            protected List<UpdateConflict<Client>> doInBackground() {
+                return manager.updateClients(edits);
+            }
+
+            @Override
+            protected void done() {
+                List<UpdateConflict<Client>> conflicts;
+                try {
+                    conflicts = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    updateChangeButtons();
+                    MainForm.ErrorMessage(null, ex.getCause() == null ? ex.getMessage() : ex.getCause().getMessage());
+                    return;
+                }
+                if (!conflicts.isEmpty()) {
+                    tableModel.resolveConflicts(conflicts);
+                    StringBuilder message = new StringBuilder(messages.getString("editsConflict"));
+                    for (UpdateConflict<Client> conflict : conflicts) {
+                        message.append('\n').append(MessageFormat.format(messages.getString(conflict.isDeleted()
+                                        ? "editConflictDeleted" : "editConflictChanged"),
+                                String.valueOf(conflict.getEdit().getOriginal().getId())));
+                    }
+                    MainForm.ErrorMessage(null, message.toString());
+                }
+                updateChangeButtons();
+            }
+        }.execute();
+    }
+
     /**
      * Removes Client on the selectedRow row from table
      *
      * @param selectedRow selected row
      */
     private void removeClient(int selectedRow) {
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || clientTable.getValueAt(selectedRow, 0) == null) {
             MainForm.ErrorMessage(null, messages.getString("clientNotSelected"));
             return;
         }
@@ -171,11 +341,9 @@ public class ClientForm {
 
             @Override
             protected void done() {
-                if (deleteSuccessful) {
-                    tableModel.deleteClientFromTable(selectedRow);
-                    return;
+                if (!deleteSuccessful) {
+                    MainForm.ErrorMessage(null, messages.getString("clientDeleteUnsuccessful"));
                 }
-                MainForm.ErrorMessage(null, messages.getString("clientDeleteUnsuccessful"));
             }
         }.execute();
     }
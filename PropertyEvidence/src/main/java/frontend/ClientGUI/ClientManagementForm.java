@@ -109,7 +109,6 @@ public class ClientManagementForm {
             @Override
             protected void done() {
                 if (errorMessage == null) {
-                    parent.getTableModel().updateClientInTable(client);
                     frame.dispose();
                 } else {
                     MainForm.ErrorMessage(frame, errorMessage);
@@ -141,7 +140,6 @@ public class ClientManagementForm {
             @Override
             protected void done() {
                 if (errorMessage == null) {
-                    parent.getTableModel().addClientToTable(client, true);
                     frame.dispose();
                 } else {
                     MainForm.ErrorMessage(frame, errorMessage);
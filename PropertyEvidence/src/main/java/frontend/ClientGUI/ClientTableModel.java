@@ -1,24 +1,35 @@
 package frontend.ClientGUI;
 
+import backend.ChangeEvent;
 import backend.Client;
+import backend.RowEdit;
+import backend.UpdateConflict;
+import frontend.PagedRows;
+import frontend.RowEdits;
+import frontend.RowSink;
 
 import javax.swing.table.AbstractTableModel;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.ResourceBundle;
 
 /**
- * Custom table model used to display Client objects
+ * Custom table model used to display Client objects. Displays either a list of clients, e.g. search result,
+ * or all clients loaded lazily by pages. Name and phone are editable, edited clients are collected until
+ * they are saved together.
  *
  * @author Michal Stolárik 456173@mail.muni.cz
  */
-public class ClientTableModel extends AbstractTableModel {
+public class ClientTableModel extends AbstractTableModel implements RowSink<Client> {
     private List<Client> clients = new ArrayList<>();
+    private PagedRows<Client> pagedClients;
     private String[] columns;
+    private final RowEdits<Client> edits = new RowEdits<>(Client::getId, ClientTableModel::copy);
 
-    ClientTableModel() {
+    public ClientTableModel() {
         Locale language = Locale.getDefault();
         ResourceBundle messages = ResourceBundle.getBundle("Localization" + File.separator + "MessagesBundle", language);
         columns = new String[] {"Id", messages.getString("clientName"), messages.getString("clientPhone")};
@@ -36,42 +47,226 @@ public class ClientTableModel extends AbstractTableModel {
 
 
     /**
-     * Adds client to table
+     * Displays rows loaded by pages instead of the current contents of table
      *
-     * @param client Client to add
+     * @param rows lazily loaded clients
      */
-    public void addClientToTable(Client client, boolean updateChanges) {
-        clients.add(client);
-        if (updateChanges) {
-            fireTableDataChanged();
+    public void displayPagedClients(PagedRows<Client> rows) {
+        resetTable();
+        pagedClients = rows;
+        rows.setListener(new PagedRows.Listener() {
+            @Override
+            public void rowCountChanged() {
+                fireTableDataChanged();
+            }
+
+            @Override
+            public void rowsLoaded(int firstRow, int lastRow) {
+                fireTableRowsUpdated(firstRow, lastRow);
+            }
+        });
+        rows.refresh();
+    }
+
+    /**
+     * Replaces contents of table by the clients, firing a single event
+     *
+     * @param rows clients to display
+     */
+    @Override
+    public void replaceAll(List<Client> rows) {
+        resetTable();
+        clients.addAll(rows);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Adds clients to the end of table, firing a single event
+     *
+     * @param rows clients to add
+     */
+    @Override
+    public void appendAll(List<Client> rows) {
+        if (rows.isEmpty()) {
+            return;
         }
+        int firstRow = clients.size();
+        clients.addAll(rows);
+        fireTableRowsInserted(firstRow, clients.size() - 1);
     }
 
     /**
-     * Deletes client from table
+     * Applies committed change of a client to the table, created client is added to the end
      *
-     * @param selectedRow number of row containing Client to be deleted
+     * @param change change published by ClientManager
      */
-    public void deleteClientFromTable(int selectedRow) {
-        if (selectedRow >= 0 && selectedRow < clients.size()) {
-            clients.remove(selectedRow);
-            fireTableRowsDeleted(selectedRow, selectedRow);
+    public void applyChange(ChangeEvent<Client> change) {
+        Client changed = change.getEntity();
+        int row = indexOf(changed.getId());
+        switch (change.getType()) {
+            case CREATED:
+                if (pagedClients != null) {
+                    pagedClients.append(changed);
+                } else {
+                    clients.add(changed);
+                }
+                fireTableRowsInserted(getRowCount() - 1, getRowCount() - 1);
+                break;
+            case UPDATED:
+                edits.committed(changed);
+                if (row < 0) {
+                    return;
+                }
+                if (pagedClients != null) {
+                    pagedClients.set(row, changed);
+                } else {
+                    clients.set(row, changed);
+                }
+                fireTableRowsUpdated(row, row);
+                break;
+            case DELETED:
+                edits.discard(changed.getId());
+                if (row < 0) {
+                    if (pagedClients != null) {
+                        /* row is not loaded, its position is unknown */
+                        pagedClients.refresh();
+                    }
+                    return;
+                }
+                if (pagedClients != null) {
+                    pagedClients.remove(row);
+                } else {
+                    clients.remove(row);
+                }
+                fireTableRowsDeleted(row, row);
+                break;
         }
     }
 
     /**
-     * Updates client in table
+     * Returns index of the displayed, or loaded, client with the id
      *
-     * @param client Client to be updated
+     * @param id id of the client
+     * @return index of row, or -1
      */
-    public void updateClientInTable(Client client) {
+    private int indexOf(Long id) {
+        if (pagedClients != null) {
+            return pagedClients.indexOf(client -> client.getId().equals(id));
+        }
         for (int i = 0; i < clients.size(); i++) {
-            if (clients.get(i).getId().equals(client.getId())) {
-                clients.set(i, client);
-                fireTableRowsUpdated(i, i);
-                return;
+            if (clients.get(i).getId().equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns client displayed in the row, edited copy if it has been edited
+     *
+     * @param row index of row
+     * @return the client, or null while its page is being loaded
+     */
+    private Client displayed(int row) {
+        return edits.displayed(pagedClients != null ? pagedClients.get(row) : clients.get(row));
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int col) {
+        return col != 0 && displayed(row) != null;
+    }
+
+    /**
+     * Edits copy of the client in the row, the client is changed in database when the edits are saved
+     *
+     * @param value new value of cell
+     * @param row   index of row
+     * @param col   index of column
+     */
+    @Override
+    public void setValueAt(Object value, int row, int col) {
+        Client client = displayed(row);
+        if (client == null || Objects.equals(value, getValueAt(row, col))) {
+            return;
+        }
+        Client edited = edits.edit(client);
+        String text = value == null ? null : value.toString().trim();
+        switch (col) {
+            case 1:
+                edited.setFullName(text);
+                break;
+            case 2:
+                edited.setPhoneNumber(text);
+                break;
+            default:
+                throw new IllegalArgumentException("Column is not editable");
+        }
+        fireTableRowsUpdated(row, row);
+    }
+
+    private static Client copy(Client client) {
+        Client copy = new Client();
+        copy.setId(client.getId());
+        copy.setFullName(client.getFullName());
+        copy.setPhoneNumber(client.getPhoneNumber());
+        return copy;
+    }
+
+    public boolean hasEdits() {
+        return !edits.isEmpty();
+    }
+
+    /**
+     * Returns whether client in the row has been edited and not saved yet
+     *
+     * @param row index of row
+     * @return true if the row has unsaved edits
+     */
+    public boolean isEdited(int row) {
+        return edits.isEdited(displayed(row));
+    }
+
+    /**
+     * Returns unsaved edits of clients, for ClientManager.updateClients
+     *
+     * @return edits in order of the first edit of their rows
+     */
+    public List<RowEdit<Client>> getEdits() {
+        return edits.getEdits();
+    }
+
+    /**
+     * Returns edited copies of clients in the same order as getEdits, e.g. to validate them
+     *
+     * @return edited clients
+     */
+    public List<Client> getEditedClients() {
+        return edits.getEditedRows();
+    }
+
+    /**
+     * Applies conflicts of saved edits, edit of a changed client is kept to be saved again over the change,
+     * a deleted client is removed from table
+     *
+     * @param conflicts conflicts returned by ClientManager.updateClients
+     */
+    public void resolveConflicts(List<UpdateConflict<Client>> conflicts) {
+        for (UpdateConflict<Client> conflict : conflicts) {
+            if (conflict.isDeleted()) {
+                applyChange(ChangeEvent.deleted(Client.class, conflict.getEdit().getOriginal()));
+            } else {
+                edits.rebase(conflict);
             }
         }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Discards all unsaved edits, rows display the loaded clients again
+     */
+    public void discardEdits() {
+        edits.discardAll();
+        fireTableDataChanged();
     }
 
     /**
@@ -79,11 +274,15 @@ public class ClientTableModel extends AbstractTableModel {
      */
     public void resetTable() {
         clients.clear();
+        if (pagedClients != null) {
+            pagedClients.dispose();
+            pagedClients = null;
+        }
     }
 
     @Override
     public int getRowCount() {
-        return clients.size();
+        return pagedClients != null ? pagedClients.getRowCount() : clients.size();
     }
 
     @Override
@@ -94,7 +293,11 @@ public class ClientTableModel extends AbstractTableModel {
 
     @Override
     public Object getValueAt(int row, int col) {
-        Client client = clients.get(row);
+        Client client = displayed(row);
+        if (client == null) {
+            /* page of the row is being loaded */
+            return null;
+        }
         switch (col) {
             case 0:
                 return client.getId();
@@ -1,17 +1,20 @@
 package frontend.ContractGUI;
 
 import backend.*;
+import frontend.CellFormats;
 import frontend.MainForm;
+import frontend.PagedRows;
+import frontend.ProgressIndicator;
+import frontend.SearchCoordinator;
 
 import javax.sql.DataSource;
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
 
 /**
  * A class representing form for evidence of the contracts
@@ -28,6 +31,7 @@ public class ContractForm {
     private JLabel contractEvidenceLabel;
     private JLabel searchByClientLabel;
     private JLabel searchByPropertyLabel;
+    private JProgressBar progressBar;
 
 
     private ContractTableModel tableModel;
@@ -35,12 +39,20 @@ public class ContractForm {
     private PropertyManager propertyManager;
     private ClientManager clientManager;
     private ResourceBundle messages;
+    private SearchCoordinator<Contract> searchCoordinator;
+    private ProgressIndicator progressIndicator;
 
 
-    public ContractForm(DataSource dataSource) {
-        contractManager = new ContractManagerImpl(dataSource);
-        propertyManager = new PropertyManagerImpl(dataSource);
-        clientManager = new ClientManagerImpl(dataSource);
+    public ContractForm(DataSource dataSource, ChangeBus changeBus) {
+        contractManager = new ContractManagerImpl(dataSource, changeBus);
+        propertyManager = new PropertyManagerImpl(dataSource, changeBus);
+        clientManager = new ClientManagerImpl(dataSource, changeBus);
+        changeBus.subscribe(Contract.class, change -> SwingUtilities.invokeLater(() -> tableModel.applyChange(change)));
+        changeBus.subscribe(Client.class, change -> SwingUtilities.invokeLater(() -> tableModel.applyClientChange(change)));
+        changeBus.subscribe(Property.class, change -> SwingUtilities.invokeLater(() -> tableModel.applyPropertyChange(change)));
+        progressIndicator = new ProgressIndicator(progressBar);
+        searchCoordinator = new SearchCoordinator<>(tableModel);
+        searchCoordinator.setProgressIndicator(progressIndicator);
 
         addContractButton.addActionListener(actionEvent -> new ContractManipulationForm(this, null).openWindow());
         removeContractButton.addActionListener(actionEvent -> deleteContract(contractTable.getSelectedRow()));
@@ -81,6 +93,7 @@ public class ContractForm {
         Locale language = Locale.getDefault();
         messages = ResourceBundle.getBundle("Localization" + File.separator + "MessagesBundle", language);
         setGUILanguage();
+        displayAllContractsInTable();
     }
 
     /**
@@ -101,14 +114,31 @@ public class ContractForm {
      * @param selectedRow row of the table which is to be deleted
      */
     private void deleteContract(int selectedRow) {
-        if (!tableModel.getColumnMap().containsKey(selectedRow)) {
+        if (selectedRow == -1 || tableModel.getValueAt(selectedRow, 0) == null) {
             MainForm.ErrorMessage(null, messages.getString("contractNotSelected"));
             return;
         }
         Long id = (Long) tableModel.getValueAt(selectedRow, 0);
-        Contract contractToBeDeleted = contractManager.getContractById(id);
-        contractManager.deleteContract(contractToBeDeleted);
-        tableModel.deleteContractFromTable(selectedRow);
+        ProgressIndicator.Task task = progressIndicator.begin();
+
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                Contract contractToBeDeleted = contractManager.getContractById(id);
+                contractManager.deleteContract(contractToBeDeleted);
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                task.end();
+                try {
+                    get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    MainForm.ErrorMessage(null, ex.getCause() == null ? ex.getMessage() : ex.getCause().getMessage());
+                }
+            }
+        }.execute();
     }
 
 
@@ -118,25 +148,47 @@ public class ContractForm {
      * @param selectedRow row of the specific contract
      */
     private void updateContract(int selectedRow) {
-        if (!tableModel.getColumnMap().containsKey(selectedRow)) {
+        if (selectedRow == -1 || tableModel.getValueAt(selectedRow, 0) == null) {
             MainForm.ErrorMessage(null, messages.getString("contractNotSelected"));
             return;
         }
         Long id = (Long) tableModel.getValueAt(selectedRow, 0);
-        Contract contractToBeUpdated = contractManager.getContractById(id);
-        ContractManipulationForm form = new ContractManipulationForm(this, contractToBeUpdated);
-        form.fillComboBoxesWithContractValues(contractToBeUpdated);
-        form.openWindow();
+        ContractForm outerClass = this;
+        ProgressIndicator.Task task = progressIndicator.begin();
+
+        new SwingWorker<Contract, Void>() {
+            @Override
+            protected Contract doInBackground() {
+                return contractManager.getContractById(id);
+            }
+
+            @Override
+            protected void done() {
+                task.end();
+                Contract contractToBeUpdated;
+                try {
+                    contractToBeUpdated = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    MainForm.ErrorMessage(null, ex.getCause() == null ? ex.getMessage() : ex.getCause().getMessage());
+                    return;
+                }
+                if (contractToBeUpdated == null) {
+                    MainForm.ErrorMessage(null, messages.getString("contractNotSelected"));
+                    return;
+                }
+                ContractManipulationForm form = new ContractManipulationForm(outerClass, contractToBeUpdated);
+                form.fillComboBoxesWithContractValues(contractToBeUpdated);
+                form.openWindow();
+            }
+        }.execute();
     }
 
     /**
-     * Displays all contracts in the evidence to the table
+     * Displays all contracts in the evidence to the table, loading them by pages as the table is scrolled
      */
     private void displayAllContractsInTable() {
-        List<Contract> contractList = contractManager.getAllContracts();
-        for (Contract contract : contractList) {
-            tableModel.addContractToTable(contract);
-        }
+        searchCoordinator.cancel();
+        tableModel.displayPagedContracts(new PagedRows<>(contractManager::countContracts, contractManager::getContracts));
     }
 
 
@@ -144,33 +196,12 @@ public class ContractForm {
      * Displays all contracts of the clients with the name containing the string in the clientTextField
      */
     private void searchByClient() {
-        tableModel.resetTable();
-        if (searchByClientField.getText().trim().isEmpty()) {
+        String clientName = searchByClientField.getText();
+        if (clientName.trim().isEmpty()) {
             displayAllContractsInTable();
             return;
         }
-        new SwingWorker<Void, Void>() {
-            private List<Contract> contracts = new ArrayList<>();
-
-            @Override
-            protected Void doInBackground() {
-                String clientName = searchByClientField.getText();
-                List<Client> clientsWithSameName = clientManager.findClientsByName(clientName);
-                for (Client client : clientsWithSameName) {
-                    contracts.addAll(contractManager.findContractsByClient(client));
-                }
-                return null;
-            }
-
-            @Override
-            protected void done() {
-                for (Contract contract : contracts) {
-                    tableModel.addContractToTable(contract);
-                }
-                tableModel.fireTableDataChanged();
-            }
-
-        }.execute();
+        searchCoordinator.search(() -> contractManager.findContractsByClientName(clientName));
     }
 
 
@@ -178,36 +209,14 @@ public class ContractForm {
      * Finds all contracts with the property situated on the address given in the propertyTextField
      */
     private void searchByProperty() {
-        tableModel.resetTable();
-        if (searchByClientField.getText().trim().isEmpty()) {
+        String propertyAddress = searchByPropertyField.getText();
+        if (propertyAddress.trim().isEmpty()) {
             displayAllContractsInTable();
             return;
         }
-        new SwingWorker<Void, Void>() {
-            private List<Contract> contracts = new ArrayList<>();
-
-            @Override
-            protected Void doInBackground() {
-                String propertyAddress = searchByClientField.getText();
-                List<Property> propertiesWithTheSameAddress = propertyManager.findPropertyByAddress(propertyAddress);
-                for (Property property : propertiesWithTheSameAddress) {
-                    contracts.addAll(contractManager.findContractByProperty(property));
-                }
-                return null;
-            }
-
-            @Override
-            protected void done() {
-                for (Contract contract : contracts) {
-                    tableModel.addContractToTable(contract);
-                }
-                tableModel.fireTableDataChanged();
-            }
-
-        }.execute();
+        searchCoordinator.search(() -> contractManager.findContractsByPropertyAddress(propertyAddress));
     }
 
-
     public JPanel getInitialContractPanel() {
         return initialContractPanel;
     }
@@ -233,6 +242,7 @@ public class ContractForm {
     private void createUIComponents() {
         contractTable = new JTable();
         contractTable.setModel(new ContractTableModel());
+        CellFormats.install(contractTable);
         tableModel = (ContractTableModel) contractTable.getModel();
     }
 
@@ -3,12 +3,16 @@ package frontend.ContractGUI;
 import backend.*;
 import common.IllegalEntityException;
 import frontend.MainForm;
+import frontend.PagedComboBoxModel;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
 import java.awt.*;
 import java.io.File;
+import java.text.MessageFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.time.Month;
@@ -16,6 +20,7 @@ import java.util.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * A class representing the window for manipulation with contracts
@@ -36,11 +41,15 @@ public class ContractManipulationForm {
     private JLabel dateOfSigningLabel;
     private JLabel clientSNameLabel;
     private JLabel contractManipulationLabel;
+    private JLabel clientCountLabel;
+    private JLabel propertyCountLabel;
     private JFrame manipulationFrame;
 
     private ContractForm rootWindow;
     private ContractManager contractManager;
     private ResourceBundle messages;
+    private PagedComboBoxModel<Client> clientModel;
+    private PagedComboBoxModel<Property> propertyModel;
 
 
     public ContractManipulationForm(ContractForm rootWindow, Contract selectedContract) {
@@ -58,6 +67,37 @@ public class ContractManipulationForm {
         monthComboBox.setModel(new DefaultComboBoxModel(java.time.Month.values()));
         dayComboBox.setModel(new DefaultComboBoxModel(daysInMonth().toArray()));
         yearComboBox.setModel(new DefaultComboBoxModel(yearSpan().toArray()));
+
+        ClientManager clientManager = rootWindow.getClientManager();
+        clientModel = new PagedComboBoxModel<>(new PagedComboBoxModel.Source<Client>() {
+            @Override
+            public int count(String query) {
+                return clientManager.countClientsByName(query);
+            }
+
+            @Override
+            public List<Client> find(String query, int offset, int limit) {
+                return clientManager.findClientsByName(query, offset, limit);
+            }
+        });
+        clientModel.install(clientComboBox);
+        showCountHint(clientModel, clientCountLabel);
+
+        PropertyManager propertyManager = rootWindow.getPropertyManager();
+        propertyModel = new PagedComboBoxModel<>(new PagedComboBoxModel.Source<Property>() {
+            @Override
+            public int count(String query) {
+                return propertyManager.countPropertiesByAddress(query);
+            }
+
+            @Override
+            public List<Property> find(String query, int offset, int limit) {
+                return propertyManager.findPropertyByAddress(query, offset, limit);
+            }
+        });
+        propertyModel.install(propertyComboBox);
+        showCountHint(propertyModel, propertyCountLabel);
+
         propertySearchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent documentEvent) {
@@ -91,12 +131,12 @@ public class ContractManipulationForm {
             }
         });
 
-        findClients();
-        findProperties();
-
         Locale language = Locale.getDefault();
         messages = ResourceBundle.getBundle("Localization" + File.separator + "MessagesBundle", language);
         setGUILanguage();
+
+        findClients();
+        findProperties();
     }
 
     /**
@@ -162,10 +202,7 @@ public class ContractManipulationForm {
         Contract contract = new Contract();
         try {
             fillContractWithValuesFromComboBoxes(contract);
-            contractManager.createContract(contract);
-            rootWindow.getTableModel().addContractToTable(contract);
-            rootWindow.getTableModel().fireTableDataChanged();
-            manipulationFrame.dispose();
+            saveInBackground(() -> contractManager.createContract(contract));
         } catch (IllegalEntityException | DateTimeParseException ex) {
             MainForm.ErrorMessage(manipulationFrame, ex.getMessage());
         } catch (ParseException ex) {
@@ -183,9 +220,7 @@ public class ContractManipulationForm {
         contract.setId(id);
         try {
             fillContractWithValuesFromComboBoxes(contract);
-            contractManager.updateContract(contract);
-            rootWindow.getTableModel().updateContractInTable(contract);
-            manipulationFrame.dispose();
+            saveInBackground(() -> contractManager.updateContract(contract));
         } catch (IllegalEntityException | NumberFormatException ex) {
             MainForm.ErrorMessage(manipulationFrame, ex.getMessage());
         } catch (ParseException ex) {
@@ -194,60 +229,102 @@ public class ContractManipulationForm {
     }
 
 
+    /**
+     * Runs the manager operation in the background and closes the window once it succeeds.
+     * The save button is disabled meanwhile, so that the contract is not saved twice.
+     *
+     * @param operation manager operation saving the contract
+     */
+    private void saveInBackground(Runnable operation) {
+        saveButton.setEnabled(false);
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                operation.run();
+                return null;
+            }
+
+            @Override
+            protected void done() {
+                saveButton.setEnabled(true);
+                try {
+                    get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+                    MainForm.ErrorMessage(manipulationFrame, cause.getMessage());
+                    return;
+                }
+                manipulationFrame.dispose();
+            }
+        }.execute();
+    }
+
+
     /**
      * Sets comboBox values to the attribute values of the contract
      *
      * @param contract contract with values which are to be set in comboBoxes
      */
     public void fillComboBoxesWithContractValues(Contract contract) {
-        clientComboBox.setSelectedItem(contract.getClient());
-        propertyComboBox.setSelectedItem(contract.getProperty());
+        /* selected through the models, the client or property need not be in the loaded page */
+        clientModel.setSelectedItem(contract.getClient());
+        propertyModel.setSelectedItem(contract.getProperty());
         monthComboBox.setSelectedItem(contract.getDateOfSigning().getMonth());
         dayComboBox.setSelectedItem(contract.getDateOfSigning().getDayOfMonth());
         yearComboBox.setSelectedItem(contract.getDateOfSigning().getYear());
     }
 
     /**
-     * Fills clientComboBox with clients whose name contain string typed in the clientSearchField
+     * Fills clientComboBox with the first page of clients whose name contain string typed in the clientSearchField
      */
     private void findClients() {
-        String clientName = clientSearchField.getText().trim().toLowerCase();
-        new SwingWorker<Void, Void>() {
-            private List<Client> clientsWithMatchingName = new ArrayList<>();
+        clientModel.search(clientSearchField.getText().trim().toLowerCase());
+    }
 
-            @Override
-            protected Void doInBackground() {
-                clientsWithMatchingName = rootWindow.getClientManager().findClientsByName(clientName);
-                return null;
-            }
 
-            @Override
-            protected void done() {
-                clientComboBox.setModel(new DefaultComboBoxModel(clientsWithMatchingName.toArray()));
-            }
-        }.execute();
+    /**
+     * Fills propertyComboBox with the first page of properties which have had its address typed
+     * in the propertySearchField
+     */
+    private void findProperties() {
+        propertyModel.search(propertySearchField.getText().trim().toLowerCase());
     }
 
 
     /**
-     * Fills propertyComboBox with properties which have had its address typed in the propertySearchField
+     * Shows how many of the matching items are loaded in the combo box, while some of them are not
+     *
+     * @param model model of the combo box
+     * @param label label showing the hint
      */
-    private void findProperties() {
-        String propertyAddress = propertySearchField.getText().trim().toLowerCase();
-        new SwingWorker<Void, Void>() {
-            private List<Property> propertiesWithSimilarAddress = new ArrayList<>();
+    private void showCountHint(PagedComboBoxModel<?> model, JLabel label) {
+        model.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent listDataEvent) {
+                updateCountHint(model, label);
+            }
 
             @Override
-            protected Void doInBackground() {
-                propertiesWithSimilarAddress = rootWindow.getPropertyManager().findPropertyByAddress(propertyAddress);
-                return null;
+            public void intervalRemoved(ListDataEvent listDataEvent) {
+                updateCountHint(model, label);
             }
 
             @Override
-            protected void done() {
-                propertyComboBox.setModel(new DefaultComboBoxModel(propertiesWithSimilarAddress.toArray()));
+            public void contentsChanged(ListDataEvent listDataEvent) {
+                updateCountHint(model, label);
             }
-        }.execute();
+        });
+    }
+
+    private void updateCountHint(PagedComboBoxModel<?> model, JLabel label) {
+        if (!model.hasMore()) {
+            label.setText("");
+        } else if (model.getTotalCount() < 0) {
+            label.setText(model.getSize() + "+");
+        } else {
+            label.setText(MessageFormat.format(messages.getString("contractPickerCount"),
+                    model.getSize(), model.getTotalCount()));
+        }
     }
 
     /**
@@ -1,17 +1,25 @@
 package frontend.ContractGUI;
 
+import backend.ChangeEvent;
+import backend.Client;
 import backend.Contract;
+import backend.Property;
+import frontend.PagedRows;
+import frontend.RowSink;
 
 import javax.swing.table.AbstractTableModel;
 import java.io.File;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.ObjIntConsumer;
 
 /**
- * A class representing table of the contracts
+ * A class representing table of the contracts, either a list of found contracts or all contracts loaded by pages
  * @author Martin Balucha
  */
-public class ContractTableModel extends AbstractTableModel {
+public class ContractTableModel extends AbstractTableModel implements RowSink<Contract> {
     private List<Contract> contracts = new ArrayList<>();
+    private PagedRows<Contract> pagedContracts;
     private Map<Integer, String> columnMap;
 
     public ContractTableModel() {
@@ -22,7 +30,7 @@ public class ContractTableModel extends AbstractTableModel {
 
     @Override
     public int getRowCount() {
-        return contracts.size();
+        return pagedContracts != null ? pagedContracts.getRowCount() : contracts.size();
     }
 
 
@@ -42,9 +50,35 @@ public class ContractTableModel extends AbstractTableModel {
     }
 
 
+    /**
+     * Returns class of the values in the column, so that the table renders them by CellFormats
+     * @param columnIndex index of the specific column
+     * @return class of the values
+     */
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        switch (columnIndex) {
+            case 0:
+                return Long.class;
+            case 1:
+                return Property.class;
+            case 2:
+                return Client.class;
+            case 3:
+                return LocalDate.class;
+            default:
+                return Object.class;
+        }
+    }
+
+
     @Override
     public Object getValueAt(int row, int column) {
-        Contract contract = contracts.get(row);
+        Contract contract = pagedContracts != null ? pagedContracts.get(row) : contracts.get(row);
+        if (contract == null) {
+            /* page of the row is being loaded */
+            return null;
+        }
         switch (column) {
             case 0:
                 return contract.getId();
@@ -61,39 +95,163 @@ public class ContractTableModel extends AbstractTableModel {
 
 
     /**
-     * Adds new contract to the table
-     * @param contract  contract which is to be added to the table
+     * Displays contracts loaded by pages instead of the current contents of the table
+     * @param rows  lazily loaded contracts
      */
-    public void addContractToTable(Contract contract) {
-        contracts.add(contract);
+    public void displayPagedContracts(PagedRows<Contract> rows) {
+        resetTable();
+        pagedContracts = rows;
+        rows.setListener(new PagedRows.Listener() {
+            @Override
+            public void rowCountChanged() {
+                fireTableDataChanged();
+            }
+
+            @Override
+            public void rowsLoaded(int firstRow, int lastRow) {
+                fireTableRowsUpdated(firstRow, lastRow);
+            }
+        });
+        rows.refresh();
+    }
+
+
+    /**
+     * Replaces contents of the table by the contracts, firing a single event
+     * @param rows  contracts which are to be displayed
+     */
+    @Override
+    public void replaceAll(List<Contract> rows) {
+        resetTable();
+        contracts.addAll(rows);
         fireTableDataChanged();
     }
 
 
     /**
-     * Deletes contract from the table
-     * @param selectedRow   index of the contract which is to be deleted
+     * Adds contracts to the end of the table, firing a single event
+     * @param rows  contracts which are to be added
+     */
+    @Override
+    public void appendAll(List<Contract> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int firstRow = contracts.size();
+        contracts.addAll(rows);
+        fireTableRowsInserted(firstRow, contracts.size() - 1);
+    }
+
+
+    /**
+     * Applies committed change of a contract to the table, created contract is added to the end
+     * @param change    change published by ContractManager
+     */
+    public void applyChange(ChangeEvent<Contract> change) {
+        Contract changed = change.getEntity();
+        int row = indexOf(changed.getId());
+        switch (change.getType()) {
+            case CREATED:
+                if (pagedContracts != null) {
+                    pagedContracts.append(changed);
+                } else {
+                    contracts.add(changed);
+                }
+                fireTableRowsInserted(getRowCount() - 1, getRowCount() - 1);
+                break;
+            case UPDATED:
+                if (row < 0) {
+                    return;
+                }
+                if (pagedContracts != null) {
+                    pagedContracts.set(row, changed);
+                } else {
+                    contracts.set(row, changed);
+                }
+                fireTableRowsUpdated(row, row);
+                break;
+            case DELETED:
+                if (row < 0) {
+                    if (pagedContracts != null) {
+                        /* row is not loaded, its position is unknown */
+                        pagedContracts.refresh();
+                    }
+                    return;
+                }
+                if (pagedContracts != null) {
+                    pagedContracts.remove(row);
+                } else {
+                    contracts.remove(row);
+                }
+                fireTableRowsDeleted(row, row);
+                break;
+        }
+    }
+
+
+    /**
+     * Replaces updated client in the displayed contracts. Clients and properties with contracts
+     * can not be deleted, so that only updates are applied.
+     * @param change    change published by ClientManager
+     */
+    public void applyClientChange(ChangeEvent<Client> change) {
+        if (change.getType() != ChangeEvent.Type.UPDATED) {
+            return;
+        }
+        Client client = change.getEntity();
+        forEachContract((contract, row) -> {
+            if (contract.getClient() != null && client.getId().equals(contract.getClient().getId())) {
+                contract.setClient(client);
+                fireTableRowsUpdated(row, row);
+            }
+        });
+    }
+
+
+    /**
+     * Replaces updated property in the displayed contracts
+     * @param change    change published by PropertyManager
      */
-    public void deleteContractFromTable(int selectedRow) {
-        if (selectedRow >= 0 && selectedRow < contracts.size()) {
-            contracts.remove(selectedRow);
-            fireTableRowsDeleted(selectedRow, selectedRow);
+    public void applyPropertyChange(ChangeEvent<Property> change) {
+        if (change.getType() != ChangeEvent.Type.UPDATED) {
+            return;
+        }
+        Property property = change.getEntity();
+        forEachContract((contract, row) -> {
+            if (contract.getProperty() != null && property.getId().equals(contract.getProperty().getId())) {
+                contract.setProperty(property);
+                fireTableRowsUpdated(row, row);
+            }
+        });
+    }
+
+
+    private void forEachContract(ObjIntConsumer<Contract> action) {
+        if (pagedContracts != null) {
+            pagedContracts.forEachLoaded(action);
+            return;
+        }
+        for (int i = 0; i < contracts.size(); i++) {
+            action.accept(contracts.get(i), i);
         }
     }
 
 
     /**
-     * Updates contract in the table
-     * @param contract contract which was changed
+     * Returns index of the displayed, or loaded, contract with the id
+     * @param id    id of the contract
+     * @return  index of the row, or -1
      */
-    public void updateContractInTable(Contract contract) {
+    private int indexOf(Long id) {
+        if (pagedContracts != null) {
+            return pagedContracts.indexOf(contract -> contract.getId().equals(id));
+        }
         for (int i = 0; i < contracts.size(); i++) {
-            if (contracts.get(i).getId().equals(contract.getId())) {
-                contracts.set(i, contract);
-                fireTableRowsUpdated(i, i);
-                return;
+            if (contracts.get(i).getId().equals(id)) {
+                return i;
             }
         }
+        return -1;
     }
 
 
@@ -102,6 +260,10 @@ public class ContractTableModel extends AbstractTableModel {
      */
     public void resetTable() {
         contracts.clear();
+        if (pagedContracts != null) {
+            pagedContracts.dispose();
+            pagedContracts = null;
+        }
     }
 
 
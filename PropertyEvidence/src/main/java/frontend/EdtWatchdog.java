@@ -0,0 +1,204 @@
+package frontend;
+
+import common.events.EdtStallEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the event dispatch thread for stalls, i.e. dispatch of a single AWT event running longer than
+ * the threshold, e.g. a database query executed by a listener. The watchdog replaces the system event queue
+ * by a queue timing every dispatch, and samples the event dispatch thread from a daemon thread. When a dispatch
+ * exceeds the threshold, the stack of the event dispatch thread is logged while it is still blocked, and once
+ * the dispatch ends, its duration is logged and recorded as EdtStallEvent for Java Flight Recorder.
+ *
+ * Events dispatched by a modal dialog inside of another event are timed separately. While the dialog waits for
+ * the next event, the event dispatch thread is idle, so the time the dialog is open is not counted to the outer
+ * event.
+ *
+ * @author agent agent@local
+ */
+public class EdtWatchdog {
+
+    private final static Logger log = LoggerFactory.getLogger(EdtWatchdog.class);
+
+    /**
+     * System property overriding the threshold in milliseconds
+     */
+    public static final String THRESHOLD_PROPERTY = "propertyevidence.edt.threshold";
+
+    public static final long DEFAULT_THRESHOLD_MILLIS = 200;
+
+    /**
+     * Receives duration of every dispatched event on the event dispatch thread, e.g. to compute percentiles
+     */
+    public interface Listener {
+        void dispatched(AWTEvent event, long nanos);
+
+        /**
+         * Called on the sampling thread, when a dispatch still running exceeded the threshold
+         *
+         * @param nanos time the dispatch has been running so far
+         */
+        default void blocked(long nanos) {
+        }
+    }
+
+    private final long thresholdNanos;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private TimedEventQueue queue;
+    private ScheduledExecutorService sampler;
+
+    /* written by the event dispatch thread, read by the sampler */
+    private volatile Thread dispatchThread;
+    private volatile long dispatchStart;
+    private volatile long dispatchSequence;
+    private long reportedSequence = -1;
+
+    public EdtWatchdog(long thresholdMillis) {
+        if (thresholdMillis <= 0) {
+            throw new IllegalArgumentException("Threshold is not positive");
+        }
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    /**
+     * Returns threshold in milliseconds given by THRESHOLD_PROPERTY, or DEFAULT_THRESHOLD_MILLIS
+     */
+    public static long defaultThresholdMillis() {
+        return Long.getLong(THRESHOLD_PROPERTY, DEFAULT_THRESHOLD_MILLIS);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Pushes the timing queue over the system event queue and starts sampling
+     */
+    public synchronized void install() {
+        if (queue != null) {
+            return;
+        }
+        queue = new TimedEventQueue();
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(queue);
+        long period = Math.max(TimeUnit.NANOSECONDS.toMillis(thresholdNanos) / 4, 10);
+        sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "EDT watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sample, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops sampling and restores the previous event queue
+     */
+    public synchronized void uninstall() {
+        if (queue == null) {
+            return;
+        }
+        sampler.shutdownNow();
+        queue.detach();
+        queue = null;
+        sampler = null;
+    }
+
+    /**
+     * Logs stack of the event dispatch thread, when the current dispatch exceeded the threshold
+     * and has not been reported yet
+     */
+    private void sample() {
+        long sequence = dispatchSequence;
+        long start = dispatchStart;
+        Thread thread = dispatchThread;
+        if (start == 0 || thread == null || sequence == reportedSequence) {
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (elapsed < thresholdNanos) {
+            return;
+        }
+        StackTraceElement[] stack = thread.getStackTrace();
+        if (sequence != dispatchSequence) {
+            /* the dispatch ended meanwhile, the stack belongs to another event */
+            return;
+        }
+        reportedSequence = sequence;
+        Throwable trace = new Throwable("stack of " + thread.getName());
+        trace.setStackTrace(stack);
+        log.warn("event dispatch thread blocked for " + TimeUnit.NANOSECONDS.toMillis(elapsed) + " ms", trace);
+        for (Listener listener : listeners) {
+            listener.blocked(elapsed);
+        }
+    }
+
+    private void dispatched(AWTEvent event, long nanos) {
+        if (nanos >= thresholdNanos) {
+            String eventType = event.getClass().getName();
+            log.warn("EDT stall: " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms dispatching " + eventType);
+            EdtStallEvent.commit(eventType, nanos);
+        }
+        for (Listener listener : listeners) {
+            listener.dispatched(event, nanos);
+        }
+    }
+
+    /**
+     * Event queue timing dispatch of every event
+     */
+    private class TimedEventQueue extends EventQueue {
+        private int depth;
+
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            depth++;
+            dispatchThread = Thread.currentThread();
+            dispatchStart = System.nanoTime();
+            dispatchSequence++;
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                long end = System.nanoTime();
+                /* dispatch of an inner event restarted the clock of this one */
+                long nanos = end - dispatchStart;
+                depth--;
+                dispatchStart = depth > 0 ? end : 0;
+                dispatchSequence++;
+                dispatched(event, nanos);
+            }
+        }
+
+        /**
+         * Marks the event dispatch thread idle while it waits for the next event, e.g. inside a modal dialog,
+         * and restarts the clock of the outer event once an event arrives
+         */
+        @Override
+        public AWTEvent getNextEvent() throws InterruptedException {
+            dispatchStart = 0;
+            dispatchSequence++;
+            try {
+                return super.getNextEvent();
+            } finally {
+                if (depth > 0) {
+                    dispatchStart = System.nanoTime();
+                    dispatchSequence++;
+                }
+            }
+        }
+
+        void detach() {
+            pop();
+        }
+    }
+}
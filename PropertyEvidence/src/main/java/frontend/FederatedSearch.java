@@ -0,0 +1,280 @@
+package frontend;
+
+import common.CancellableDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs one search text against several sources, e.g. clients, properties and contracts, in parallel.
+ * Result of each source is passed to the listener as soon as the source completes, so that a fast source
+ * is shown while a slow one is still running. A source, which does not complete within the timeout,
+ * is cancelled, including its statements when the data source is CancellableDataSource, and reported
+ * as timed out, so that it cannot block results of the others.
+ *
+ * Requests are debounced like in SearchCoordinator and a new search cancels the one still running.
+ * All methods must be called on the event dispatch thread, the listener is called on it too.
+ *
+ * @author agent agent@local
+ */
+public class FederatedSearch {
+
+    public static final int DEFAULT_TIMEOUT_MILLIS = 2000;
+
+    /**
+     * System property overriding the timeout of each source in milliseconds
+     */
+    public static final String TIMEOUT_PROPERTY = "propertyevidence.search.timeout";
+
+    private final static Logger log = LoggerFactory.getLogger(FederatedSearch.class);
+
+    /* threads of cancelled sources may still wait for a driver, which cannot cancel statements */
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new DaemonThreads());
+
+    public enum Status {
+        RUNNING, FOUND, TIMED_OUT, FAILED
+    }
+
+    /**
+     * Receiver of results of the sources on the event dispatch thread
+     */
+    public interface Listener {
+        /**
+         * Called when a search starts, before any source completes
+         *
+         * @param text    searched text
+         * @param sources names of all sources, in order they have been added
+         */
+        void started(String text, List<String> sources);
+
+        /**
+         * Called once for every source of the search, when it completes, fails or times out
+         *
+         * @param result result of the source
+         */
+        void finished(Result result);
+    }
+
+    /**
+     * Completed search of one source
+     */
+    public static final class Result {
+        private final String source;
+        private final Status status;
+        private final List<String> rows;
+
+        Result(String source, Status status, List<String> rows) {
+            this.source = source;
+            this.status = status;
+            this.rows = rows;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Returns descriptions of the found rows, empty unless the status is FOUND
+         */
+        public List<String> getRows() {
+            return rows;
+        }
+    }
+
+    private final Listener listener;
+    private final int timeoutMillis;
+    private final Timer timer;
+    private final List<Source<?>> sources = new ArrayList<>();
+    private final List<RunningSource> running = new ArrayList<>();
+    private String pendingText;
+    private long generation;
+
+    /**
+     * Creates search with default delay and timeout of each source given by TIMEOUT_PROPERTY
+     *
+     * @param listener receives results of the latest search
+     */
+    public FederatedSearch(Listener listener) {
+        this(SearchCoordinator.DEFAULT_DELAY_MILLIS, Integer.getInteger(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT_MILLIS), listener);
+    }
+
+    /**
+     * Creates a new instance of FederatedSearch.
+     *
+     * @param delayMillis   time without new request, after which the search starts
+     * @param timeoutMillis time, after which a source still running is cancelled
+     * @param listener      receives results of the latest search
+     */
+    public FederatedSearch(int delayMillis, int timeoutMillis, Listener listener) {
+        this.listener = listener;
+        this.timeoutMillis = timeoutMillis;
+        this.timer = new Timer(delayMillis, e -> startPending());
+        this.timer.setRepeats(false);
+    }
+
+    /**
+     * Adds source searched by the following searches
+     *
+     * @param name      name of the source shown to the user
+     * @param query     finds rows matching the text, called in the background
+     * @param describer describes a found row to the user, called in the background
+     * @param <T>       type of the found rows
+     */
+    public <T> void addSource(String name, Function<String, List<T>> query, Function<T, String> describer) {
+        sources.add(new Source<>(name, query, describer));
+    }
+
+    /**
+     * Schedules search of all sources, which replaces any search requested before
+     *
+     * @param text searched text
+     */
+    public void search(String text) {
+        pendingText = text;
+        timer.restart();
+    }
+
+    /**
+     * Starts search of all sources immediately
+     *
+     * @param text searched text
+     */
+    public void searchNow(String text) {
+        timer.stop();
+        pendingText = text;
+        startPending();
+    }
+
+    /**
+     * Cancels scheduled and running search
+     */
+    public void cancel() {
+        timer.stop();
+        pendingText = null;
+        generation++;
+        cancelRunning();
+    }
+
+    private void startPending() {
+        String text = pendingText;
+        pendingText = null;
+        if (text == null) {
+            return;
+        }
+        cancelRunning();
+        long current = ++generation;
+        List<String> names = new ArrayList<>(sources.size());
+        for (Source<?> source : sources) {
+            names.add(source.name);
+        }
+        listener.started(text, names);
+        for (Source<?> source : sources) {
+            running.add(start(source, text, current));
+        }
+    }
+
+    private <T> RunningSource start(Source<T> source, String text, long current) {
+        RunningSource run = new RunningSource();
+        run.future = EXECUTOR.submit(() -> {
+            Result result;
+            try {
+                List<String> rows = run.token.run(() -> {
+                    List<String> described = new ArrayList<>();
+                    for (T row : source.query.apply(text)) {
+                        described.add(source.describer.apply(row));
+                    }
+                    return described;
+                });
+                result = new Result(source.name, Status.FOUND, rows);
+            } catch (RuntimeException ex) {
+                if (!run.token.isCancelled()) {
+                    log.warn("search of " + source.name + " failed", ex);
+                }
+                result = new Result(source.name, Status.FAILED, Collections.emptyList());
+            }
+            Result finished = result;
+            SwingUtilities.invokeLater(() -> finish(run, current, finished));
+        });
+        run.timeout = new Timer(timeoutMillis, e -> {
+            run.cancel();
+            finish(run, current, new Result(source.name, Status.TIMED_OUT, Collections.emptyList()));
+        });
+        run.timeout.setRepeats(false);
+        run.timeout.start();
+        return run;
+    }
+
+    /**
+     * Passes result to the listener, unless the source has already timed out or the search is outdated
+     */
+    private void finish(RunningSource run, long current, Result result) {
+        if (current != generation || run.finished) {
+            return;
+        }
+        run.finished = true;
+        run.timeout.stop();
+        listener.finished(result);
+    }
+
+    private void cancelRunning() {
+        for (RunningSource run : running) {
+            if (!run.finished) {
+                run.cancel();
+            }
+        }
+        running.clear();
+    }
+
+    private static final class Source<T> {
+        private final String name;
+        private final Function<String, List<T>> query;
+        private final Function<T, String> describer;
+
+        private Source(String name, Function<String, List<T>> query, Function<T, String> describer) {
+            this.name = name;
+            this.query = query;
+            this.describer = describer;
+        }
+    }
+
+    /**
+     * Source of the current search, accessed on the event dispatch thread except of its token
+     */
+    private static final class RunningSource {
+        private final CancellableDataSource.Token token = new CancellableDataSource.Token();
+        private Future<?> future;
+        private Timer timeout;
+        private boolean finished;
+
+        private void cancel() {
+            timeout.stop();
+            token.cancel();
+            future.cancel(true);
+        }
+    }
+
+    private static final class DaemonThreads implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "federated-search-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
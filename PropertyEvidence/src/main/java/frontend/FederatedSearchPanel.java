@@ -0,0 +1,150 @@
+package frontend;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import java.awt.*;
+import java.io.File;
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.function.Function;
+
+/**
+ * Search box querying all sources of FederatedSearch at once. Results are shown in a tree grouped by source,
+ * each group shows that its source is still searching until the source completes, fails or times out.
+ * The results are hidden while the search box is empty.
+ *
+ * @author agent agent@local
+ */
+public class FederatedSearchPanel extends JPanel implements FederatedSearch.Listener {
+
+    private static final int RESULTS_HEIGHT = 200;
+
+    private final ResourceBundle messages;
+    private final FederatedSearch search;
+    private final JTextField searchBar;
+    private final JScrollPane resultsPane;
+    private final DefaultMutableTreeNode root;
+    private final DefaultTreeModel treeModel;
+    private final JTree tree;
+    private final Map<String, DefaultMutableTreeNode> groups = new LinkedHashMap<>();
+
+    public FederatedSearchPanel() {
+        super(new BorderLayout(6, 4));
+        messages = ResourceBundle.getBundle("Localization" + File.separator + "MessagesBundle", Locale.getDefault());
+        search = new FederatedSearch(this);
+
+        searchBar = new JTextField();
+        searchBar.setEnabled(false);
+        searchBar.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTextChanged();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTextChanged();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTextChanged();
+            }
+        });
+        JPanel searchRow = new JPanel(new BorderLayout(6, 0));
+        searchRow.add(new JLabel(messages.getString("searchEverywhere")), BorderLayout.WEST);
+        searchRow.add(searchBar, BorderLayout.CENTER);
+        add(searchRow, BorderLayout.NORTH);
+
+        root = new DefaultMutableTreeNode();
+        treeModel = new DefaultTreeModel(root);
+        tree = new JTree(treeModel);
+        tree.setRootVisible(false);
+        tree.setShowsRootHandles(true);
+        resultsPane = new JScrollPane(tree);
+        resultsPane.setPreferredSize(new Dimension(0, RESULTS_HEIGHT));
+        resultsPane.setVisible(false);
+        add(resultsPane, BorderLayout.CENTER);
+        setBorder(BorderFactory.createEmptyBorder(4, 6, 4, 6));
+    }
+
+    /**
+     * Adds source searched by the search box, the box is enabled with its first source
+     *
+     * @param name      name of the group of the source
+     * @param query     finds rows matching the text, called in the background
+     * @param describer describes a found row, called in the background
+     * @param <T>       type of the found rows
+     */
+    public <T> void addSource(String name, Function<String, List<T>> query, Function<T, String> describer) {
+        search.addSource(name, query, describer);
+        searchBar.setEnabled(true);
+    }
+
+    private void searchTextChanged() {
+        String text = searchBar.getText().trim();
+        if (text.isEmpty()) {
+            search.cancel();
+            groups.clear();
+            root.removeAllChildren();
+            treeModel.reload();
+            showResults(false);
+        } else {
+            search.search(text);
+        }
+    }
+
+    private void showResults(boolean visible) {
+        if (resultsPane.isVisible() != visible) {
+            resultsPane.setVisible(visible);
+            revalidate();
+        }
+    }
+
+    @Override
+    public void started(String text, List<String> sources) {
+        groups.clear();
+        root.removeAllChildren();
+        for (String source : sources) {
+            DefaultMutableTreeNode group = new DefaultMutableTreeNode(groupLabel(source, FederatedSearch.Status.RUNNING, 0));
+            groups.put(source, group);
+            root.add(group);
+        }
+        treeModel.reload();
+        showResults(true);
+    }
+
+    @Override
+    public void finished(FederatedSearch.Result result) {
+        DefaultMutableTreeNode group = groups.get(result.getSource());
+        group.setUserObject(groupLabel(result.getSource(), result.getStatus(), result.getRows().size()));
+        for (String row : result.getRows()) {
+            group.add(new DefaultMutableTreeNode(row, false));
+        }
+        treeModel.nodeStructureChanged(group);
+        if (group.getChildCount() > 0) {
+            tree.expandPath(new TreePath(group.getPath()));
+        }
+    }
+
+    private String groupLabel(String source, FederatedSearch.Status status, int rowCount) {
+        switch (status) {
+            case RUNNING:
+                return MessageFormat.format(messages.getString("searchGroupRunning"), source);
+            case TIMED_OUT:
+                return MessageFormat.format(messages.getString("searchGroupTimedOut"), source);
+            case FAILED:
+                return MessageFormat.format(messages.getString("searchGroupFailed"), source);
+            default:
+                return MessageFormat.format(messages.getString("searchGroupFound"), source, String.valueOf(rowCount));
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package frontend;
+
+import javax.swing.*;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+/**
+ * Filters a table holding all rows of the database in memory, so that searching does not query the database
+ * on every keystroke. The filter is applied by TableRowSorter. Lower-cased values of the searched column are
+ * indexed once per change of the model, and the rows are matched against a search in parallel when the table is
+ * large. The sorter then only looks the results up.
+ *
+ * Local filtering pays off only while all rows fit into memory, chooseMode decides it by the row count.
+ *
+ * All methods must be called on the event dispatch thread.
+ *
+ * @author agent agent@local
+ */
+public class LocalFilter {
+
+    /**
+     * Maximal number of rows, which are loaded into the table and filtered locally
+     */
+    public static final int DEFAULT_MAX_ROWS = 20000;
+
+    /**
+     * Number of rows, from which the rows are indexed and matched in parallel
+     */
+    static final int PARALLEL_THRESHOLD = 5000;
+
+    private final JTable table;
+    private final TableModel model;
+    private final TableRowSorter<TableModel> sorter;
+    private final int keyColumn;
+    private String[] keys;
+    private IntPredicate condition;
+    private boolean[] matches;
+
+    /**
+     * Creates filter of the table, which is not installed yet
+     *
+     * @param table     filtered table, its model must not be replaced
+     * @param keyColumn column searched by text
+     */
+    public LocalFilter(JTable table, int keyColumn) {
+        this.table = table;
+        this.model = table.getModel();
+        this.sorter = new TableRowSorter<>(model);
+        this.keyColumn = keyColumn;
+        /* listeners are notified in reverse order of registration, so this one runs before the sorter of table */
+        model.addTableModelListener(this::modelChanged);
+    }
+
+    /**
+     * Counts rows in the background and runs local, when they fit into memory, otherwise remote
+     *
+     * @param counter returns number of all rows, e.g. manager's count method
+     * @param maxRows maximal number of rows filtered locally
+     * @param local   loads all rows and installs the filter
+     * @param remote  displays rows without loading all of them, e.g. by pages
+     */
+    public static void chooseMode(IntSupplier counter, int maxRows, Runnable local, Runnable remote) {
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return counter.getAsInt();
+            }
+
+            @Override
+            protected void done() {
+                int count;
+                try {
+                    count = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    count = Integer.MAX_VALUE;
+                }
+                if (count <= maxRows) {
+                    local.run();
+                } else {
+                    remote.run();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Sets the sorter to the table, rows are filtered from now on
+     */
+    public void install() {
+        clear();
+        table.setRowSorter(sorter);
+    }
+
+    /**
+     * Removes the sorter from the table, e.g. when the table displays rows loaded by pages
+     */
+    public void uninstall() {
+        clear();
+        if (table.getRowSorter() == sorter) {
+            table.setRowSorter(null);
+        }
+    }
+
+    public boolean isInstalled() {
+        return table.getRowSorter() == sorter;
+    }
+
+    /**
+     * Displays rows whose key column contains the text, ignoring case. Empty text displays all rows.
+     *
+     * @param text searched text
+     */
+    public void filterText(String text) {
+        String wanted = text.trim().toLowerCase();
+        if (wanted.isEmpty()) {
+            clear();
+            return;
+        }
+        /* indexed before the parallel matching, which only reads the index */
+        indexKeys();
+        apply(row -> key(row).contains(wanted));
+    }
+
+    /**
+     * Displays rows whose value in the column matches the predicate
+     *
+     * @param column    tested column
+     * @param predicate test of the value, called in parallel for large tables
+     */
+    public void filter(int column, Predicate<Object> predicate) {
+        apply(row -> predicate.test(model.getValueAt(row, column)));
+    }
+
+    /**
+     * Displays all rows
+     */
+    public void clear() {
+        condition = null;
+        matches = null;
+        sorter.setRowFilter(null);
+    }
+
+    private void apply(IntPredicate newCondition) {
+        int rowCount = model.getRowCount();
+        boolean[] result = new boolean[rowCount];
+        rows(rowCount).forEach(row -> result[row] = newCondition.test(row));
+        condition = newCondition;
+        matches = result;
+        sorter.setRowFilter(new RowFilter<TableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends TableModel, ? extends Integer> entry) {
+                int row = entry.getIdentifier();
+                return matches != null && row < matches.length ? matches[row] : condition.test(row);
+            }
+        });
+    }
+
+    private String key(int row) {
+        indexKeys();
+        return keys[row];
+    }
+
+    private void indexKeys() {
+        int rowCount = model.getRowCount();
+        if (keys != null && keys.length == rowCount) {
+            return;
+        }
+        String[] index = new String[rowCount];
+        rows(rowCount).forEach(row -> index[row] = keyOf(row));
+        keys = index;
+    }
+
+    private String keyOf(int row) {
+        Object value = model.getValueAt(row, keyColumn);
+        return value == null ? "" : value.toString().toLowerCase();
+    }
+
+    private static IntStream rows(int rowCount) {
+        IntStream rows = IntStream.range(0, rowCount);
+        /* the model is not modified meanwhile, the event dispatch thread waits for the stream */
+        return rowCount >= PARALLEL_THRESHOLD ? rows.parallel() : rows;
+    }
+
+    /**
+     * Keeps the index and the results in line with the model, before the sorter filters the changed rows
+     */
+    private void modelChanged(TableModelEvent event) {
+        int firstRow = event.getFirstRow();
+        int lastRow = event.getLastRow();
+        boolean rowsUpdated = event.getType() == TableModelEvent.UPDATE && firstRow != TableModelEvent.HEADER_ROW
+                && lastRow != Integer.MAX_VALUE;
+        if (!rowsUpdated) {
+            /* rows moved, they are indexed and tested again when needed */
+            keys = null;
+            matches = null;
+            return;
+        }
+        for (int row = firstRow; row <= lastRow; row++) {
+            if (keys != null && row < keys.length) {
+                keys[row] = keyOf(row);
+            }
+            if (matches != null && row < matches.length) {
+                matches[row] = condition.test(row);
+            }
+        }
+    }
+}
@@ -1,6 +1,16 @@
 package frontend;
 
+import backend.ChangeBus;
+import backend.ClientManager;
+import backend.ClientManagerImpl;
+import backend.Contract;
+import backend.ContractManager;
+import backend.ContractManagerImpl;
 import backend.Main;
+import backend.PropertyManager;
+import backend.PropertyManagerImpl;
+import common.CancellableDataSource;
+import common.MetricsRegistry;
 import frontend.ClientGUI.ClientForm;
 import frontend.ContractGUI.ContractForm;
 import frontend.PropertyGUI.PropertyForm;
@@ -8,20 +18,252 @@ import frontend.PropertyGUI.PropertyForm;
 import javax.sql.DataSource;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.io.File;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * Main window with tabs of clients, properties and contracts. The window is shown before the database is ready,
+ * the database is bootstrapped in the background and each tab is built when it is selected for the first time.
+ * Client and property tabs are built at once with the snapshot of their table and connected to the database
+ * once it is ready, the contract tab shows a placeholder until then.
+ * The search box above the tabs searches clients, properties and contracts at once.
+ * The performance status bar is toggled by Ctrl+Shift+H.
+ */
 public class MainForm {
     private JTabbedPane tabbedPane1;
     private JPanel panel1;
+    private PerformanceHud performanceHud;
+    private FederatedSearchPanel federatedSearchPanel;
 
-    public JTabbedPane getPanel() { return tabbedPane1; }
+    private ResourceBundle messages;
+    private List<Tab> tabs;
+    private DataSource dataSource;
+
+    public JPanel getPanel() { return panel1; }
 
     private void createUIComponents() {
-        DataSource dataSource = /*Main.connectToStandaloneDatabase()*/ Main.createMemoryDatabase();
+        StartupLog.Phase phase = StartupLog.begin("main form");
+        messages = ResourceBundle.getBundle("Localization" + File.separator + "MessagesBundle", Locale.getDefault());
+        tabs = new ArrayList<>();
 
         tabbedPane1 = new JTabbedPane();
-        tabbedPane1.add("Client", new ClientForm(dataSource).getPanel());
-        tabbedPane1.add("Property", new PropertyForm(dataSource).getInitialPropertyPanel());
-        tabbedPane1.add("Contract", new ContractForm(dataSource).getInitialContractPanel());
+        /* managers of all tabs publish their changes to the bus, so that every tab shows current data */
+        ChangeBus changeBus = new ChangeBus();
+        /* tables show rows seen on the last run at once, until they are loaded from the database */
+        Path snapshotDirectory = TableSnapshot.defaultDirectory();
+        addSnapshotTab("Client", () -> {
+            ClientForm form = new ClientForm(changeBus, snapshotDirectory);
+            return new OfflineContent(form.getPanel(), form::connect);
+        });
+        addSnapshotTab("Property", () -> {
+            PropertyForm form = new PropertyForm(changeBus, snapshotDirectory);
+            return new OfflineContent(form.getInitialPropertyPanel(), form::connect);
+        });
+        addTab("Contract", source -> new ContractForm(source, changeBus).getInitialContractPanel());
+        tabbedPane1.addChangeListener(changeEvent -> buildSelectedTab());
+        buildSelectedTab();
+        federatedSearchPanel = new FederatedSearchPanel();
+        createPerformanceHud();
+
+        bootstrapDatabase();
+        phase.finish();
+    }
+
+    /**
+     * Creates the status bar with performance metrics, hidden unless PerformanceHud.VISIBLE_PROPERTY is set
+     */
+    private void createPerformanceHud() {
+        performanceHud = new PerformanceHud(MetricsRegistry.global());
+        if (Boolean.getBoolean(PerformanceHud.VISIBLE_PROPERTY)) {
+            performanceHud.setVisible(true);
+        }
+        KeyStroke toggle = KeyStroke.getKeyStroke(KeyEvent.VK_H, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK);
+        tabbedPane1.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(toggle, "togglePerformanceHud");
+        tabbedPane1.getActionMap().put("togglePerformanceHud", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent actionEvent) {
+                performanceHud.toggle();
+            }
+        });
+    }
+
+    /**
+     * Adds tab showing a placeholder, until the tab is selected and the database is ready
+     *
+     * @param title   title of the tab
+     * @param factory builds content of the tab
+     */
+    private void addTab(String title, Function<DataSource, JComponent> factory) {
+        tabbedPane1.add(title, placeholder(messages.getString("loading")));
+        tabs.add(new Tab(factory, null));
+    }
+
+    /**
+     * Adds tab, which is built with the snapshot of its table as soon as it is selected, before the database is ready
+     *
+     * @param title   title of the tab
+     * @param factory builds content of the tab, which is connected to the database later
+     */
+    private void addSnapshotTab(String title, Supplier<OfflineContent> factory) {
+        tabbedPane1.add(title, placeholder(messages.getString("loading")));
+        tabs.add(new Tab(null, factory));
+    }
+
+    private static JComponent placeholder(String text) {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.add(new JLabel(text));
+        return panel;
+    }
+
+    /**
+     * Creates the database and connects to it in the background, the selected tab is built once it is ready
+     */
+    private void bootstrapDatabase() {
+        new SwingWorker<DataSource, Void>() {
+            @Override
+            protected DataSource doInBackground() {
+                StartupLog.Phase phase = StartupLog.begin("database bootstrap");
+                try {
+                    DataSource source = /*Main.connectToStandaloneDatabase()*/ Main.createMemoryDatabase();
+                    if (source == null) {
+                        throw new IllegalStateException("Database is not available");
+                    }
+                    /* searches of the forms cancel statements of outdated searches through CancellableDataSource */
+                    return new CancellableDataSource(source);
+                } finally {
+                    phase.finish();
+                }
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    dataSource = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    /* built tabs keep showing their snapshots */
+                    for (int i = 0; i < tabbedPane1.getTabCount(); i++) {
+                        if (!tabs.get(i).built) {
+                            tabbedPane1.setComponentAt(i, placeholder(messages.getString("databaseUnavailable")));
+                        }
+                    }
+                    return;
+                }
+                addSearchSources();
+                for (Tab tab : tabs) {
+                    if (tab.offline != null) {
+                        tab.offline.connector.accept(dataSource);
+                    }
+                }
+                buildSelectedTab();
+            }
+        }.execute();
+    }
+
+    /**
+     * Connects the search box to the database, once it is ready
+     */
+    private void addSearchSources() {
+        ClientManager clientManager = new ClientManagerImpl(dataSource);
+        PropertyManager propertyManager = new PropertyManagerImpl(dataSource);
+        ContractManager contractManager = new ContractManagerImpl(dataSource);
+        federatedSearchPanel.addSource(messages.getString("searchClients"),
+                clientManager::findClientsByName, CellFormats::formatClient);
+        federatedSearchPanel.addSource(messages.getString("searchProperties"),
+                propertyManager::findPropertyByAddress, CellFormats::formatProperty);
+        federatedSearchPanel.addSource(messages.getString("searchContracts"),
+                text -> findContracts(contractManager, text), this::describeContract);
+    }
+
+    /**
+     * Finds contracts of clients, whose name contains the text, and of properties, whose address contains it
+     */
+    private static List<Contract> findContracts(ContractManager contractManager, String text) {
+        Map<Long, Contract> contracts = new LinkedHashMap<>();
+        for (Contract contract : contractManager.findContractsByClientName(text)) {
+            contracts.put(contract.getId(), contract);
+        }
+        for (Contract contract : contractManager.findContractsByPropertyAddress(text)) {
+            contracts.put(contract.getId(), contract);
+        }
+        return new ArrayList<>(contracts.values());
+    }
+
+    /**
+     * Describes found contract, called in the background. Client or property of the contract may be missing.
+     */
+    private String describeContract(Contract contract) {
+        String client = contract.getClient() == null ? "-" : CellFormats.formatClient(contract.getClient());
+        String property = contract.getProperty() == null ? "-" : CellFormats.formatProperty(contract.getProperty());
+        return MessageFormat.format(messages.getString("searchContractRow"), client, property,
+                CellFormats.formatDate(contract.getDateOfSigning()));
+    }
+
+    /**
+     * Replaces placeholder of the selected tab by its content, when it has not been built yet
+     */
+    private void buildSelectedTab() {
+        int index = tabbedPane1.getSelectedIndex();
+        if (index < 0) {
+            return;
+        }
+        Tab tab = tabs.get(index);
+        if (tab.built || (tab.offlineFactory == null && dataSource == null)) {
+            return;
+        }
+        tab.built = true;
+        StartupLog.Phase phase = StartupLog.begin(tabbedPane1.getTitleAt(index) + " tab");
+        if (tab.offlineFactory == null) {
+            tabbedPane1.setComponentAt(index, tab.factory.apply(dataSource));
+        } else {
+            tab.offline = tab.offlineFactory.get();
+            tabbedPane1.setComponentAt(index, tab.offline.component);
+            if (dataSource != null) {
+                tab.offline.connector.accept(dataSource);
+            }
+        }
+        phase.finish();
+    }
+
+    /**
+     * Tab built either once the database is ready, or at once and connected to the database later
+     */
+    private static final class Tab {
+        private final Function<DataSource, JComponent> factory;
+        private final Supplier<OfflineContent> offlineFactory;
+        private OfflineContent offline;
+        private boolean built;
+
+        private Tab(Function<DataSource, JComponent> factory, Supplier<OfflineContent> offlineFactory) {
+            this.factory = factory;
+            this.offlineFactory = offlineFactory;
+        }
+    }
+
+    /**
+     * Content of a tab shown before the database is ready, with the action connecting it to the database
+     */
+    private static final class OfflineContent {
+        private final JComponent component;
+        private final Consumer<DataSource> connector;
+
+        private OfflineContent(JComponent component, Consumer<DataSource> connector) {
+            this.component = component;
+            this.connector = connector;
+        }
     }
 
     /**
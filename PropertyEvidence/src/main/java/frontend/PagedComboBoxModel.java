@@ -0,0 +1,267 @@
+package frontend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.accessibility.Accessible;
+import javax.swing.*;
+import javax.swing.plaf.basic.ComboPopup;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Items of a combo box searched in the database, which are loaded lazily in pages. A search loads only its first
+ * page, next pages are loaded when the popup list is scrolled to its end. The number of all matching items is
+ * counted separately, so that it does not delay the first page and can be shown as a hint.
+ *
+ * A page or count, which can not be loaded, is logged and the first failure of a search is reported to the user.
+ * The loaded items and the selection are kept and no further page of the search is requested.
+ *
+ * All methods must be called on the event dispatch thread.
+ *
+ * @param <T> type of the items
+ * @author agent agent@local
+ */
+public class PagedComboBoxModel<T> extends AbstractListModel<T> implements ComboBoxModel<T> {
+
+    private final static Logger log = LoggerFactory.getLogger(PagedComboBoxModel.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * Number of rows before the end of the popup list, at which the next page starts loading
+     */
+    private static final int LOAD_AHEAD_ROWS = 5;
+
+    /**
+     * Source of the items, usually manager's count and paged search methods
+     *
+     * @param <T> type of the items
+     */
+    public interface Source<T> {
+        int count(String query);
+
+        List<T> find(String query, int offset, int limit);
+    }
+
+    private final Source<T> source;
+    private final int pageSize;
+    private final List<T> items = new ArrayList<>();
+    private Object selectedItem;
+    private String query;
+    private long generation;
+    private boolean loading;
+    private boolean hasMore;
+    private boolean searchedOnce;
+    private int totalCount = -1;
+    private boolean failureReported;
+    private Consumer<Throwable> failureHandler = cause -> MainForm.ErrorMessage(null, cause.getMessage());
+
+    public PagedComboBoxModel(Source<T> source) {
+        this(source, DEFAULT_PAGE_SIZE);
+    }
+
+    public PagedComboBoxModel(Source<T> source, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size is not positive");
+        }
+        this.source = source;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Replaces showing of error message, which reports a failed search to the user
+     *
+     * @param failureHandler handler called on the event dispatch thread with cause of the failure
+     */
+    public void setFailureHandler(Consumer<Throwable> failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * Sets this model to the combo box and loads next page whenever its popup list is scrolled near the end
+     *
+     * @param comboBox combo box showing the items
+     */
+    public void install(JComboBox<T> comboBox) {
+        comboBox.setModel(this);
+        Accessible child = comboBox.getUI().getAccessibleChild(comboBox, 0);
+        if (!(child instanceof ComboPopup)) {
+            return;
+        }
+        JList<?> list = ((ComboPopup) child).getList();
+        JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, list);
+        if (scrollPane != null) {
+            scrollPane.getViewport().addChangeListener(changeEvent -> {
+                if (list.getLastVisibleIndex() >= items.size() - LOAD_AHEAD_ROWS) {
+                    loadMore();
+                }
+            });
+        }
+    }
+
+    /**
+     * Replaces the items by the first page of items matching the query. The selection is kept, if the selected
+     * item is among them or nothing has been searched yet, otherwise the first item is selected.
+     *
+     * @param query searched text
+     */
+    public void search(String query) {
+        this.query = query;
+        generation++;
+        loading = false;
+        hasMore = false;
+        totalCount = -1;
+        failureReported = false;
+        loadPage(true);
+    }
+
+    /**
+     * Loads next page of the current search, if there is any and no page is being loaded
+     */
+    public void loadMore() {
+        if (hasMore && !loading) {
+            loadPage(false);
+        }
+    }
+
+    /**
+     * Returns number of all items matching the current search, or -1 if it is not known yet
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    @Override
+    public int getSize() {
+        return items.size();
+    }
+
+    @Override
+    public T getElementAt(int index) {
+        return items.get(index);
+    }
+
+    /**
+     * Selects the item even if it has not been loaded, e.g. client of an edited contract
+     */
+    @Override
+    public void setSelectedItem(Object item) {
+        if (item == null ? selectedItem != null : !item.equals(selectedItem)) {
+            selectedItem = item;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selectedItem;
+    }
+
+    private void loadPage(boolean first) {
+        long current = generation;
+        String text = query;
+        int offset = first ? 0 : items.size();
+        loading = true;
+        new SwingWorker<List<T>, Void>() {
+            @Override
+            protected List<T> doInBackground() {
+                /* one more item tells whether there is a next page */
+                List<T> page = source.find(text, offset, pageSize + 1);
+                return page == null ? Collections.emptyList() : page;
+            }
+
+            @Override
+            protected void done() {
+                if (current != generation) {
+                    return;
+                }
+                loading = false;
+                List<T> page;
+                try {
+                    page = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    hasMore = false;
+                    failed("can not load items from " + offset, ex);
+                    return;
+                }
+                hasMore = page.size() > pageSize;
+                if (hasMore) {
+                    page = page.subList(0, pageSize);
+                }
+                if (first) {
+                    replaceItems(page);
+                } else if (!page.isEmpty()) {
+                    int firstIndex = items.size();
+                    items.addAll(page);
+                    fireIntervalAdded(PagedComboBoxModel.this, firstIndex, items.size() - 1);
+                }
+                if (first && hasMore) {
+                    count(current, text);
+                } else if (!hasMore) {
+                    totalCount = items.size();
+                    fireContentsChanged(PagedComboBoxModel.this, -1, -1);
+                }
+            }
+        }.execute();
+    }
+
+    private void replaceItems(List<T> page) {
+        if (!items.isEmpty()) {
+            int lastIndex = items.size() - 1;
+            items.clear();
+            fireIntervalRemoved(this, 0, lastIndex);
+        }
+        items.addAll(page);
+        if (!items.isEmpty()) {
+            fireIntervalAdded(this, 0, items.size() - 1);
+        }
+        boolean keepSelection = selectedItem != null && (!searchedOnce || items.contains(selectedItem));
+        searchedOnce = true;
+        if (!keepSelection) {
+            setSelectedItem(items.isEmpty() ? null : items.get(0));
+        }
+    }
+
+    /**
+     * Logs the failure and reports it to the user, unless a failure of the current search has been reported
+     */
+    private void failed(String message, Exception ex) {
+        Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+        log.error(message, cause);
+        if (!failureReported) {
+            failureReported = true;
+            failureHandler.accept(cause);
+        }
+    }
+
+    private void count(long current, String text) {
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return source.count(text);
+            }
+
+            @Override
+            protected void done() {
+                if (current != generation) {
+                    return;
+                }
+                try {
+                    totalCount = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    failed("can not count items", ex);
+                    return;
+                }
+                fireContentsChanged(PagedComboBoxModel.this, -1, -1);
+            }
+        }.execute();
+    }
+}
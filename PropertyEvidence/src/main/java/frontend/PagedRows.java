@@ -0,0 +1,359 @@
+package frontend;
+
+import common.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.function.IntSupplier;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Rows of a table, which are loaded lazily in fixed-size pages. Only the total row count is loaded up front,
+ * pages are loaded in the background when the table asks for one of their rows. At most maxPages pages are
+ * kept, the least recently used page is dropped first. Pages following in the direction of scrolling
+ * are loaded in advance, so that the rows are usually ready once they become visible.
+ *
+ * A failed count or page is logged and reported to the listener once until the next refresh. A failed page
+ * is not loaded again until then, so that repainting the table does not keep querying a failing database.
+ *
+ * All methods must be called on the event dispatch thread.
+ *
+ * @param <T> type of the rows
+ * @author agent agent@local
+ */
+public class PagedRows<T> {
+
+    public static final int DEFAULT_PAGE_SIZE = 200;
+    public static final int DEFAULT_MAX_PAGES = 32;
+    public static final int DEFAULT_PREFETCH_PAGES = 2;
+
+    private final static Logger log = LoggerFactory.getLogger(PagedRows.class);
+
+    private static final MetricsRegistry.CacheCounter pageCache = MetricsRegistry.global().cache("pages");
+
+    /**
+     * Source of the rows, usually manager's count and paged listing methods
+     *
+     * @param <T> type of the rows
+     */
+    public interface PageLoader<T> {
+        List<T> load(int offset, int limit);
+    }
+
+    /**
+     * Receiver of changes of the rows, usually table model firing its events
+     */
+    public interface Listener {
+        /**
+         * Called when the row count changed, all previously returned rows are invalid
+         */
+        void rowCountChanged();
+
+        /**
+         * Called when the rows from firstRow to lastRow inclusive have been loaded
+         */
+        void rowsLoaded(int firstRow, int lastRow);
+
+        /**
+         * Called when counting or loading of the rows failed, at most once until the next refresh
+         *
+         * @param cause failure of the counter or the loader
+         */
+        default void loadFailed(Throwable cause) {
+            MainForm.ErrorMessage(null, cause.getMessage());
+        }
+    }
+
+    private final IntSupplier counter;
+    private final PageLoader<T> loader;
+    private final int pageSize;
+    private final int maxPages;
+    private final int prefetchPages;
+    private final Map<Integer, List<T>> pages;
+    private final Set<Integer> loadingPages = new HashSet<>();
+    private final Set<Integer> failedPages = new HashSet<>();
+    private boolean failureReported;
+    private Listener listener;
+    private int rowCount;
+    private volatile int lastPage;
+    private long generation;
+    private long pageGeneration;
+
+    /**
+     * Creates rows with default page size, cache size and prefetch
+     *
+     * @param counter returns total number of rows
+     * @param loader  loads one page of rows
+     */
+    public PagedRows(IntSupplier counter, PageLoader<T> loader) {
+        this(counter, loader, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES, DEFAULT_PREFETCH_PAGES);
+    }
+
+    /**
+     * Creates a new instance of PagedRows.
+     *
+     * @param counter       returns total number of rows
+     * @param loader        loads one page of rows
+     * @param pageSize      number of rows in one page
+     * @param maxPages      maximal number of pages kept in memory
+     * @param prefetchPages number of pages loaded ahead of the scrolling
+     */
+    public PagedRows(IntSupplier counter, PageLoader<T> loader, int pageSize, int maxPages, int prefetchPages) {
+        if (pageSize <= 0 || maxPages <= prefetchPages) {
+            throw new IllegalArgumentException("Page size is not positive or cache does not fit prefetched pages");
+        }
+        this.counter = counter;
+        this.loader = loader;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.prefetchPages = prefetchPages;
+        this.pages = new LinkedHashMap<Integer, List<T>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns the row, if its page is loaded. Otherwise starts loading the page and returns null.
+     *
+     * @param row index of the row
+     * @return the row, or null when it is not loaded yet
+     */
+    public T get(int row) {
+        if (row < 0 || row >= rowCount) {
+            return null;
+        }
+        int page = row / pageSize;
+        List<T> rows = pages.get(page);
+        if (page != lastPage) {
+            prefetch(page, page > lastPage ? 1 : -1);
+            lastPage = page;
+        }
+        if (rows == null) {
+            pageCache.miss();
+            loadPage(page);
+            return null;
+        }
+        pageCache.hit();
+        int index = row % pageSize;
+        return index < rows.size() ? rows.get(index) : null;
+    }
+
+    /**
+     * Replaces the row in its page, if the page is loaded
+     *
+     * @param row   index of the row
+     * @param value new value of the row
+     * @return true when the row was loaded and has been replaced
+     */
+    public boolean set(int row, T value) {
+        List<T> rows = row < 0 || row >= rowCount ? null : pages.get(row / pageSize);
+        int index = row % pageSize;
+        if (rows == null || index >= rows.size()) {
+            return false;
+        }
+        rows.set(index, value);
+        return true;
+    }
+
+    /**
+     * Adds the row to the end, e.g. created entity, which has the greatest id. The caller fires the insertion.
+     *
+     * @param value added row
+     */
+    public void append(T value) {
+        List<T> rows = pages.get(rowCount / pageSize);
+        if (rows != null && rows.size() == rowCount % pageSize) {
+            rows.add(value);
+        }
+        rowCount++;
+        dropLoadingPages();
+    }
+
+    /**
+     * Removes the row. Following rows move up, so that pages from the page of the row on are dropped
+     * and loaded again when displayed. The caller fires the deletion.
+     *
+     * @param row index of the removed row
+     */
+    public void remove(int row) {
+        if (row < 0 || row >= rowCount) {
+            return;
+        }
+        int page = row / pageSize;
+        pages.keySet().removeIf(key -> key >= page);
+        rowCount--;
+        dropLoadingPages();
+    }
+
+    /**
+     * Passes every loaded row with its index to the action
+     *
+     * @param action action receiving row and its index
+     */
+    public void forEachLoaded(ObjIntConsumer<T> action) {
+        for (Map.Entry<Integer, List<T>> page : pages.entrySet()) {
+            List<T> rows = page.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                action.accept(rows.get(i), page.getKey() * pageSize + i);
+            }
+        }
+    }
+
+    /**
+     * Returns index of the first loaded row matching the predicate, or -1
+     */
+    public int indexOf(Predicate<T> predicate) {
+        for (Map.Entry<Integer, List<T>> page : pages.entrySet()) {
+            List<T> rows = page.getValue();
+            for (int i = 0; i < rows.size(); i++) {
+                if (predicate.test(rows.get(i))) {
+                    return page.getKey() * pageSize + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Drops all loaded pages and loads the row count again, e.g. after rows have been inserted or deleted.
+     * Pages, which are still being loaded, are ignored once they arrive.
+     */
+    public void refresh() {
+        long current = ++generation;
+        pageGeneration++;
+        pages.clear();
+        loadingPages.clear();
+        failedPages.clear();
+        failureReported = false;
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return counter.getAsInt();
+            }
+
+            @Override
+            protected void done() {
+                if (current != generation || isCancelled()) {
+                    return;
+                }
+                try {
+                    rowCount = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    rowCount = 0;
+                    failed("can not count rows", ex);
+                }
+                lastPage = 0;
+                if (listener != null) {
+                    listener.rowCountChanged();
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Stops applying of pages, which are being loaded, e.g. when the rows are no longer displayed
+     */
+    public void dispose() {
+        generation++;
+        pageGeneration++;
+        pages.clear();
+        loadingPages.clear();
+        failedPages.clear();
+        listener = null;
+    }
+
+    /**
+     * Logs the failure and reports it to the listener, unless a failure has been reported since the last refresh
+     */
+    private void failed(String message, Exception ex) {
+        Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+        log.error(message, cause);
+        if (!failureReported && listener != null) {
+            failureReported = true;
+            listener.loadFailed(cause);
+        }
+    }
+
+    /**
+     * Ignores pages being loaded, which could have been read before the last change
+     */
+    private void dropLoadingPages() {
+        if (!loadingPages.isEmpty()) {
+            pageGeneration++;
+            loadingPages.clear();
+        }
+    }
+
+    private void prefetch(int page, int direction) {
+        for (int i = 1; i <= prefetchPages; i++) {
+            int next = page + i * direction;
+            if (next < 0 || next * pageSize >= rowCount) {
+                return;
+            }
+            if (!pages.containsKey(next) && !failedPages.contains(next)) {
+                loadPage(next);
+            }
+        }
+    }
+
+    private void loadPage(int page) {
+        if (failedPages.contains(page) || !loadingPages.add(page)) {
+            return;
+        }
+        long current = pageGeneration;
+        new SwingWorker<List<T>, Void>() {
+            @Override
+            protected List<T> doInBackground() {
+                if (Math.abs(page - lastPage) > maxPages) {
+                    /* scrolled away while waiting for a worker thread */
+                    return null;
+                }
+                return loader.load(page * pageSize, pageSize);
+            }
+
+            @Override
+            protected void done() {
+                if (current != pageGeneration) {
+                    return;
+                }
+                loadingPages.remove(page);
+                List<T> rows;
+                try {
+                    rows = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    failedPages.add(page);
+                    failed("can not load rows from " + page * pageSize, ex);
+                    return;
+                }
+                if (rows == null) {
+                    return;
+                }
+                pages.put(page, new ArrayList<>(rows));
+                int firstRow = page * pageSize;
+                int lastRow = Math.min(firstRow + pageSize, rowCount) - 1;
+                if (listener != null && lastRow >= firstRow) {
+                    listener.rowsLoaded(firstRow, lastRow);
+                }
+            }
+        }.execute();
+    }
+}
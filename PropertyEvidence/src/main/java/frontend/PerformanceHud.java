@@ -0,0 +1,92 @@
+package frontend;
+
+import common.MetricsRegistry;
+
+import javax.swing.*;
+import java.io.File;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status bar showing latency and row count of the last manager call, usage of the connection pool and hit rates
+ * of caches, so that users can see why a search is slow. The metrics are read from MetricsRegistry twice a second.
+ *
+ * The bar is hidden by default. While it is hidden, the registry is disabled and the bar is not refreshed,
+ * so that it costs nothing.
+ *
+ * @author agent agent@local
+ */
+public class PerformanceHud extends JLabel {
+
+    /**
+     * System property showing the bar on startup
+     */
+    public static final String VISIBLE_PROPERTY = "propertyevidence.hud";
+
+    private static final int REFRESH_MILLIS = 500;
+
+    private final MetricsRegistry metrics;
+    private final ResourceBundle messages;
+    private final NumberFormat percentFormat;
+    private final Timer timer;
+
+    public PerformanceHud(MetricsRegistry metrics) {
+        this.metrics = metrics;
+        Locale language = Locale.getDefault();
+        messages = ResourceBundle.getBundle("Localization" + File.separator + "MessagesBundle", language);
+        percentFormat = NumberFormat.getPercentInstance(language);
+        timer = new Timer(REFRESH_MILLIS, actionEvent -> refresh());
+        setBorder(BorderFactory.createEmptyBorder(2, 6, 2, 6));
+        super.setVisible(false);
+    }
+
+    /**
+     * Shows or hides the bar, the metrics are recorded only while it is shown
+     */
+    @Override
+    public void setVisible(boolean visible) {
+        metrics.setEnabled(visible);
+        if (visible) {
+            refresh();
+            timer.start();
+        } else {
+            timer.stop();
+        }
+        super.setVisible(visible);
+    }
+
+    public void toggle() {
+        setVisible(!isVisible());
+    }
+
+    private void refresh() {
+        List<String> parts = new ArrayList<>();
+        MetricsRegistry.Call call = metrics.getLastCall();
+        if (call == null) {
+            parts.add(messages.getString("hudNoCall"));
+        } else {
+            parts.add(MessageFormat.format(messages.getString("hudLastCall"), call.getEntityType(), call.getOperation(),
+                    String.valueOf(TimeUnit.NANOSECONDS.toMillis(call.getNanos())), String.valueOf(call.getRowCount())));
+        }
+        int maxConnections = metrics.getMaxConnections();
+        if (maxConnections < 0) {
+            parts.add(messages.getString("hudNoPool"));
+        } else {
+            parts.add(MessageFormat.format(messages.getString("hudPool"),
+                    String.valueOf(metrics.getActiveConnections()), String.valueOf(maxConnections)));
+        }
+        for (MetricsRegistry.CacheCounter cache : metrics.getCaches().values()) {
+            double hitRate = cache.getHitRate();
+            if (!Double.isNaN(hitRate)) {
+                parts.add(MessageFormat.format(messages.getString("hudCache"), cache.getName(),
+                        percentFormat.format(hitRate)));
+            }
+        }
+        setText(String.join("   |   ", parts));
+    }
+}
@@ -0,0 +1,78 @@
+package frontend;
+
+import javax.swing.*;
+
+/**
+ * Shows progress of background operations of one form in a progress bar. The bar is visible while at least
+ * one operation runs. It is indeterminate until the latest started operation reports how much work is done.
+ *
+ * All methods must be called on the event dispatch thread.
+ *
+ * @author agent agent@local
+ */
+public class ProgressIndicator {
+
+    private final JProgressBar progressBar;
+    private int runningTasks;
+    private Task latestTask;
+
+    public ProgressIndicator(JProgressBar progressBar) {
+        this.progressBar = progressBar;
+        progressBar.setStringPainted(false);
+        progressBar.setVisible(false);
+    }
+
+    /**
+     * Starts showing progress of a new operation
+     *
+     * @return handle, which reports progress and end of the operation
+     */
+    public Task begin() {
+        Task task = new Task();
+        runningTasks++;
+        latestTask = task;
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(true);
+        return task;
+    }
+
+    /**
+     * Progress of one background operation
+     */
+    public class Task {
+        private boolean finished;
+
+        /**
+         * Shows determinate progress, if this is the latest started operation
+         *
+         * @param done  number of finished steps
+         * @param total number of all steps
+         */
+        public void progress(int done, int total) {
+            if (finished || latestTask != this || total <= 0) {
+                return;
+            }
+            progressBar.setIndeterminate(false);
+            progressBar.setMaximum(total);
+            progressBar.setValue(Math.min(done, total));
+        }
+
+        /**
+         * Ends the operation, the bar is hidden once all operations end. Repeated calls are ignored.
+         */
+        public void end() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            runningTasks--;
+            if (latestTask == this) {
+                progressBar.setIndeterminate(true);
+            }
+            if (runningTasks == 0) {
+                latestTask = null;
+                progressBar.setVisible(false);
+            }
+        }
+    }
+}
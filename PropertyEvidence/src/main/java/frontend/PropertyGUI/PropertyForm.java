@@ -2,7 +2,14 @@ package frontend.PropertyGUI;
 
 import backend.*;
 import frontend.ClientGUI.ClientTableModel;
+import frontend.CellFormats;
+import frontend.LocalFilter;
 import frontend.MainForm;
+import frontend.PagedRows;
+import frontend.SearchCoordinator;
+import frontend.SnapshotCodecs;
+import frontend.TableSnapshot;
+import common.ValidateInput;
 import org.apache.derby.iapi.services.i18n.BundleFinder;
 
 import javax.sql.DataSource;
@@ -12,10 +19,12 @@ import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.io.File;
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.nio.file.Path;
+import java.text.MessageFormat;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Represents property menu with table of all properties in the database and buttons for CRUD operations
@@ -32,23 +41,59 @@ public class PropertyForm {
     private JLabel propertyEvidenceLabel;
     private JLabel searchByPriceLabel;
     private JLabel searchByAddressLabel;
+    private JButton saveChangesButton;
+    private JButton discardChangesButton;
 
     private PropertyTableModel tableModel;
+    private ChangeBus changeBus;
     private PropertyManager manager;
     private ContractManager contractManager;
     private ResourceBundle messages;
+    private SearchCoordinator<Property> searchCoordinator;
+    private LocalFilter localFilter;
+    private TableSnapshot<Property> snapshot;
 
-    public PropertyForm(DataSource dataSource) {
-        manager = new PropertyManagerImpl(dataSource);
-        contractManager = new ContractManagerImpl(dataSource);
+    public PropertyForm(DataSource dataSource, ChangeBus changeBus) {
+        this(dataSource, changeBus, null);
+    }
+
+    /**
+     * Creates form, which displays properties stored in the snapshot directory until they are loaded
+     * @param dataSource        database of the properties
+     * @param changeBus         bus of changes shared with the other forms
+     * @param snapshotDirectory directory of table snapshots, or null to not use them
+     */
+    public PropertyForm(DataSource dataSource, ChangeBus changeBus, Path snapshotDirectory) {
+        this(changeBus, snapshotDirectory);
+        connect(dataSource);
+    }
+
+    /**
+     * Creates form, which displays properties stored in the snapshot directory, before the database is ready.
+     * Properties are managed and loaded, once the form is connected to the database.
+     * @param changeBus         bus of changes shared with the other forms
+     * @param snapshotDirectory directory of table snapshots, or null to not use them
+     */
+    public PropertyForm(ChangeBus changeBus, Path snapshotDirectory) {
+        this.changeBus = changeBus;
 
         Locale language = Locale.getDefault();
         messages = ResourceBundle.getBundle("Localization" + File.separator + "MessagesBundle", language);
 
         tableModel = (PropertyTableModel) propertyTable.getModel();
+        searchCoordinator = new SearchCoordinator<>(tableModel);
+        localFilter = new LocalFilter(propertyTable, 1);
+        if (snapshotDirectory != null) {
+            snapshot = new TableSnapshot<>(snapshotDirectory.resolve("properties.bin"), SnapshotCodecs.PROPERTY);
+        }
+        changeBus.subscribe(Property.class, change -> SwingUtilities.invokeLater(() -> tableModel.applyChange(change)));
         addPropertyButton.addActionListener(event -> new PropertyManipulationForm(this, null).openWindow());
         removePropertyButton.addActionListener(actionEvent -> deleteProperty(propertyTable.getSelectedRow()));
         updatePropertyButton.addActionListener(actionEvent -> updateProperty(propertyTable.getSelectedRow()));
+        saveChangesButton.addActionListener(actionEvent -> saveChanges());
+        discardChangesButton.addActionListener(actionEvent -> tableModel.discardEdits());
+        propertyTable.setDefaultEditor(PropertyType.class, new DefaultCellEditor(new JComboBox<>(PropertyType.values())));
+        tableModel.addTableModelListener(tableModelEvent -> updateChangeButtons());
         searchByAddressTextField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent documentEvent) {
@@ -83,6 +128,26 @@ public class PropertyForm {
         });
 
         setGUILanguage();
+        setConnected(false);
+        displaySnapshot();
+    }
+
+    /**
+     * Connects the form to the database, enables managing of the properties and loads them
+     * @param dataSource database of the properties
+     */
+    public void connect(DataSource dataSource) {
+        manager = new PropertyManagerImpl(dataSource, changeBus);
+        contractManager = new ContractManagerImpl(dataSource, changeBus);
+        setConnected(true);
+        loadProperties();
+    }
+
+    private void setConnected(boolean connected) {
+        addPropertyButton.setEnabled(connected);
+        removePropertyButton.setEnabled(connected);
+        updatePropertyButton.setEnabled(connected);
+        updateChangeButtons();
     }
 
     /**
@@ -95,6 +160,72 @@ public class PropertyForm {
         addPropertyButton.setText(messages.getString("propertyCreate"));
         removePropertyButton.setText(messages.getString("propertyRemove"));
         updatePropertyButton.setText(messages.getString("propertyUpdate"));
+        saveChangesButton.setText(messages.getString("saveChanges"));
+        discardChangesButton.setText(messages.getString("discardChanges"));
+    }
+
+    /**
+     * Enables saving and discarding of the edits, while there are any
+     */
+    private void updateChangeButtons() {
+        boolean edited = manager != null && tableModel.hasEdits();
+        saveChangesButton.setEnabled(edited);
+        discardChangesButton.setEnabled(edited);
+    }
+
+    /**
+     * Validates all properties edited in the table and saves them in one transaction.
+     * Invalid properties and properties changed meanwhile by someone else are reported row by row.
+     */
+    private void saveChanges() {
+        if (propertyTable.isEditing()) {
+            propertyTable.getCellEditor().stopCellEditing();
+        }
+        List<RowEdit<Property>> edits = tableModel.getEdits();
+        if (edits.isEmpty()) {
+            return;
+        }
+        List<ValidateInput.InvalidRecord<Property>> invalid = ValidateInput.validateAll(tableModel.getEditedProperties());
+        if (!invalid.isEmpty()) {
+            StringBuilder message = new StringBuilder(messages.getString("editsInvalid"));
+            for (ValidateInput.InvalidRecord<Property> record : invalid) {
+                message.append('\n').append(MessageFormat.format(messages.getString("editRow"),
+                        String.valueOf(record.getRecord().getId()), record.getViolation().getMessage()));
+            }
+            MainForm.ErrorMessage(null, message.toString());
+            return;
+        }
+        saveChangesButton.setEnabled(false);
+
+        new SwingWorker<List<UpdateConflict<Property>>, Void>() {
+            @Override
+            protected List<UpdateConflict<Property>> doInBackground() {
+                return manager.updateProperties(edits);
+            }
+
+            @Override
+            protected void done() {
+                List<UpdateConflict<Property>> conflicts;
+                try {
+                    conflicts = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    updateChangeButtons();
+                    MainForm.ErrorMessage(null, ex.getCause() == null ? ex.getMessage() : ex.getCause().getMessage());
+                    return;
+                }
+                if (!conflicts.isEmpty()) {
+                    tableModel.resolveConflicts(conflicts);
+                    StringBuilder message = new StringBuilder(messages.getString("editsConflict"));
+                    for (UpdateConflict<Property> conflict : conflicts) {
+                        message.append('\n').append(MessageFormat.format(messages.getString(conflict.isDeleted()
+                                        ? "editConflictDeleted" : "editConflictChanged"),
+                                String.valueOf(conflict.getEdit().getOriginal().getId())));
+                    }
+                    MainForm.ErrorMessage(null, message.toString());
+                }
+                updateChangeButtons();
+            }
+        }.execute();
     }
 
     /**
@@ -103,11 +234,11 @@ public class PropertyForm {
      * @param selectedRow row of the table which is to be deleted
      */
     private void deleteProperty(int selectedRow) {
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || propertyTable.getValueAt(selectedRow, 0) == null) {
             MainForm.ErrorMessage(null, messages.getString("propertyNotSelected"));
             return;
         }
-        Long id = (Long) tableModel.getValueAt(selectedRow, 0);
+        Long id = (Long) propertyTable.getValueAt(selectedRow, 0);
 
         new SwingWorker<Void, Void>() {
             private boolean deleteSuccessful = true;
@@ -124,12 +255,9 @@ public class PropertyForm {
 
             @Override
             protected void done() {
-                if (deleteSuccessful) {
-                    tableModel.deletePropertyFromTable(selectedRow);
-                    tableModel.fireTableRowsDeleted(selectedRow, selectedRow);
-                    return;
+                if (!deleteSuccessful) {
+                    MainForm.ErrorMessage(null, messages.getString("propertyDeleteUnsuccessful"));
                 }
-                MainForm.ErrorMessage(null, messages.getString("propertyDeleteUnsuccessful"));
             }
         }.execute();
     }
@@ -141,11 +269,11 @@ public class PropertyForm {
      * @param selectedRow row of the table which is to be updated
      */
     private void updateProperty(int selectedRow) {
-        if (selectedRow == -1) {
+        if (selectedRow == -1 || propertyTable.getValueAt(selectedRow, 0) == null) {
             MainForm.ErrorMessage(null, messages.getString("propertyNotSelected"));
             return;
         }
-        Long id = (Long) tableModel.getValueAt(selectedRow, 0);
+        Long id = (Long) propertyTable.getValueAt(selectedRow, 0);
         PropertyForm outerClass = this;
 
         new SwingWorker<Void, Void>() {
@@ -172,84 +300,125 @@ public class PropertyForm {
      */
     private void searchByAddress() {
         String wantedAddress = searchByAddressTextField.getText().trim();
-        tableModel.resetTable();
+        if (localFilter.isInstalled()) {
+            localFilter.filterText(wantedAddress);
+            return;
+        }
+        if (manager == null) {
+            /* the form searches once it is connected */
+            return;
+        }
         if (wantedAddress.isEmpty()) {
             displayAllPropertiesInTable();
             return;
         }
-
-        new SwingWorker<Void, Void>() {
-            private List<Property> properties = new ArrayList<>();
-
-            @Override
-            protected Void doInBackground() {
-                properties = manager.findPropertyByAddress(wantedAddress);
-                return null;
-            }
-
-            @Override
-            protected void done() {
-                for (Property property : properties) {
-                    tableModel.addPropertyToTable(property);
-                }
-                tableModel.fireTableDataChanged();
-            }
-        }.execute();
+        searchCoordinator.search(() -> manager.findPropertyByAddress(wantedAddress));
     }
 
 
     /**
-     * Displays all properties with the wanted address in the table
+     * Displays all properties with the wanted price in the table
      */
     private void searchByPrice() {
-        tableModel.resetTable();
-        if (searchByPriceTextField.getText().trim().isEmpty()) {
+        String wantedPrice = searchByPriceTextField.getText().trim();
+        if (localFilter.isInstalled()) {
+            filterByPrice(wantedPrice);
+            return;
+        }
+        if (manager == null) {
+            return;
+        }
+        if (wantedPrice.isEmpty()) {
             displayAllPropertiesInTable();
             return;
         }
+        /* unfinished price leaves the table as it is */
+        BigDecimal price;
+        try {
+            price = new BigDecimal(wantedPrice);
+        } catch (NumberFormatException ex) {
+            return;
+        }
+        if (price.signum() <= 0) {
+            return;
+        }
+        searchCoordinator.search(() -> manager.findPropertyByPrice(price));
+    }
 
-        new SwingWorker<Void, Void>() {
-            private List<Property> properties = new ArrayList<>();
-
-            @Override
-            protected Void doInBackground() {
-                properties = manager.findPropertyByPrice(new BigDecimal(searchByPriceTextField.getText()));
-                return null;
-            }
-
-            @Override
-            protected void done() {
-                for (Property property : properties) {
-                    tableModel.addPropertyToTable(property);
-                }
-                tableModel.fireTableDataChanged();
-            }
 
-        }.execute();
+    /**
+     * Displays properties with the wanted price out of the properties loaded in the table,
+     * unfinished price leaves the table as it is
+     *
+     * @param wantedPrice price typed in the search field
+     */
+    private void filterByPrice(String wantedPrice) {
+        if (wantedPrice.isEmpty()) {
+            localFilter.clear();
+            return;
+        }
+        BigDecimal price;
+        try {
+            price = new BigDecimal(wantedPrice);
+        } catch (NumberFormatException ex) {
+            return;
+        }
+        if (price.signum() <= 0) {
+            return;
+        }
+        BigDecimal lowerBound = price.subtract(PropertyManagerImpl.PRICE_SEARCH_RADIUS);
+        BigDecimal upperBound = price.add(PropertyManagerImpl.PRICE_SEARCH_RADIUS);
+        localFilter.filter(3, value -> value != null
+                && ((BigDecimal) value).compareTo(lowerBound) >= 0 && ((BigDecimal) value).compareTo(upperBound) <= 0);
     }
 
 
     /**
-     * Displays all properties in the database to the table
+     * Displays properties of the last snapshot, until they are loaded from the database
      */
-    private void displayAllPropertiesInTable() {
-
-        new SwingWorker<Void, Void>() {
-            private List<Property> properties = new ArrayList<>();
+    private void displaySnapshot() {
+        if (snapshot == null) {
+            return;
+        }
+        List<Property> properties = snapshot.load();
+        if (!properties.isEmpty()) {
+            localFilter.install();
+            tableModel.replaceAll(properties);
+        }
+    }
 
-            @Override
-            protected Void doInBackground() {
-                properties = manager.getAllProperties();
-                return null;
-            }
 
-            @Override
-            protected void done() {
-                for (Property property : properties) {
-                    tableModel.addPropertyToTable(property);
+    /**
+     * Loads all properties into the table, when there are few enough of them, so that they are searched locally.
+     * Otherwise displays them by pages and searches them in the database. Loaded properties replace the snapshot.
+     */
+    private void loadProperties() {
+        LocalFilter.chooseMode(manager::countProperties, LocalFilter.DEFAULT_MAX_ROWS, () -> {
+            localFilter.install();
+            localFilter.filterText(searchByAddressTextField.getText());
+            searchCoordinator.searchNow(() -> {
+                List<Property> properties = manager.getAllProperties();
+                if (snapshot != null && properties != null) {
+                    snapshot.save(properties);
                 }
+                return properties;
+            });
+        }, () -> {
+            if (snapshot != null) {
+                snapshot.delete();
             }
-        }.execute();
+            localFilter.uninstall();
+            displayAllPropertiesInTable();
+        });
+    }
+
+
+    /**
+     * Displays all properties in the database to the table, loading them by pages as the table is scrolled
+     */
+    private void displayAllPropertiesInTable() {
+        searchCoordinator.cancel();
+        tableModel.displayPagedProperties(new PagedRows<>(manager::countProperties, manager::getProperties));
     }
 
     private boolean propertyHasContracts(Property property) {
@@ -265,6 +434,7 @@ public class PropertyForm {
         propertyTable = new JTable();
         PropertyTableModel tableModel = new PropertyTableModel();
         propertyTable.setModel(tableModel);
+        CellFormats.install(propertyTable);
     }
 
 
@@ -124,12 +124,10 @@ public class PropertyManipulationForm {
                 @Override
                 protected void done() {
                     if (errorMessage == null) {
-                        rootWindow.getTableModel().addPropertyToTable(property);
                         manipulationFrame.dispose();
                     } else {
                         MainForm.ErrorMessage(manipulationFrame, errorMessage);
                     }
-                    rootWindow.getTableModel().fireTableDataChanged();
                 }
             }.execute();
         } catch(IllegalEntityException | NumberFormatException ex) {
@@ -160,7 +158,6 @@ public class PropertyManipulationForm {
             @Override
             protected void done() {
                 if (errorMessage == null) {
-                    rootWindow.getTableModel().updatePropertyInTable(property);
                     manipulationFrame.dispose();
                 } else {
                     MainForm.ErrorMessage(manipulationFrame, errorMessage);
@@ -1,18 +1,29 @@
 package frontend.PropertyGUI;
 
+import backend.ChangeEvent;
 import backend.Property;
+import backend.PropertyType;
+import backend.RowEdit;
+import backend.UpdateConflict;
+import frontend.PagedRows;
+import frontend.RowEdits;
+import frontend.RowSink;
 
 import javax.swing.table.AbstractTableModel;
 import java.io.File;
+import java.math.BigDecimal;
 import java.util.*;
 
 /**
- * Represents table of the properties
+ * Represents table of the properties, either a list of found properties or all properties loaded by pages.
+ * Cells except of the id are editable, edited properties are collected until they are saved together.
  * @author Martin Balucha
  */
-public class PropertyTableModel extends AbstractTableModel {
+public class PropertyTableModel extends AbstractTableModel implements RowSink<Property> {
     private List<Property> properties = new ArrayList<>();
+    private PagedRows<Property> pagedProperties;
     private Map<Integer, String> columnMap;
+    private final RowEdits<Property> edits = new RowEdits<>(Property::getId, PropertyTableModel::copy);
 
     public PropertyTableModel() {
         Locale language = Locale.getDefault();
@@ -30,38 +41,122 @@ public class PropertyTableModel extends AbstractTableModel {
     }
 
     /**
-     * Adds new property to the table
-     * @param property
+     * Displays properties loaded by pages instead of the current contents of the table
+     * @param rows  lazily loaded properties
      */
-    public void addPropertyToTable(Property property) {
-        properties.add(property);
+    public void displayPagedProperties(PagedRows<Property> rows) {
+        resetTable();
+        pagedProperties = rows;
+        rows.setListener(new PagedRows.Listener() {
+            @Override
+            public void rowCountChanged() {
+                fireTableDataChanged();
+            }
+
+            @Override
+            public void rowsLoaded(int firstRow, int lastRow) {
+                fireTableRowsUpdated(firstRow, lastRow);
+            }
+        });
+        rows.refresh();
+    }
+
+    /**
+     * Replaces contents of the table by the properties, firing a single event
+     * @param rows  properties which are to be displayed
+     */
+    @Override
+    public void replaceAll(List<Property> rows) {
+        resetTable();
+        properties.addAll(rows);
         fireTableDataChanged();
     }
 
+
+    /**
+     * Adds properties to the end of the table, firing a single event
+     * @param rows  properties which are to be added
+     */
+    @Override
+    public void appendAll(List<Property> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int firstRow = properties.size();
+        properties.addAll(rows);
+        fireTableRowsInserted(firstRow, properties.size() - 1);
+    }
+
+
     /**
-     * Deletes selected row from the table
-     * @param selectedRow   row which is to be deleted
+     * Applies committed change of a property to the table, created property is added to the end
+     * @param change    change published by PropertyManager
      */
-    public void deletePropertyFromTable(int selectedRow) {
-        if (selectedRow >= 0 && selectedRow < properties.size()) {
-            properties.remove(selectedRow);
+    public void applyChange(ChangeEvent<Property> change) {
+        Property changed = change.getEntity();
+        int row = indexOf(changed.getId());
+        switch (change.getType()) {
+            case CREATED:
+                if (pagedProperties != null) {
+                    pagedProperties.append(changed);
+                } else {
+                    properties.add(changed);
+                }
+                fireTableRowsInserted(getRowCount() - 1, getRowCount() - 1);
+                break;
+            case UPDATED:
+                edits.committed(changed);
+                if (row < 0) {
+                    return;
+                }
+                if (pagedProperties != null) {
+                    pagedProperties.set(row, changed);
+                } else {
+                    properties.set(row, changed);
+                }
+                fireTableRowsUpdated(row, row);
+                break;
+            case DELETED:
+                edits.discard(changed.getId());
+                if (row < 0) {
+                    if (pagedProperties != null) {
+                        /* row is not loaded, its position is unknown */
+                        pagedProperties.refresh();
+                    }
+                    return;
+                }
+                if (pagedProperties != null) {
+                    pagedProperties.remove(row);
+                } else {
+                    properties.remove(row);
+                }
+                fireTableRowsDeleted(row, row);
+                break;
         }
     }
 
 
-    public void updatePropertyInTable(Property property) {
+    /**
+     * Returns index of the displayed, or loaded, property with the id
+     * @param id    id of the property
+     * @return  index of the row, or -1
+     */
+    private int indexOf(Long id) {
+        if (pagedProperties != null) {
+            return pagedProperties.indexOf(property -> property.getId().equals(id));
+        }
         for (int i = 0; i < properties.size(); i++) {
-            if (properties.get(i).getId().equals(property.getId())) {
-                properties.set(i, property);
-                fireTableRowsUpdated(i, i);
-                return;
+            if (properties.get(i).getId().equals(id)) {
+                return i;
             }
         }
+        return -1;
     }
 
+
     @Override
     public int getRowCount() {
-        return properties.size();
+        return pagedProperties != null ? pagedProperties.getRowCount() : properties.size();
     }
 
     @Override
@@ -75,12 +170,42 @@ public class PropertyTableModel extends AbstractTableModel {
      */
     public void resetTable() {
         properties.clear();
+        if (pagedProperties != null) {
+            pagedProperties.dispose();
+            pagedProperties = null;
+        }
+    }
+
+
+    /**
+     * Returns class of the values in the column, so that the table renders id, area and price by CellFormats
+     * and edits them by editors of their class
+     * @param columnIndex   index of the column
+     * @return  class of the values
+     */
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        switch (columnIndex) {
+            case 0:
+                return Long.class;
+            case 2:
+            case 3:
+                return BigDecimal.class;
+            case 4:
+                return PropertyType.class;
+            default:
+                return Object.class;
+        }
     }
 
 
     @Override
     public Object getValueAt(int row, int col) {
-        Property property = properties.get(row);
+        Property property = displayed(row);
+        if (property == null) {
+            /* page of the row is being loaded */
+            return null;
+        }
         switch (col) {
             case 0:
                 return property.getId();
@@ -99,6 +224,150 @@ public class PropertyTableModel extends AbstractTableModel {
 
 
 
+    /**
+     * Returns the property displayed in the row, edited copy if it has been edited
+     * @param row   index of the row
+     * @return  the property, or null while its page is being loaded
+     */
+    private Property displayed(int row) {
+        return edits.displayed(pagedProperties != null ? pagedProperties.get(row) : properties.get(row));
+    }
+
+
+    @Override
+    public boolean isCellEditable(int row, int col) {
+        return col != 0 && displayed(row) != null;
+    }
+
+
+    /**
+     * Edits copy of the property in the row, the property is changed in the evidence when the edits are saved.
+     * A value which can not be converted is set to null, so that validation of the edits reports it.
+     * @param value new value of the cell
+     * @param row   index of the row
+     * @param col   index of the column
+     */
+    @Override
+    public void setValueAt(Object value, int row, int col) {
+        Property property = displayed(row);
+        if (property == null || Objects.equals(value, getValueAt(row, col))) {
+            return;
+        }
+        Property edited = edits.edit(property);
+        switch (col) {
+            case 1:
+                edited.setAddress(value == null ? null : value.toString().trim());
+                break;
+            case 2:
+                edited.setArea(toDecimal(value));
+                break;
+            case 3:
+                edited.setPrice(toDecimal(value));
+                break;
+            case 4:
+                edited.setType(toType(value));
+                break;
+            default:
+                throw new IllegalArgumentException("Column is not editable");
+        }
+        fireTableRowsUpdated(row, row);
+    }
+
+
+    private static BigDecimal toDecimal(Object value) {
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        try {
+            return new BigDecimal(value.toString().trim());
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+
+    private static PropertyType toType(Object value) {
+        if (value == null || value instanceof PropertyType) {
+            return (PropertyType) value;
+        }
+        try {
+            return PropertyType.valueOf(value.toString().trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+
+    private static Property copy(Property property) {
+        Property copy = new Property();
+        copy.setId(property.getId());
+        copy.setAddress(property.getAddress());
+        copy.setArea(property.getArea());
+        copy.setPrice(property.getPrice());
+        copy.setType(property.getType());
+        return copy;
+    }
+
+
+    public boolean hasEdits() {
+        return !edits.isEmpty();
+    }
+
+
+    /**
+     * Returns whether the property in the row has been edited and not saved yet
+     * @param row   index of the row
+     * @return  true if the row has unsaved edits
+     */
+    public boolean isEdited(int row) {
+        return edits.isEdited(displayed(row));
+    }
+
+
+    /**
+     * Returns unsaved edits of the properties, for PropertyManager.updateProperties
+     * @return  edits in order of the first edit of their rows
+     */
+    public List<RowEdit<Property>> getEdits() {
+        return edits.getEdits();
+    }
+
+
+    /**
+     * Returns edited copies of the properties in the same order as getEdits, e.g. to validate them
+     * @return  edited properties
+     */
+    public List<Property> getEditedProperties() {
+        return edits.getEditedRows();
+    }
+
+
+    /**
+     * Applies conflicts of saved edits, edit of a changed property is kept to be saved again over the change,
+     * a deleted property is removed from the table
+     * @param conflicts conflicts returned by PropertyManager.updateProperties
+     */
+    public void resolveConflicts(List<UpdateConflict<Property>> conflicts) {
+        for (UpdateConflict<Property> conflict : conflicts) {
+            if (conflict.isDeleted()) {
+                applyChange(ChangeEvent.deleted(Property.class, conflict.getEdit().getOriginal()));
+            } else {
+                edits.rebase(conflict);
+            }
+        }
+        fireTableDataChanged();
+    }
+
+
+    /**
+     * Discards all unsaved edits, the rows display the loaded properties again
+     */
+    public void discardEdits() {
+        edits.discardAll();
+        fireTableDataChanged();
+    }
+
+
     /**
      * Initiates table of the cars.
      * @return A map of columns and their values
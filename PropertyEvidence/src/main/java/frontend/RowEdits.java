@@ -0,0 +1,136 @@
+package frontend;
+
+import backend.RowEdit;
+import backend.UpdateConflict;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Rows of a table edited in place and not saved yet. The first edit of a row copies it, the copy is edited
+ * and the loaded row is kept as the original, so that the manager can detect a concurrent change when the edits
+ * are saved. Edits are kept by id of the row, so that they survive reloading of the table, e.g. by a search.
+ *
+ * All methods must be called on the event dispatch thread.
+ *
+ * @param <T> type of the rows
+ * @author agent agent@local
+ */
+public class RowEdits<T> {
+
+    private final Function<T, Long> idOf;
+    private final UnaryOperator<T> copier;
+    private final Map<Long, RowEdit<T>> edits = new LinkedHashMap<>();
+
+    /**
+     * Creates empty edits
+     *
+     * @param idOf   returns id of the row
+     * @param copier copies the row
+     */
+    public RowEdits(Function<T, Long> idOf, UnaryOperator<T> copier) {
+        this.idOf = idOf;
+        this.copier = copier;
+    }
+
+    /**
+     * Returns the edited copy of the row, which is created by the first edit
+     *
+     * @param row loaded row, or its edited copy
+     * @return edited copy of the row
+     */
+    public T edit(T row) {
+        return edits.computeIfAbsent(idOf.apply(row), id -> new RowEdit<>(row, copier.apply(row))).getEdited();
+    }
+
+    /**
+     * Returns the row as displayed, i.e. its edited copy, if the row has been edited
+     *
+     * @param row loaded row, or null while it is being loaded
+     * @return edited copy of the row, or the row itself
+     */
+    public T displayed(T row) {
+        if (row == null || edits.isEmpty()) {
+            return row;
+        }
+        RowEdit<T> edit = edits.get(idOf.apply(row));
+        return edit == null ? row : edit.getEdited();
+    }
+
+    public boolean isEdited(T row) {
+        return row != null && edits.containsKey(idOf.apply(row));
+    }
+
+    public boolean isEmpty() {
+        return edits.isEmpty();
+    }
+
+    public int size() {
+        return edits.size();
+    }
+
+    /**
+     * Returns edits in order of the first edit of their rows
+     */
+    public List<RowEdit<T>> getEdits() {
+        return new ArrayList<>(edits.values());
+    }
+
+    /**
+     * Returns edited copies of the rows, in the same order as getEdits, e.g. to validate them
+     */
+    public List<T> getEditedRows() {
+        List<T> rows = new ArrayList<>(edits.size());
+        for (RowEdit<T> edit : edits.values()) {
+            rows.add(edit.getEdited());
+        }
+        return rows;
+    }
+
+    /**
+     * Forgets the edit, when the committed row is its edited copy, i.e. the edit has been saved.
+     * A row committed by someone else keeps the edit, saving it reports a conflict.
+     *
+     * @param committed row published by a manager
+     */
+    public void committed(T committed) {
+        Long id = idOf.apply(committed);
+        RowEdit<T> edit = edits.get(id);
+        if (edit != null && edit.getEdited() == committed) {
+            edits.remove(id);
+        }
+    }
+
+    /**
+     * Keeps the edit of a row changed concurrently, with the current row as its original,
+     * so that saving it again overwrites the concurrent change
+     *
+     * @param conflict conflict of the changed row
+     */
+    public void rebase(UpdateConflict<T> conflict) {
+        T edited = conflict.getEdit().getEdited();
+        edits.put(idOf.apply(edited), new RowEdit<>(conflict.getCurrent(), edited));
+    }
+
+    /**
+     * Forgets edit of the row
+     *
+     * @param id id of the row
+     * @return original of the row, or null when it has not been edited
+     */
+    public T discard(Long id) {
+        RowEdit<T> edit = edits.remove(id);
+        return edit == null ? null : edit.getOriginal();
+    }
+
+    /**
+     * Forgets all edits
+     */
+    public void discardAll() {
+        edits.clear();
+    }
+}
@@ -0,0 +1,27 @@
+package frontend;
+
+import java.util.List;
+
+/**
+ * Table model accepting rows in bulk. Each call fires a single table model event,
+ * so that loading many rows does not relayout the table once per row.
+ *
+ * @param <T> type of the rows
+ * @author agent agent@local
+ */
+public interface RowSink<T> {
+
+    /**
+     * Replaces all rows of the table
+     *
+     * @param rows new rows
+     */
+    void replaceAll(List<T> rows);
+
+    /**
+     * Adds rows to the end of the table
+     *
+     * @param rows added rows
+     */
+    void appendAll(List<T> rows);
+}
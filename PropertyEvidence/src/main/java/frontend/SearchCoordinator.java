@@ -0,0 +1,263 @@
+package frontend;
+
+import common.CancellableDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs searches of one table in the background. Requests are debounced, so that typing into a search field
+ * issues a single query once the user stops typing. Starting a search cancels the one still running,
+ * including its statements when the data source is CancellableDataSource, and only the rows of the latest
+ * search are passed to the table.
+ *
+ * Rows are delivered in chunks as the search publishes them, the first chunk replaces contents of the table
+ * and the following ones are appended to it. Progress of the running search is shown by the optional
+ * progress indicator. A failed search clears the table and shows its error, unless its statement has been
+ * cancelled by a newer search.
+ *
+ * All methods must be called on the event dispatch thread.
+ *
+ * @param <T> type of the found entities
+ * @author agent agent@local
+ */
+public class SearchCoordinator<T> {
+
+    public static final int DEFAULT_DELAY_MILLIS = 250;
+
+    private final static Logger log = LoggerFactory.getLogger(SearchCoordinator.class);
+
+    /**
+     * Receiver of results of a search running in the background
+     *
+     * @param <T> type of the found entities
+     */
+    public interface Publisher<T> {
+        /**
+         * Passes found chunk of rows to the table
+         *
+         * @param rows found rows
+         */
+        void publish(List<T> rows);
+
+        /**
+         * Reports progress of the search
+         *
+         * @param done  number of finished steps
+         * @param total number of all steps
+         */
+        void progress(int done, int total);
+    }
+
+    /**
+     * Search delivering its result in several chunks
+     *
+     * @param <T> type of the found entities
+     */
+    public interface ProgressiveQuery<T> {
+        /**
+         * Runs the search in the background
+         *
+         * @param publisher receives found chunks of rows and progress
+         */
+        void run(Publisher<T> publisher);
+    }
+
+    private final RowSink<T> sink;
+    private final Timer timer;
+    private ProgressiveQuery<T> pendingQuery;
+    private SwingWorker<Void, List<T>> runningWorker;
+    private CancellableDataSource.Token runningToken;
+    private ProgressIndicator progressIndicator;
+    private ProgressIndicator.Task runningTask;
+    private long generation;
+
+    /**
+     * Creates coordinator with default delay
+     *
+     * @param sink table receiving rows of the latest search on the event dispatch thread
+     */
+    public SearchCoordinator(RowSink<T> sink) {
+        this(DEFAULT_DELAY_MILLIS, sink);
+    }
+
+    /**
+     * Creates a new instance of SearchCoordinator.
+     *
+     * @param delayMillis time without new request, after which the search starts
+     * @param sink        table receiving rows of the latest search on the event dispatch thread
+     */
+    public SearchCoordinator(int delayMillis, RowSink<T> sink) {
+        this.sink = sink;
+        this.timer = new Timer(delayMillis, e -> startPending());
+        this.timer.setRepeats(false);
+    }
+
+    public void setProgressIndicator(ProgressIndicator progressIndicator) {
+        this.progressIndicator = progressIndicator;
+    }
+
+    /**
+     * Schedules search, which replaces any search requested before. Values of search fields
+     * should be read before calling this method and captured by the query.
+     *
+     * @param query query run in the background
+     */
+    public void search(Supplier<List<T>> query) {
+        searchProgressively(publisher -> publisher.publish(query.get()));
+    }
+
+    /**
+     * Schedules search publishing its rows in chunks, which replaces any search requested before
+     *
+     * @param query query run in the background
+     */
+    public void searchProgressively(ProgressiveQuery<T> query) {
+        pendingQuery = query;
+        timer.restart();
+    }
+
+    /**
+     * Starts search immediately, e.g. to fill the table when the form is opened
+     *
+     * @param query query run in the background
+     */
+    public void searchNow(Supplier<List<T>> query) {
+        timer.stop();
+        pendingQuery = publisher -> publisher.publish(query.get());
+        startPending();
+    }
+
+    /**
+     * Cancels scheduled and running search
+     */
+    public void cancel() {
+        timer.stop();
+        pendingQuery = null;
+        generation++;
+        cancelRunning();
+    }
+
+    private void startPending() {
+        ProgressiveQuery<T> query = pendingQuery;
+        pendingQuery = null;
+        if (query == null) {
+            return;
+        }
+        cancelRunning();
+        long current = ++generation;
+        CancellableDataSource.Token token = new CancellableDataSource.Token();
+        ProgressIndicator.Task task = progressIndicator == null ? null : progressIndicator.begin();
+        SwingWorker<Void, List<T>> worker = new SwingWorker<Void, List<T>>() {
+            private boolean replaced;
+
+            @Override
+            protected Void doInBackground() {
+                boolean[] published = {false};
+                token.run(() -> {
+                    query.run(new Publisher<T>() {
+                        @Override
+                        public void publish(List<T> rows) {
+                            published[0] = true;
+                            doPublish(rows);
+                        }
+
+                        @Override
+                        public void progress(int done, int total) {
+                            if (task != null) {
+                                SwingUtilities.invokeLater(() -> task.progress(done, total));
+                            }
+                        }
+                    });
+                    return null;
+                });
+                if (!published[0]) {
+                    publish(Collections.emptyList());
+                }
+                return null;
+            }
+
+            @Override
+            protected void process(List<List<T>> chunks) {
+                /* chunks may arrive after done(), the generation tells whether they are still wanted */
+                if (current != generation) {
+                    return;
+                }
+                for (List<T> chunk : chunks) {
+                    if (replaced) {
+                        sink.appendAll(chunk);
+                    } else {
+                        sink.replaceAll(chunk);
+                        replaced = true;
+                    }
+                }
+            }
+
+            @Override
+            protected void done() {
+                /* cancelling the worker calls done() at once, before the newer search is started */
+                if (current != generation || isCancelled()) {
+                    return;
+                }
+                runningWorker = null;
+                runningToken = null;
+                endTask();
+                try {
+                    get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+                    if (isCancellation(cause)) {
+                        return;
+                    }
+                    log.error("search failed", cause);
+                    sink.replaceAll(Collections.emptyList());
+                    MainForm.ErrorMessage(null, cause.getMessage());
+                }
+            }
+
+            private void doPublish(List<T> rows) {
+                publish(rows);
+            }
+        };
+        runningWorker = worker;
+        runningToken = token;
+        runningTask = task;
+        worker.execute();
+    }
+
+    private void cancelRunning() {
+        if (runningWorker != null) {
+            runningToken.cancel();
+            runningWorker.cancel(true);
+            runningWorker = null;
+            runningToken = null;
+            endTask();
+        }
+    }
+
+    /**
+     * Tells whether the search failed, because its statement has been cancelled
+     */
+    private static boolean isCancellation(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException
+                    && CancellableDataSource.CANCELLED_STATE.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void endTask() {
+        if (runningTask != null) {
+            runningTask.end();
+            runningTask = null;
+        }
+    }
+}
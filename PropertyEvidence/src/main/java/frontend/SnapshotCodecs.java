@@ -0,0 +1,61 @@
+package frontend;
+
+import backend.Client;
+import backend.Property;
+import backend.PropertyType;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Codecs of entities stored in table snapshots
+ *
+ * @author agent agent@local
+ */
+public final class SnapshotCodecs {
+
+    public static final TableSnapshot.Codec<Client> CLIENT = new TableSnapshot.Codec<Client>() {
+        @Override
+        public void write(DataOutputStream out, Client client) throws IOException {
+            out.writeLong(client.getId());
+            TableSnapshot.writeString(out, client.getFullName());
+            TableSnapshot.writeString(out, client.getPhoneNumber());
+        }
+
+        @Override
+        public Client read(ByteBuffer in) {
+            Client client = new Client();
+            client.setId(in.getLong());
+            client.setFullName(TableSnapshot.readString(in));
+            client.setPhoneNumber(TableSnapshot.readString(in));
+            return client;
+        }
+    };
+
+    public static final TableSnapshot.Codec<Property> PROPERTY = new TableSnapshot.Codec<Property>() {
+        @Override
+        public void write(DataOutputStream out, Property property) throws IOException {
+            out.writeLong(property.getId());
+            TableSnapshot.writeString(out, property.getAddress());
+            TableSnapshot.writeDecimal(out, property.getArea());
+            TableSnapshot.writeDecimal(out, property.getPrice());
+            TableSnapshot.writeString(out, property.getType() == null ? null : property.getType().name());
+        }
+
+        @Override
+        public Property read(ByteBuffer in) {
+            Property property = new Property();
+            property.setId(in.getLong());
+            property.setAddress(TableSnapshot.readString(in));
+            property.setArea(TableSnapshot.readDecimal(in));
+            property.setPrice(TableSnapshot.readDecimal(in));
+            String type = TableSnapshot.readString(in);
+            property.setType(type == null ? null : PropertyType.valueOf(type));
+            return property;
+        }
+    };
+
+    private SnapshotCodecs() {
+    }
+}
@@ -0,0 +1,72 @@
+package frontend;
+
+import common.events.StartupPhaseEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Logs phases of startup of the GUI with their duration and time since start of the JVM, so that the time
+ * to the first frame and to the first usable tab can be tracked. Each phase is also recorded
+ * as StartupPhaseEvent for Java Flight Recorder.
+ *
+ * @author agent agent@local
+ */
+public final class StartupLog {
+
+    private final static Logger log = LoggerFactory.getLogger(StartupLog.class);
+
+    private StartupLog() {
+    }
+
+    /**
+     * Begins the phase
+     *
+     * @param name name of the phase, e.g. database bootstrap
+     * @return phase, which has to be finished
+     */
+    public static Phase begin(String name) {
+        return new Phase(name);
+    }
+
+    /**
+     * Logs a point of startup without duration, e.g. display of the first frame
+     *
+     * @param name name of the point
+     */
+    public static void mark(String name) {
+        begin(name).finish();
+    }
+
+    /**
+     * Returns milliseconds since start of the JVM
+     */
+    public static long sinceLaunchMillis() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    /**
+     * Running phase of startup
+     */
+    public static class Phase {
+        private final String name;
+        private final long startNanos = System.nanoTime();
+        private final StartupPhaseEvent event;
+
+        private Phase(String name) {
+            this.name = name;
+            this.event = StartupPhaseEvent.begin(name);
+        }
+
+        /**
+         * Ends the phase and logs it
+         */
+        public void finish() {
+            long sinceLaunch = sinceLaunchMillis();
+            event.finish(sinceLaunch);
+            log.info("startup: " + name + " took " + (System.nanoTime() - startNanos) / 1_000_000
+                    + " ms, " + sinceLaunch + " ms since launch");
+        }
+    }
+}
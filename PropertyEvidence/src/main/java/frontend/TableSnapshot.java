@@ -0,0 +1,264 @@
+package frontend;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rows of a table last seen in the database, stored in a compact binary file on local disk. On startup the form
+ * displays them at once and replaces them by rows loaded from the database in the background.
+ *
+ * The file is read through a memory-mapped buffer. A mapped file can not be replaced on Windows until the buffer
+ * is garbage collected, so every save writes a new file numbered after the previous one and deletes the older
+ * files, which are still mapped, by a later save. A missing, outdated or damaged file is treated as empty,
+ * the snapshot is only a hint and the database stays the source of truth.
+ *
+ * @param <T> type of the rows
+ * @author agent agent@local
+ */
+public class TableSnapshot<T> {
+
+    private final static Logger log = LoggerFactory.getLogger(TableSnapshot.class);
+
+    /**
+     * System property overriding directory of the snapshots
+     */
+    public static final String DIRECTORY_PROPERTY = "propertyevidence.snapshot.dir";
+
+    private static final int MAGIC = 0x50455331;
+    private static final int VERSION = 1;
+
+    /**
+     * Writes and reads one row of the snapshot
+     *
+     * @param <T> type of the rows
+     */
+    public interface Codec<T> {
+        void write(DataOutputStream out, T row) throws IOException;
+
+        T read(ByteBuffer in);
+    }
+
+    private final Path file;
+    private final Codec<T> codec;
+
+    public TableSnapshot(Path file, Codec<T> codec) {
+        this.file = file;
+        this.codec = codec;
+    }
+
+    /**
+     * Returns directory of the snapshots, the user's home unless overridden by DIRECTORY_PROPERTY
+     *
+     * @return directory of the snapshots
+     */
+    public static Path defaultDirectory() {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        if (directory != null) {
+            return Paths.get(directory);
+        }
+        return Paths.get(System.getProperty("user.home"), ".property-evidence", "snapshots");
+    }
+
+    /**
+     * Reads rows of the snapshot
+     *
+     * @return stored rows, or empty list when there is no usable snapshot
+     */
+    public List<T> load() {
+        Path newest;
+        try {
+            List<Path> files = files();
+            if (files.isEmpty()) {
+                return Collections.emptyList();
+            }
+            newest = files.get(0);
+        } catch (IOException ex) {
+            log.warn("can not list snapshots " + file, ex);
+            return Collections.emptyList();
+        }
+        try (FileChannel channel = FileChannel.open(newest, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.remaining() < 12 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+                log.warn("ignoring snapshot " + newest + " of unknown format");
+                return Collections.emptyList();
+            }
+            int count = in.getInt();
+            List<T> rows = new ArrayList<>(Math.max(0, Math.min(count, in.remaining())));
+            for (int i = 0; i < count; i++) {
+                rows.add(codec.read(in));
+            }
+            log.debug("loaded " + count + " rows from snapshot " + newest);
+            return rows;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException ex) {
+            log.warn("can not read snapshot " + newest, ex);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Replaces the snapshot by the rows. The file is written aside and moved to a new name once it is complete,
+     * so that an interrupted save leaves the previous snapshot intact. Older files are deleted afterwards.
+     *
+     * @param rows rows to store
+     */
+    public void save(List<T> rows) {
+        try {
+            Files.createDirectories(file.getParent());
+            List<Path> previous = files();
+            Path target = numbered(previous.isEmpty() ? 1 : numberOf(previous.get(0)) + 1);
+            Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(rows.size());
+                    for (T row : rows) {
+                        codec.write(out, row);
+                    }
+                }
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            log.debug("saved " + rows.size() + " rows to snapshot " + target);
+            for (Path old : previous) {
+                deleteFile(old);
+            }
+        } catch (IOException ex) {
+            log.warn("can not save snapshot " + file, ex);
+        }
+    }
+
+    /**
+     * Deletes the snapshot, e.g. when the table is too large to be stored
+     */
+    public void delete() {
+        try {
+            for (Path old : files()) {
+                deleteFile(old);
+            }
+        } catch (IOException ex) {
+            log.warn("can not delete snapshot " + file, ex);
+        }
+    }
+
+    /**
+     * Returns existing files of the snapshot, the newest first. The file without number, written by older versions,
+     * is the oldest one.
+     */
+    private List<Path> files() throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(file.getParent())) {
+            return files;
+        }
+        String prefix = file.getFileName().toString();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(file.getParent(), prefix + "*")) {
+            for (Path candidate : stream) {
+                if (numberOf(candidate) >= 0 && Files.isRegularFile(candidate)) {
+                    files.add(candidate);
+                }
+            }
+        }
+        files.sort((first, second) -> Long.compare(numberOf(second), numberOf(first)));
+        return files;
+    }
+
+    private Path numbered(long number) {
+        return file.resolveSibling(file.getFileName() + "." + number);
+    }
+
+    /**
+     * Returns number of the snapshot file, 0 for the file without number and -1 for files of other snapshots
+     */
+    private long numberOf(Path candidate) {
+        String name = candidate.getFileName().toString();
+        String prefix = file.getFileName().toString();
+        if (name.equals(prefix)) {
+            return 0;
+        }
+        String suffix = name.startsWith(prefix + ".") ? name.substring(prefix.length() + 1) : "";
+        if (suffix.isEmpty() || suffix.length() > 18 || !suffix.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return -1;
+        }
+        return Long.parseLong(suffix);
+    }
+
+    /**
+     * Deletes file of the snapshot, unless it is still mapped by an earlier load, then it is deleted by a later save
+     */
+    private void deleteFile(Path old) {
+        try {
+            Files.deleteIfExists(old);
+        } catch (IOException ex) {
+            log.debug("can not delete snapshot " + old + " yet", ex);
+        }
+    }
+
+    /**
+     * Writes string as its length and UTF-8 bytes, null as length -1
+     */
+    public static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    public static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes decimal as its scale and bytes of the unscaled value, null as scale Integer.MIN_VALUE
+     */
+    public static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeInt(Integer.MIN_VALUE);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeInt(value.scale());
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+    }
+
+    public static BigDecimal readDecimal(ByteBuffer in) {
+        int scale = in.getInt();
+        if (scale == Integer.MIN_VALUE) {
+            return null;
+        }
+        int length = in.get() & 0xFF;
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] unscaled = new byte[length];
+        in.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
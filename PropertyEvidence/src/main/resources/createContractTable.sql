@@ -3,4 +3,6 @@ CREATE TABLE CONTRACT (
   clientid      BIGINT NOT NULL,
   propertyid    BIGINT NOT NULL,
   dateofsigning DATE
-);
\ No newline at end of file
+);
+CREATE INDEX contract_clientid ON CONTRACT (clientid);
+CREATE INDEX contract_propertyid ON CONTRACT (propertyid);
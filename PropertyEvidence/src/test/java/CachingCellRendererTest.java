@@ -0,0 +1,58 @@
+import frontend.CachingCellRenderer;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class CachingCellRenderer
+ *
+ * @author agent agent@local
+ */
+public class CachingCellRendererTest {
+    private JTable table;
+    private AtomicInteger formatted;
+    private CachingCellRenderer renderer;
+
+    @Before
+    public void setUp() {
+        table = new JTable(new DefaultTableModel(new Object[]{"Price"}, 1));
+        formatted = new AtomicInteger();
+        renderer = new CachingCellRenderer(value -> {
+            formatted.incrementAndGet();
+            return "price " + value;
+        }, SwingConstants.RIGHT);
+    }
+
+    private String render(Object value) {
+        return ((JLabel) renderer.getTableCellRendererComponent(table, value, false, false, 0, 0)).getText();
+    }
+
+    @Test
+    public void sameValueIsFormattedOnce() {
+        BigDecimal price = new BigDecimal("150000.00");
+
+        assertThat(render(price)).isEqualTo("price 150000.00");
+        assertThat(render(price)).isEqualTo("price 150000.00");
+        assertThat(formatted.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void replacedValueIsFormattedAgain() {
+        render(new BigDecimal("1.00"));
+
+        assertThat(render(new BigDecimal("2.00"))).isEqualTo("price 2.00");
+        assertThat(formatted.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void nullValueIsEmpty() {
+        assertThat(render(null)).isEqualTo("");
+        assertThat(formatted.get()).isZero();
+    }
+}
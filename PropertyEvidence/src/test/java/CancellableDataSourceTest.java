@@ -0,0 +1,71 @@
+import backend.*;
+import common.CancellableDataSource;
+import common.DBUtils;
+import common.DatabaseFaultException;
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class CancellableDataSource
+ *
+ * @author agent agent@local
+ */
+public class CancellableDataSourceTest {
+    private CancellableDataSource dataSource;
+    private ClientManager manager;
+
+    private static DataSource getDataSource() {
+        EmbeddedDataSource source = new EmbeddedDataSource();
+        source.setDatabaseName("memory:PropertyEvidenceDB");
+        source.setCreateDatabase("create");
+        return source;
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        DataSource source = getDataSource();
+        DBUtils.executeSqlScript(source, ClientManager.class.getClassLoader().getResource("createClientTable.sql"));
+        dataSource = new CancellableDataSource(source);
+        manager = new ClientManagerImpl(dataSource);
+        manager.createClient(new ClientBuilder()
+                .fullName("John Doe")
+                .phoneNumber("+420915111999")
+                .buildClient());
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        DBUtils.executeSqlScript(dataSource, ClientManager.class.getClassLoader().getResource("dropClientTable.sql"));
+    }
+
+    @Test
+    public void callRunsWithinToken() {
+        CancellableDataSource.Token token = new CancellableDataSource.Token();
+
+        assertThat(token.run(() -> manager.getClients())).hasSize(1);
+    }
+
+    @Test(expected = DatabaseFaultException.class)
+    public void cancelledTokenRefusesConnections() {
+        CancellableDataSource.Token token = new CancellableDataSource.Token();
+        token.cancel();
+
+        token.run(() -> manager.getClients());
+    }
+
+    @Test
+    public void cancelledTokenDoesNotAffectOtherCalls() {
+        CancellableDataSource.Token token = new CancellableDataSource.Token();
+        token.cancel();
+
+        assertThat(token.isCancelled()).isTrue();
+        assertThat(manager.getClients()).hasSize(1);
+    }
+}
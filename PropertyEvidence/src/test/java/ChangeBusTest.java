@@ -0,0 +1,117 @@
+import backend.*;
+import common.DBUtils;
+import common.IllegalEntityException;
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class ChangeBus and publishing of changes by managers
+ *
+ * @author agent agent@local
+ */
+public class ChangeBusTest {
+    private DataSource dataSource;
+    private ChangeBus changeBus;
+    private ClientManager manager;
+    private List<ChangeEvent<Client>> received;
+
+    private static DataSource getDataSource() {
+        EmbeddedDataSource source = new EmbeddedDataSource();
+        source.setDatabaseName("memory:PropertyEvidenceDB");
+        source.setCreateDatabase("create");
+        return source;
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = getDataSource();
+        DBUtils.executeSqlScript(dataSource, ClientManager.class.getClassLoader().getResource("createClientTable.sql"));
+        changeBus = new ChangeBus();
+        manager = new ClientManagerImpl(dataSource, changeBus);
+        received = new ArrayList<>();
+        changeBus.subscribe(Client.class, received::add);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        DBUtils.executeSqlScript(dataSource, ClientManager.class.getClassLoader().getResource("dropClientTable.sql"));
+    }
+
+    private static Client sampleClient() {
+        return new ClientBuilder()
+                .fullName("John Doe")
+                .phoneNumber("+420915111999")
+                .buildClient();
+    }
+
+    @Test
+    public void managerPublishesCommittedChanges() {
+        Client client = sampleClient();
+        manager.createClient(client);
+        client.setFullName("Jack Doe");
+        manager.updateClient(client);
+        manager.deleteClient(client);
+
+        assertThat(received).hasSize(3);
+        assertThat(received.get(0).getType()).isEqualTo(ChangeEvent.Type.CREATED);
+        assertThat(received.get(1).getType()).isEqualTo(ChangeEvent.Type.UPDATED);
+        assertThat(received.get(2).getType()).isEqualTo(ChangeEvent.Type.DELETED);
+        assertThat(received.get(1).getEntity()).isSameAs(client);
+        assertThat(received.get(0).getEntity().getId()).isNotNull();
+    }
+
+    @Test
+    public void failedChangeIsNotPublished() {
+        Client client = sampleClient();
+        client.setId(42L);
+        try {
+            manager.deleteClient(client);
+        } catch (IllegalEntityException ex) {
+            /* client is not in the database */
+        }
+
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    public void subscriberReceivesOnlyItsEntityType() {
+        changeBus.publish(ChangeEvent.created(Property.class, new Property()));
+
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    public void closedSubscriptionReceivesNothing() {
+        List<ChangeEvent<Client>> other = new ArrayList<>();
+        ChangeBus.Subscription subscription = changeBus.subscribe(Client.class, other::add);
+        subscription.close();
+
+        manager.createClient(sampleClient());
+
+        assertThat(other).isEmpty();
+        assertThat(received).hasSize(1);
+    }
+
+    @Test
+    public void failingSubscriberDoesNotAffectOthers() {
+        ChangeBus bus = new ChangeBus();
+        List<ChangeEvent<Client>> other = new ArrayList<>();
+        bus.subscribe(Client.class, change -> {
+            throw new IllegalStateException("subscriber failure");
+        });
+        bus.subscribe(Client.class, other::add);
+
+        new ClientManagerImpl(dataSource, bus).createClient(sampleClient());
+
+        assertThat(other).hasSize(1);
+    }
+}
@@ -1,8 +1,11 @@
 import backend.Client;
 import backend.ClientManager;
 import backend.ClientManagerImpl;
+import backend.RowEdit;
+import backend.UpdateConflict;
 import common.DBUtils;
 import common.IllegalEntityException;
+import common.InstrumentedDataSource;
 import org.apache.derby.jdbc.EmbeddedDataSource;
 import org.junit.After;
 import org.junit.Before;
@@ -10,6 +13,7 @@ import org.junit.Test;
 
 import javax.sql.DataSource;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -22,7 +26,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class ClientManagerImplTest {
 
     private ClientManager manager;
-    private DataSource dataSource;
+    private InstrumentedDataSource dataSource;
 
     private static DataSource getDataSource() {
         EmbeddedDataSource source = new EmbeddedDataSource();
@@ -33,7 +37,7 @@ public class ClientManagerImplTest {
 
     @Before
     public void setUp() throws SQLException {
-        dataSource = getDataSource();
+        dataSource = new InstrumentedDataSource(getDataSource(), 5);
         DBUtils.executeSqlScript(dataSource, ClientManager.class.getClassLoader().getResource("createClientTable.sql"));
         manager = new ClientManagerImpl(dataSource);
     }
@@ -152,6 +156,65 @@ public class ClientManagerImplTest {
         manager.updateClient(sampleClientBuilder().id(46L).fullName("").buildClient());
     }
 
+    /* -------------------------------------------------------------------------
+     * UpdateClients tests
+     * -------------------------------------------------------------------------
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void updateClientsNull() {
+        manager.updateClients(null);
+    }
+
+    @Test
+    public void updateClientsValid() {
+        Client first = sampleClientBuilder().buildClient();
+        Client second = sampleClientBuilder().fullName("Other Surname").buildClient();
+        manager.createClient(first);
+        manager.createClient(second);
+        Client firstEdited = sampleClientBuilder().id(first.getId()).fullName("New Name").buildClient();
+        Client secondEdited = sampleClientBuilder().id(second.getId()).phoneNumber("+420915111000").buildClient();
+
+        List<UpdateConflict<Client>> conflicts = manager.updateClients(Arrays.asList(
+                new RowEdit<>(first, firstEdited), new RowEdit<>(second, secondEdited)));
+
+        assertThat(conflicts).isEmpty();
+        assertThat(manager.getClientById(first.getId()).getFullName()).isEqualTo("New Name");
+        assertThat(manager.getClientById(second.getId()).getPhoneNumber()).isEqualTo("+420915111000");
+    }
+
+    @Test
+    public void updateClientsReportsChangedAndDeletedClients() {
+        Client changed = sampleClientBuilder().buildClient();
+        Client deleted = sampleClientBuilder().fullName("Deleted Client").buildClient();
+        Client untouched = sampleClientBuilder().fullName("Untouched Client").buildClient();
+        manager.createClient(changed);
+        manager.createClient(deleted);
+        manager.createClient(untouched);
+        Client concurrent = sampleClientBuilder().id(changed.getId()).fullName("Concurrent Name").buildClient();
+        manager.updateClient(concurrent);
+        manager.deleteClient(sampleClientBuilder().id(deleted.getId()).buildClient());
+
+        List<UpdateConflict<Client>> conflicts = manager.updateClients(Arrays.asList(
+                new RowEdit<>(changed, sampleClientBuilder().id(changed.getId()).fullName("My Name").buildClient()),
+                new RowEdit<>(deleted, sampleClientBuilder().id(deleted.getId()).fullName("My Name").buildClient()),
+                new RowEdit<>(untouched, sampleClientBuilder().id(untouched.getId()).fullName("Edited Name").buildClient())));
+
+        assertThat(conflicts).hasSize(2);
+        assertThat(conflicts.get(0).isDeleted()).isFalse();
+        assertThat(conflicts.get(0).getCurrent().getFullName()).isEqualTo("Concurrent Name");
+        assertThat(conflicts.get(1).isDeleted()).isTrue();
+        assertThat(manager.getClientById(changed.getId()).getFullName()).isEqualTo("Concurrent Name");
+        assertThat(manager.getClientById(untouched.getId()).getFullName()).isEqualTo("Edited Name");
+    }
+
+    @Test(expected = IllegalEntityException.class)
+    public void updateClientsInvalidClient() {
+        Client client = sampleClientBuilder().buildClient();
+        manager.createClient(client);
+        manager.updateClients(Arrays.asList(
+                new RowEdit<>(client, sampleClientBuilder().id(client.getId()).fullName("Name").buildClient())));
+    }
+
     /* -------------------------------------------------------------------------
      * Delete client tests
      * -------------------------------------------------------------------------
@@ -194,6 +257,40 @@ public class ClientManagerImplTest {
                 .containsOnly(clientToRetrieve);
     }
 
+    /* -------------------------------------------------------------------------
+     * Paged listing tests
+     * -------------------------------------------------------------------------
+     */
+    @Test
+    public void countClientsEmptyDB() {
+        assertThat(manager.countClients()).isZero();
+    }
+
+    @Test
+    public void getClientsPagesCoverAllClientsInOrder() {
+        for (int i = 0; i < 5; i++) {
+            manager.createClient(sampleClientBuilder().buildClient());
+        }
+        List<Client> all = manager.getClients();
+        all.sort((first, second) -> first.getId().compareTo(second.getId()));
+
+        assertThat(manager.countClients()).isEqualTo(5);
+        assertThat(manager.getClients(0, 2)).containsExactly(all.get(0), all.get(1));
+        assertThat(manager.getClients(2, 2)).containsExactly(all.get(2), all.get(3));
+        assertThat(manager.getClients(4, 2)).containsExactly(all.get(4));
+        assertThat(manager.getClients(6, 2)).isEmpty();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getClientsNegativeOffset() {
+        manager.getClients(-1, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getClientsZeroLimit() {
+        manager.getClients(0, 0);
+    }
+
     /* -------------------------------------------------------------------------
      * FindClientsByName tests
      * -------------------------------------------------------------------------
@@ -229,4 +326,72 @@ public class ClientManagerImplTest {
         assertThat(result)
                 .containsOnly(clientToFind);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void findClientsByNamePagesCoverMatchingClientsInOrder() {
+        for (int i = 0; i < 3; i++) {
+            manager.createClient(sampleClientBuilder().fullName("Jack Daniels").buildClient());
+            manager.createClient(sampleClientBuilder().buildClient());
+        }
+        List<Client> matching = manager.findClientsByName("jack");
+        matching.sort((first, second) -> first.getId().compareTo(second.getId()));
+
+        assertThat(manager.countClientsByName("jack")).isEqualTo(3);
+        assertThat(manager.findClientsByName("jack", 0, 2)).containsExactly(matching.get(0), matching.get(1));
+        assertThat(manager.findClientsByName("jack", 2, 2)).containsExactly(matching.get(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void countClientsByNameNull() {
+        manager.countClientsByName(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void findClientsByNamePageZeroLimit() {
+        manager.findClientsByName("Name", 0, 0);
+    }
+
+    /* -------------------------------------------------------------------------
+     * Query count tests
+     * -------------------------------------------------------------------------
+     */
+    @Test
+    public void getClientsIssuesSingleQuery() {
+        for (int i = 0; i < 10; i++) {
+            manager.createClient(sampleClientBuilder().buildClient());
+        }
+        QueryCountAssert.measure(dataSource, () -> manager.getClients())
+                .issuedAtMostStatements(1)
+                .openedAtMostConnections(1);
+    }
+
+    @Test
+    public void getClientsPageIssuesSingleQuery() {
+        for (int i = 0; i < 10; i++) {
+            manager.createClient(sampleClientBuilder().buildClient());
+        }
+        QueryCountAssert.measure(dataSource, () -> manager.getClients(5, 5))
+                .issuedAtMostStatements(1)
+                .openedAtMostConnections(1);
+    }
+
+    @Test
+    public void findClientsByNameIssuesSingleQuery() {
+        for (int i = 0; i < 10; i++) {
+            manager.createClient(sampleClientBuilder().buildClient());
+        }
+        QueryCountAssert.measure(dataSource, () -> manager.findClientsByName("Name"))
+                .issuedAtMostStatements(1)
+                .openedAtMostConnections(1);
+    }
+
+    @Test
+    public void findClientsByNamePageIssuesSingleQuery() {
+        for (int i = 0; i < 10; i++) {
+            manager.createClient(sampleClientBuilder().buildClient());
+        }
+        QueryCountAssert.measure(dataSource, () -> manager.findClientsByName("Name", 0, 5))
+                .issuedAtMostStatements(1)
+                .openedAtMostConnections(1);
+    }
+}
@@ -1,6 +1,7 @@
 import backend.*;
 import common.DBUtils;
 import common.IllegalEntityException;
+import common.InstrumentedDataSource;
 import org.apache.derby.jdbc.EmbeddedDataSource;
 import org.junit.After;
 import org.junit.Before;
@@ -21,7 +22,7 @@ import java.util.List;
  */
 public class ContractManagerImplTest {
     private ContractManager manager;
-    private DataSource dataSource;
+    private InstrumentedDataSource dataSource;
 
     private static DataSource getDataSource() {
         EmbeddedDataSource source = new EmbeddedDataSource();
@@ -32,7 +33,7 @@ public class ContractManagerImplTest {
 
     @Before
     public void setUp() throws SQLException {
-        dataSource = getDataSource();
+        dataSource = new InstrumentedDataSource(getDataSource(), 5);
         DBUtils.executeSqlScript(dataSource, ContractManager.class.getClassLoader().getResource("createContractTable.sql"));
         DBUtils.executeSqlScript(dataSource, ContractManager.class.getClassLoader().getResource("createClientTable.sql"));
         DBUtils.executeSqlScript(dataSource, ContractManager.class.getClassLoader().getResource("createPropertyTable.sql"));
@@ -220,6 +221,56 @@ public class ContractManagerImplTest {
     }
 
 
+    @Test(expected = IllegalArgumentException.class)
+    public void findByNullClientName() {
+        manager.findContractsByClientName(null);
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void findByNullPropertyAddress() {
+        manager.findContractsByPropertyAddress(null);
+    }
+
+
+    @Test
+    public void findByClientNameIgnoresCase() {
+        Contract first = testingContractBuilder().buildContract();
+        Contract second = anotherTestingContractBuilder().client(first.getClient()).buildContract();
+        Contract third = anotherTestingContractBuilder().buildContract();
+
+        manager.createContract(first);
+        manager.createContract(second);
+        manager.createContract(third);
+
+        List<Contract> foundList = manager.findContractsByClientName("doe");
+
+        assertThat(foundList).containsExactly(first, second);
+        assertThat(foundList.get(1).getClient().getFullName()).isEqualTo("John Doe");
+        assertThat(foundList.get(1).getProperty().getAddress()).isEqualTo("Ludovit");
+        assertThat(manager.findContractsByClientName("john")).containsExactly(first, second, third);
+    }
+
+
+    @Test
+    public void findByPropertyAddressIgnoresCase() {
+        Contract first = testingContractBuilder().buildContract();
+        Contract second = anotherTestingContractBuilder().property(first.getProperty()).buildContract();
+        Contract third = anotherTestingContractBuilder().buildContract();
+
+        manager.createContract(first);
+        manager.createContract(second);
+        manager.createContract(third);
+
+        List<Contract> foundList = manager.findContractsByPropertyAddress("HYB");
+
+        assertThat(foundList).containsExactly(first, second);
+        assertThat(foundList.get(1).getClient().getFullName()).isEqualTo("John Milton");
+        assertThat(foundList.get(1).getProperty().getType()).isEqualTo(PropertyType.ONE_ROOM_FLAT);
+        assertThat(manager.findContractsByPropertyAddress("nowhere")).isEmpty();
+    }
+
+
     @Test
     public void getAllContractsEmptyDatabase() {
         List<Contract> contracts = manager.getAllContracts();
@@ -342,4 +393,125 @@ public class ContractManagerImplTest {
         assertThat(contracts.contains(contract));
     }
 
-}
\ No newline at end of file
+
+    /* Query count tests */
+
+    /*
+     * Every contract row loads its client and its property by a separate query,
+     * so listing n contracts costs 1 + 2n statements and connections.
+     * These tests pin that cost, so that no further per-row lookups are added.
+     */
+
+    @Test
+    public void getAllContractsQueryCount() {
+        for (int i = 0; i < 5; i++) {
+            manager.createContract(testingContractBuilder().buildContract());
+        }
+        QueryCountAssert.measure(dataSource, () -> manager.getAllContracts())
+                .issuedAtMostStatements(1 + 2 * 5)
+                .openedAtMostConnections(1 + 2 * 5);
+    }
+
+
+    @Test
+    public void getContractsPagesCoverAllContracts() {
+        for (int i = 0; i < 3; i++) {
+            manager.createContract(testingContractBuilder().buildContract());
+        }
+        List<Contract> all = manager.getAllContracts();
+        all.sort((first, second) -> first.getId().compareTo(second.getId()));
+
+        assertThat(manager.countContracts()).isEqualTo(3);
+        assertThat(manager.getContracts(0, 2)).containsExactly(all.get(0), all.get(1));
+        assertThat(manager.getContracts(2, 2)).containsExactly(all.get(2));
+    }
+
+
+    @Test
+    public void getContractsPageIssuesSingleQuery() {
+        for (int i = 0; i < 5; i++) {
+            manager.createContract(testingContractBuilder().buildContract());
+        }
+
+        QueryCountAssert.measure(dataSource, () -> manager.getContracts(1, 3))
+                .issuedAtMostStatements(1)
+                .openedAtMostConnections(1);
+    }
+
+
+    @Test
+    public void getContractsPageListsContractOfDeletedClient() {
+        Contract first = testingContractBuilder().buildContract();
+        Contract second = testingContractBuilder().buildContract();
+        Contract third = testingContractBuilder().buildContract();
+        manager.createContract(first);
+        manager.createContract(second);
+        manager.createContract(third);
+        new ClientManagerImpl(dataSource).deleteClient(second.getClient());
+
+        List<Contract> page = manager.getContracts(0, 3);
+
+        assertThat(manager.countContracts()).isEqualTo(3);
+        assertThat(page).hasSize(3);
+        assertThat(page.get(1).getId()).isEqualTo(second.getId());
+        assertThat(page.get(1).getClient()).isNull();
+        assertThat(page.get(1).getProperty()).isEqualTo(second.getProperty());
+        assertThat(page.get(2).getClient()).isEqualTo(third.getClient());
+    }
+
+
+    @Test
+    public void findContractsByClientQueryCount() {
+        Contract first = testingContractBuilder().buildContract();
+        manager.createContract(first);
+        for (int i = 0; i < 4; i++) {
+            manager.createContract(anotherTestingContractBuilder().client(first.getClient()).buildContract());
+        }
+        manager.createContract(anotherTestingContractBuilder().buildContract());
+
+        QueryCountAssert.measure(dataSource, () -> manager.findContractsByClient(first.getClient()))
+                .issuedAtMostStatements(1 + 2 * 5)
+                .openedAtMostConnections(1 + 2 * 5);
+    }
+
+
+    @Test
+    public void findContractByPropertyQueryCount() {
+        Contract first = testingContractBuilder().buildContract();
+        manager.createContract(first);
+        manager.createContract(anotherTestingContractBuilder().property(first.getProperty()).buildContract());
+        manager.createContract(anotherTestingContractBuilder().buildContract());
+
+        QueryCountAssert.measure(dataSource, () -> manager.findContractByProperty(first.getProperty()))
+                .issuedAtMostStatements(1 + 2 * 2)
+                .openedAtMostConnections(1 + 2 * 2);
+    }
+
+
+    @Test
+    public void findContractsByClientNameIssuesSingleQuery() {
+        Contract first = testingContractBuilder().buildContract();
+        manager.createContract(first);
+        for (int i = 0; i < 4; i++) {
+            manager.createContract(anotherTestingContractBuilder().client(first.getClient()).buildContract());
+        }
+        manager.createContract(anotherTestingContractBuilder().buildContract());
+
+        QueryCountAssert.measure(dataSource, () -> manager.findContractsByClientName("John"))
+                .issuedAtMostStatements(1)
+                .openedAtMostConnections(1);
+    }
+
+
+    @Test
+    public void findContractsByPropertyAddressIssuesSingleQuery() {
+        Contract first = testingContractBuilder().buildContract();
+        manager.createContract(first);
+        manager.createContract(anotherTestingContractBuilder().property(first.getProperty()).buildContract());
+        manager.createContract(anotherTestingContractBuilder().buildContract());
+
+        QueryCountAssert.measure(dataSource, () -> manager.findContractsByPropertyAddress("o"))
+                .issuedAtMostStatements(1)
+                .openedAtMostConnections(1);
+    }
+}
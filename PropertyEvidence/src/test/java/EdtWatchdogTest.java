@@ -0,0 +1,84 @@
+import frontend.EdtWatchdog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class EdtWatchdog
+ *
+ * @author agent agent@local
+ */
+public class EdtWatchdogTest {
+    private static final long THRESHOLD_MILLIS = 100;
+
+    private EdtWatchdog watchdog;
+    private final List<Long> blocked = new CopyOnWriteArrayList<>();
+    private final List<Long> dispatched = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        watchdog = new EdtWatchdog(THRESHOLD_MILLIS);
+        watchdog.addListener(new EdtWatchdog.Listener() {
+            @Override
+            public void dispatched(AWTEvent event, long nanos) {
+                dispatched.add(nanos);
+            }
+
+            @Override
+            public void blocked(long nanos) {
+                blocked.add(nanos);
+            }
+        });
+        watchdog.install();
+    }
+
+    @After
+    public void tearDown() {
+        watchdog.uninstall();
+    }
+
+    @Test
+    public void idleSecondaryLoopIsNotStall() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            /* the loop waits for events like a modal dialog, several times longer than the threshold */
+            SecondaryLoop loop = Toolkit.getDefaultToolkit().getSystemEventQueue().createSecondaryLoop();
+            int[] ticks = {0};
+            Timer timer = new Timer((int) THRESHOLD_MILLIS * 3 / 2, actionEvent -> {
+                if (++ticks[0] == 4) {
+                    ((Timer) actionEvent.getSource()).stop();
+                    loop.exit();
+                }
+            });
+            timer.start();
+            loop.enter();
+        });
+        /* let the sampler run at least once more after the loop */
+        Thread.sleep(THRESHOLD_MILLIS);
+
+        assertThat(blocked).isEmpty();
+        for (long nanos : dispatched) {
+            assertThat(nanos).isLessThan(TimeUnit.MILLISECONDS.toNanos(THRESHOLD_MILLIS));
+        }
+    }
+
+    @Test
+    public void blockingEventIsStall() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                Thread.sleep(THRESHOLD_MILLIS * 3);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertThat(blocked).isNotEmpty();
+    }
+}
@@ -0,0 +1,107 @@
+import frontend.FederatedSearch;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class FederatedSearch
+ *
+ * @author agent agent@local
+ */
+public class FederatedSearchTest {
+
+    /**
+     * Listener collecting results of one search
+     */
+    private static class CollectingListener implements FederatedSearch.Listener {
+        private final CountDownLatch done;
+        private final List<String> sources = new ArrayList<>();
+        private final List<FederatedSearch.Result> results = Collections.synchronizedList(new ArrayList<>());
+
+        private CollectingListener(int sourceCount) {
+            done = new CountDownLatch(sourceCount);
+        }
+
+        @Override
+        public void started(String text, List<String> sources) {
+            this.sources.addAll(sources);
+        }
+
+        @Override
+        public void finished(FederatedSearch.Result result) {
+            results.add(result);
+            done.countDown();
+        }
+
+        private FederatedSearch.Result resultOf(String source) {
+            for (FederatedSearch.Result result : results) {
+                if (result.getSource().equals(source)) {
+                    return result;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static List<String> slowQuery(String text) {
+        try {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return Collections.singletonList(text);
+    }
+
+    @Test
+    public void slowSourceTimesOutWithoutBlockingOthers() throws Exception {
+        CollectingListener listener = new CollectingListener(3);
+        SwingUtilities.invokeAndWait(() -> {
+            FederatedSearch search = new FederatedSearch(0, 200, listener);
+            search.addSource("fast", text -> Arrays.asList(text + "1", text + "2"), String::toUpperCase);
+            search.addSource("slow", FederatedSearchTest::slowQuery, row -> row);
+            search.addSource("failing", text -> {
+                throw new IllegalStateException("broken source");
+            }, Object::toString);
+            search.searchNow("abc");
+        });
+
+        assertThat(listener.done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(listener.sources).containsExactly("fast", "slow", "failing");
+        assertThat(listener.resultOf("fast").getStatus()).isEqualTo(FederatedSearch.Status.FOUND);
+        assertThat(listener.resultOf("fast").getRows()).containsExactly("ABC1", "ABC2");
+        assertThat(listener.resultOf("slow").getStatus()).isEqualTo(FederatedSearch.Status.TIMED_OUT);
+        assertThat(listener.resultOf("failing").getStatus()).isEqualTo(FederatedSearch.Status.FAILED);
+        /* the slow source is not reported twice, once it has timed out */
+        Thread.sleep(100);
+        assertThat(listener.results).hasSize(3);
+    }
+
+    @Test
+    public void newSearchDropsResultsOfPreviousOne() throws Exception {
+        CollectingListener listener = new CollectingListener(1);
+        SwingUtilities.invokeAndWait(() -> {
+            FederatedSearch search = new FederatedSearch(0, 5000, listener);
+            search.addSource("echo", text -> {
+                if (text.equals("old")) {
+                    slowQuery(text);
+                }
+                return Collections.singletonList(text);
+            }, row -> row);
+            search.searchNow("old");
+            search.searchNow("new");
+        });
+
+        assertThat(listener.done.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        assertThat(listener.results).hasSize(1);
+        assertThat(listener.results.get(0).getRows()).containsExactly("new");
+    }
+}
@@ -0,0 +1,164 @@
+import backend.*;
+import common.DBUtils;
+import common.InstrumentedDataSource;
+import common.QueryStatistics;
+import common.SlowQueryLog;
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class InstrumentedDataSource
+ *
+ * @author agent agent@local
+ */
+public class InstrumentedDataSourceTest {
+    private InstrumentedDataSource dataSource;
+
+    private static DataSource getDataSource() {
+        EmbeddedDataSource source = new EmbeddedDataSource();
+        source.setDatabaseName("memory:PropertyEvidenceDB");
+        source.setCreateDatabase("create");
+        return source;
+    }
+
+    @Before
+    public void setUp() throws SQLException {
+        DataSource source = getDataSource();
+        DBUtils.executeSqlScript(source, ContractManager.class.getClassLoader().getResource("createContractTable.sql"));
+        DBUtils.executeSqlScript(source, ContractManager.class.getClassLoader().getResource("createClientTable.sql"));
+        DBUtils.executeSqlScript(source, ContractManager.class.getClassLoader().getResource("createPropertyTable.sql"));
+        dataSource = new InstrumentedDataSource(source, 1);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        DBUtils.executeSqlScript(dataSource, ContractManager.class.getClassLoader().getResource("dropContractTable.sql"));
+        DBUtils.executeSqlScript(dataSource, ContractManager.class.getClassLoader().getResource("dropClientTable.sql"));
+        DBUtils.executeSqlScript(dataSource, ContractManager.class.getClassLoader().getResource("dropPropertyTable.sql"));
+    }
+
+    private Contract createContract(String name, String address) {
+        Client client = new ClientBuilder()
+                .fullName(name)
+                .phoneNumber("+420915111999")
+                .buildClient();
+        new ClientManagerImpl(dataSource).createClient(client);
+
+        Property property = new PropertyBuilder()
+                .price(new BigDecimal("100000.00"))
+                .area(new BigDecimal("70.00"))
+                .address(address)
+                .type(PropertyType.TWO_ROOM_FLAT)
+                .buildProperty();
+        new PropertyManagerImpl(dataSource).createProperty(property);
+
+        Contract contract = new ContractBuilder()
+                .client(client)
+                .property(property)
+                .dateOfSigning(LocalDate.parse("2018-01-01"))
+                .buildContract();
+        new ContractManagerImpl(dataSource).createContract(contract);
+        return contract;
+    }
+
+    @Test
+    public void shapeReplacesLiteralsAndWhitespace() {
+        assertThat(QueryStatistics.shapeOf("select *  from CLIENT\n where id = 42 and fullname = 'O''Neil'"))
+                .isEqualTo("SELECT * FROM CLIENT WHERE ID = ? AND FULLNAME = ?");
+        assertThat(QueryStatistics.shapeOf("SELECT * FROM CLIENT2 WHERE id = ?"))
+                .isEqualTo("SELECT * FROM CLIENT2 WHERE ID = ?");
+    }
+
+    @Test
+    public void recordsExecutionsAndRows() {
+        createContract("John Doe", "Hybe");
+        createContract("Jane Doe", "Botanicka");
+        dataSource.getStatistics().reset();
+
+        new ClientManagerImpl(dataSource).getClients();
+
+        QueryStatistics statistics = dataSource.getStatistics();
+        assertThat(statistics.getConnectionsOpened()).isEqualTo(1L);
+        assertThat(statistics.getStatementsExecuted()).isEqualTo(1L);
+        QueryStatistics.ShapeStatistics shape = statistics.getShapes().get("SELECT * FROM CLIENT");
+        assertThat(shape.getExecutions()).isEqualTo(1L);
+        assertThat(shape.getRowsFetched()).isEqualTo(2L);
+        assertThat(shape.getRepeatedInOperation()).isEqualTo(0L);
+    }
+
+    @Test
+    public void recordsRowsOfResultSetReadAfterExecute() throws SQLException {
+        createContract("John Doe", "Hybe");
+        createContract("Jane Doe", "Botanicka");
+        dataSource.getStatistics().reset();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            assertThat(statement.execute("SELECT * FROM CLIENT")).isTrue();
+            try (ResultSet resultSet = statement.getResultSet()) {
+                while (resultSet.next()) {
+                    resultSet.getString("fullname");
+                }
+            }
+        }
+
+        QueryStatistics.ShapeStatistics shape = dataSource.getStatistics().getShapes().get("SELECT * FROM CLIENT");
+        assertThat(shape.getExecutions()).isEqualTo(1L);
+        assertThat(shape.getRowsFetched()).isEqualTo(2L);
+    }
+
+    @Test
+    public void recordsRowsOfGeneratedKeys() {
+        dataSource.getStatistics().reset();
+
+        new ClientManagerImpl(dataSource).createClient(new ClientBuilder()
+                .fullName("John Doe")
+                .phoneNumber("+420915111999")
+                .buildClient());
+
+        QueryStatistics.ShapeStatistics shape = dataSource.getStatistics().getShapes()
+                .get("INSERT INTO CLIENT (FULLNAME, PHONE) VALUES (?,?)");
+        assertThat(shape.getExecutions()).isEqualTo(1L);
+        assertThat(shape.getRowsFetched()).isEqualTo(1L);
+    }
+
+    @Test
+    public void flagsLookupsRepeatedPerRow() {
+        createContract("John Doe", "Hybe");
+        createContract("Jane Doe", "Botanicka");
+        dataSource.getStatistics().reset();
+
+        new ContractManagerImpl(dataSource).getAllContracts();
+
+        QueryStatistics statistics = dataSource.getStatistics();
+        assertThat(statistics.getShapes().get("SELECT * FROM CLIENT WHERE ID = ?").getRepeatedInOperation())
+                .isEqualTo(1L);
+        assertThat(statistics.getShapes().get("SELECT * FROM CONTRACT").getRepeatedInOperation())
+                .isEqualTo(0L);
+    }
+
+    @Test
+    public void slowQueryLogMasksPhoneNumbers() {
+        assertThat(SlowQueryLog.maskParameters(Arrays.asList("John Doe", "+420915111999", 42L, null)))
+                .containsExactly("'John Doe'", "'+*********999'", "42", "null");
+    }
+
+    @Test
+    public void slowQueryLogMasksPhoneNumbersWithSeparators() {
+        assertThat(SlowQueryLog.maskParameters(Arrays.asList("+421 915|111 999", "0915-111-999", "%0915111%", "D-1")))
+                .containsExactly("'+*** ***|*** 999'", "'****-***-999'", "'%****111%'", "'D-1'");
+    }
+}
@@ -0,0 +1,89 @@
+import frontend.LocalFilter;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class LocalFilter
+ *
+ * @author agent agent@local
+ */
+public class LocalFilterTest {
+    private DefaultTableModel model;
+    private JTable table;
+    private LocalFilter filter;
+
+    @Before
+    public void setUp() {
+        model = new DefaultTableModel(new Object[]{"Id", "Name", "Price"}, 0);
+        model.addRow(new Object[]{1L, "Jack Daniels", new BigDecimal("1000")});
+        model.addRow(new Object[]{2L, "John Doe", new BigDecimal("5000")});
+        model.addRow(new Object[]{3L, "Jane JACKSON", new BigDecimal("9000")});
+        table = new JTable(model);
+        filter = new LocalFilter(table, 1);
+        filter.install();
+    }
+
+    @Test
+    public void filterTextIgnoresCase() {
+        filter.filterText("jack");
+
+        assertThat(table.getRowCount()).isEqualTo(2);
+        assertThat(table.getValueAt(0, 0)).isEqualTo(1L);
+        assertThat(table.getValueAt(1, 0)).isEqualTo(3L);
+    }
+
+    @Test
+    public void emptyTextDisplaysAllRows() {
+        filter.filterText("jack");
+        filter.filterText("  ");
+
+        assertThat(table.getRowCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void filterByColumnValue() {
+        filter.filter(2, value -> ((BigDecimal) value).compareTo(new BigDecimal("4000")) > 0);
+
+        assertThat(table.getRowCount()).isEqualTo(2);
+        assertThat(table.getValueAt(0, 0)).isEqualTo(2L);
+    }
+
+    @Test
+    public void filterFollowsChangesOfModel() {
+        filter.filterText("doe");
+        model.addRow(new Object[]{4L, "Richard Roe", new BigDecimal("100")});
+        model.addRow(new Object[]{5L, "Jimmy Doe", new BigDecimal("100")});
+        model.setValueAt("John Smith", 1, 1);
+        model.removeRow(0);
+
+        assertThat(table.getRowCount()).isEqualTo(1);
+        assertThat(table.getValueAt(0, 0)).isEqualTo(5L);
+    }
+
+    @Test
+    public void filterLargeTable() {
+        for (int i = 0; i < 10000; i++) {
+            model.addRow(new Object[]{10L + i, "Client " + i, BigDecimal.ONE});
+        }
+
+        filter.filterText("client 99");
+
+        /* Client 99 and Client 990 to Client 999, and Client 9900 to Client 9999 */
+        assertThat(table.getRowCount()).isEqualTo(111);
+    }
+
+    @Test
+    public void uninstalledFilterDisplaysAllRows() {
+        filter.filterText("jack");
+        filter.uninstall();
+
+        assertThat(filter.isInstalled()).isFalse();
+        assertThat(table.getRowCount()).isEqualTo(3);
+    }
+}
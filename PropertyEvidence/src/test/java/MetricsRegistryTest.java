@@ -0,0 +1,79 @@
+import common.MetricsRegistry;
+import common.events.ManagerOperationEvent;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class MetricsRegistry
+ *
+ * @author agent agent@local
+ */
+public class MetricsRegistryTest {
+    private final MetricsRegistry metrics = MetricsRegistry.global();
+
+    @After
+    public void tearDown() {
+        metrics.setEnabled(false);
+    }
+
+    @Test
+    public void disabledRegistryRecordsNothing() {
+        ManagerOperationEvent.begin("Client", "getClients").finish();
+        metrics.cache("test").hit();
+
+        metrics.setEnabled(true);
+
+        assertThat(metrics.getLastCall()).isNull();
+        assertThat(metrics.cache("test").getHits()).isZero();
+    }
+
+    @Test
+    public void managerCallIsRecorded() {
+        metrics.setEnabled(true);
+        ManagerOperationEvent event = ManagerOperationEvent.begin("Client", "findClientsByName");
+        event.setRowCount(42);
+        event.finish();
+
+        MetricsRegistry.Call call = metrics.getLastCall();
+        assertThat(call.getEntityType()).isEqualTo("Client");
+        assertThat(call.getOperation()).isEqualTo("findClientsByName");
+        assertThat(call.getRowCount()).isEqualTo(42);
+        assertThat(call.getNanos()).isPositive();
+    }
+
+    @Test
+    public void cacheHitRate() {
+        metrics.setEnabled(true);
+        MetricsRegistry.CacheCounter cache = metrics.cache("test");
+        cache.hit();
+        cache.hit();
+        cache.hit();
+        cache.miss();
+
+        assertThat(cache.getHitRate()).isEqualTo(0.75);
+        assertThat(metrics.getCaches()).containsKey("test");
+    }
+
+    @Test
+    public void enablingResetsMetrics() {
+        metrics.setEnabled(true);
+        metrics.cache("test").miss();
+        metrics.recordCall("Property", "getAllProperties", 1000, 1);
+        metrics.setEnabled(false);
+
+        metrics.setEnabled(true);
+
+        assertThat(metrics.getLastCall()).isNull();
+        assertThat(Double.isNaN(metrics.cache("test").getHitRate())).isTrue();
+    }
+
+    @Test
+    public void unpooledDataSourceHasNoConnections() {
+        MetricsRegistry registry = new MetricsRegistry();
+
+        assertThat(registry.getActiveConnections()).isEqualTo(-1);
+        assertThat(registry.getMaxConnections()).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,270 @@
+import common.DatabaseFaultException;
+import frontend.PagedComboBoxModel;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class PagedComboBoxModel
+ *
+ * @author agent agent@local
+ */
+public class PagedComboBoxModelTest {
+    private static final int PAGE_SIZE = 5;
+
+    /**
+     * Source of items "item0", "item1", ... recording the requested pages, optionally failing
+     */
+    private static class CountingSource implements PagedComboBoxModel.Source<String> {
+        private final List<String> rows = new ArrayList<>();
+        private final List<String> pages = new CopyOnWriteArrayList<>();
+        private final AtomicInteger counts = new AtomicInteger();
+        private volatile boolean failingFind;
+        private volatile boolean failingCount;
+
+        private CountingSource(int size) {
+            for (int i = 0; i < size; i++) {
+                rows.add("item" + i);
+            }
+        }
+
+        @Override
+        public int count(String query) {
+            counts.incrementAndGet();
+            if (failingCount) {
+                throw new DatabaseFaultException("Error occurred while counting clients in database");
+            }
+            return matching(query).size();
+        }
+
+        @Override
+        public List<String> find(String query, int offset, int limit) {
+            pages.add(offset + "+" + limit);
+            if (failingFind) {
+                throw new DatabaseFaultException("Error occurred while retrieving clients from database");
+            }
+            List<String> matching = matching(query);
+            return new ArrayList<>(matching.subList(Math.min(offset, matching.size()),
+                    Math.min(offset + limit, matching.size())));
+        }
+
+        private List<String> matching(String query) {
+            List<String> matching = new ArrayList<>();
+            for (String row : rows) {
+                if (row.contains(query)) {
+                    matching.add(row);
+                }
+            }
+            return matching;
+        }
+    }
+
+    private static <V> V onEdt(Callable<V> action) throws Exception {
+        List<V> result = new ArrayList<>();
+        List<Exception> failure = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                result.add(action.call());
+            } catch (Exception ex) {
+                failure.add(ex);
+            }
+        });
+        if (!failure.isEmpty()) {
+            throw failure.get(0);
+        }
+        return result.get(0);
+    }
+
+    /**
+     * Waits until the condition checked on the event dispatch thread holds, i.e. the background workers are done
+     */
+    private static void await(BooleanSupplier condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!onEdt(condition::getAsBoolean)) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static Object selected(PagedComboBoxModel<String> model) throws Exception {
+        return onEdt(model::getSelectedItem);
+    }
+
+    @Test
+    public void firstPageProbesOneExtraRow() throws Exception {
+        CountingSource source = new CountingSource(12);
+        PagedComboBoxModel<String> model = onEdt(() -> new PagedComboBoxModel<>(source, PAGE_SIZE));
+
+        onEdt(() -> {
+            model.search("item");
+            return null;
+        });
+        await(() -> model.getTotalCount() >= 0);
+
+        int size = onEdt(model::getSize);
+        boolean hasMore = onEdt(model::hasMore);
+        int totalCount = onEdt(model::getTotalCount);
+        assertThat(source.pages).containsExactly("0+" + (PAGE_SIZE + 1));
+        assertThat(size).isEqualTo(PAGE_SIZE);
+        assertThat(hasMore).isTrue();
+        assertThat(totalCount).isEqualTo(12);
+        assertThat(source.counts.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void lastPageIsNotCounted() throws Exception {
+        CountingSource source = new CountingSource(3);
+        PagedComboBoxModel<String> model = onEdt(() -> new PagedComboBoxModel<>(source, PAGE_SIZE));
+
+        onEdt(() -> {
+            model.search("item");
+            return null;
+        });
+        await(() -> model.getTotalCount() >= 0);
+
+        int size = onEdt(model::getSize);
+        boolean hasMore = onEdt(model::hasMore);
+        int totalCount = onEdt(model::getTotalCount);
+        assertThat(size).isEqualTo(3);
+        assertThat(hasMore).isFalse();
+        assertThat(totalCount).isEqualTo(3);
+        assertThat(source.counts.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void loadMoreAppendsNextPages() throws Exception {
+        CountingSource source = new CountingSource(12);
+        PagedComboBoxModel<String> model = onEdt(() -> new PagedComboBoxModel<>(source, PAGE_SIZE));
+        onEdt(() -> {
+            model.search("item");
+            return null;
+        });
+        await(() -> model.getSize() == PAGE_SIZE);
+
+        onEdt(() -> {
+            model.loadMore();
+            /* a page is being loaded, so the second request is ignored */
+            model.loadMore();
+            return null;
+        });
+        await(() -> model.getSize() == 2 * PAGE_SIZE);
+        onEdt(() -> {
+            model.loadMore();
+            return null;
+        });
+        await(() -> model.getSize() == 12);
+
+        String last = onEdt(() -> model.getElementAt(11));
+        boolean hasMore = onEdt(model::hasMore);
+        assertThat(source.pages).containsExactly("0+6", "5+6", "10+6");
+        assertThat(last).isEqualTo("item11");
+        assertThat(hasMore).isFalse();
+
+        onEdt(() -> {
+            model.loadMore();
+            return null;
+        });
+        assertThat(source.pages).hasSize(3);
+    }
+
+    @Test
+    public void selectionNotLoadedIsKept() throws Exception {
+        CountingSource source = new CountingSource(12);
+        PagedComboBoxModel<String> model = onEdt(() -> new PagedComboBoxModel<>(source, PAGE_SIZE));
+
+        onEdt(() -> {
+            /* e.g. client of an edited contract, which is not on the first page */
+            model.setSelectedItem("item11");
+            model.search("item");
+            return null;
+        });
+        await(() -> model.getSize() == PAGE_SIZE);
+
+        assertThat(selected(model)).isEqualTo("item11");
+
+        onEdt(() -> {
+            model.search("item1");
+            return null;
+        });
+        await(() -> model.getSize() == 3);
+
+        assertThat(selected(model)).isEqualTo("item11");
+
+        onEdt(() -> {
+            model.search("item2");
+            return null;
+        });
+        await(() -> model.getSize() == 1);
+
+        assertThat(selected(model)).isEqualTo("item2");
+    }
+
+    @Test
+    public void failedPageKeepsItemsAndIsReportedOnce() throws Exception {
+        CountingSource source = new CountingSource(12);
+        List<String> failures = new CopyOnWriteArrayList<>();
+        PagedComboBoxModel<String> model = onEdt(() -> {
+            PagedComboBoxModel<String> created = new PagedComboBoxModel<>(source, PAGE_SIZE);
+            created.setFailureHandler(cause -> failures.add(cause.getMessage()));
+            created.search("item");
+            return created;
+        });
+        await(() -> model.getSize() == PAGE_SIZE);
+        onEdt(() -> {
+            model.setSelectedItem("item3");
+            return null;
+        });
+
+        source.failingFind = true;
+        onEdt(() -> {
+            model.search("item1");
+            return null;
+        });
+        await(() -> !failures.isEmpty());
+        onEdt(() -> {
+            /* no further page of the failed search is requested */
+            model.loadMore();
+            return null;
+        });
+        Thread.sleep(100);
+
+        int size = onEdt(model::getSize);
+        boolean hasMore = onEdt(model::hasMore);
+        assertThat(size).isEqualTo(PAGE_SIZE);
+        assertThat(selected(model)).isEqualTo("item3");
+        assertThat(hasMore).isFalse();
+        assertThat(source.pages).containsExactly("0+6", "0+6");
+        assertThat(failures).containsExactly("Error occurred while retrieving clients from database");
+    }
+
+    @Test
+    public void failedCountIsReported() throws Exception {
+        CountingSource source = new CountingSource(12);
+        source.failingCount = true;
+        List<String> failures = new CopyOnWriteArrayList<>();
+        PagedComboBoxModel<String> model = onEdt(() -> {
+            PagedComboBoxModel<String> created = new PagedComboBoxModel<>(source, PAGE_SIZE);
+            created.setFailureHandler(cause -> failures.add(cause.getMessage()));
+            created.search("item");
+            return created;
+        });
+        await(() -> !failures.isEmpty());
+
+        int size = onEdt(model::getSize);
+        int totalCount = onEdt(model::getTotalCount);
+        assertThat(size).isEqualTo(PAGE_SIZE);
+        assertThat(totalCount).isEqualTo(-1);
+        assertThat(failures).containsExactly("Error occurred while counting clients in database");
+    }
+}
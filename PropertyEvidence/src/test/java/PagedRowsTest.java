@@ -0,0 +1,281 @@
+import common.DatabaseFaultException;
+import frontend.PagedRows;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class PagedRows
+ *
+ * @author agent agent@local
+ */
+public class PagedRowsTest {
+    private static final int ROW_COUNT = 100;
+    private static final int PAGE_SIZE = 10;
+
+    /**
+     * Loader of rows 0, 1, ... recording offsets of the loaded pages, optionally blocked until released
+     */
+    private static class CountingLoader implements PagedRows.PageLoader<Integer> {
+        private final List<Integer> offsets = new CopyOnWriteArrayList<>();
+        private final CountDownLatch release;
+        private final CountDownLatch loaded = new CountDownLatch(1);
+
+        private CountingLoader(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public List<Integer> load(int offset, int limit) {
+            offsets.add(offset);
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            List<Integer> rows = new ArrayList<>();
+            for (int row = offset; row < Math.min(offset + limit, ROW_COUNT); row++) {
+                rows.add(row);
+            }
+            loaded.countDown();
+            return rows;
+        }
+
+        private List<Integer> sortedOffsets(int from) {
+            List<Integer> sorted = new ArrayList<>(offsets.subList(from, offsets.size()));
+            Collections.sort(sorted);
+            return sorted;
+        }
+    }
+
+    private static <V> V onEdt(Callable<V> action) throws Exception {
+        List<V> result = new ArrayList<>();
+        List<Exception> failure = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                result.add(action.call());
+            } catch (Exception ex) {
+                failure.add(ex);
+            }
+        });
+        if (!failure.isEmpty()) {
+            throw failure.get(0);
+        }
+        return result.get(0);
+    }
+
+    /**
+     * Waits until the condition checked on the event dispatch thread holds, i.e. the background workers are done
+     */
+    private static void await(BooleanSupplier condition) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!onEdt(condition::getAsBoolean)) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static PagedRows<Integer> refreshed(CountingLoader loader, int maxPages, int prefetchPages) throws Exception {
+        PagedRows<Integer> rows = onEdt(() -> {
+            PagedRows<Integer> created = new PagedRows<>(() -> ROW_COUNT, loader, PAGE_SIZE, maxPages, prefetchPages);
+            created.refresh();
+            return created;
+        });
+        await(() -> rows.getRowCount() == ROW_COUNT);
+        return rows;
+    }
+
+    /**
+     * Returns indexes of the loaded pages in ascending order, must be called on the event dispatch thread
+     */
+    private static List<Integer> loadedPages(PagedRows<Integer> rows) {
+        TreeSet<Integer> pages = new TreeSet<>();
+        rows.forEachLoaded((row, index) -> pages.add(index / PAGE_SIZE));
+        return new ArrayList<>(pages);
+    }
+
+    @Test
+    public void leastRecentlyUsedPageIsEvicted() throws Exception {
+        CountingLoader loader = new CountingLoader(null);
+        PagedRows<Integer> rows = refreshed(loader, 3, 0);
+
+        for (int row : new int[]{0, 10, 20}) {
+            await(() -> rows.get(row) != null);
+        }
+        /* page 0 is used again, so page 1 is the least recently used one */
+        Integer used = onEdt(() -> rows.get(5));
+        await(() -> rows.get(30) != null);
+
+        List<Integer> pages = onEdt(() -> loadedPages(rows));
+        assertThat(used).isEqualTo(5);
+        assertThat(pages).containsExactly(0, 2, 3);
+        assertThat(loader.offsets).containsExactly(0, 10, 20, 30);
+
+        await(() -> rows.get(10) != null);
+
+        assertThat(loader.offsets).containsExactly(0, 10, 20, 30, 10);
+    }
+
+    @Test
+    public void pagesAreFetchedInScrollDirection() throws Exception {
+        CountingLoader loader = new CountingLoader(null);
+        PagedRows<Integer> rows = refreshed(loader, 8, 2);
+
+        /* scrolling down from the first page */
+        onEdt(() -> rows.get(50));
+        await(() -> loadedPages(rows).size() == 3);
+
+        assertThat(loader.sortedOffsets(0)).containsExactly(50, 60, 70);
+
+        /* scrolling up */
+        onEdt(() -> rows.get(40));
+        await(() -> loadedPages(rows).size() == 6);
+
+        List<Integer> pages = onEdt(() -> loadedPages(rows));
+        assertThat(loader.sortedOffsets(3)).containsExactly(20, 30, 40);
+        assertThat(pages).containsExactly(2, 3, 4, 5, 6, 7);
+    }
+
+    @Test
+    public void pageLoadedBeforeRefreshIsIgnored() throws Exception {
+        assertStalePageIgnored(PagedRows::refresh);
+    }
+
+    @Test
+    public void pageLoadedBeforeAppendIsIgnored() throws Exception {
+        assertStalePageIgnored(rows -> rows.append(ROW_COUNT));
+    }
+
+    @Test
+    public void pageLoadedBeforeRemoveIsIgnored() throws Exception {
+        assertStalePageIgnored(rows -> rows.remove(5));
+    }
+
+    /**
+     * Listener recording failures instead of showing them
+     */
+    private static class FailureListener implements PagedRows.Listener {
+        private final List<String> failures = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void rowCountChanged() {
+        }
+
+        @Override
+        public void rowsLoaded(int firstRow, int lastRow) {
+        }
+
+        @Override
+        public void loadFailed(Throwable cause) {
+            failures.add(cause.getMessage());
+        }
+    }
+
+    @Test
+    public void failedPageIsReportedOnceAndNotLoadedAgain() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger failingLoads = new AtomicInteger(1);
+        FailureListener listener = new FailureListener();
+        PagedRows<Integer> rows = onEdt(() -> {
+            PagedRows<Integer> created = new PagedRows<>(() -> ROW_COUNT, (offset, limit) -> {
+                loads.incrementAndGet();
+                if (failingLoads.getAndDecrement() > 0) {
+                    throw new DatabaseFaultException("Error occurred while retrieving rows from database");
+                }
+                return Collections.singletonList(offset);
+            }, PAGE_SIZE, 8, 0);
+            created.setListener(listener);
+            created.refresh();
+            return created;
+        });
+        await(() -> rows.getRowCount() == ROW_COUNT);
+
+        onEdt(() -> rows.get(0));
+        await(() -> !listener.failures.isEmpty());
+        for (int i = 0; i < 5; i++) {
+            onEdt(() -> rows.get(0));
+        }
+        Thread.sleep(100);
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(listener.failures).containsExactly("Error occurred while retrieving rows from database");
+
+        /* refresh loads the page again */
+        onEdt(() -> {
+            rows.refresh();
+            return null;
+        });
+        await(() -> rows.get(0) != null);
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(listener.failures).hasSize(1);
+    }
+
+    @Test
+    public void failedCountIsReported() throws Exception {
+        FailureListener listener = new FailureListener();
+        onEdt(() -> {
+            PagedRows<Integer> rows = new PagedRows<>(() -> {
+                throw new DatabaseFaultException("Error occurred while counting rows in database");
+            }, new CountingLoader(null), PAGE_SIZE, 8, 0);
+            rows.setListener(listener);
+            rows.refresh();
+            return null;
+        });
+        await(() -> !listener.failures.isEmpty());
+
+        assertThat(listener.failures).containsExactly("Error occurred while counting rows in database");
+    }
+
+    /**
+     * Changes the rows while their first page is being loaded and checks that the page is not applied
+     */
+    private static void assertStalePageIgnored(Consumer<PagedRows<Integer>> change) throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountingLoader loader = new CountingLoader(release);
+        PagedRows<Integer> rows = refreshed(loader, 8, 0);
+        List<String> loadedRows = new CopyOnWriteArrayList<>();
+        onEdt(() -> {
+            rows.setListener(new PagedRows.Listener() {
+                @Override
+                public void rowCountChanged() {
+                }
+
+                @Override
+                public void rowsLoaded(int firstRow, int lastRow) {
+                    loadedRows.add(firstRow + "-" + lastRow);
+                }
+            });
+            return rows.get(0);
+        });
+
+        onEdt(() -> {
+            change.accept(rows);
+            return null;
+        });
+        release.countDown();
+        assertThat(loader.loaded.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+
+        List<Integer> pages = onEdt(() -> loadedPages(rows));
+        assertThat(pages).isEmpty();
+        assertThat(loadedRows).isEmpty();
+    }
+}
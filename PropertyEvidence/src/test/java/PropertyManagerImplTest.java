@@ -2,9 +2,14 @@ import backend.Property;
 import backend.PropertyManager;
 import backend.PropertyManagerImpl;
 import backend.PropertyType;
+import backend.RowEdit;
+import backend.UpdateConflict;
 import common.IllegalEntityException;
+import common.InstrumentedDataSource;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.After;
@@ -28,11 +33,11 @@ import static org.assertj.core.api.Assertions.*;
  */
 public class PropertyManagerImplTest {
     private PropertyManager manager;
-    private DataSource dataSource;
+    private InstrumentedDataSource dataSource;
 
     @Before
     public void setUp() throws SQLException {
-        dataSource = getDataSource();
+        dataSource = new InstrumentedDataSource(getDataSource(), 5);
         DBUtils.executeSqlScript(dataSource, PropertyManager.class.getClassLoader().getResource("createPropertyTable.sql"));
         manager = new PropertyManagerImpl(dataSource);
     }
@@ -236,6 +241,33 @@ public class PropertyManagerImplTest {
     }
 
 
+    /* Paged listing tests */
+
+
+    @Test
+    public void countPropertiesEmptyDatabase() {
+        assertThat(manager.countProperties()).isZero();
+    }
+
+
+    @Test
+    public void getPropertiesPagesCoverAllProperties() {
+        createProperties(5);
+        List<Property> all = manager.getAllProperties();
+        all.sort((first, second) -> first.getId().compareTo(second.getId()));
+
+        assertThat(manager.countProperties()).isEqualTo(5);
+        assertThat(manager.getProperties(0, 3)).containsExactly(all.get(0), all.get(1), all.get(2));
+        assertThat(manager.getProperties(3, 3)).containsExactly(all.get(3), all.get(4));
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getPropertiesNegativeOffset() {
+        manager.getProperties(-1, 10);
+    }
+
+
     /* Find operations tests */
 
 
@@ -288,6 +320,27 @@ public class PropertyManagerImplTest {
     }
 
 
+    @Test
+    public void findByAddressPagesCoverMatchingProperties() {
+        for (int i = 0; i < 3; i++) {
+            manager.createProperty(testingPropertyBuilder().buildProperty());
+            manager.createProperty(anotherTestingPropertyBuilder().buildProperty());
+        }
+        List<Property> matching = manager.findPropertyByAddress("leluchov");
+        matching.sort((first, second) -> first.getId().compareTo(second.getId()));
+
+        assertThat(manager.countPropertiesByAddress("leluchov")).isEqualTo(3);
+        assertThat(manager.findPropertyByAddress("leluchov", 0, 2)).containsExactly(matching.get(0), matching.get(1));
+        assertThat(manager.findPropertyByAddress("leluchov", 2, 2)).containsExactly(matching.get(2));
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void findByAddressPageNegativeOffset() {
+        manager.findPropertyByAddress("Leluchov", -1, 10);
+    }
+
+
     @Test
     public void findByPriceExisting() {
         Property property = testingPropertyBuilder().buildProperty();
@@ -403,6 +456,67 @@ public class PropertyManagerImplTest {
     }
 
 
+    /* Update of more properties operation tests */
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void updateNullProperties() {
+        manager.updateProperties(null);
+    }
+
+
+    @Test
+    public void updateMoreProperties() {
+        Property first = testingPropertyBuilder().buildProperty();
+        Property second = anotherTestingPropertyBuilder().buildProperty();
+        manager.createProperty(first);
+        manager.createProperty(second);
+
+        List<UpdateConflict<Property>> conflicts = manager.updateProperties(Arrays.asList(
+                new RowEdit<>(first, testingPropertyBuilder().id(first.getId()).address("Bardejov").buildProperty()),
+                new RowEdit<>(second, anotherTestingPropertyBuilder().id(second.getId())
+                        .price(new BigDecimal("1000000.00")).buildProperty())));
+
+        assertThat(conflicts).isEmpty();
+        assertThat(manager.getPropertyById(first.getId()).getAddress()).isEqualTo("Bardejov");
+        assertThat(manager.getPropertyById(second.getId()).getPrice()).isEqualTo(new BigDecimal("1000000.00"));
+    }
+
+
+    @Test
+    public void updateMorePropertiesReportsChangedAndDeletedProperties() {
+        Property changed = testingPropertyBuilder().buildProperty();
+        Property deleted = anotherTestingPropertyBuilder().buildProperty();
+        Property untouched = testingPropertyBuilder().address("Bardejov").buildProperty();
+        manager.createProperty(changed);
+        manager.createProperty(deleted);
+        manager.createProperty(untouched);
+        manager.updateProperty(testingPropertyBuilder().id(changed.getId()).address("Stara Lubovna").buildProperty());
+        manager.deleteProperty(anotherTestingPropertyBuilder().id(deleted.getId()).buildProperty());
+
+        List<UpdateConflict<Property>> conflicts = manager.updateProperties(Arrays.asList(
+                new RowEdit<>(changed, testingPropertyBuilder().id(changed.getId()).address("Presov").buildProperty()),
+                new RowEdit<>(deleted, anotherTestingPropertyBuilder().id(deleted.getId()).address("Presov").buildProperty()),
+                new RowEdit<>(untouched, testingPropertyBuilder().id(untouched.getId()).address("Kosice").buildProperty())));
+
+        assertThat(conflicts).hasSize(2);
+        assertThat(conflicts.get(0).isDeleted()).isFalse();
+        assertThat(conflicts.get(0).getCurrent().getAddress()).isEqualTo("Stara Lubovna");
+        assertThat(conflicts.get(1).isDeleted()).isTrue();
+        assertThat(manager.getPropertyById(changed.getId()).getAddress()).isEqualTo("Stara Lubovna");
+        assertThat(manager.getPropertyById(untouched.getId()).getAddress()).isEqualTo("Kosice");
+    }
+
+
+    @Test(expected = IllegalEntityException.class)
+    public void updateMorePropertiesWithInvalidProperty() {
+        Property property = testingPropertyBuilder().buildProperty();
+        manager.createProperty(property);
+        manager.updateProperties(Arrays.asList(new RowEdit<>(property,
+                testingPropertyBuilder().id(property.getId()).area(new BigDecimal("-1")).buildProperty())));
+    }
+
+
     /* Get all properties operation tests */
 
     @Test
@@ -425,4 +539,51 @@ public class PropertyManagerImplTest {
     }
 
 
+    /* Query count tests */
+
+    private void createProperties(int count) {
+        for (int i = 0; i < count; i++) {
+            manager.createProperty(testingPropertyBuilder().buildProperty());
+        }
+    }
+
+
+    @Test
+    public void getAllPropertiesIssuesSingleQuery() {
+        createProperties(10);
+        QueryCountAssert.measure(dataSource, () -> manager.getAllProperties())
+                .issuedAtMostStatements(1)
+                .openedAtMostConnections(1);
+    }
+
+
+    @Test
+    public void findByAddressIssuesSingleQuery() {
+        createProperties(10);
+        QueryCountAssert.measure(dataSource, () -> manager.findPropertyByAddress("Leluchov"))
+                .issuedAtMostStatements(1)
+                .openedAtMostConnections(1);
+    }
+
+
+    @Test
+    public void findByPriceIssuesSingleQuery() {
+        createProperties(10);
+        QueryCountAssert.measure(dataSource, () -> manager.findPropertyByPrice(new BigDecimal("150000.00")))
+                .issuedAtMostStatements(1)
+                .openedAtMostConnections(1);
+    }
+
+
+    @Test
+    public void updatePropertiesIssuesSingleBatch() {
+        createProperties(10);
+        List<RowEdit<Property>> edits = new ArrayList<>();
+        for (Property property : manager.getAllProperties()) {
+            edits.add(new RowEdit<>(property, testingPropertyBuilder().id(property.getId()).address("Kosice").buildProperty()));
+        }
+        QueryCountAssert.measure(dataSource, () -> manager.updateProperties(edits))
+                .issuedAtMostStatements(1)
+                .openedAtMostConnections(1);
+    }
 }
@@ -0,0 +1,50 @@
+import common.InstrumentedDataSource;
+import common.QueryStatistics;
+
+/**
+ * Assertion helper checking how many statements and connections a call issued,
+ * measured on InstrumentedDataSource.
+ *
+ * Usage: QueryCountAssert.measure(dataSource, () -> manager.getClients()).issuedAtMostStatements(1);
+ *
+ * @author agent agent@local
+ */
+public class QueryCountAssert {
+    private final long statements;
+    private final long connections;
+
+    private QueryCountAssert(long statements, long connections) {
+        this.statements = statements;
+        this.connections = connections;
+    }
+
+    /**
+     * Runs the call and records statements and connections it issued
+     *
+     * @param dataSource instrumented data source used by the tested code
+     * @param call       call to measure
+     * @return assertion over the recorded counts
+     */
+    public static QueryCountAssert measure(InstrumentedDataSource dataSource, Runnable call) {
+        QueryStatistics statistics = dataSource.getStatistics();
+        long statementsBefore = statistics.getStatementsExecuted();
+        long connectionsBefore = statistics.getConnectionsOpened();
+        call.run();
+        return new QueryCountAssert(statistics.getStatementsExecuted() - statementsBefore,
+                statistics.getConnectionsOpened() - connectionsBefore);
+    }
+
+    public QueryCountAssert issuedAtMostStatements(long expected) {
+        if (statements > expected) {
+            throw new AssertionError("Expected at most " + expected + " statements, but " + statements + " were issued");
+        }
+        return this;
+    }
+
+    public QueryCountAssert openedAtMostConnections(long expected) {
+        if (connections > expected) {
+            throw new AssertionError("Expected at most " + expected + " connections, but " + connections + " were opened");
+        }
+        return this;
+    }
+}
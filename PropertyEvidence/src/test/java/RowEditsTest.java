@@ -0,0 +1,78 @@
+import backend.Client;
+import backend.RowEdit;
+import backend.UpdateConflict;
+import frontend.RowEdits;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class RowEdits
+ *
+ * @author agent agent@local
+ */
+public class RowEditsTest {
+    private RowEdits<Client> edits;
+    private Client loaded;
+
+    @Before
+    public void setUp() {
+        edits = new RowEdits<>(Client::getId,
+                client -> new ClientBuilder().id(client.getId()).fullName(client.getFullName())
+                        .phoneNumber(client.getPhoneNumber()).buildClient());
+        loaded = new ClientBuilder().id(1L).fullName("Name Surname").phoneNumber("+420915111999").buildClient();
+    }
+
+    @Test
+    public void editCopiesRowOnce() {
+        Client edited = edits.edit(loaded);
+        edited.setFullName("New Name");
+
+        assertThat(edited == loaded).isFalse();
+        assertThat(edits.edit(loaded)).isSameAs(edited);
+        assertThat(loaded.getFullName()).isEqualTo("Name Surname");
+        assertThat(edits.getEdits().get(0).getOriginal()).isSameAs(loaded);
+    }
+
+    @Test
+    public void displayedSurvivesReload() {
+        Client edited = edits.edit(loaded);
+        Client reloaded = new ClientBuilder().id(1L).fullName("Name Surname").phoneNumber("+420915111999").buildClient();
+
+        assertThat(edits.displayed(reloaded)).isSameAs(edited);
+        assertThat(edits.isEdited(reloaded)).isTrue();
+    }
+
+    @Test
+    public void committedForgetsOnlySavedEdit() {
+        Client edited = edits.edit(loaded);
+        edits.committed(new ClientBuilder().id(1L).fullName("Other Name").phoneNumber("+420915111999").buildClient());
+        assertThat(edits.isEmpty()).isFalse();
+
+        edits.committed(edited);
+        assertThat(edits.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void rebaseKeepsEditedValues() {
+        Client edited = edits.edit(loaded);
+        edited.setFullName("My Name");
+        Client current = new ClientBuilder().id(1L).fullName("Their Name").phoneNumber("+420915111999").buildClient();
+
+        edits.rebase(new UpdateConflict<>(new RowEdit<>(loaded, edited), current));
+
+        RowEdit<Client> edit = edits.getEdits().get(0);
+        assertThat(edit.getOriginal()).isSameAs(current);
+        assertThat(edit.getEdited().getFullName()).isEqualTo("My Name");
+    }
+
+    @Test
+    public void discardReturnsOriginal() {
+        edits.edit(loaded);
+
+        assertThat(edits.discard(1L)).isSameAs(loaded);
+        assertThat(edits.discard(1L)).isNull();
+        assertThat(edits.isEmpty()).isTrue();
+    }
+}
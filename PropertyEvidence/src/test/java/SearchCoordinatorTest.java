@@ -0,0 +1,170 @@
+import common.CancellableDataSource;
+import common.DatabaseFaultException;
+import frontend.RowSink;
+import frontend.SearchCoordinator;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class SearchCoordinator
+ *
+ * @author agent agent@local
+ */
+public class SearchCoordinatorTest {
+
+    /**
+     * Table recording every change of its rows
+     */
+    private static class RecordingSink implements RowSink<String> {
+        private final List<String> calls = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void replaceAll(List<String> rows) {
+            calls.add("replace " + rows);
+        }
+
+        @Override
+        public void appendAll(List<String> rows) {
+            calls.add("append " + rows);
+        }
+
+        private void await(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (calls.size() < count) {
+                if (System.nanoTime() > deadline) {
+                    throw new AssertionError("table has not been changed " + count + " times: " + calls);
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    /**
+     * Waits for the latch even when the thread is interrupted, like a driver which cannot cancel its statement
+     */
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await(5, TimeUnit.SECONDS);
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void requestsAreDebounced() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        AtomicInteger runs = new AtomicInteger();
+        SwingUtilities.invokeAndWait(() -> {
+            SearchCoordinator<String> coordinator = new SearchCoordinator<>(100, sink);
+            for (String text : Arrays.asList("a", "ab", "abc")) {
+                coordinator.search(() -> {
+                    runs.incrementAndGet();
+                    return Collections.singletonList(text);
+                });
+            }
+        });
+
+        sink.await(1);
+        Thread.sleep(200);
+
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(sink.calls).containsExactly("replace [abc]");
+    }
+
+    @Test
+    public void newSearchCancelsStaleWorker() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        SearchCoordinator<String> coordinator = new SearchCoordinator<>(0, sink);
+        SwingUtilities.invokeAndWait(() -> coordinator.searchNow(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException ex) {
+                interrupted.set(true);
+            }
+            return Collections.singletonList("old");
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        SwingUtilities.invokeAndWait(() -> coordinator.searchNow(() -> Collections.singletonList("new")));
+        sink.await(1);
+        Thread.sleep(200);
+
+        assertThat(interrupted.get()).isTrue();
+        assertThat(sink.calls).containsExactly("replace [new]");
+    }
+
+    @Test
+    public void chunksAreAppended() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        SwingUtilities.invokeAndWait(() -> new SearchCoordinator<String>(0, sink).searchProgressively(publisher -> {
+            publisher.publish(Collections.singletonList("first"));
+            publisher.publish(Arrays.asList("second", "third"));
+        }));
+
+        sink.await(2);
+
+        assertThat(sink.calls).containsExactly("replace [first]", "append [second, third]");
+    }
+
+    @Test
+    public void chunksOfStaleSearchAreDropped() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        SearchCoordinator<String> coordinator = new SearchCoordinator<>(0, sink);
+        SwingUtilities.invokeAndWait(() -> coordinator.searchProgressively(publisher -> {
+            publisher.publish(Collections.singletonList("old1"));
+            awaitUninterruptibly(release);
+            publisher.publish(Collections.singletonList("old2"));
+            finished.countDown();
+        }));
+        sink.await(1);
+
+        SwingUtilities.invokeAndWait(() -> coordinator.searchNow(() -> Collections.singletonList("new")));
+        sink.await(2);
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(200);
+
+        assertThat(sink.calls).containsExactly("replace [old1]", "replace [new]");
+    }
+
+    @Test
+    public void cancelledStatementIsNotReported() throws Exception {
+        RecordingSink sink = new RecordingSink();
+        SearchCoordinator<String> coordinator = new SearchCoordinator<>(0, sink);
+        SwingUtilities.invokeAndWait(() -> coordinator.searchNow(() -> Collections.singletonList("found")));
+        sink.await(1);
+
+        SwingUtilities.invokeAndWait(() -> coordinator.searchNow(() -> {
+            throw new DatabaseFaultException("Error occurred while retrieving clients from database",
+                    new SQLException("Query cancelled", CancellableDataSource.CANCELLED_STATE));
+        }));
+        Thread.sleep(200);
+
+        /* the table is not cleared and no error is shown */
+        assertThat(sink.calls).containsExactly("replace [found]");
+    }
+}
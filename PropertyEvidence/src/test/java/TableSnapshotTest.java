@@ -0,0 +1,154 @@
+import backend.Client;
+import backend.Property;
+import backend.PropertyType;
+import frontend.SnapshotCodecs;
+import frontend.TableSnapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class TableSnapshot
+ *
+ * @author agent agent@local
+ */
+public class TableSnapshotTest {
+    private Path directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshots");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private List<Path> snapshotFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private static Client client(long id, String fullName, String phoneNumber) {
+        Client client = new ClientBuilder()
+                .fullName(fullName)
+                .phoneNumber(phoneNumber)
+                .buildClient();
+        client.setId(id);
+        return client;
+    }
+
+    @Test
+    public void savedClientsAreLoaded() {
+        TableSnapshot<Client> snapshot = new TableSnapshot<>(directory.resolve("clients.bin"), SnapshotCodecs.CLIENT);
+        snapshot.save(Arrays.asList(client(1L, "Jan Novák", "+420915111999"), client(2L, "John Doe", null)));
+
+        List<Client> loaded = snapshot.load();
+
+        assertThat(loaded).hasSize(2);
+        assertThat(loaded.get(0).getId()).isEqualTo(1L);
+        assertThat(loaded.get(0).getFullName()).isEqualTo("Jan Novák");
+        assertThat(loaded.get(0).getPhoneNumber()).isEqualTo("+420915111999");
+        assertThat(loaded.get(1).getPhoneNumber()).isNull();
+    }
+
+    @Test
+    public void savedPropertiesAreLoaded() {
+        TableSnapshot<Property> snapshot = new TableSnapshot<>(directory.resolve("properties.bin"), SnapshotCodecs.PROPERTY);
+        Property property = new PropertyBuilder()
+                .id(7L)
+                .address("Leluchov")
+                .area(new BigDecimal("165.00"))
+                .price(new BigDecimal("150000.00"))
+                .type(PropertyType.HUT)
+                .buildProperty();
+        snapshot.save(Arrays.asList(property));
+
+        List<Property> loaded = snapshot.load();
+
+        assertThat(loaded).hasSize(1);
+        assertThat(loaded.get(0)).isEqualTo(property);
+        assertThat(loaded.get(0).getPrice()).isEqualTo(new BigDecimal("150000.00"));
+    }
+
+    @Test
+    public void saveReplacesPreviousSnapshot() throws IOException {
+        TableSnapshot<Client> snapshot = new TableSnapshot<>(directory.resolve("clients.bin"), SnapshotCodecs.CLIENT);
+        snapshot.save(Arrays.asList(client(1L, "Jan Novák", "+420915111999"), client(2L, "John Doe", null)));
+        snapshot.save(Arrays.asList(client(3L, "Jack Daniels", null)));
+
+        assertThat(snapshot.load()).hasSize(1);
+        assertThat(snapshotFiles()).hasSize(1);
+    }
+
+    @Test
+    public void saveAfterLoadReplacesSnapshot() throws IOException {
+        TableSnapshot<Client> snapshot = new TableSnapshot<>(directory.resolve("clients.bin"), SnapshotCodecs.CLIENT);
+        snapshot.save(Arrays.asList(client(1L, "Jan Novák", "+420915111999")));
+        assertThat(snapshot.load()).hasSize(1);
+
+        snapshot.save(Arrays.asList(client(2L, "John Doe", null), client(3L, "Jack Daniels", null)));
+
+        List<Client> loaded = snapshot.load();
+        assertThat(loaded).hasSize(2);
+        assertThat(loaded.get(0).getId()).isEqualTo(2L);
+    }
+
+    @Test
+    public void missingSnapshotIsEmpty() {
+        TableSnapshot<Client> snapshot = new TableSnapshot<>(directory.resolve("clients.bin"), SnapshotCodecs.CLIENT);
+
+        assertThat(snapshot.load()).isEmpty();
+    }
+
+    @Test
+    public void damagedSnapshotIsEmpty() throws IOException {
+        TableSnapshot<Client> snapshot = new TableSnapshot<>(directory.resolve("clients.bin"), SnapshotCodecs.CLIENT);
+        snapshot.save(Arrays.asList(client(1L, "Jan Novák", "+420915111999")));
+        Path file = snapshotFiles().get(0);
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 5));
+
+        assertThat(snapshot.load()).isEmpty();
+    }
+
+    @Test
+    public void snapshotWithDamagedLengthIsEmpty() throws IOException {
+        TableSnapshot<Client> snapshot = new TableSnapshot<>(directory.resolve("clients.bin"), SnapshotCodecs.CLIENT);
+        snapshot.save(Arrays.asList(client(1L, "Jan Novák", "+420915111999")));
+        Path file = snapshotFiles().get(0);
+        byte[] content = Files.readAllBytes(file);
+        /* length of the full name follows the header and the id */
+        ByteBuffer.wrap(content).putInt(12 + 8, Integer.MAX_VALUE);
+        Files.write(file, content);
+
+        assertThat(snapshot.load()).isEmpty();
+    }
+
+    @Test
+    public void deletedSnapshotIsEmpty() throws IOException {
+        TableSnapshot<Client> snapshot = new TableSnapshot<>(directory.resolve("clients.bin"), SnapshotCodecs.CLIENT);
+        snapshot.save(Arrays.asList(client(1L, "Jan Novák", "+420915111999")));
+        snapshot.delete();
+
+        assertThat(snapshot.load()).isEmpty();
+        assertThat(snapshotFiles()).isEmpty();
+    }
+}
@@ -0,0 +1,90 @@
+import backend.*;
+import common.IllegalEntityException;
+import common.ValidateInput;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for class ValidateInput
+ *
+ * @author agent agent@local
+ */
+public class ValidateInputTest {
+
+    private static Client client(String name, String phone) {
+        return new ClientBuilder()
+                .fullName(name)
+                .phoneNumber(phone)
+                .buildClient();
+    }
+
+    private static Property property(String price) {
+        return new PropertyBuilder()
+                .price(new BigDecimal(price))
+                .area(new BigDecimal("70.00"))
+                .address("Hybe")
+                .type(PropertyType.TWO_ROOM_FLAT)
+                .buildProperty();
+    }
+
+    @Test
+    public void validClientWithTrailingSpace() {
+        ValidateInput.validateClient(client("John Doe ", "+420 915 111"));
+    }
+
+    @Test(expected = IllegalEntityException.class)
+    public void clientWithDoubleSpace() {
+        ValidateInput.validateClient(client("John  Doe", "+420915111999"));
+    }
+
+    @Test(expected = IllegalEntityException.class)
+    public void clientWithLeadingSpace() {
+        ValidateInput.validateClient(client(" John Doe", "+420915111999"));
+    }
+
+    @Test(expected = IllegalEntityException.class)
+    public void clientWithNullName() {
+        ValidateInput.validateClient(client(null, "+420915111999"));
+    }
+
+    @Test(expected = IllegalEntityException.class)
+    public void clientWithLetterInPhone() {
+        ValidateInput.validateClient(client("John Doe", "+42091511199a"));
+    }
+
+    @Test(expected = IllegalEntityException.class)
+    public void propertyWithZeroPrice() {
+        ValidateInput.validateProperty(property("0.00"));
+    }
+
+    @Test
+    public void validateAllReportsEveryInvalidRecord() {
+        Contract contract = new ContractBuilder()
+                .client(client("John Doe", "+420915111999"))
+                .property(property("100000.00"))
+                .dateOfSigning(LocalDate.now().plusDays(1))
+                .buildContract();
+        List<Object> records = Arrays.asList(
+                client("John Doe", "+420915111999"),
+                client("Jöhn Doe", "+420915111999"),
+                property("-1"),
+                null,
+                contract);
+
+        List<ValidateInput.InvalidRecord<Object>> invalid = ValidateInput.validateAll(records);
+
+        assertThat(invalid).hasSize(4);
+        assertThat(invalid.get(0).getIndex()).isEqualTo(1);
+        assertThat(invalid.get(0).getViolation()).isEqualTo(ValidateInput.Violation.CLIENT_ACCENTS);
+        assertThat(invalid.get(1).getViolation()).isEqualTo(ValidateInput.Violation.PROPERTY_PRICE);
+        assertThat(invalid.get(2).getViolation()).isEqualTo(ValidateInput.Violation.RECORD_NULL);
+        assertThat(invalid.get(3).getViolation()).isEqualTo(ValidateInput.Violation.CONTRACT_DATE_FUTURE);
+        assertThat(invalid.get(3).getRecord()).isSameAs(contract);
+    }
+}